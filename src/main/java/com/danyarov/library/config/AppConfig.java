@@ -2,9 +2,18 @@ package com.danyarov.library.config;
 
 import com.danyarov.library.dao.*;
 import com.danyarov.library.dao.impl.*;
+import com.danyarov.library.util.CatalogVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.i18n.CookieLocaleResolver;
 import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
@@ -16,11 +25,33 @@ import java.util.Locale;
  * <p>
  * Configures core Spring beans such as DAO implementations,
  * message source for i18n, and locale resolution/interceptor settings.
+ * Also enables scheduled tasks such as the session revocation poll and
+ * configures the scheduler that runs them.
  */
 @Configuration
 @ComponentScan(basePackages = "com.danyarov.library")
 @PropertySource("classpath:application.properties")
+@EnableScheduling
 public class AppConfig {
+    private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
+
+    @Value("${execution.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${db.pool.max-size:20}")
+    private int maxPoolSize;
+
+    @Value("${db.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${users.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${jobs.scheduler-threads:4}")
+    private int schedulerThreads;
+
+    @Value("${catalog.version.poll-ms:1000}")
+    private long catalogVersionPollMillis;
 
     /**
      * Enables support for resolving placeholders in properties files.
@@ -39,28 +70,168 @@ public class AppConfig {
      */
     @Bean
     public UserDao userDao() {
-        return new UserDaoImpl();
+        return new UserDaoImpl(batchSize);
     }
 
 
     /**
      * Configures and returns the BookDao implementation bean.
      *
+     * @param retryPolicy retry policy for updates that fail on lock conflicts
      * @return a new instance of BookDaoImpl
      */
     @Bean
-    public BookDao bookDao() {
-        return new BookDaoImpl();
+    public BookDao bookDao(RetryPolicy retryPolicy) {
+        return new BookDaoImpl(batchSize, retryPolicy);
     }
 
     /**
      * Configures and returns the OrderDao implementation bean.
      *
+     * @param retryPolicy retry policy for updates that fail on lock conflicts
      * @return a new instance of OrderDaoImpl
      */
     @Bean
-    public OrderDao orderDao() {
-        return new OrderDaoImpl();
+    public OrderDao orderDao(RetryPolicy retryPolicy) {
+        return new OrderDaoImpl(batchSize, retryPolicy);
+    }
+
+    /**
+     * Configures and returns the BookCopyDao implementation bean.
+     *
+     * @return a new instance of BookCopyDaoImpl
+     */
+    @Bean
+    public BookCopyDao bookCopyDao() {
+        return new BookCopyDaoImpl();
+    }
+
+    /**
+     * Configures and returns the BookHoldDao implementation bean.
+     *
+     * @return a new instance of BookHoldDaoImpl
+     */
+    @Bean
+    public BookHoldDao bookHoldDao() {
+        return new BookHoldDaoImpl();
+    }
+
+    /**
+     * Configures and returns the RevocationDao implementation bean.
+     *
+     * @return a new instance of RevocationDaoImpl
+     */
+    @Bean
+    public RevocationDao revocationDao() {
+        return new RevocationDaoImpl();
+    }
+
+    /**
+     * Configures and returns the IdempotencyDao implementation bean.
+     *
+     * @return a new instance of IdempotencyDaoImpl
+     */
+    @Bean
+    public IdempotencyDao idempotencyDao() {
+        return new IdempotencyDaoImpl();
+    }
+
+    /**
+     * Configures and returns the JobLeaseDao implementation bean.
+     *
+     * @return a new instance of JobLeaseDaoImpl
+     */
+    @Bean
+    public JobLeaseDao jobLeaseDao() {
+        return new JobLeaseDaoImpl();
+    }
+
+    /**
+     * Configures and returns the CatalogVersionDao implementation bean.
+     *
+     * @return a new instance of CatalogVersionDaoImpl
+     */
+    @Bean
+    public CatalogVersionDao catalogVersionDao() {
+        return new CatalogVersionDaoImpl();
+    }
+
+    /**
+     * Provides the catalog version shared by services and page caches.
+     *
+     * @return a new CatalogVersion
+     */
+    @Bean
+    public CatalogVersion catalogVersion() {
+        return new CatalogVersion(catalogVersionDao(), catalogVersionPollMillis);
+    }
+
+    /**
+     * Provides the executor for work done off the request thread.
+     * <p>
+     * The build targets Java 17, so virtual threads are not used directly; with
+     * {@code execution.virtual-threads} enabled, Spring's executor creates them when the
+     * application runs on Java 21 or later. Each task then gets its own virtual thread and
+     * the connection pool is what limits concurrent database work. Enabling the property on
+     * an older runtime is a configuration error and fails startup. Otherwise a fixed pool of
+     * platform threads sized like the connection pool is used.
+     *
+     * @return the application task executor
+     */
+    @Bean
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        if (virtualThreads) {
+            if (Runtime.version().feature() < 21) {
+                throw new IllegalStateException("execution.virtual-threads requires Java 21 or later, running on "
+                        + Runtime.version());
+            }
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("app-vt-");
+            executor.setVirtualThreads(true);
+            logger.info("Running application tasks on virtual threads");
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxPoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setThreadNamePrefix("app-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Provides the scheduler that runs {@code @Scheduled} methods.
+     * <p>
+     * Spring's default scheduler has a single thread, so one long batch job would hold up
+     * every other task, including the heartbeats that keep job leases alive. A small pool
+     * ({@code jobs.scheduler-threads}) lets heartbeats and short ticks run alongside it.
+     *
+     * @return the task scheduler
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(schedulerThreads);
+        scheduler.setThreadNamePrefix("scheduler-");
+        return scheduler;
+    }
+
+    /**
+     * Provides a bounded pool for password hashing in bulk user provisioning.
+     * <p>
+     * BCrypt is deliberately CPU-heavy, so the pool has one thread per core
+     * ({@code users.hash-threads}) and extra work waits in its queue.
+     *
+     * @return the password hashing executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("hash-");
+        return executor;
     }
 
     /**
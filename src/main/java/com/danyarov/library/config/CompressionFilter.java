@@ -0,0 +1,524 @@
+package com.danyarov.library.config;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Filter compressing HTML responses on the fly.
+ * <p>
+ * The encoding is negotiated from {@code Accept-Encoding} (gzip preferred, then deflate).
+ * Only {@code text/html} responses of at least the configured minimum size are compressed,
+ * and never responses that already carry a {@code Content-Encoding}. At most the minimum
+ * size is buffered to make that decision; after that, output is compressed as it is
+ * written. {@link Deflater} instances are pooled, since creating one allocates native memory.
+ * <p>
+ * A compressed body is a different representation from the identity one, so its
+ * {@code ETag} gets the coding appended (e.g. {@code "books-7-en-gzip"}). The suffix is
+ * stripped from {@code If-None-Match} before the request reaches the application, which
+ * therefore only ever compares its own tags, and put back on the {@code ETag} of a 304
+ * answered for a suffixed tag.
+ */
+public class CompressionFilter implements Filter {
+
+    private static final String[] STATIC_PREFIXES = {"/css/", "/js/", "/static/"};
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final int minSize;
+    private final DeflaterPool gzipPool;
+    private final DeflaterPool deflatePool;
+
+    /**
+     * Creates the filter.
+     *
+     * @param minSize  minimum body size in bytes worth compressing
+     * @param level    deflate compression level (1-9)
+     * @param poolSize maximum number of idle deflaters kept per encoding
+     */
+    public CompressionFilter(int minSize, int level, int poolSize) {
+        this.minSize = minSize;
+        this.gzipPool = new DeflaterPool(level, true, poolSize);
+        this.deflatePool = new DeflaterPool(level, false, poolSize);
+    }
+
+    /**
+     * Wraps the response in a compressing response when the client accepts it.
+     *
+     * @param request  the ServletRequest
+     * @param response the ServletResponse
+     * @param chain    the FilterChain to pass control to the next filter
+     * @throws IOException      if an I/O error occurs during filtering
+     * @throws ServletException if the request cannot be handled
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (isStaticResource(httpRequest) || "HEAD".equals(httpRequest.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        httpResponse.setHeader("Vary", "Accept-Encoding");
+        String encoding = negotiate(httpRequest.getHeader("Accept-Encoding"));
+        if (encoding == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String ifNoneMatch = httpRequest.getHeader("If-None-Match");
+        String stripped = stripCodings(ifNoneMatch);
+        String matchedCoding = stripped == ifNoneMatch ? null : encoding;
+        if (matchedCoding != null) {
+            httpRequest = new IfNoneMatchRequest(httpRequest, stripped);
+        }
+
+        CompressingResponse compressing = new CompressingResponse(httpResponse, encoding, matchedCoding);
+        try {
+            chain.doFilter(httpRequest, compressing);
+            compressing.finish();
+        } finally {
+            compressing.release();
+        }
+    }
+
+    private boolean isStaticResource(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : STATIC_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends a content coding to an entity tag, keeping its weak prefix and quotes.
+     *
+     * @param etag   entity tag as sent in the {@code ETag} header
+     * @param coding content coding, e.g. "gzip"
+     * @return the tag of the encoded representation
+     */
+    static String withCoding(String etag, String coding) {
+        return etag.endsWith("\"")
+                ? etag.substring(0, etag.length() - 1) + "-" + coding + "\""
+                : etag + "-" + coding;
+    }
+
+    /**
+     * Removes the coding suffixes added by {@link #withCoding} from an {@code If-None-Match} header.
+     *
+     * @param ifNoneMatch header value, may be null
+     * @return the header with suffixes removed, or the same instance if there were none
+     */
+    static String stripCodings(String ifNoneMatch) {
+        if (ifNoneMatch == null || (!ifNoneMatch.contains("-gzip") && !ifNoneMatch.contains("-deflate"))) {
+            return ifNoneMatch;
+        }
+        return ifNoneMatch.replaceAll("-(?:gzip|deflate)(\"?)(?=\\s*(?:,|$))", "$1");
+    }
+
+    /**
+     * Picks the response encoding from an {@code Accept-Encoding} header.
+     *
+     * @param acceptEncoding header value, may be null
+     * @return "gzip", "deflate" or null if neither is acceptable
+     */
+    private static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens.length > 1 && tokens[1].trim().matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            String coding = tokens[0].trim();
+            if (coding.equals("gzip") || coding.equals("*")) {
+                return "gzip";
+            }
+            deflate |= coding.equals("deflate");
+        }
+        return deflate ? "deflate" : null;
+    }
+
+    /**
+     * Request exposing an {@code If-None-Match} header with coding suffixes removed.
+     */
+    private static final class IfNoneMatchRequest extends HttpServletRequestWrapper {
+        private final String ifNoneMatch;
+
+        IfNoneMatchRequest(HttpServletRequest request, String ifNoneMatch) {
+            super(request);
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return "If-None-Match".equalsIgnoreCase(name) ? ifNoneMatch : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return "If-None-Match".equalsIgnoreCase(name)
+                    ? Collections.enumeration(Collections.singletonList(ifNoneMatch))
+                    : super.getHeaders(name);
+        }
+    }
+
+    /**
+     * Bounded pool of deflaters sharing one configuration.
+     */
+    private static final class DeflaterPool {
+        private final int level;
+        private final boolean nowrap;
+        private final int maxIdle;
+        private final ConcurrentLinkedQueue<Deflater> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        DeflaterPool(int level, boolean nowrap, int maxIdle) {
+            this.level = level;
+            this.nowrap = nowrap;
+            this.maxIdle = maxIdle;
+        }
+
+        Deflater acquire() {
+            Deflater deflater = idle.poll();
+            if (deflater == null) {
+                return new Deflater(level, nowrap);
+            }
+            idleCount.decrementAndGet();
+            return deflater;
+        }
+
+        void release(Deflater deflater) {
+            deflater.reset();
+            if (idleCount.incrementAndGet() <= maxIdle) {
+                idle.offer(deflater);
+            } else {
+                idleCount.decrementAndGet();
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Response wrapper that decides between identity and compressed output on the first
+     * bytes written and then streams through a deflater.
+     */
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+        private static final int UNDECIDED = 0;
+        private static final int IDENTITY = 1;
+        private static final int COMPRESSED = 2;
+
+        private final String encoding;
+        /** Coding whose suffix was stripped from If-None-Match, or null */
+        private final String matchedCoding;
+        private final byte[] pending;
+        private int pendingLength;
+        private long declaredLength = -1;
+        private int state = UNDECIDED;
+
+        private ServletOutputStream target;
+        private Deflater deflater;
+        private CRC32 crc;
+        private long inputLength;
+        private byte[] deflateBuffer;
+
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response, String encoding, String matchedCoding) {
+            super(response);
+            this.encoding = encoding;
+            this.matchedCoding = matchedCoding;
+            this.pending = new byte[minSize];
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                outputStream = new CompressingOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                outputStream = new CompressingOutputStream();
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (state == UNDECIDED) {
+                declaredLength = length;
+            } else if (state == IDENTITY) {
+                super.setContentLengthLong(length);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else if ("ETag".equalsIgnoreCase(name) && state == COMPRESSED && value != null) {
+                super.setHeader(name, withCoding(value, encoding));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state != UNDECIDED) {
+                flushStream();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (state == UNDECIDED) {
+                pendingLength = 0;
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            // Throws if already committed, in which case nothing here changes
+            super.reset();
+            pendingLength = 0;
+            declaredLength = -1;
+            state = UNDECIDED;
+            target = null;
+            crc = null;
+            inputLength = 0;
+            outputStream = null;
+            writer = null;
+            release();
+            super.setHeader("Vary", "Accept-Encoding");
+        }
+
+        /**
+         * Whether the response may be compressed, based on what has been set so far.
+         */
+        private boolean isCompressible() {
+            String contentType = getContentType();
+            int status = getStatus();
+            return contentType != null && contentType.startsWith("text/html")
+                    && getHeader("Content-Encoding") == null
+                    && status >= 200 && status < 300 && status != SC_NO_CONTENT && status != SC_PARTIAL_CONTENT
+                    && (declaredLength < 0 || declaredLength >= minSize);
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (state == UNDECIDED) {
+                if (!isCompressible()) {
+                    startIdentity();
+                } else if (declaredLength < 0 && pendingLength + len < minSize) {
+                    System.arraycopy(b, off, pending, pendingLength, len);
+                    pendingLength += len;
+                    return;
+                } else {
+                    startCompression();
+                }
+            }
+
+            if (state == IDENTITY) {
+                target.write(b, off, len);
+            } else {
+                deflate(b, off, len);
+            }
+        }
+
+        private void startIdentity() throws IOException {
+            state = IDENTITY;
+            if (declaredLength >= 0) {
+                super.setContentLengthLong(declaredLength);
+            }
+            target = super.getOutputStream();
+            target.write(pending, 0, pendingLength);
+        }
+
+        private void startCompression() throws IOException {
+            state = COMPRESSED;
+            super.setHeader("Content-Encoding", encoding);
+            String etag = getHeader("ETag");
+            if (etag != null) {
+                super.setHeader("ETag", withCoding(etag, encoding));
+            }
+            target = super.getOutputStream();
+            deflateBuffer = new byte[8192];
+            if ("gzip".equals(encoding)) {
+                deflater = gzipPool.acquire();
+                crc = new CRC32();
+                target.write(GZIP_HEADER);
+            } else {
+                deflater = deflatePool.acquire();
+            }
+            deflate(pending, 0, pendingLength);
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            inputLength += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                drain(Deflater.NO_FLUSH);
+            }
+        }
+
+        private void drain(int flush) throws IOException {
+            int count = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, flush);
+            if (count > 0) {
+                target.write(deflateBuffer, 0, count);
+            }
+        }
+
+        private void flushStream() throws IOException {
+            if (state == COMPRESSED) {
+                int count;
+                do {
+                    count = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+                    target.write(deflateBuffer, 0, count);
+                } while (count == deflateBuffer.length);
+            }
+            target.flush();
+        }
+
+        /**
+         * Completes the body: writes buffered identity output or the compressed trailer.
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state == UNDECIDED) {
+                if (outputStream == null && pendingLength == 0) {
+                    // Nothing was written through this wrapper, e.g. a redirect or 304
+                    if (declaredLength >= 0) {
+                        super.setContentLengthLong(declaredLength);
+                    }
+                    String etag = getHeader("ETag");
+                    if (getStatus() == SC_NOT_MODIFIED && matchedCoding != null && etag != null) {
+                        super.setHeader("ETag", withCoding(etag, matchedCoding));
+                    }
+                    return;
+                }
+                if (declaredLength < 0) {
+                    declaredLength = pendingLength;
+                }
+                startIdentity();
+                return;
+            }
+            if (state == COMPRESSED) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    drain(Deflater.NO_FLUSH);
+                }
+                if (crc != null) {
+                    writeIntLE((int) crc.getValue());
+                    writeIntLE((int) inputLength);
+                }
+            }
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            target.write(value & 0xff);
+            target.write((value >> 8) & 0xff);
+            target.write((value >> 16) & 0xff);
+            target.write((value >> 24) & 0xff);
+        }
+
+        /**
+         * Returns the deflater to its pool.
+         */
+        void release() {
+            if (deflater != null) {
+                ("gzip".equals(encoding) ? gzipPool : deflatePool).release(deflater);
+                deflater = null;
+            }
+        }
+
+        private final class CompressingOutputStream extends ServletOutputStream {
+            private final byte[] single = new byte[1];
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                single[0] = (byte) b;
+                CompressingResponse.this.write(single, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (state != UNDECIDED) {
+                    flushStream();
+                }
+            }
+        }
+    }
+}
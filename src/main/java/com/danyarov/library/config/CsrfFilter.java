@@ -1,25 +1,65 @@
 package com.danyarov.library.config;
 
+import com.danyarov.library.model.User;
+import com.danyarov.library.util.SessionUtil;
 import jakarta.servlet.*;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.Base64;
 
 /**
  * Filter for Cross-Site Request Forgery (CSRF) protection.
  * <p>
- * This filter intercepts all HTTP requests and ensures that any non-GET request
- * contains a valid CSRF token that matches the one stored in the user's session.
- * The token is made available to views for inclusion in forms.
+ * The filter keeps no server-side state. For a signed-in user the token is an HMAC of
+ * the user ID and the sign-in's session key, so it can be recomputed on any node but
+ * changes with every login and dies with the session it was issued for. For anonymous visitors it uses a
+ * signed double-submit cookie: the token is written to a cookie and must come back
+ * unchanged in the form. Either token is only created when a view actually renders
+ * it, so anonymous page views and crawler traffic never get a token, a cookie or a session.
+ * Static resources bypass the filter entirely.
+ * <p>
+ * Any request other than GET, HEAD or OPTIONS must carry a valid token in the
+ * {@code _csrf} parameter.
  */
 public class CsrfFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(CsrfFilter.class);
 
     private static final String CSRF_TOKEN_ATTR = "csrfToken";
     private static final String CSRF_TOKEN_PARAM = "_csrf";
+    private static final String CSRF_COOKIE = "XSRF-TOKEN";
+    private static final String[] STATIC_PREFIXES = {"/css/", "/js/", "/static/", "/favicon.ico"};
+
     private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Creates the filter.
+     *
+     * @param secret HMAC secret; must be identical on every node
+     */
+    public CsrfFilter(byte[] secret) {
+        SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+    }
 
     /**
      * Intercepts requests to handle CSRF token generation and validation.
@@ -36,27 +76,34 @@ public class CsrfFilter implements Filter {
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
-        HttpSession session = httpRequest.getSession();
 
-        // Generate token if not exists
-        String token = (String) session.getAttribute(CSRF_TOKEN_ATTR);
-        if (token == null) {
-            token = generateToken();
-            session.setAttribute(CSRF_TOKEN_ATTR, token);
+        if (isStaticResource(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
         }
 
-        // Make token available to views
-        httpRequest.setAttribute(CSRF_TOKEN_ATTR, token);
+        User user = SessionUtil.getCurrentUser(httpRequest);
+        String sessionKey = SessionUtil.getSessionKey(httpRequest);
+        String cookieToken = user == null ? readCookie(httpRequest) : null;
+
+        // Make token available to views; it is only generated if a view asks for it
+        httpRequest.setAttribute(CSRF_TOKEN_ATTR,
+                new LazyToken(httpRequest, httpResponse, user, sessionKey, cookieToken));
 
-        // Skip CSRF check for GET requests
-        if ("GET".equalsIgnoreCase(httpRequest.getMethod())) {
+        // Skip CSRF check for safe methods
+        String method = httpRequest.getMethod();
+        if ("GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method)
+                || "OPTIONS".equalsIgnoreCase(method)) {
             chain.doFilter(request, response);
             return;
         }
 
-        // Validate token for POST requests
+        // Validate token for state-changing requests
         String requestToken = httpRequest.getParameter(CSRF_TOKEN_PARAM);
-        if (requestToken == null || !requestToken.equals(token)) {
+        boolean valid = user != null
+                ? matches(requestToken, userToken(user, sessionKey))
+                : matches(requestToken, cookieToken) && isSigned(cookieToken);
+        if (!valid) {
             httpResponse.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid CSRF token");
             return;
         }
@@ -65,13 +112,124 @@ public class CsrfFilter implements Filter {
     }
 
     /**
-     * Generates a secure random token and encodes it in Base64.
+     * Checks whether the request targets a static resource.
+     *
+     * @param request the HTTP request
+     * @return true for CSS, JS and other static paths
+     */
+    private boolean isStaticResource(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : STATIC_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Derives the token of a signed-in user.
+     *
+     * @param user       the current user
+     * @param sessionKey key of the user's sign-in, see {@link SessionUtil#getSessionKey}
+     * @return HMAC of the user ID and session key, Base64url encoded, or null without a session key
+     */
+    private String userToken(User user, String sessionKey) {
+        return sessionKey != null ? sign("u:" + user.getId() + ":" + sessionKey) : null;
+    }
+
+    /**
+     * Generates a signed anonymous token of the form {@code nonce.signature}.
      *
-     * @return a securely generated CSRF token
+     * @return a new anonymous token
      */
     private String generateToken() {
-        byte[] bytes = new byte[32];
+        byte[] bytes = new byte[16];
         random.nextBytes(bytes);
-        return Base64.getEncoder().encodeToString(bytes);
+        String nonce = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        return nonce + "." + sign("a:" + nonce);
+    }
+
+    /**
+     * Checks the signature of an anonymous token.
+     *
+     * @param token token from the cookie
+     * @return true if the token was issued by a node sharing our secret
+     */
+    private boolean isSigned(String token) {
+        int dot = token.indexOf('.');
+        return dot > 0 && matches(token.substring(dot + 1), sign("a:" + token.substring(0, dot)));
+    }
+
+    private String sign(String value) {
+        byte[] mac = macs.get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac);
+    }
+
+    private static boolean matches(String actual, String expected) {
+        return actual != null && expected != null && MessageDigest.isEqual(
+                actual.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (CSRF_COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Token exposed to views as {@code ${csrfToken}}.
+     * <p>
+     * The value is computed on first use. For anonymous visitors without a valid
+     * cookie this also issues the cookie, which works because forms are rendered
+     * well before the response buffer is flushed.
+     */
+    private class LazyToken {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final User user;
+        private final String sessionKey;
+        private String value;
+
+        LazyToken(HttpServletRequest request, HttpServletResponse response, User user, String sessionKey,
+                  String cookieToken) {
+            this.request = request;
+            this.response = response;
+            this.user = user;
+            this.sessionKey = sessionKey;
+            this.value = cookieToken != null && isSigned(cookieToken) ? cookieToken : null;
+        }
+
+        @Override
+        public String toString() {
+            if (value != null) {
+                return value;
+            }
+            if (user != null) {
+                value = userToken(user, sessionKey);
+                return value;
+            }
+
+            value = generateToken();
+            if (response.isCommitted()) {
+                logger.warn("Response already committed; cannot issue CSRF cookie for {}", request.getRequestURI());
+                return value;
+            }
+            Cookie cookie = new Cookie(CSRF_COOKIE, value);
+            String path = request.getContextPath();
+            cookie.setPath(path.isEmpty() ? "/" : path);
+            cookie.setHttpOnly(true);
+            cookie.setSecure(request.isSecure());
+            cookie.setAttribute("SameSite", "Lax");
+            response.addCookie(cookie);
+            return value;
+        }
     }
-}
\ No newline at end of file
+}
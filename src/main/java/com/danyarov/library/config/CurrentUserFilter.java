@@ -0,0 +1,61 @@
+package com.danyarov.library.config;
+
+import com.danyarov.library.dao.RetryPolicy;
+import com.danyarov.library.model.User;
+import com.danyarov.library.util.SessionManager;
+import com.danyarov.library.util.SessionUtil;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Filter that resolves the authenticated user once per request.
+ * <p>
+ * The user is exposed as the {@code currentUser} request attribute, which controllers,
+ * interceptors and views read instead of touching the HTTP session directly. The filter
+ * also opens the request's {@link RetryPolicy} budget, shared by every database operation
+ * the request makes.
+ */
+public class CurrentUserFilter implements Filter {
+
+    private final SessionManager sessionManager;
+
+    /**
+     * Creates the filter.
+     *
+     * @param sessionManager resolves the user for the configured session mode
+     */
+    public CurrentUserFilter(SessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+    }
+
+    /**
+     * Resolves the current user and continues the chain.
+     *
+     * @param request  the ServletRequest
+     * @param response the ServletResponse
+     * @param chain    the FilterChain to pass control to the next filter
+     * @throws IOException      if an I/O error occurs during filtering
+     * @throws ServletException if the request cannot be handled
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        RetryPolicy.beginRequest();
+        try {
+            User user = sessionManager.resolveCurrentUser(httpRequest, httpResponse);
+            if (user != null) {
+                httpRequest.setAttribute(SessionUtil.CURRENT_USER_ATTRIBUTE, user);
+            }
+
+            chain.doFilter(request, response);
+        } finally {
+            RetryPolicy.endRequest();
+        }
+    }
+}
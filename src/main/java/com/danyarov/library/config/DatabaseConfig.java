@@ -1,21 +1,33 @@
 package com.danyarov.library.config;
 
 import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.dao.RetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 
 /**
  * Configuration class for database connection pool setup.
  * <p>
  * Initializes and exposes a singleton {@link ConnectionPool} instance
  * based on values from the application properties file.
+ * <p>
+ * Also provides the {@link RetryPolicy} for lock conflicts, whose counters are
+ * published over JMX as {@code com.danyarov.library:type=RetryPolicy}.
  */
 @Configuration
 public class DatabaseConfig {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
+    private static final String RETRY_MBEAN_NAME = "com.danyarov.library:type=RetryPolicy";
 
     @Value("${db.url}")
     private String dbUrl;
@@ -32,7 +44,20 @@ public class DatabaseConfig {
     @Value("${db.pool.max-size:20}")
     private int maxPoolSize;
 
+    @Value("${db.pool.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMillis;
+
+    @Value("${db.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${db.retry.base-delay-ms:20}")
+    private long retryBaseDelayMillis;
+
+    @Value("${db.retry.max-delay-ms:500}")
+    private long retryMaxDelayMillis;
+
     private ConnectionPool connectionPool;
+    private RetryPolicy retryPolicy;
 
     /**
      * Provides the {@link ConnectionPool} bean to the Spring container.
@@ -44,6 +69,16 @@ public class DatabaseConfig {
         return connectionPool;
     }
 
+    /**
+     * Provides the {@link RetryPolicy} bean shared by the pool and the DAOs.
+     *
+     * @return the configured RetryPolicy instance
+     */
+    @Bean
+    public RetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+
     /**
      * Initializes the {@link ConnectionPool} after dependency injection.
      * This method is invoked automatically after bean creation.
@@ -51,8 +86,27 @@ public class DatabaseConfig {
     @PostConstruct
     public void init() {
         connectionPool = ConnectionPool.getInstance(
-                dbUrl, dbUsername, dbPassword, initialPoolSize, maxPoolSize
+                dbUrl, dbUsername, dbPassword, initialPoolSize, maxPoolSize, acquireTimeoutMillis
         );
+        retryPolicy = new RetryPolicy(retryMaxAttempts, retryBaseDelayMillis, retryMaxDelayMillis);
+        connectionPool.setRetryPolicy(retryPolicy);
+        registerRetryMBean();
+    }
+
+    /**
+     * Publishes the retry counters over JMX, replacing those of an earlier deployment.
+     */
+    private void registerRetryMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(RETRY_MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(retryPolicy, name);
+        } catch (JMException e) {
+            logger.warn("Could not register retry metrics over JMX", e);
+        }
     }
 
     /**
@@ -61,6 +115,15 @@ public class DatabaseConfig {
      */
     @PreDestroy
     public void destroy() {
+        try {
+            ObjectName name = new ObjectName(RETRY_MBEAN_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not unregister retry metrics", e);
+        }
         if (connectionPool != null) {
             connectionPool.shutdown();
         }
@@ -0,0 +1,145 @@
+package com.danyarov.library.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * Resource resolver that applies a long-lived cache policy to fingerprinted URLs only.
+ * <p>
+ * It sits in front of {@code VersionResourceResolver}. A request resolves to a file with a
+ * different name only when the resolver stripped a verified content hash from it
+ * ({@code style-<md5>.css} to {@code style.css}); such resources get the given
+ * {@code Cache-Control} header. Plain URLs keep the handler's own policy, so a file changed
+ * in a redeploy is picked up by clients that requested it without a hash.
+ */
+public class FingerprintCacheControlResolver extends AbstractResourceResolver {
+
+    private final String cacheControl;
+
+    /**
+     * Creates a resolver adding the given policy to fingerprinted resources.
+     *
+     * @param cacheControl policy for URLs carrying a content hash
+     */
+    public FingerprintCacheControlResolver(CacheControl cacheControl) {
+        this.cacheControl = cacheControl.getHeaderValue();
+    }
+
+    @Override
+    @Nullable
+    protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || StringUtils.getFilename(requestPath).equals(resource.getFilename())) {
+            return resource;
+        }
+        return new FingerprintedResource(resource, cacheControl);
+    }
+
+    @Override
+    @Nullable
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    /**
+     * Delegating resource adding a {@code Cache-Control} header to those of the original.
+     */
+    private static final class FingerprintedResource extends AbstractResource implements HttpResource {
+
+        private final Resource original;
+        private final String cacheControl;
+
+        private FingerprintedResource(Resource original, String cacheControl) {
+            this.original = original;
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource httpResource) {
+                headers.putAll(httpResource.getResponseHeaders());
+            }
+            headers.setCacheControl(cacheControl);
+            return headers;
+        }
+
+        @Override
+        public boolean exists() {
+            return original.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return original.isReadable();
+        }
+
+        @Override
+        public boolean isFile() {
+            return original.isFile();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return original.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return original.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return original.getFile();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return original.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return original.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        @Nullable
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return original.getDescription();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return original.getInputStream();
+        }
+    }
+}
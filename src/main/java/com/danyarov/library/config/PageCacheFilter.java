@@ -0,0 +1,391 @@
+package com.danyarov.library.config;
+
+import com.danyarov.library.util.CatalogVersion;
+import com.danyarov.library.util.SessionUtil;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full-page cache for anonymous catalog pages.
+ * <p>
+ * {@code GET /books} and {@code GET /books/{id}} look the same to every anonymous visitor
+ * with the same locale, so the rendered HTML is kept in memory keyed by URL and locale.
+ * Each entry holds the encoded bytes and, when smaller, a gzipped copy. Hits are written
+ * straight to the response without touching the DAOs or Thymeleaf.
+ * <p>
+ * The cache is bypassed for signed-in users, locale switches and pending flash messages.
+ * Only plain {@code 200 text/html} responses that set no cookie are stored, together with
+ * their {@code ETag}, {@code Last-Modified} and {@code Cache-Control} headers, so conditional
+ * requests are still answered with 304 on a hit. The whole cache is dropped when the
+ * {@link CatalogVersion} changes, which happens on every node within the version's poll
+ * interval of a change made anywhere in the cluster. The TTL is a further upper bound.
+ * <p>
+ * Hits take no lock: entries live in a {@link ConcurrentHashMap} and record when they were
+ * last served. Only a store that pushes the cache past its size takes the eviction lock, and
+ * then drops the least recently served entries, so eviction order is close to, but not
+ * exactly, LRU.
+ * <p>
+ * Every cacheable response, hit or miss, carries {@code Vary: Accept-Encoding}, since a hit
+ * may be served gzipped. The filter must run after {@link CompressionFilter}: a miss is
+ * captured before compression, and a gzipped hit relies on {@code CompressionFilter} leaving
+ * responses that already carry a {@code Content-Encoding} alone.
+ */
+public class PageCacheFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(PageCacheFilter.class);
+
+    private static final Pattern CACHEABLE_PATH = Pattern.compile("/books(/\\d+)?/?");
+    private static final String FLASH_MAPS_ATTRIBUTE = SessionFlashMapManager.class.getName() + ".FLASH_MAPS";
+
+    private final LocaleResolver localeResolver;
+    private final CatalogVersion catalogVersion;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private volatile long cachedVersion;
+
+    /**
+     * Creates the filter.
+     *
+     * @param localeResolver resolves the locale that is part of the cache key
+     * @param catalogVersion version whose change invalidates all entries
+     * @param maxEntries     maximum number of cached pages; roughly the least recently used are evicted
+     * @param ttlSeconds     maximum age of a cached page
+     */
+    public PageCacheFilter(LocaleResolver localeResolver, CatalogVersion catalogVersion,
+                           int maxEntries, long ttlSeconds) {
+        this.localeResolver = localeResolver;
+        this.catalogVersion = catalogVersion;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cachedVersion = catalogVersion.get();
+    }
+
+    /**
+     * Serves cacheable requests from memory or renders and stores them.
+     *
+     * @param request  the ServletRequest
+     * @param response the ServletResponse
+     * @param chain    the FilterChain to pass control to the next filter
+     * @throws IOException      if an I/O error occurs during filtering
+     * @throws ServletException if the request cannot be handled
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (!isCacheable(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        httpResponse.setHeader("Vary", "Accept-Encoding");
+        long version = catalogVersion.get();
+        String key = cacheKey(httpRequest);
+        Entry entry = lookup(key, version);
+        if (entry != null) {
+            serve(entry, httpRequest, httpResponse);
+            return;
+        }
+
+        CapturingResponse capture = new CapturingResponse(httpResponse);
+        chain.doFilter(request, capture);
+        byte[] body = capture.toByteArray();
+
+        // Skip storing if the catalog changed while rendering
+        if (capture.isStorable() && version == catalogVersion.get()) {
+            store(key, new Entry(body, gzip(body), capture.getContentType(),
+                    httpResponse.getHeader("Content-Language"), httpResponse.getHeader("ETag"),
+                    httpResponse.getHeader("Last-Modified"), httpResponse.getHeader("Cache-Control"),
+                    version, System.currentTimeMillis()));
+        }
+
+        if (body.length > 0) {
+            httpResponse.setContentLength(body.length);
+            httpResponse.getOutputStream().write(body);
+        }
+    }
+
+    /**
+     * Checks whether the request may be answered from the cache.
+     *
+     * @param request the HTTP request
+     * @return true for anonymous catalog page views
+     */
+    private boolean isCacheable(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())
+                || SessionUtil.getCurrentUser(request) != null
+                || request.getParameter("lang") != null) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!CACHEABLE_PATH.matcher(path).matches()) {
+            return false;
+        }
+        HttpSession session = request.getSession(false);
+        return session == null || session.getAttribute(FLASH_MAPS_ATTRIBUTE) == null;
+    }
+
+    private String cacheKey(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String locale = localeResolver.resolveLocale(request).toLanguageTag();
+        return request.getRequestURI() + (query != null ? "?" + query : "") + "|" + locale;
+    }
+
+    private Entry lookup(String key, long version) {
+        if (version != cachedVersion) {
+            // Racing threads may both clear; entries also carry their version, so none is served stale
+            cachedVersion = version;
+            cache.clear();
+            logger.debug("Catalog changed; page cache cleared");
+            return null;
+        }
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (entry.version != version || now - entry.createdAt > ttlMillis) {
+            cache.remove(key, entry);
+            return null;
+        }
+        entry.lastUsed = System.nanoTime();
+        return entry;
+    }
+
+    /**
+     * Stores a page and, if the cache grew past its size, evicts the least recently served pages.
+     * A store that finds another thread evicting leaves the work to it.
+     */
+    private void store(String key, Entry entry) {
+        cache.put(key, entry);
+        if (cache.size() <= maxEntries || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (cache.size() > maxEntries) {
+                Map.Entry<String, Entry> eldest = null;
+                for (Map.Entry<String, Entry> candidate : cache.entrySet()) {
+                    if (eldest == null || candidate.getValue().lastUsed < eldest.getValue().lastUsed) {
+                        eldest = candidate;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                cache.remove(eldest.getKey(), eldest.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void serve(Entry entry, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        setHeaderIfPresent(response, "ETag", entry.etag);
+        setHeaderIfPresent(response, "Last-Modified", entry.lastModified);
+        setHeaderIfPresent(response, "Cache-Control", entry.cacheControl);
+        if (entry.etag != null && isCurrent(request.getHeader("If-None-Match"), entry.etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(entry.contentType);
+        if (entry.contentLanguage != null) {
+            response.setHeader("Content-Language", entry.contentLanguage);
+        }
+
+        byte[] body = entry.body;
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (entry.gzipped != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            if (entry.etag != null) {
+                response.setHeader("ETag", CompressionFilter.withCoding(entry.etag, "gzip"));
+            }
+            body = entry.gzipped;
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static void setHeaderIfPresent(HttpServletResponse response, String name, String value) {
+        if (value != null) {
+            response.setHeader(name, value);
+        }
+    }
+
+    /**
+     * Evaluates an {@code If-None-Match} header using weak comparison.
+     *
+     * @param ifNoneMatch header value, may be null
+     * @param etag        entity tag of the cached page
+     * @return true if the client already has this version
+     */
+    private static boolean isCurrent(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(opaque) || candidate.equals("W/" + opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compresses a page body.
+     *
+     * @param body the encoded page
+     * @return gzipped bytes, or null if compression does not save space
+     */
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.size() < body.length ? out.toByteArray() : null;
+    }
+
+    /**
+     * Cached page.
+     */
+    private static final class Entry {
+        private final byte[] body;
+        private final byte[] gzipped;
+        private final String contentType;
+        private final String contentLanguage;
+        private final String etag;
+        private final String lastModified;
+        private final String cacheControl;
+        /** Catalog version the page was rendered at */
+        private final long version;
+        private final long createdAt;
+        /** {@link System#nanoTime()} when the page was stored or last served; read by eviction */
+        private volatile long lastUsed = System.nanoTime();
+
+        Entry(byte[] body, byte[] gzipped, String contentType, String contentLanguage, String etag,
+              String lastModified, String cacheControl, long version, long createdAt) {
+            this.body = body;
+            this.gzipped = gzipped;
+            this.contentType = contentType;
+            this.contentLanguage = contentLanguage;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.cacheControl = cacheControl;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Response wrapper that buffers the body and records whether it may be cached.
+     * Headers and status go straight to the wrapped response.
+     */
+    private static class CapturingResponse extends HttpServletResponseWrapper {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean cookieSet;
+
+        CapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public void write(int b) {
+                        buffer.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        buffer.write(b, off, len);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws UnsupportedEncodingException {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(buffer, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+            // Everything is written to the real response once rendering is complete
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            cookieSet = true;
+            super.addCookie(cookie);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            cookieSet |= "Set-Cookie".equalsIgnoreCase(name);
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            cookieSet |= "Set-Cookie".equalsIgnoreCase(name);
+            super.addHeader(name, value);
+        }
+
+        boolean isStorable() {
+            String contentType = getContentType();
+            return getStatus() == HttpServletResponse.SC_OK && !cookieSet
+                    && contentType != null && contentType.startsWith("text/html");
+        }
+
+        byte[] toByteArray() {
+            if (writer != null) {
+                writer.flush();
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
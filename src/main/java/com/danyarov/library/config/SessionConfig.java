@@ -0,0 +1,102 @@
+package com.danyarov.library.config;
+
+import com.danyarov.library.service.RevocationService;
+import com.danyarov.library.util.SessionManager;
+import com.danyarov.library.util.SignedSessionCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Configuration class for session handling.
+ * <p>
+ * {@code session.mode=server} (default) keeps the user in the servlet container's session;
+ * {@code session.mode=signed} keeps a signed token in a cookie so that requests can be
+ * served by any node without sticky sessions or session replication.
+ */
+@Configuration
+public class SessionConfig {
+    private static final Logger logger = LoggerFactory.getLogger(SessionConfig.class);
+
+    @Value("${session.mode:server}")
+    private String mode;
+
+    @Value("${session.token.secret:}")
+    private String secret;
+
+    @Value("${session.token.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${session.cookie.name:LIBSESSION}")
+    private String cookieName;
+
+    @Value("${session.cookie.secure:false}")
+    private boolean secureCookie;
+
+    @Value("${csrf.secret:}")
+    private String csrfSecret;
+
+    /**
+     * Provides the session manager for the configured mode.
+     *
+     * @param revocationService source of revoked sessions
+     * @return configured SessionManager
+     */
+    @Bean
+    public SessionManager sessionManager(RevocationService revocationService) {
+        SessionManager.Mode sessionMode = SessionManager.Mode.fromString(mode);
+        logger.info("Using {} session mode", sessionMode);
+        return new SessionManager(sessionMode, new SignedSessionCodec(secretBytes(sessionMode)),
+                cookieName, ttlMinutes * 60, secureCookie, revocationService);
+    }
+
+    /**
+     * Provides the filter resolving the current user; registered in {@link WebAppInitializer}.
+     *
+     * @param sessionManager resolves the user for the configured session mode
+     * @return CurrentUserFilter instance
+     */
+    @Bean
+    public CurrentUserFilter currentUserFilter(SessionManager sessionManager) {
+        return new CurrentUserFilter(sessionManager);
+    }
+
+    /**
+     * Provides the stateless CSRF filter; registered in {@link WebAppInitializer}.
+     * Falls back to the session token secret when no separate CSRF secret is set.
+     *
+     * @return CsrfFilter instance
+     */
+    @Bean
+    public CsrfFilter csrfFilter() {
+        String key = !csrfSecret.isBlank() ? csrfSecret : !secret.isBlank() ? secret : randomSecret();
+        return new CsrfFilter(SignedSessionCodec.keyBytes("csrf:" + key));
+    }
+
+    /**
+     * Returns the configured token secret, or a random one if none is set.
+     * A random secret only works on a single node and does not survive restarts.
+     */
+    private byte[] secretBytes(SessionManager.Mode sessionMode) {
+        if (!secret.isBlank()) {
+            return SignedSessionCodec.keyBytes(secret);
+        }
+        if (sessionMode == SessionManager.Mode.SIGNED) {
+            logger.warn("session.token.secret is not set; using a random secret valid for this node only");
+        }
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+
+    private static String randomSecret() {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return Base64.getEncoder().encodeToString(random);
+    }
+}
@@ -0,0 +1,116 @@
+package com.danyarov.library.config;
+
+import jakarta.servlet.ServletContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateInputException;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Parses all view templates into the Thymeleaf template cache at startup.
+ * <p>
+ * Each template under the view prefix is run once through the engine's public
+ * {@link ITemplateEngine#process} API. Thymeleaf caches the parsed template before processing
+ * it, so a processing failure caused by the missing request data is expected and only logged
+ * at debug level. A template that cannot be read or parsed is logged as a warning, since it
+ * would fail for real requests too. Fragments inserted with {@code th:replace}/{@code th:insert}
+ * are cached per owner template and are parsed with the first request for each page.
+ * Does nothing when template caching is disabled.
+ */
+public class TemplateWarmer implements ApplicationListener<ContextRefreshedEvent> {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateWarmer.class);
+
+    private final ITemplateEngine templateEngine;
+    private final ServletContext servletContext;
+    private final String prefix;
+    private final String suffix;
+    private final boolean enabled;
+
+    /**
+     * Creates the warmer.
+     *
+     * @param templateEngine the engine whose cache is filled
+     * @param servletContext used to list template files
+     * @param prefix         view prefix, e.g. {@code /WEB-INF/views/}
+     * @param suffix         view suffix, e.g. {@code .html}
+     * @param enabled        whether template caching is enabled
+     */
+    public TemplateWarmer(ITemplateEngine templateEngine, ServletContext servletContext,
+                          String prefix, String suffix, boolean enabled) {
+        this.templateEngine = templateEngine;
+        this.servletContext = servletContext;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Warms the template cache once the application context is ready.
+     *
+     * @param event the context refreshed event
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!enabled) {
+            logger.info("Template caching disabled; templates are reloaded on every request");
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<String> templates = new ArrayList<>();
+        collectTemplates(prefix, templates);
+
+        int failed = 0;
+        for (String template : templates) {
+            if (!parse(template)) {
+                failed++;
+            }
+        }
+
+        logger.info("Parsed {} of {} templates in {} ms", templates.size() - failed, templates.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void collectTemplates(String path, List<String> templates) {
+        Set<String> paths = servletContext.getResourcePaths(path);
+        if (paths == null) {
+            return;
+        }
+        for (String resource : new TreeSet<>(paths)) {
+            if (resource.endsWith("/")) {
+                collectTemplates(resource, templates);
+            } else if (resource.endsWith(suffix)) {
+                templates.add(resource.substring(prefix.length(), resource.length() - suffix.length()));
+            }
+        }
+    }
+
+    /**
+     * Runs a template through the engine.
+     *
+     * @param template template name
+     * @return false if the template could not be read or parsed
+     */
+    private boolean parse(String template) {
+        try {
+            templateEngine.process(template, null, new Context(), Writer.nullWriter());
+            return true;
+        } catch (TemplateInputException e) {
+            logger.warn("Could not parse template {}", template, e);
+            return false;
+        } catch (RuntimeException e) {
+            // Parsing succeeded and was cached; processing needs a real request
+            logger.debug("Template {} not processable at startup: {}", template, e.getMessage());
+            return true;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.danyarov.library.config;
 
+import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRegistration;
 import org.springframework.web.WebApplicationInitializer;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
 import org.springframework.web.servlet.DispatcherServlet;
 
 /**
@@ -15,25 +18,47 @@ import org.springframework.web.servlet.DispatcherServlet;
  * and configures global settings such as encoding and security filters.
  */
 public class WebAppInitializer implements WebApplicationInitializer {
+    // Catalog imports can be large; uploads above the threshold are spooled to disk
+    private static final long MAX_UPLOAD_SIZE = 1024L * 1024 * 1024;
+    private static final int UPLOAD_MEMORY_THRESHOLD = 1024 * 1024;
 
     @Override
     public void onStartup(ServletContext servletContext) throws ServletException {
         // Create Spring application context
         AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
-        context.register(AppConfig.class, DatabaseConfig.class, WebConfig.class);
+        context.register(AppConfig.class, DatabaseConfig.class, SessionConfig.class, WebConfig.class);
 
         // Create and register the DispatcherServlet
         DispatcherServlet servlet = new DispatcherServlet(context);
         ServletRegistration.Dynamic registration = servletContext.addServlet("dispatcher", servlet);
         registration.setLoadOnStartup(1);
         registration.addMapping("/");
+        registration.setMultipartConfig(new MultipartConfigElement(
+                null, MAX_UPLOAD_SIZE, MAX_UPLOAD_SIZE, UPLOAD_MEMORY_THRESHOLD));
 
         // Set encoding
         servletContext.setRequestCharacterEncoding("UTF-8");
         servletContext.setResponseCharacterEncoding("UTF-8");
 
+        // Resolve the current user before anything else looks at it
+        servletContext.addFilter("currentUserFilter", new DelegatingFilterProxy("currentUserFilter", context))
+                .addMappingForUrlPatterns(null, false, "/*");
+
+        // Compress HTML responses on the way out
+        servletContext.addFilter("compressionFilter", new DelegatingFilterProxy("compressionFilter", context))
+                .addMappingForUrlPatterns(null, false, "/*");
+
         // Add filter for CSRF protection
-        servletContext.addFilter("csrfFilter", new CsrfFilter())
+        servletContext.addFilter("csrfFilter", new DelegatingFilterProxy("csrfFilter", context))
                 .addMappingForUrlPatterns(null, false, "/*");
+
+        // Rewrite static resource links to their content-hashed URLs
+        servletContext.addFilter("resourceUrlEncodingFilter", new ResourceUrlEncodingFilter())
+                .addMappingForUrlPatterns(null, false, "/*");
+
+        // Serve anonymous catalog pages from memory; must stay after compressionFilter,
+        // which captures misses uncompressed and passes pre-gzipped hits through untouched
+        servletContext.addFilter("pageCacheFilter", new DelegatingFilterProxy("pageCacheFilter", context))
+                .addMappingForUrlPatterns(null, false, "/books/*", "/books");
     }
 }
\ No newline at end of file
@@ -1,20 +1,32 @@
 package com.danyarov.library.config;
 
 import com.danyarov.library.interceptor.AuthenticationInterceptor;
+import com.danyarov.library.util.CatalogVersion;
+import jakarta.servlet.ServletContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.*;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
 import org.springframework.web.servlet.i18n.SessionLocaleResolver;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.spring6.view.ThymeleafViewResolver;
 import org.thymeleaf.templatemode.TemplateMode;
 
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Spring MVC configuration class.
@@ -25,9 +37,32 @@ import java.util.Locale;
 @Configuration
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer {
+    private static final String VIEW_PREFIX = "/WEB-INF/views/";
+    private static final String VIEW_SUFFIX = ".html";
 
     private LocaleChangeInterceptor localeChangeInterceptor;
 
+    @Value("${page-cache.max-entries:1000}")
+    private int pageCacheMaxEntries;
+
+    @Value("${page-cache.ttl-seconds:30}")
+    private long pageCacheTtlSeconds;
+
+    @Value("${compression.min-size:1024}")
+    private int compressionMinSize;
+
+    @Value("${compression.level:6}")
+    private int compressionLevel;
+
+    @Value("${compression.pool-size:16}")
+    private int compressionPoolSize;
+
+    @Value("${templates.cache:true}")
+    private boolean templateCache;
+
+    @Value("${templates.cache-ttl-seconds:3600}")
+    private long templateCacheTtlSeconds;
+
     /**
      * Constructor injection for LocaleChangeInterceptor.
      *
@@ -50,22 +85,72 @@ public class WebConfig implements WebMvcConfigurer {
         return localeResolver;
     }
 
+    /**
+     * Provides the anonymous catalog page cache; registered in {@link WebAppInitializer}.
+     *
+     * @param catalogVersion version whose change invalidates cached pages
+     * @return PageCacheFilter instance
+     */
+    @Bean
+    public PageCacheFilter pageCacheFilter(CatalogVersion catalogVersion) {
+        return new PageCacheFilter(localeResolver(), catalogVersion, pageCacheMaxEntries, pageCacheTtlSeconds);
+    }
+
+    /**
+     * Provides the HTML compression filter; registered in {@link WebAppInitializer}.
+     *
+     * @return CompressionFilter instance
+     */
+    @Bean
+    public CompressionFilter compressionFilter() {
+        return new CompressionFilter(compressionMinSize, compressionLevel, compressionPoolSize);
+    }
+
+    /**
+     * Resolves multipart requests through the servlet container; the limits are set
+     * on the dispatcher registration in {@link WebAppInitializer}.
+     *
+     * @return StandardServletMultipartResolver instance
+     */
+    @Bean
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver();
+    }
+
     /**
      * Configures the Thymeleaf template resolver.
+     * <p>
+     * With {@code templates.cache=true} (production) parsed templates are cached for
+     * {@code templates.cache-ttl-seconds}; with {@code false} (development) they are
+     * re-read on every request so edits show up without a restart.
      *
      * @return SpringResourceTemplateResolver
      */
     @Bean
     public SpringResourceTemplateResolver templateResolver() {
         SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
-        templateResolver.setPrefix("/WEB-INF/views/");
-        templateResolver.setSuffix(".html");
+        templateResolver.setPrefix(VIEW_PREFIX);
+        templateResolver.setSuffix(VIEW_SUFFIX);
         templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCharacterEncoding("UTF-8");
-        templateResolver.setCacheable(false);
+        templateResolver.setCacheable(templateCache);
+        if (templateCache && templateCacheTtlSeconds > 0) {
+            templateResolver.setCacheTTLMs(templateCacheTtlSeconds * 1000);
+        }
         return templateResolver;
     }
 
+    /**
+     * Parses all templates at startup when template caching is enabled.
+     *
+     * @param servletContext used to list template files
+     * @return TemplateWarmer instance
+     */
+    @Bean
+    public TemplateWarmer templateWarmer(ServletContext servletContext) {
+        return new TemplateWarmer(templateEngine(), servletContext, VIEW_PREFIX, VIEW_SUFFIX, templateCache);
+    }
+
     /**
      * Configures the Thymeleaf template engine.
      *
@@ -95,15 +180,55 @@ public class WebConfig implements WebMvcConfigurer {
 
     /**
      * Registers static resource handlers for CSS and JS files.
+     * <p>
+     * URLs carry a content hash ({@code /css/style-<md5>.css}), which templates get
+     * automatically through {@code ResourceUrlEncodingFilter}. Only those fingerprinted
+     * responses are cached as immutable for a year; plain URLs are revalidated on each use.
+     * Pre-compressed {@code .br} and {@code .gz} siblings produced by the build are served
+     * to clients that accept them.
      *
      * @param registry the resource handler registry
      */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        CacheControl immutable = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
         registry.addResourceHandler("/css/**")
-                .addResourceLocations("/static/css/");
+                .addResourceLocations("/static/css/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new FingerprintCacheControlResolver(immutable))
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
         registry.addResourceHandler("/js/**")
-                .addResourceLocations("/static/js/");
+                .addResourceLocations("/static/js/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new FingerprintCacheControlResolver(immutable))
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    /**
+     * Switches the static resource handlers to {@link FileChannelResourceHttpMessageConverter}.
+     * The registry offers no hook for the converter, so it is set once the mapping is built.
+     *
+     * @return BeanPostProcessor updating the resource handler mapping
+     */
+    @Bean
+    public static BeanPostProcessor resourceConverterPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleUrlHandlerMapping mapping && "resourceHandlerMapping".equals(beanName)) {
+                    for (Object handler : mapping.getUrlMap().values()) {
+                        if (handler instanceof ResourceHttpRequestHandler resourceHandler) {
+                            resourceHandler.setResourceHttpMessageConverter(new FileChannelResourceHttpMessageConverter());
+                        }
+                    }
+                }
+                return bean;
+            }
+        };
     }
 
     /**
@@ -116,7 +241,7 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addInterceptor(localeChangeInterceptor);
         registry.addInterceptor(new AuthenticationInterceptor())
                 .addPathPatterns("/**")
-                .excludePathPatterns("/", "/login", "/register", "/static/**", "/books", "/books/search");
+                .excludePathPatterns("/", "/login", "/register", "/static/**", "/books", "/books/*", "/books/search");
     }
 
     /**
@@ -1,22 +1,36 @@
 package com.danyarov.library.controller;
 
+import com.danyarov.library.exception.OptimisticLockException;
 import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.exception.ValidationException;
 import com.danyarov.library.model.Book;
+import com.danyarov.library.model.CatalogFormat;
+import com.danyarov.library.model.ImportReport;
 import com.danyarov.library.model.Page;
 import com.danyarov.library.model.User;
 import com.danyarov.library.service.BookService;
+import com.danyarov.library.service.CatalogImportService;
 import com.danyarov.library.service.UserService;
+import com.danyarov.library.util.CsvReader;
+import com.danyarov.library.util.CsvWriter;
 import com.danyarov.library.util.ValidationUtil;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
 
 /**
  * Controller for administrative operations including user management and book catalog operations.
@@ -26,17 +40,21 @@ import java.util.List;
 public class AdminController {
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
     private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_REPORTED_ERRORS = 10;
 
     private UserService userService;
     private BookService bookService;
+    private CatalogImportService catalogImportService;
 
     /**
-     * Constructs the AdminController with user and book service dependencies.
+     * Constructs the AdminController with user, book and catalog import service dependencies.
      */
     @Autowired
-    public AdminController(UserService userService, BookService bookService) {
+    public AdminController(UserService userService, BookService bookService,
+                           CatalogImportService catalogImportService) {
         this.userService = userService;
         this.bookService = bookService;
+        this.catalogImportService = catalogImportService;
     }
 
     /**
@@ -49,6 +67,78 @@ public class AdminController {
         return "admin/users";
     }
 
+    /**
+     * Streams all users as a CSV download. Password hashes are never exported.
+     */
+    @GetMapping("/users/export")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        logger.info("Exporting users as CSV");
+        CsvWriter csv = CsvWriter.forResponse(response, "users.csv");
+        csv.writeRow("id", "email", "first_name", "last_name", "role", "active", "created_at");
+        userService.forEach(user -> csv.writeRow(user.getId(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), user.getRole(), user.isActive(), user.getCreatedAt()));
+        csv.flush();
+    }
+
+    /**
+     * Registers the readers listed in an uploaded CSV file with the columns
+     * email, password, first_name and last_name. Rows are validated like the
+     * registration form; already registered emails are skipped.
+     */
+    @PostMapping("/users/import")
+    public String importUsers(@RequestParam("file") MultipartFile file,
+                              RedirectAttributes redirectAttributes) {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Please choose a file to import");
+            return "redirect:/admin/users";
+        }
+
+        List<User> users = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int rejected = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(file.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            logger.info("Provisioning users from {}", file.getOriginalFilename());
+            CsvReader csv = new CsvReader(in);
+            Map<String, Integer> columns = readHeader(csv.readRow());
+            List<String> row;
+            while ((row = csv.readRow()) != null) {
+                if (row.size() == 1 && row.get(0).isEmpty()) {
+                    continue;
+                }
+                try {
+                    User user = new User();
+                    user.setEmail(column(row, columns, "email"));
+                    user.setPassword(column(row, columns, "password"));
+                    user.setFirstName(column(row, columns, "first_name"));
+                    user.setLastName(column(row, columns, "last_name"));
+                    ValidationUtil.validateEmail(user.getEmail());
+                    ValidationUtil.validatePassword(user.getPassword());
+                    ValidationUtil.validateRequired(user.getFirstName(), "First name");
+                    ValidationUtil.validateRequired(user.getLastName(), "Last name");
+                    users.add(user);
+                } catch (ValidationException e) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Line " + csv.getRowLine() + ": " + e.getMessage());
+                    }
+                }
+            }
+
+            List<User> registered = userService.registerAll(users);
+            redirectAttributes.addFlashAttribute("success", String.format(
+                    "%d users registered, %d already registered, %d rows rejected",
+                    registered.size(), users.size() - registered.size(), rejected));
+            if (!errors.isEmpty()) {
+                redirectAttributes.addFlashAttribute("error", String.join("; ", errors));
+            }
+        } catch (IOException | ValidationException | ServiceException e) {
+            logger.warn("User provisioning failed: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/admin/users";
+    }
+
     /**
      * Toggles the active status of a user (enable/disable).
      */
@@ -103,6 +193,75 @@ public class AdminController {
         return "admin/books";
     }
 
+    /**
+     * Streams the whole catalog as a CSV download.
+     */
+    @GetMapping("/books/export")
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        logger.info("Exporting books as CSV");
+        CsvWriter csv = CsvWriter.forResponse(response, "books.csv");
+        csv.writeRow("id", "title", "author", "isbn", "genre", "publication_year",
+                "total_copies", "available_copies", "created_at", "updated_at");
+        bookService.forEach(book -> csv.writeRow(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getGenre(), book.getPublicationYear(), book.getTotalCopies(), book.getAvailableCopies(),
+                book.getCreatedAt(), book.getUpdatedAt()));
+        csv.flush();
+    }
+
+    /**
+     * Shows the catalog import form.
+     */
+    @GetMapping("/books/import")
+    public String showImportForm(Model model) {
+        model.addAttribute("formats", CatalogFormat.values());
+        return "admin/import";
+    }
+
+    /**
+     * Stores the uploaded file and starts importing it in the background.
+     */
+    @PostMapping("/books/import")
+    public String importBooks(@RequestParam("file") MultipartFile file,
+                              @RequestParam(defaultValue = "CSV") String format,
+                              RedirectAttributes redirectAttributes) {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Please choose a file to import");
+            return "redirect:/admin/books/import";
+        }
+        try {
+            logger.info("Importing catalog file {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+            Path upload = Files.createTempFile("catalog-import-", ".tmp");
+            try {
+                file.transferTo(upload);
+            } catch (IOException e) {
+                Files.deleteIfExists(upload);
+                throw e;
+            }
+            ImportReport report = catalogImportService.submit(upload, file.getOriginalFilename(),
+                    CatalogFormat.fromString(format));
+            return "redirect:/admin/books/import/" + report.getId();
+        } catch (IOException | IllegalArgumentException | ServiceException e) {
+            logger.warn("Catalog import could not be started: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/admin/books/import";
+        }
+    }
+
+    /**
+     * Shows the progress of an import; the page refreshes itself while the import runs.
+     */
+    @GetMapping("/books/import/{id}")
+    public String showImportReport(@PathVariable("id") String id, Model model, HttpServletResponse response) {
+        ImportReport report = catalogImportService.findReport(id)
+                .orElseThrow(() -> new ServiceException("Import " + id + " not found"));
+        if (report.isRunning()) {
+            response.setHeader("Refresh", "2");
+        }
+        model.addAttribute("report", report);
+        model.addAttribute("formats", CatalogFormat.values());
+        return "admin/import";
+    }
+
     /**
      * Adds a new book to the system after validating input.
      */
@@ -179,8 +338,40 @@ public class AdminController {
                              RedirectAttributes redirectAttributes) {
         logger.info("Updating book with ID: {}", id);
         book.setId(id);
-        bookService.update(book);
+        try {
+            bookService.update(book);
+        } catch (OptimisticLockException e) {
+            logger.warn("Edit of book {} rejected: {}", id, e.getMessage());
+            redirectAttributes.addFlashAttribute("error",
+                    "This book was changed by someone else while you were editing. Review the current values and save again.");
+            return "redirect:/admin/books/" + id + "/edit";
+        }
         redirectAttributes.addFlashAttribute("success", "Book updated successfully");
         return "redirect:/admin/books";
     }
+
+    /**
+     * Maps lower-case column names of a CSV header to their positions.
+     *
+     * @throws ValidationException if the header lacks a required column
+     */
+    private static Map<String, Integer> readHeader(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        for (String required : List.of("email", "password", "first_name", "last_name")) {
+            if (!columns.containsKey(required)) {
+                throw new ValidationException("file", "Missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static String column(List<String> row, Map<String, Integer> columns, String name) {
+        int index = columns.get(name);
+        return index < row.size() ? row.get(index) : null;
+    }
 }
\ No newline at end of file
@@ -5,9 +5,10 @@ import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.exception.ValidationException;
 import com.danyarov.library.model.User;
 import com.danyarov.library.service.UserService;
-import com.danyarov.library.util.SessionUtil;
+import com.danyarov.library.util.SessionManager;
 import com.danyarov.library.util.ValidationUtil;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,13 +30,15 @@ public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     private UserService userService;
+    private SessionManager sessionManager;
 
     /**
-     * Constructor for injecting user service dependency.
+     * Constructor for injecting user service and session manager dependencies.
      */
     @Autowired
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService, SessionManager sessionManager) {
         this.userService = userService;
+        this.sessionManager = sessionManager;
     }
 
     /**
@@ -54,14 +57,16 @@ public class AuthController {
      *
      * @param email the user's email
      * @param password the user's password
-     * @param session the current HTTP session
+     * @param request the current HTTP request
+     * @param response the current HTTP response
      * @param redirectAttributes used to pass flash messages
      * @return the redirect URL
      */
     @PostMapping("/login")
     public String login(@RequestParam String email,
                         @RequestParam String password,
-                        HttpSession session,
+                        HttpServletRequest request,
+                        HttpServletResponse response,
                         RedirectAttributes redirectAttributes) {
         try {
             ValidationUtil.validateEmail(email);
@@ -69,7 +74,7 @@ public class AuthController {
 
             Optional<User> user = userService.authenticate(email, password);
             if (user.isPresent()) {
-                SessionUtil.setCurrentUser(session, user.get());
+                sessionManager.signIn(request, response, user.get());
                 logger.info("User logged in: {}", email);
 
                 // Redirect based on role
@@ -150,13 +155,13 @@ public class AuthController {
     /**
      * Logs the user out by invalidating the session.
      *
-     * @param session the current HTTP session
+     * @param request the current HTTP request
+     * @param response the current HTTP response
      * @return the login view redirect
      */
     @GetMapping("/logout")
-    public String logout(HttpSession session) {
-        SessionUtil.removeCurrentUser(session);
-        session.invalidate();
+    public String logout(HttpServletRequest request, HttpServletResponse response) {
+        sessionManager.signOut(request, response);
         return "redirect:/login";
     }
 }
@@ -2,18 +2,36 @@ package com.danyarov.library.controller;
 
 import com.danyarov.library.model.*;
 import com.danyarov.library.service.BookService;
+import com.danyarov.library.service.HoldService;
+import com.danyarov.library.service.IdempotencyService;
+import com.danyarov.library.service.OrderIntake;
 import com.danyarov.library.service.OrderService;
+import com.danyarov.library.service.ParallelLookups;
+import com.danyarov.library.util.CatalogVersion;
 import com.danyarov.library.util.SessionUtil;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 /**
  * Controller responsible for handling book listing, viewing, and requesting operations.
@@ -26,11 +44,23 @@ public class BookController {
 
     private BookService bookService;
     private OrderService orderService;
+    private CatalogVersion catalogVersion;
+    private ParallelLookups parallelLookups;
+    private OrderIntake orderIntake;
+    private IdempotencyService idempotencyService;
+    private HoldService holdService;
 
     @Autowired
-    public BookController(BookService bookService, OrderService orderService) {
+    public BookController(BookService bookService, OrderService orderService, CatalogVersion catalogVersion,
+                          ParallelLookups parallelLookups, OrderIntake orderIntake,
+                          IdempotencyService idempotencyService, HoldService holdService) {
         this.bookService = bookService;
         this.orderService = orderService;
+        this.catalogVersion = catalogVersion;
+        this.parallelLookups = parallelLookups;
+        this.orderIntake = orderIntake;
+        this.idempotencyService = idempotencyService;
+        this.holdService = holdService;
     }
 
     /**
@@ -41,14 +71,27 @@ public class BookController {
      * @param page the current page number
      * @param size the number of items per page
      * @param model the model to store view attributes
-     * @return the book list view
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param webRequest used to answer conditional requests
+     * @return the book list view, or null if the client's copy is still current
      */
     @GetMapping
     public String listBooks(@RequestParam(required = false) String search,
                             @RequestParam(required = false) String genre,
                             @RequestParam(defaultValue = "0") int page,
                             @RequestParam(defaultValue = "12") int size,
-                            Model model) {
+                            Model model,
+                            HttpServletRequest request,
+                            HttpServletResponse response,
+                            WebRequest webRequest) {
+        // The catalog version is shared by all nodes and covers every book on every list page
+        long version = catalogVersion.get();
+        User user = SessionUtil.getCurrentUser(request);
+        if (user == null && isNotModified("books-" + version, -1, null, request, response, webRequest)) {
+            return null;
+        }
+
         Page<Book> bookPage;
 
         // Ensure page parameters are valid
@@ -67,6 +110,17 @@ public class BookController {
             bookPage = bookService.findAllPaginated(page, size);
         }
 
+        if (user != null) {
+            // One query for the whole page; the badges are part of the signed-in user's ETag
+            Set<Long> requestedBookIds = orderService.findBooksWithActiveOrder(user.getId(),
+                    bookPage.getContent().stream().map(Book::getId).toList());
+            String etag = "books-" + version + "-" + digest(requestedBookIds);
+            if (isNotModified(etag, -1, user, request, response, webRequest)) {
+                return null;
+            }
+            model.addAttribute("requestedBookIds", requestedBookIds);
+        }
+
         model.addAttribute("bookPage", bookPage);
         model.addAttribute("books", bookPage.getContent());
         model.addAttribute("currentPage", page);
@@ -89,25 +143,54 @@ public class BookController {
      *
      * @param id the ID of the book
      * @param model the model to store book data
-     * @param session the HTTP session
-     * @return the book detail view
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param webRequest used to answer conditional requests
+     * @return the book detail view, or null if the client's copy is still current
      */
     @GetMapping("/{id}")
-    public String viewBook(@PathVariable("id") Long id, Model model, HttpSession session) {
-        Optional<Book> book = bookService.findById(id);
+    public String viewBook(@PathVariable("id") Long id, Model model, HttpServletRequest request,
+                           HttpServletResponse response, WebRequest webRequest) {
+        User user = SessionUtil.getCurrentUser(request);
+        Optional<Book> book;
+        Boolean hasActiveOrder = null;
+        Optional<BookHold> hold = Optional.empty();
+        try (ParallelLookups.Scope scope = parallelLookups.open()) {
+            Supplier<Optional<Book>> bookLookup = scope.fork(() -> bookService.findById(id));
+            // Check if user has active order for this book
+            Supplier<Boolean> orderLookup = user != null
+                    ? scope.fork(() -> orderService.hasActiveOrder(user.getId(), id)) : null;
+            Supplier<Optional<BookHold>> holdLookup = user != null
+                    ? scope.fork(() -> holdService.findWaiting(user.getId(), id)) : null;
+            scope.join();
+            book = bookLookup.get();
+            if (orderLookup != null) {
+                hasActiveOrder = orderLookup.get();
+                hold = holdLookup.get();
+            }
+        }
         if (book.isEmpty()) {
             logger.warn("Book with ID {} not found", id);
             return "redirect:/books";
         }
 
-        model.addAttribute("book", book.get());
+        long lastModified = book.get().getUpdatedAt() != null
+                ? book.get().getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        // updated_at has second precision, so two changes within a second are told apart by the row
+        // version, and counter moves, which do not bump the version, by the available copies.
+        // The queue position moves without the book changing.
+        String etag = "book-" + id + "-v" + book.get().getVersion() + "-" + book.get().getAvailableCopies()
+                + (hasActiveOrder != null ? "-" + hasActiveOrder : "")
+                + hold.map(waiting -> "-h" + waiting.getQueuePosition()).orElse("");
+        if (isNotModified(etag, lastModified, user, request, response, webRequest)) {
+            return null;
+        }
 
-        // Check if user has active order for this book
-        User user = SessionUtil.getCurrentUser(session);
-        if (user != null) {
-            boolean hasActiveOrder = orderService.hasActiveOrder(user.getId(), id);
+        model.addAttribute("book", book.get());
+        if (hasActiveOrder != null) {
             model.addAttribute("hasActiveOrder", hasActiveOrder);
         }
+        hold.ifPresent(waiting -> model.addAttribute("hold", waiting));
 
         return "books/detail";
     }
@@ -117,30 +200,120 @@ public class BookController {
      *
      * @param id the ID of the book
      * @param orderType the type of order (e.g., HOME or READING ROOM)
-     * @param session the HTTP session
+     * @param idempotencyKey key of the form submission; repeats do not create another order
+     * @param request the HTTP request
      * @param redirectAttributes attributes for passing flash messages
      * @return the redirect URL
      */
     @PostMapping("/{id}/request")
     public String requestBook(@PathVariable("id") Long id,
                               @RequestParam OrderType orderType,
-                              HttpSession session,
+                              @RequestParam(required = false) String idempotencyKey,
+                              HttpServletRequest request,
                               RedirectAttributes redirectAttributes) {
-        User user = SessionUtil.getCurrentUser(session);
+        User user = SessionUtil.getCurrentUser(request);
         if (user == null) {
             logger.warn("Unauthenticated user tried to request a book");
             return "redirect:/login";
         }
 
         try {
-            logger.info("User {} requested book {} as {}", user.getEmail(), id, orderType);
-            Order order = orderService.createOrder(user.getId(), id, orderType);
-            redirectAttributes.addFlashAttribute("success", "msg.book_requested");
+            logger.info("User {} requested book {} as {}", user.getId(), id, orderType);
+            String outcome = idempotencyService.execute(idempotencyKey, "request-book:" + user.getId() + ":" + id, () -> {
+                orderIntake.createOrder(user.getId(), id, orderType);
+                return "msg.book_requested";
+            });
+            redirectAttributes.addFlashAttribute("success", outcome);
         } catch (Exception e) {
-            logger.error("Failed to create book request for user {}: {}", user.getEmail(), e.getMessage());
+            logger.error("Failed to create book request for user {}: {}", user.getId(), e.getMessage());
             redirectAttributes.addFlashAttribute("error", e.getMessage());
         }
 
         return "redirect:/books/" + id;
     }
-}
\ No newline at end of file
+
+    /**
+     * Puts a user on the waitlist of a book with no copies available.
+     *
+     * @param id the ID of the book
+     * @param orderType the type of order created when a copy is handed over
+     * @param idempotencyKey key of the form submission; repeats do not add another hold
+     * @param request the HTTP request
+     * @param redirectAttributes attributes for passing flash messages
+     * @return the redirect URL
+     */
+    @PostMapping("/{id}/hold")
+    public String placeHold(@PathVariable("id") Long id,
+                            @RequestParam OrderType orderType,
+                            @RequestParam(required = false) String idempotencyKey,
+                            HttpServletRequest request,
+                            RedirectAttributes redirectAttributes) {
+        User user = SessionUtil.getCurrentUser(request);
+        if (user == null) {
+            logger.warn("Unauthenticated user tried to join a waitlist");
+            return "redirect:/login";
+        }
+
+        try {
+            logger.info("User {} joins the waitlist of book {} as {}", user.getId(), id, orderType);
+            String outcome = idempotencyService.execute(idempotencyKey, "hold-book:" + user.getId() + ":" + id, () -> {
+                holdService.placeHold(user.getId(), id, orderType);
+                return "msg.hold_placed";
+            });
+            redirectAttributes.addFlashAttribute("success", outcome);
+        } catch (Exception e) {
+            logger.error("Failed to place hold for user {}: {}", user.getId(), e.getMessage());
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/books/" + id;
+    }
+
+    /**
+     * Checks the request's validators before any rendering happens.
+     * <p>
+     * The ETag is extended with the locale and, for signed-in users, the user ID and role,
+     * since those change the rendered page. Requests carrying flash messages are always
+     * rendered in full so the message is not lost.
+     *
+     * @param etag base entity tag of the page content
+     * @param lastModified last modification time in epoch milliseconds, or -1 if unknown
+     * @param user the current user or null
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param webRequest used to evaluate the conditional headers
+     * @return true if a 304 response was prepared and rendering must be skipped
+     */
+    private boolean isNotModified(String etag, long lastModified, User user, HttpServletRequest request,
+                                  HttpServletResponse response, WebRequest webRequest) {
+        response.setHeader("Cache-Control", user == null ? "no-cache" : "private, no-cache");
+
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request);
+        if (flash != null && !flash.isEmpty()) {
+            return false;
+        }
+
+        String fullEtag = etag + "-" + RequestContextUtils.getLocale(request).toLanguageTag()
+                + (user != null ? "-u" + user.getId() + "-" + user.getRole() : "");
+        return user == null && lastModified >= 0
+                ? webRequest.checkNotModified(fullEtag, lastModified)
+                : webRequest.checkNotModified(fullEtag);
+    }
+
+    /**
+     * Digests a set of IDs for use in an entity tag, so different sets get different tags.
+     *
+     * @param ids the IDs
+     * @return SHA-256 of the sorted IDs, Base64url encoded
+     */
+    private static String digest(Collection<Long> ids) {
+        ByteBuffer sorted = ByteBuffer.allocate(ids.size() * Long.BYTES);
+        new TreeSet<>(ids).forEach(sorted::putLong);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sorted.array());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,8 +2,13 @@ package com.danyarov.library.controller;
 
 import com.danyarov.library.model.Order;
 import com.danyarov.library.model.OrderStatus;
+import com.danyarov.library.model.Page;
 import com.danyarov.library.model.User;
+import com.danyarov.library.service.DeskQueue;
+import com.danyarov.library.service.IdempotencyService;
 import com.danyarov.library.service.OrderService;
+import com.danyarov.library.service.ParallelLookups;
+import com.danyarov.library.util.CsvWriter;
 import com.danyarov.library.util.SessionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +18,13 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Controller for handling librarian-related actions such as viewing, issuing, and returning orders.
@@ -24,14 +34,90 @@ import java.util.List;
 public class LibrarianController {
     private static final Logger logger = LoggerFactory.getLogger(LibrarianController.class);
     private OrderService orderService;
+    private ParallelLookups parallelLookups;
+    private IdempotencyService idempotencyService;
+    private DeskQueue deskQueue;
 
     @Autowired
-    public LibrarianController(OrderService orderService) {
+    public LibrarianController(OrderService orderService, ParallelLookups parallelLookups,
+                               IdempotencyService idempotencyService, DeskQueue deskQueue) {
         this.orderService = orderService;
+        this.parallelLookups = parallelLookups;
+        this.idempotencyService = idempotencyService;
+        this.deskQueue = deskQueue;
+    }
+
+    /**
+     * Displays the pending orders claimed by the current librarian's desk,
+     * together with the number of pending orders no desk has claimed yet.
+     *
+     * @param request HTTP request to retrieve current librarian
+     * @param model   Spring MVC model
+     * @return the librarian desk view
+     */
+    @GetMapping("/desk")
+    public String viewDesk(HttpServletRequest request, Model model) {
+        User librarian = SessionUtil.getCurrentUser(request);
+
+        try (ParallelLookups.Scope scope = parallelLookups.open()) {
+            Supplier<List<Order>> claimed = scope.fork(() -> deskQueue.findClaimed(librarian.getId()));
+            Supplier<Long> queueDepth = scope.fork(deskQueue::depth);
+            scope.join();
+
+            model.addAttribute("orders", claimed.get());
+            model.addAttribute("queueDepth", queueDepth.get());
+        }
+        model.addAttribute("batchSize", deskQueue.getBatchSize());
+        return "librarian/desk";
+    }
+
+    /**
+     * Claims the next batch of pending orders for the current librarian's desk.
+     *
+     * @param request            HTTP request to retrieve current librarian
+     * @param redirectAttributes used to pass flash messages
+     * @return redirection to the desk
+     */
+    @PostMapping("/desk/claim")
+    public String claimOrders(HttpServletRequest request, RedirectAttributes redirectAttributes) {
+        User librarian = SessionUtil.getCurrentUser(request);
+
+        try {
+            int claimed = deskQueue.claimNext(librarian.getId());
+            redirectAttributes.addFlashAttribute("success", claimed > 0 ? "msg.orders_claimed" : "msg.queue_empty");
+        } catch (Exception e) {
+            logger.error("Failed to claim orders for librarian {}: {}", librarian.getId(), e.getMessage());
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/librarian/desk";
+    }
+
+    /**
+     * Returns the current librarian's unissued claims to the queue.
+     *
+     * @param request            HTTP request to retrieve current librarian
+     * @param redirectAttributes used to pass flash messages
+     * @return redirection to the desk
+     */
+    @PostMapping("/desk/release")
+    public String releaseOrders(HttpServletRequest request, RedirectAttributes redirectAttributes) {
+        User librarian = SessionUtil.getCurrentUser(request);
+
+        try {
+            deskQueue.release(librarian.getId());
+            redirectAttributes.addFlashAttribute("success", "msg.claims_released");
+        } catch (Exception e) {
+            logger.error("Failed to release orders of librarian {}: {}", librarian.getId(), e.getMessage());
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/librarian/desk";
     }
 
     /**
-     * Displays a list of orders with optional filtering by status.
+     * Displays a list of orders with optional filtering by status,
+     * together with the number of orders per status.
      *
      * @param status optional order status filter
      * @param model  Spring MVC model
@@ -40,67 +126,126 @@ public class LibrarianController {
     @GetMapping("/orders")
     public String listOrders(@RequestParam(required = false) String status,
                              Model model) {
-        List<Order> orders;
-
-        if (status != null && !status.isEmpty()) {
-            logger.debug("Filtering orders by status: {}", status);
-            orders = orderService.findByStatus(OrderStatus.fromString(status));
-        } else {
-            logger.debug("Retrieving all orders with details");
-            orders = orderService.findAllWithDetails();
-        }
+        try (ParallelLookups.Scope scope = parallelLookups.open()) {
+            Supplier<List<Order>> orders;
+            if (status != null && !status.isEmpty()) {
+                logger.debug("Filtering orders by status: {}", status);
+                OrderStatus orderStatus = OrderStatus.fromString(status);
+                orders = scope.fork(() -> orderService.findByStatus(orderStatus));
+            } else {
+                logger.debug("Retrieving all orders with details");
+                orders = scope.fork(orderService::findAllWithDetails);
+            }
+            Supplier<Map<OrderStatus, Long>> statusCounts = scope.fork(orderService::countByStatus);
+            scope.join();
 
-        model.addAttribute("orders", orders);
+            model.addAttribute("orders", orders.get());
+            model.addAttribute("statusCounts", statusCounts.get());
+        }
         model.addAttribute("selectedStatus", status);
         return "librarian/orders";
     }
 
+    /**
+     * Displays issued orders that are past their due date, longest overdue first.
+     *
+     * @param page  zero-based page number
+     * @param size  number of orders per page
+     * @param model Spring MVC model
+     * @return the overdue orders view
+     */
+    @GetMapping("/orders/overdue")
+    public String listOverdue(@RequestParam(defaultValue = "0") int page,
+                              @RequestParam(defaultValue = "20") int size,
+                              Model model) {
+        // Ensure page parameters are valid
+        if (page < 0) page = 0;
+        if (size <= 0) size = 20;
+
+        Page<Order> overduePage = orderService.findOverdue(page, size);
+        model.addAttribute("overduePage", overduePage);
+        model.addAttribute("pageSize", size);
+        return "librarian/overdue";
+    }
+
+    /**
+     * Streams all orders with reader, book and librarian details as a CSV download.
+     *
+     * @param response the HTTP response the CSV is written to
+     * @throws IOException if the response body cannot be opened
+     */
+    @GetMapping("/orders/export")
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        logger.info("Exporting orders as CSV");
+        CsvWriter csv = CsvWriter.forResponse(response, "orders.csv");
+        csv.writeRow("id", "status", "type", "order_date", "issue_date", "due_date", "return_date",
+                "reader_email", "reader_name", "book_id", "book_title", "book_author", "librarian_email", "notes");
+        orderService.forEachWithDetails(order -> csv.writeRow(order.getId(), order.getStatus(), order.getOrderType(),
+                order.getOrderDate(), order.getIssueDate(), order.getDueDate(), order.getReturnDate(),
+                order.getUser().getEmail(), order.getUser().getFullName(), order.getBookId(),
+                order.getBook().getTitle(), order.getBook().getAuthor(),
+                order.getLibrarian() != null ? order.getLibrarian().getEmail() : null, order.getNotes()));
+        csv.flush();
+    }
+
     /**
      * Issues an order and updates its status and due date.
      *
      * @param id                 the ID of the order to issue
      * @param days               the number of lending days
-     * @param session            HTTP session to retrieve current librarian
+     * @param idempotencyKey     key of the form submission; repeats are not issued again
+     * @param from               {@code desk} when issued from the desk view
+     * @param request            HTTP request to retrieve current librarian
      * @param redirectAttributes used to pass flash messages
-     * @return redirection to the orders list
+     * @return redirection to the desk or the orders list
      */
     @PostMapping("/orders/{id}/issue")
     public String issueOrder(@PathVariable("id") Long id,
                              @RequestParam(defaultValue = "14") int days,
-                             HttpSession session,
+                             @RequestParam(required = false) String idempotencyKey,
+                             @RequestParam(required = false) String from,
+                             HttpServletRequest request,
                              RedirectAttributes redirectAttributes) {
-        User librarian = SessionUtil.getCurrentUser(session);
+        User librarian = SessionUtil.getCurrentUser(request);
 
         try {
-            logger.info("Librarian {} issuing order {} for {} days", librarian.getEmail(), id, days);
-            orderService.issueOrder(id, librarian.getId(), days);
-            redirectAttributes.addFlashAttribute("success", "msg.order_issued");
+            logger.info("Librarian {} issuing order {} for {} days", librarian.getId(), id, days);
+            String outcome = idempotencyService.execute(idempotencyKey, "issue-order:" + id, () -> {
+                orderService.issueOrder(id, librarian.getId(), days);
+                return "msg.order_issued";
+            });
+            redirectAttributes.addFlashAttribute("success", outcome);
         } catch (Exception e) {
             logger.error("Failed to issue order {}: {}", id, e.getMessage());
             redirectAttributes.addFlashAttribute("error", e.getMessage());
         }
 
-        return "redirect:/librarian/orders";
+        return "desk".equals(from) ? "redirect:/librarian/desk" : "redirect:/librarian/orders";
     }
 
     /**
      * Processes the return of a book order.
      *
      * @param id                 the ID of the order to return
-     * @param session            HTTP session to retrieve current librarian
+     * @param idempotencyKey     key of the form submission; repeats are not returned again
+     * @param request            HTTP request to retrieve current librarian
      * @param redirectAttributes used to pass flash messages
      * @return redirection to the orders list
      */
     @PostMapping("/orders/{id}/return")
     public String returnOrder(@PathVariable("id") Long id,
-                              HttpSession session,
+                              @RequestParam(required = false) String idempotencyKey,
+                              HttpServletRequest request,
                               RedirectAttributes redirectAttributes) {
-        User librarian = SessionUtil.getCurrentUser(session);
+        User librarian = SessionUtil.getCurrentUser(request);
 
         try {
-            logger.info("Librarian {} returning order {}", librarian.getEmail(), id);
-            orderService.returnOrder(id, librarian.getId());
-            redirectAttributes.addFlashAttribute("success", "msg.order_returned");
+            logger.info("Librarian {} returning order {}", librarian.getId(), id);
+            String outcome = idempotencyService.execute(idempotencyKey, "return-order:" + id, () -> {
+                orderService.returnOrder(id, librarian.getId());
+                return "msg.order_returned";
+            });
+            redirectAttributes.addFlashAttribute("success", outcome);
         } catch (Exception e) {
             logger.error("Failed to return order {}: {}", id, e.getMessage());
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -2,6 +2,7 @@ package com.danyarov.library.controller;
 
 import com.danyarov.library.model.Order;
 import com.danyarov.library.model.User;
+import com.danyarov.library.service.HoldService;
 import com.danyarov.library.service.OrderService;
 import com.danyarov.library.util.SessionUtil;
 import org.slf4j.Logger;
@@ -12,7 +13,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
 
 /**
@@ -24,22 +25,24 @@ public class OrderController {
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
     private OrderService orderService;
+    private HoldService holdService;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, HoldService holdService) {
         this.orderService = orderService;
+        this.holdService = holdService;
     }
 
     /**
-     * Displays the list of orders for the currently logged-in user.
+     * Displays the list of orders and waitlists for the currently logged-in user.
      *
-     * @param session the current HTTP session
+     * @param request the current HTTP request
      * @param model   the model to add attributes to for the view
      * @return the view for listing user's orders, or redirect to login if unauthorized
      */
     @GetMapping("/my")
-    public String myOrders(HttpSession session, Model model) {
-        User user = SessionUtil.getCurrentUser(session);
+    public String myOrders(HttpServletRequest request, Model model) {
+        User user = SessionUtil.getCurrentUser(request);
         if (user == null) {
             logger.warn("Unauthorized access attempt to my orders");
             return "redirect:/login";
@@ -48,6 +51,7 @@ public class OrderController {
         List<Order> orders = orderService.findByUser(user.getId());
         logger.info("Found {} orders for user {}", orders.size(), user.getId());
         model.addAttribute("orders", orders);
+        model.addAttribute("holds", holdService.findWaitingByUser(user.getId()));
         return "orders/list";
     }
 
@@ -55,15 +59,15 @@ public class OrderController {
      * Cancels a pending order if the logged-in user is the owner.
      *
      * @param id                 the ID of the order to cancel
-     * @param session            the current HTTP session
+     * @param request            the current HTTP request
      * @param redirectAttributes the attributes for flash messages
      * @return redirection to user's orders page
      */
     @PostMapping("/{id}/cancel")
     public String cancelOrder(@PathVariable("id") Long id,
-                              HttpSession session,
+                              HttpServletRequest request,
                               RedirectAttributes redirectAttributes) {
-        User user = SessionUtil.getCurrentUser(session);
+        User user = SessionUtil.getCurrentUser(request);
         if (user == null) {
             logger.warn("Unauthorized cancellation attempt for order {}", id);
             return "redirect:/login";
@@ -105,4 +109,33 @@ public class OrderController {
 
         return "redirect:/orders/my";
     }
+
+    /**
+     * Takes the logged-in user off a book's waitlist.
+     *
+     * @param id                 the ID of the hold
+     * @param request            the current HTTP request
+     * @param redirectAttributes the attributes for flash messages
+     * @return redirection to user's orders page
+     */
+    @PostMapping("/holds/{id}/cancel")
+    public String cancelHold(@PathVariable("id") Long id,
+                             HttpServletRequest request,
+                             RedirectAttributes redirectAttributes) {
+        User user = SessionUtil.getCurrentUser(request);
+        if (user == null) {
+            logger.warn("Unauthorized cancellation attempt for hold {}", id);
+            return "redirect:/login";
+        }
+
+        try {
+            holdService.cancelHold(id, user.getId());
+            redirectAttributes.addFlashAttribute("success", "msg.hold_cancelled");
+        } catch (Exception e) {
+            logger.error("Cannot cancel hold {}: {}", id, e.getMessage());
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/orders/my";
+    }
 }
@@ -2,6 +2,7 @@ package com.danyarov.library.dao;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Base DAO interface with common CRUD operations
@@ -10,6 +11,37 @@ import java.util.Optional;
  */
 public interface BasicDao<T, ID> {
 
+    /**
+     * Fetch size that makes MySQL Connector/J stream rows one at a time instead of
+     * reading the whole result into memory
+     */
+    int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * Rows per batch and transaction used by bulk inserts unless configured otherwise
+     */
+    int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Builds an UPDATE of the given columns by id that also bumps the row version.
+     * When versioned, the row must still have the expected version, bound after the id.
+     * @param table table name
+     * @param columns columns to set, bound in this order
+     * @param versioned whether to check the row version
+     * @return the statement
+     */
+    static String buildUpdateSql(String table, List<String> columns, boolean versioned) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        for (String column : columns) {
+            sql.append(column).append(" = ?, ");
+        }
+        sql.append("version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = ?");
+        if (versioned) {
+            sql.append(" AND version = ?");
+        }
+        return sql.toString();
+    }
+
     /**
      * Find entity by ID
      * @param id entity ID
@@ -23,6 +55,13 @@ public interface BasicDao<T, ID> {
      */
     List<T> findAll();
 
+    /**
+     * Pass every entity to an action, streaming rows in constant memory.
+     * The connection is held until the last row has been handled.
+     * @param action action called for each entity, in the order of {@link #findAll()}
+     */
+    void forEach(Consumer<T> action);
+
     /**
      * Save new entity
      * @param entity entity to save
@@ -0,0 +1,45 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.model.BookCopy;
+import com.danyarov.library.model.BookCopyStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Book copy DAO interface
+ */
+public interface BookCopyDao extends BasicDao<BookCopy, Long> {
+
+    /**
+     * Find copies of a book
+     * @param bookId book ID
+     * @return copies ordered by inventory number
+     */
+    List<BookCopy> findByBookId(Long bookId);
+
+    /**
+     * Check whether any copies are recorded for a book
+     * @param bookId book ID
+     * @return true if the book has at least one copy row
+     */
+    boolean existsByBookId(Long bookId);
+
+    /**
+     * Lock one available copy of a book until the current transaction ends.
+     * Copies locked by other transactions are skipped rather than waited for, so concurrent
+     * checkouts of the same title each get a different copy without blocking.
+     * Must be called inside {@link TransactionManager#inTransaction}, otherwise the lock
+     * is released as soon as the statement completes.
+     * @param bookId book ID
+     * @return a locked available copy, or empty if none is free
+     */
+    Optional<BookCopy> lockAvailableCopy(Long bookId);
+
+    /**
+     * Change the status of a copy
+     * @param copyId copy ID
+     * @param status new status
+     */
+    void updateStatus(Long copyId, BookCopyStatus status);
+}
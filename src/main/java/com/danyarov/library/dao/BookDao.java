@@ -3,7 +3,9 @@ package com.danyarov.library.dao;
 import com.danyarov.library.model.Book;
 import com.danyarov.library.model.Page;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Book DAO interface
@@ -70,10 +72,38 @@ public interface BookDao extends BasicDao<Book, Long> {
      */
     long countByGenre(String genre);
 
+    /**
+     * Write the columns assigned since the book was loaded; nothing is written if there are none.
+     * When the book carries a version, the update only applies if the row still has that version.
+     * Available copies changed by {@link #updateAvailableCopies} are kept unless the book set them.
+     * @param book book with changed fields
+     * @return the book, marked clean and with its new version
+     * @throws com.danyarov.library.exception.OptimisticLockException if the row version has moved on
+     */
+    @Override
+    Book update(Book book);
+
     /**
      * Update available copies count
      * @param bookId book ID
      * @param delta change in available copies (positive or negative)
      */
     void updateAvailableCopies(Long bookId, int delta);
-}
+
+    /**
+     * Insert books using JDBC batches, committing once per batch.
+     * Generated IDs are set on every saved entity. If a batch fails it is rolled back,
+     * but earlier batches stay committed.
+     * @param books books to insert
+     * @return the same list, with IDs set
+     */
+    List<Book> saveAll(List<Book> books);
+
+    /**
+     * Find which of the given ISBNs are already in the catalog.
+     * Runs a single query against the unique isbn column.
+     * @param isbns ISBNs to look up, compared exactly as stored
+     * @return the subset of ISBNs that already exist
+     */
+    Set<String> findExistingIsbns(Collection<String> isbns);
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.model.BookHold;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Book hold DAO interface.
+ * Keeps one first-come, first-served waitlist per book.
+ */
+public interface BookHoldDao {
+
+    /**
+     * Add a waiting hold to the end of its book's queue
+     * @param hold hold to save
+     * @return saved hold with its ID
+     */
+    BookHold save(BookHold hold);
+
+    /**
+     * Lock the first waiting hold of a book, skipping holds locked by other transactions.
+     * Must be called inside a transaction, which keeps the lock until it ends.
+     * @param bookId book ID
+     * @return the oldest waiting hold, if any
+     */
+    Optional<BookHold> lockNextWaiting(Long bookId);
+
+    /**
+     * Record that a hold was served by an order
+     * @param holdId hold ID
+     * @param orderId order created for the waiting reader
+     */
+    void markFulfilled(Long holdId, Long orderId);
+
+    /**
+     * Withdraw a reader's waiting hold
+     * @param holdId hold ID
+     * @param userId owner of the hold
+     * @return true if the hold was waiting and belonged to the user
+     */
+    boolean cancel(Long holdId, Long userId);
+
+    /**
+     * Find a reader's waiting hold on a book, with its queue position
+     * @param userId user ID
+     * @param bookId book ID
+     * @return the waiting hold, if any
+     */
+    Optional<BookHold> findWaiting(Long userId, Long bookId);
+
+    /**
+     * Find all waiting holds of a reader, with book titles and queue positions
+     * @param userId user ID
+     * @return waiting holds, oldest first
+     */
+    List<BookHold> findWaitingByUser(Long userId);
+}
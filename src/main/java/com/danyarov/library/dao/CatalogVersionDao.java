@@ -0,0 +1,20 @@
+package com.danyarov.library.dao;
+
+/**
+ * Catalog version DAO interface.
+ * Keeps the version of publicly visible catalog data in one row shared by all nodes.
+ */
+public interface CatalogVersionDao {
+
+    /**
+     * Read the current catalog version
+     * @return the version, or 0 if the catalog was never changed
+     */
+    long read();
+
+    /**
+     * Increment the catalog version
+     * @return the new version
+     */
+    long increment();
+}
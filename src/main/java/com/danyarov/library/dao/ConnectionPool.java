@@ -4,34 +4,54 @@ import com.danyarov.library.exception.DatabaseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Thread-safe singleton connection pool for managing JDBC connections.
  * <p>
  * Connections are created lazily and reused to avoid performance overhead.
  * Properly handles shutdown and reinitialization logic.
+ * <p>
+ * The number of checked-out connections is bounded by a fair {@link Semaphore}, so callers
+ * queue for a connection in arrival order once the pool is exhausted. No monitor is held
+ * while blocking, which keeps virtual threads from pinning their carrier thread.
+ * <p>
+ * Inside {@link #inTransaction} the thread is bound to one connection, which
+ * {@link #getConnection()} hands to every DAO call until the transaction ends. A transaction
+ * that fails on a deadlock or lock wait timeout is rolled back and run again as the
+ * {@link RetryPolicy} allows.
  */
-public class ConnectionPool {
+public class ConnectionPool implements TransactionManager {
     private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
-    private static ConnectionPool instance;
-    private static final Object LOCK = new Object();
+    private static volatile ConnectionPool instance;
+    private static final ReentrantLock LOCK = new ReentrantLock();
 
     private final BlockingQueue<Connection> availableConnections;
     private final BlockingQueue<Connection> usedConnections;
+    private final Semaphore permits;
     private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+    /** Connection of the transaction running on the current thread, as handed to DAOs */
+    private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+    private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
 
     private final String url;
     private final String user;
     private final String password;
     private final int maxPoolSize;
     private final int initialPoolSize;
+    private final long acquireTimeoutMillis;
 
     /**
      * Private constructor to initialize the pool.
@@ -41,14 +61,17 @@ public class ConnectionPool {
      * @param password         database password
      * @param initialPoolSize  number of connections to start with
      * @param maxPoolSize      maximum number of total connections
+     * @param acquireTimeoutMillis how long to wait for a connection when all are in use
      */
     private ConnectionPool(String url, String user, String password,
-                           int initialPoolSize, int maxPoolSize) {
+                           int initialPoolSize, int maxPoolSize, long acquireTimeoutMillis) {
         this.url = url;
         this.user = user;
         this.password = password;
         this.initialPoolSize = initialPoolSize;
         this.maxPoolSize = maxPoolSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxPoolSize, true);
         this.availableConnections = new LinkedBlockingQueue<>(maxPoolSize);
         this.usedConnections = new LinkedBlockingQueue<>(maxPoolSize);
 
@@ -62,16 +85,21 @@ public class ConnectionPool {
      * @param password database password
      * @param initialPoolSize initial pool size
      * @param maxPoolSize maximum pool size
+     * @param acquireTimeoutMillis how long to wait for a connection when all are in use
      * @return ConnectionPool instance
      */
     public static ConnectionPool getInstance(String url, String user, String password,
-                                             int initialPoolSize, int maxPoolSize) {
+                                             int initialPoolSize, int maxPoolSize, long acquireTimeoutMillis) {
         if (instance == null) {
-            synchronized (LOCK) {
+            LOCK.lock();
+            try {
                 if (instance == null) {
                     logger.info("Initializing ConnectionPool instance");
-                    instance = new ConnectionPool(url, user, password, initialPoolSize, maxPoolSize);
+                    instance = new ConnectionPool(url, user, password, initialPoolSize, maxPoolSize,
+                            acquireTimeoutMillis);
                 }
+            } finally {
+                LOCK.unlock();
             }
         }
         return instance;
@@ -109,12 +137,18 @@ public class ConnectionPool {
 
     /**
      * Creates a new database connection.
+     * <p>
+     * Batched inserts are rewritten into multi-row statements unless the URL says otherwise.
      *
      * @return new {@link Connection}
      */
     private Connection createConnection() {
         try {
-            return DriverManager.getConnection(url, user, password);
+            Properties properties = new Properties();
+            properties.setProperty("user", user);
+            properties.setProperty("password", password);
+            properties.setProperty("rewriteBatchedStatements", "true");
+            return DriverManager.getConnection(url, properties);
         } catch (SQLException e) {
             logger.error("Failed to create database connection", e);
             throw new DatabaseException("Failed to create connection", e);
@@ -124,36 +158,44 @@ public class ConnectionPool {
     /**
      * Provides a connection from the pool.
      *
+     * Waits up to the acquire timeout when every connection is checked out.
+     *
      * @return an available {@link Connection}
-     * @throws DatabaseException if no connections are available or an error occurs
+     * @throws DatabaseException if no connection becomes available in time or an error occurs
      */
     public Connection getConnection() {
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            return bound;
+        }
         if (isShutdown.get()) {
             throw new IllegalStateException("Connection pool is shutdown");
         }
 
         try {
-            Connection connection = availableConnections.poll(2, TimeUnit.SECONDS);
-
-            if (connection == null) {
-                if (usedConnections.size() < maxPoolSize) {
-                    logger.warn("No idle connections available; creating new connection");
-                    connection = createConnection();
-                } else {
-                    throw new DatabaseException("Connection pool exhausted");
-                }
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new DatabaseException("Connection pool exhausted");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while waiting for a connection", e);
+        }
 
-            if (!connection.isValid(1)) {
-                logger.warn("Invalid connection encountered; recreating");
+        try {
+            Connection connection = availableConnections.poll();
+            if (connection == null || !connection.isValid(1)) {
+                if (connection != null) {
+                    logger.warn("Invalid connection encountered; recreating");
+                }
                 connection = createConnection();
             }
 
             usedConnections.offer(connection);
             return connection;
-        } catch (InterruptedException | SQLException e) {
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
             logger.error("Failed to obtain connection", e);
-            throw new DatabaseException("Failed to get connection from pool", e);
+            throw e instanceof DatabaseException dbe ? dbe : new DatabaseException("Failed to get connection from pool", e);
         }
     }
 
@@ -163,21 +205,18 @@ public class ConnectionPool {
      * @param connection connection to release
      */
     public void releaseConnection(Connection connection) {
-        if (connection == null) {
+        if (connection == null || connection == transactionConnection.get()) {
             return;
         }
 
+        boolean checkedOut = usedConnections.remove(connection);
         try {
             if (connection.isValid(1) && !connection.getAutoCommit()) {
                 connection.rollback();
                 connection.setAutoCommit(true);
             }
 
-            usedConnections.remove(connection);
-
-            if (!isShutdown.get() && connection.isValid(1)) {
-                availableConnections.offer(connection);
-            } else {
+            if (isShutdown.get() || !connection.isValid(1) || !availableConnections.offer(connection)) {
                 connection.close();
                 logger.info("Connection closed instead of returning to pool");
             }
@@ -188,9 +227,91 @@ public class ConnectionPool {
             } catch (SQLException ex) {
                 logger.error("Error closing connection", ex);
             }
+        } finally {
+            // Only hand the slot back once the connection is idle again
+            if (checkedOut) {
+                permits.release();
+            }
         }
     }
 
+    /**
+     * Sets the policy for retrying transactions that failed on a lock conflict.
+     *
+     * @param retryPolicy the retry policy
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+        if (transactionConnection.get() != null) {
+            return work.get();
+        }
+        return retryPolicy.retry(() -> runTransaction(work));
+    }
+
+    /**
+     * Runs work in a new transaction bound to the current thread.
+     *
+     * @param work the work
+     * @param <T>  result type
+     * @return the work's result
+     */
+    private <T> T runTransaction(Supplier<T> work) {
+        Connection connection = getConnection();
+        try {
+            connection.setAutoCommit(false);
+            transactionConnection.set(bindToTransaction(connection));
+            T result = work.get();
+            connection.commit();
+            return result;
+        } catch (SQLException e) {
+            logger.error("Error committing transaction", e);
+            throw new DatabaseException("Error committing transaction", e);
+        } finally {
+            transactionConnection.remove();
+            // Rolls back unless the commit went through
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Wraps a connection so that DAOs cannot end the transaction it belongs to.
+     * Commit, rollback, auto-commit changes and close become no-ops.
+     *
+     * @param connection the transaction's connection
+     * @return connection to hand to DAOs
+     */
+    private static Connection bindToTransaction(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    boolean noArgs = args == null || args.length == 0;
+                    switch (method.getName()) {
+                        case "commit", "close", "setAutoCommit" -> {
+                            return null;
+                        }
+                        case "rollback" -> {
+                            if (noArgs) {
+                                return null;
+                            }
+                        }
+                        case "getAutoCommit" -> {
+                            return false;
+                        }
+                        default -> {
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
     /**
      * Gracefully shuts down the connection pool and closes all connections.
      */
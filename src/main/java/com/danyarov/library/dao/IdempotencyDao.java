@@ -0,0 +1,60 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.model.IdempotencyRecord;
+
+import java.util.Optional;
+
+/**
+ * Idempotency key DAO interface.
+ * Stores the keys of recent requests together with their results.
+ */
+public interface IdempotencyDao {
+
+    /**
+     * Claim a key for a request; fails if the key is already stored
+     * @param key idempotency key
+     * @param scope the request the key is used for
+     * @param createdAt claim time in epoch milliseconds
+     * @return true if the key was claimed, false if it already existed
+     */
+    boolean claim(String key, String scope, long createdAt);
+
+    /**
+     * Take over a key whose claim is older than the given time and still has no result,
+     * because the node that claimed it stopped before finishing
+     * @param key idempotency key
+     * @param claimedAt new claim time in epoch milliseconds
+     * @param claimedBefore claims made before this time, in epoch milliseconds, may be taken over
+     * @return true if the key was taken over, false if it has a result, a newer claim or no row
+     */
+    boolean takeOver(String key, long claimedAt, long claimedBefore);
+
+    /**
+     * Find a stored key
+     * @param key idempotency key
+     * @return the stored key, if any
+     */
+    Optional<IdempotencyRecord> find(String key);
+
+    /**
+     * Store the result of the request that claimed a key
+     * @param key idempotency key
+     * @param result request result
+     */
+    void complete(String key, String result);
+
+    /**
+     * Release a claimed key whose request failed, so it can be retried.
+     * A claim another node has taken over since is left alone.
+     * @param key idempotency key
+     * @param claimedAt claim time the key was claimed with, in epoch milliseconds
+     */
+    void release(String key, long claimedAt);
+
+    /**
+     * Delete keys claimed before the given time
+     * @param before epoch milliseconds
+     * @return number of deleted rows
+     */
+    int deleteOlderThan(long before);
+}
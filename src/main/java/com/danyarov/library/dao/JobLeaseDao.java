@@ -0,0 +1,35 @@
+package com.danyarov.library.dao;
+
+/**
+ * Job lease DAO interface.
+ * Records which node runs each background job, and until when.
+ */
+public interface JobLeaseDao {
+
+    /**
+     * Take the lease of a job if nobody holds it or the holder let it expire
+     * @param jobName job name
+     * @param owner node taking the lease
+     * @param leaseMillis lease length
+     * @return the new lease token, or 0 if another node holds the lease
+     */
+    long acquire(String jobName, String owner, long leaseMillis);
+
+    /**
+     * Extend a lease that is still held under the given token
+     * @param jobName job name
+     * @param owner node holding the lease
+     * @param token lease token the lease was taken with
+     * @param leaseMillis lease length from now
+     * @return true if extended, false if the lease has passed to another node
+     */
+    boolean renew(String jobName, String owner, long token, long leaseMillis);
+
+    /**
+     * Give up a lease so another node can take it at once
+     * @param jobName job name
+     * @param owner node holding the lease
+     * @param token lease token the lease was taken with
+     */
+    void release(String jobName, String owner, long token);
+}
@@ -2,9 +2,16 @@ package com.danyarov.library.dao;
 
 import com.danyarov.library.model.Order;
 import com.danyarov.library.model.OrderStatus;
+import com.danyarov.library.model.OrderType;
+import com.danyarov.library.model.Page;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Order DAO interface
@@ -44,4 +51,156 @@ public interface OrderDao extends BasicDao<Order, Long> {
      * @return list of orders with full details
      */
     List<Order> findByStatusWithDetails(OrderStatus status);
+
+    /**
+     * Count orders per status
+     * @return number of orders for every status, zero for statuses without orders
+     */
+    Map<OrderStatus, Long> countByStatus();
+
+    /**
+     * Find which of the given books the user has an active order for
+     * @param userId user ID
+     * @param bookIds book IDs to check
+     * @return IDs of books with a pending or issued order by the user
+     */
+    Set<Long> findBookIdsWithActiveOrder(Long userId, Collection<Long> bookIds);
+
+    /**
+     * Find which of the given users have an active order for a book
+     * @param bookId book ID
+     * @param userIds user IDs to check
+     * @return IDs of users with a pending or issued order for the book
+     */
+    Set<Long> findUserIdsWithActiveOrder(Long bookId, Collection<Long> userIds);
+
+    /**
+     * Pass every order with full details to an action, streaming rows in constant memory
+     * @param action action called for each order, newest first
+     */
+    void forEachWithDetails(Consumer<Order> action);
+
+    /**
+     * Pass pending orders to an action, streaming rows in constant memory
+     * @param since earliest order date to include, or null for all pending orders
+     * @param action action called for each order
+     */
+    void forEachPendingSince(LocalDateTime since, Consumer<Order> action);
+
+    /**
+     * Mark orders as expired if they are still pending and were placed no later than the cutoff.
+     * Orders holding a reserved copy or created from the waitlist are left alone; see {@link #lockReservedPending}.
+     * @param orderType type of the given orders
+     * @param orderedBefore latest order date that has expired
+     * @param orderIds order IDs
+     * @return number of orders expired
+     */
+    int expirePending(OrderType orderType, LocalDateTime orderedBefore, Collection<Long> orderIds);
+
+    /**
+     * Update an order only if its stored status is still the expected one. Of two concurrent
+     * transitions from the same status exactly one succeeds.
+     * @param order order with the new field values
+     * @param expected status the order must still have
+     * @return true if the order was updated, false if its status has changed since it was read
+     */
+    boolean updateIfStatus(Order order, OrderStatus expected);
+
+    /**
+     * Update an order only if it is still pending and no other librarian holds an unexpired
+     * claim on it. A desk claiming the order after the caller read it makes this fail.
+     * @param order order with the new field values
+     * @param librarianId librarian making the change
+     * @param now the current time, to tell expired claims
+     * @return true if the order was updated, false if it is no longer pending or another desk has claimed it
+     */
+    boolean updateIfPendingFor(Order order, Long librarianId, LocalDateTime now);
+
+    /**
+     * Lock those of the given orders that are still pending, were placed no later than the cutoff
+     * and were handed over from the waitlist. Such an order holds a reserved copy or, for books
+     * without copy records, a unit of the available copies counter. Must be called inside a transaction.
+     * @param orderType type of the given orders
+     * @param orderedBefore latest order date that has expired
+     * @param orderIds order IDs
+     * @return locked orders
+     */
+    List<Order> lockReservedPending(OrderType orderType, LocalDateTime orderedBefore, Collection<Long> orderIds);
+
+    /**
+     * Find issued orders past their due date with full details, longest overdue first
+     * @param now the current time
+     * @param pageNumber zero-based page number
+     * @param pageSize number of orders per page
+     * @return page of overdue orders
+     */
+    Page<Order> findOverdue(LocalDateTime now, int pageNumber, int pageSize);
+
+    /**
+     * Find issued orders past their due date that are not yet marked overdue, ordered by
+     * due date and ID, starting after the given position
+     * @param now the current time
+     * @param afterDueDate due date of the last order already seen, or null to start from the beginning
+     * @param afterId ID of the last order already seen
+     * @param limit maximum number of orders
+     * @return unmarked overdue orders
+     */
+    List<Order> findUnmarkedOverdue(LocalDateTime now, LocalDateTime afterDueDate, long afterId, int limit);
+
+    /**
+     * Mark orders as overdue if they are still issued and not marked yet
+     * @param orderIds order IDs
+     * @param overdueAt time to record
+     * @return number of orders marked
+     */
+    int markOverdue(Collection<Long> orderIds, LocalDateTime overdueAt);
+
+    /**
+     * Lock the oldest pending orders that no desk holds an unexpired claim on, skipping orders
+     * locked by other desks. Must be called inside a transaction.
+     * @param now the current time
+     * @param limit maximum number of orders
+     * @return IDs of the locked orders, oldest first
+     */
+    List<Long> lockClaimable(LocalDateTime now, int limit);
+
+    /**
+     * Claim orders for a librarian's desk until the given time
+     * @param orderIds order IDs, locked by {@link #lockClaimable}
+     * @param librarianId ID of the claiming librarian
+     * @param claimExpiresAt when the claim runs out
+     * @return number of orders claimed
+     */
+    int claim(Collection<Long> orderIds, Long librarianId, LocalDateTime claimExpiresAt);
+
+    /**
+     * Find pending orders under an unexpired claim of a librarian, with full details, oldest first
+     * @param librarianId librarian ID
+     * @param now the current time
+     * @return claimed orders
+     */
+    List<Order> findClaimedWithDetails(Long librarianId, LocalDateTime now);
+
+    /**
+     * Count pending orders that no desk holds an unexpired claim on
+     * @param now the current time
+     * @return number of claimable orders
+     */
+    long countClaimable(LocalDateTime now);
+
+    /**
+     * Return a librarian's pending claims to the queue
+     * @param librarianId librarian ID
+     * @return number of orders released
+     */
+    int releaseClaims(Long librarianId);
+
+    /**
+     * Insert orders using JDBC batches, committing once per batch.
+     * Generated IDs are set on every saved entity. If a batch fails it is rolled back,
+     * but earlier batches stay committed; on failure exactly the committed orders have an ID.
+     * @param orders orders to insert
+     * @return the same list, with IDs set
+     */
+    List<Order> saveAll(List<Order> orders);
 }
@@ -0,0 +1,220 @@
+package com.danyarov.library.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs database work again when it failed on a transient lock conflict.
+ * <p>
+ * Only deadlocks (SQLState {@code 40001}, MySQL error 1213) and lock wait timeouts
+ * (MySQL error 1205) are retried; the conflicting work was rolled back, so running it
+ * again is safe. Every other error is rethrown at once. Retries wait with exponential
+ * backoff and full jitter, so operations that collided do not collide again in lockstep.
+ * <p>
+ * Each operation has a budget of {@code maxAttempts} attempts. Work nested in an operation
+ * that is already retried, such as a statement inside {@link ConnectionPool#inTransaction},
+ * is not retried on its own: a deadlock rolls back the whole transaction, so it is the
+ * transaction that runs again, within the outer budget.
+ * <p>
+ * Within a web request the budget is also shared by all operations of the request: between
+ * {@link #beginRequest()} and {@link #endRequest()} a thread makes at most
+ * {@code maxAttempts - 1} retries in total, so a request touching many rows under contention
+ * fails fast instead of multiplying its latency by the number of statements it runs.
+ */
+public class RetryPolicy implements RetryPolicyMBean {
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    /** Policy that never retries */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    /** Set while the current thread runs an operation that owns a retry budget */
+    private static final ThreadLocal<Boolean> RETRYING = new ThreadLocal<>();
+    /** Retries made so far by the current thread's request, or null outside a request */
+    private static final ThreadLocal<int[]> REQUEST_RETRIES = new ThreadLocal<>();
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    /**
+     * @param maxAttempts     most attempts per operation, including the first
+     * @param baseDelayMillis backoff cap before the first retry; doubles with each retry
+     * @param maxDelayMillis  upper bound of any single backoff
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Work that issues JDBC calls.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    /**
+     * Starts a shared retry budget for the work the current thread does until {@link #endRequest()}.
+     */
+    public static void beginRequest() {
+        REQUEST_RETRIES.set(new int[1]);
+    }
+
+    /**
+     * Ends the current thread's request budget; later operations each get their own budget again.
+     */
+    public static void endRequest() {
+        REQUEST_RETRIES.remove();
+    }
+
+    /**
+     * Runs a JDBC call, retrying it on transient failures.
+     *
+     * @param call the call
+     * @param <T>  result type
+     * @return the call's result
+     * @throws SQLException the last failure, if the call did not succeed
+     */
+    public <T> T execute(SqlCall<T> call) throws SQLException {
+        if (RETRYING.get() != null) {
+            return call.call();
+        }
+
+        RETRYING.set(Boolean.TRUE);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = call.call();
+                    if (attempt > 1) {
+                        recovered.increment();
+                    }
+                    return result;
+                } catch (SQLException | RuntimeException e) {
+                    if (!isTransient(e)) {
+                        throw e;
+                    }
+                    if (attempt >= maxAttempts) {
+                        exhausted.increment();
+                        logger.warn("Transient database failure persisted after {} attempts", attempt);
+                        throw e;
+                    }
+                    if (!takeRequestRetry()) {
+                        exhausted.increment();
+                        logger.warn("Transient database failure on attempt {}, request retry budget used up", attempt);
+                        throw e;
+                    }
+                    if (!backoff(attempt, e)) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            RETRYING.remove();
+        }
+    }
+
+    /**
+     * Runs work whose database failures arrive wrapped in unchecked exceptions,
+     * retrying it on transient failures.
+     *
+     * @param work the work
+     * @param <T>  result type
+     * @return the work's result
+     */
+    public <T> T retry(Supplier<T> work) {
+        try {
+            return execute(work::get);
+        } catch (SQLException e) {
+            // Unreachable: a supplier cannot throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether a failure is a lock conflict that is worth retrying.
+     * Wrapping exceptions are unwrapped, so a {@code DatabaseException} caused by a deadlock counts.
+     *
+     * @param failure the failure
+     * @return true for deadlocks and lock wait timeouts
+     */
+    public static boolean isTransient(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && (SERIALIZATION_FAILURE.equals(sql.getSQLState())
+                    || sql.getErrorCode() == ER_LOCK_DEADLOCK || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts a retry against the current request's budget, if there is one.
+     *
+     * @return false if the request has no retries left
+     */
+    private boolean takeRequestRetry() {
+        int[] used = REQUEST_RETRIES.get();
+        if (used == null) {
+            return true;
+        }
+        if (used[0] >= maxAttempts - 1) {
+            return false;
+        }
+        used[0]++;
+        return true;
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @param attempt the attempt that just failed
+     * @param failure its failure
+     * @return false if interrupted, in which case no further attempt is made
+     */
+    private boolean backoff(int attempt, Exception failure) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        long delay = cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+        retries.increment();
+        logger.warn("Transient database failure on attempt {} of {}, retrying in {} ms: {}",
+                attempt, maxAttempts, delay, failure.getMessage());
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getRetries() { return retries.sum(); }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getRecovered() { return recovered.sum(); }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getExhausted() { return exhausted.sum(); }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getMaxAttempts() { return maxAttempts; }
+}
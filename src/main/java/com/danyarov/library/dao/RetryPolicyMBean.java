@@ -0,0 +1,27 @@
+package com.danyarov.library.dao;
+
+/**
+ * JMX view of the {@link RetryPolicy} counters.
+ */
+public interface RetryPolicyMBean {
+    /**
+     * @return number of retries made after a transient failure
+     */
+    long getRetries();
+
+    /**
+     * @return number of operations that succeeded after at least one retry
+     */
+    long getRecovered();
+
+    /**
+     * @return number of operations that still failed transiently on their last attempt,
+     *         or when their request's retry budget was used up
+     */
+    long getExhausted();
+
+    /**
+     * @return most attempts made per operation
+     */
+    int getMaxAttempts();
+}
@@ -0,0 +1,31 @@
+package com.danyarov.library.dao;
+
+import java.util.Map;
+
+/**
+ * Revocation DAO interface.
+ * Stores the moment after which a user's existing sessions are no longer valid.
+ */
+public interface RevocationDao {
+
+    /**
+     * Record a revocation, replacing any earlier one for the same user
+     * @param userId user ID
+     * @param revokedAt revocation time in epoch milliseconds
+     */
+    void save(long userId, long revokedAt);
+
+    /**
+     * Find revocations recorded at or after the given time
+     * @param since epoch milliseconds
+     * @return map of user ID to revocation time
+     */
+    Map<Long, Long> findRevokedSince(long since);
+
+    /**
+     * Delete revocations older than the given time
+     * @param before epoch milliseconds
+     * @return number of deleted rows
+     */
+    int deleteOlderThan(long before);
+}
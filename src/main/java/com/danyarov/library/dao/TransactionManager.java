@@ -0,0 +1,21 @@
+package com.danyarov.library.dao;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs work of several DAO calls in one database transaction.
+ */
+public interface TransactionManager {
+
+    /**
+     * Run work in a transaction that is committed when it returns and rolled back when it throws.
+     * DAO calls made by the work on the same thread share the transaction's connection, and their
+     * own commits and rollbacks are deferred to it. A nested call joins the outer transaction.
+     * The work may run more than once if the transaction is retried after a deadlock, so it
+     * must not have effects outside the database.
+     * @param work the work to run
+     * @param <T> result type
+     * @return the result of the work
+     */
+    <T> T inTransaction(Supplier<T> work);
+}
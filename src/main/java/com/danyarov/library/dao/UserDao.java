@@ -2,8 +2,10 @@ package com.danyarov.library.dao;
 
 import com.danyarov.library.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * User DAO interface
@@ -17,4 +19,30 @@ public interface UserDao extends BasicDao<User, Long> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Write the columns assigned since the user was loaded; nothing is written if there are none.
+     * When the user carries a version, the update only applies if the row still has that version.
+     * @param user user with changed fields, with an encoded password if it was changed
+     * @return the user, marked clean and with its new version
+     * @throws com.danyarov.library.exception.OptimisticLockException if the row version has moved on
+     */
+    @Override
+    User update(User user);
+
+    /**
+     * Find which of the given emails are already registered.
+     * Runs a single query against the unique email column, which compares case-insensitively.
+     * @param emails emails to look up
+     * @return the matching emails as stored
+     */
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * Insert users using JDBC batches, committing once per batch.
+     * Generated IDs are set on every saved entity. If a batch fails it is rolled back,
+     * but earlier batches stay committed.
+     * @param users users to insert, with encoded passwords
+     * @return the same list, with IDs set
+     */
+    List<User> saveAll(List<User> users);
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package com.danyarov.library.dao.impl;
+
+import com.danyarov.library.dao.BookCopyDao;
+import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.BookCopy;
+import com.danyarov.library.model.BookCopyStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-based implementation of the {@link BookCopyDao} interface.
+ * <p>
+ * Manages the physical copies of books, including allocation of a free copy
+ * with {@code SELECT ... FOR UPDATE SKIP LOCKED}.
+ */
+public class BookCopyDaoImpl implements BookCopyDao {
+    private static final Logger logger = LoggerFactory.getLogger(BookCopyDaoImpl.class);
+
+    private final ConnectionPool connectionPool;
+
+    /**
+     * Constructs a new instance of {@code BookCopyDaoImpl} using the singleton connection pool.
+     */
+    public BookCopyDaoImpl() {
+        this.connectionPool = ConnectionPool.getInstance();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<BookCopy> findById(Long id) {
+        String sql = "SELECT * FROM book_copies WHERE id = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, id);
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapResultSetToBookCopy(rs));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            logger.error("Error finding book copy by id: {}", id, e);
+            throw new DatabaseException("Error finding book copy by id", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<BookCopy> findAll() {
+        String sql = "SELECT * FROM book_copies ORDER BY inventory_number";
+        Connection conn = null;
+        List<BookCopy> copies = new ArrayList<>();
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                copies.add(mapResultSetToBookCopy(rs));
+            }
+            return copies;
+        } catch (SQLException e) {
+            logger.error("Error finding all book copies", e);
+            throw new DatabaseException("Error finding all book copies", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEach(Consumer<BookCopy> action) {
+        String sql = "SELECT * FROM book_copies ORDER BY inventory_number";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(STREAMING_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapResultSetToBookCopy(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming book copies", e);
+            throw new DatabaseException("Error streaming book copies", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<BookCopy> findByBookId(Long bookId) {
+        String sql = "SELECT * FROM book_copies WHERE book_id = ? ORDER BY inventory_number";
+        Connection conn = null;
+        List<BookCopy> copies = new ArrayList<>();
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, bookId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                copies.add(mapResultSetToBookCopy(rs));
+            }
+            return copies;
+        } catch (SQLException e) {
+            logger.error("Error finding copies of book: {}", bookId, e);
+            throw new DatabaseException("Error finding copies of book", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean existsByBookId(Long bookId) {
+        String sql = "SELECT 1 FROM book_copies WHERE book_id = ? LIMIT 1";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, bookId);
+
+            ResultSet rs = stmt.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            logger.error("Error checking copies of book: {}", bookId, e);
+            throw new DatabaseException("Error checking copies of book", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<BookCopy> lockAvailableCopy(Long bookId) {
+        String sql = "SELECT * FROM book_copies WHERE book_id = ? AND status = ? " +
+                "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, bookId);
+            stmt.setString(2, BookCopyStatus.AVAILABLE.getValue());
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapResultSetToBookCopy(rs));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            logger.error("Error locking a copy of book: {}", bookId, e);
+            throw new DatabaseException("Error locking a copy of book", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BookCopy save(BookCopy copy) {
+        String sql = "INSERT INTO book_copies (book_id, inventory_number, status) VALUES (?, ?, ?)";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            stmt.setLong(1, copy.getBookId());
+            stmt.setString(2, copy.getInventoryNumber());
+            stmt.setString(3, copy.getStatus().getValue());
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new DatabaseException("Creating book copy failed, no rows affected.");
+            }
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    copy.setId(generatedKeys.getLong(1));
+                } else {
+                    throw new DatabaseException("Creating book copy failed, no ID obtained.");
+                }
+            }
+
+            logger.info("Book copy saved successfully: {}", copy.getInventoryNumber());
+            return copy;
+        } catch (SQLException e) {
+            logger.error("Error saving book copy", e);
+            throw new DatabaseException("Error saving book copy", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BookCopy update(BookCopy copy) {
+        String sql = "UPDATE book_copies SET book_id = ?, inventory_number = ?, status = ? WHERE id = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, copy.getBookId());
+            stmt.setString(2, copy.getInventoryNumber());
+            stmt.setString(3, copy.getStatus().getValue());
+            stmt.setLong(4, copy.getId());
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new DatabaseException("Updating book copy failed, no rows affected.");
+            }
+
+            logger.info("Book copy updated successfully: {}", copy.getInventoryNumber());
+            return copy;
+        } catch (SQLException e) {
+            logger.error("Error updating book copy", e);
+            throw new DatabaseException("Error updating book copy", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateStatus(Long copyId, BookCopyStatus status) {
+        String sql = "UPDATE book_copies SET status = ? WHERE id = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, status.getValue());
+            stmt.setLong(2, copyId);
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new DatabaseException("Updating book copy status failed, no rows affected.");
+            }
+
+            logger.info("Book copy {} is now {}", copyId, status);
+        } catch (SQLException e) {
+            logger.error("Error updating book copy status", e);
+            throw new DatabaseException("Error updating book copy status", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean deleteById(Long id) {
+        String sql = "DELETE FROM book_copies WHERE id = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, id);
+
+            int affectedRows = stmt.executeUpdate();
+            logger.info("Book copy deleted: {}", id);
+            return affectedRows > 0;
+        } catch (SQLException e) {
+            logger.error("Error deleting book copy", e);
+            throw new DatabaseException("Error deleting book copy", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Maps a {@link ResultSet} row to a {@link BookCopy} object.
+     *
+     * @param rs the result set containing book copy data
+     * @return a {@link BookCopy} instance populated from the current row of the result set
+     * @throws SQLException if any column access fails
+     */
+    private BookCopy mapResultSetToBookCopy(ResultSet rs) throws SQLException {
+        BookCopy copy = new BookCopy();
+        copy.setId(rs.getLong("id"));
+        copy.setBookId(rs.getLong("book_id"));
+        copy.setInventoryNumber(rs.getString("inventory_number"));
+        copy.setStatus(BookCopyStatus.fromString(rs.getString("status")));
+        copy.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return copy;
+    }
+}
@@ -1,17 +1,19 @@
 package com.danyarov.library.dao.impl;
 
+import com.danyarov.library.dao.BasicDao;
 import com.danyarov.library.dao.BookDao;
 import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.dao.RetryPolicy;
 import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.exception.OptimisticLockException;
 import com.danyarov.library.model.Book;
 import com.danyarov.library.model.Page;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * JDBC-based implementation of the {@link BookDao} interface.
@@ -22,13 +24,43 @@ import java.util.Optional;
  */
 public class BookDaoImpl implements BookDao {
     private static final Logger logger = LoggerFactory.getLogger(BookDaoImpl.class);
+    private static final String INSERT_SQL = "INSERT INTO books (title, author, isbn, genre, description, " +
+            "publication_year, total_copies, available_copies) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    /** Columns {@link #update(Book)} may write, in the order they appear in the statement */
+    private static final List<String> UPDATABLE_COLUMNS = List.of("title", "author", "isbn", "genre",
+            "description", "publication_year", "total_copies", "available_copies");
+
     private final ConnectionPool connectionPool;
+    private final int batchSize;
+    private final RetryPolicy retryPolicy;
 
     /**
      * Constructs a new instance of {@code BookDaoImpl} using a singleton {@link ConnectionPool}.
      */
     public BookDaoImpl() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new instance of {@code BookDaoImpl} with a custom bulk insert batch size.
+     *
+     * @param batchSize rows per batch and transaction in {@link #saveAll(List)}
+     */
+    public BookDaoImpl(int batchSize) {
+        this(batchSize, RetryPolicy.NONE);
+    }
+
+    /**
+     * Constructs a new instance of {@code BookDaoImpl} with a custom bulk insert batch size
+     * and a policy for retrying updates that fail on lock conflicts.
+     *
+     * @param batchSize   rows per batch and transaction in {@link #saveAll(List)}
+     * @param retryPolicy retry policy for deadlocks and lock wait timeouts
+     */
+    public BookDaoImpl(int batchSize, RetryPolicy retryPolicy) {
         this.connectionPool = ConnectionPool.getInstance();
+        this.batchSize = batchSize;
+        this.retryPolicy = retryPolicy;
     }
 
     /** {@inheritDoc} */
@@ -79,6 +111,31 @@ public class BookDaoImpl implements BookDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void forEach(Consumer<Book> action) {
+        String sql = "SELECT * FROM books ORDER BY title";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(STREAMING_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapResultSetToBook(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming books", e);
+            throw new DatabaseException("Error streaming books", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Page<Book> findAllPaginated(int pageNumber, int pageSize) {
@@ -86,12 +143,12 @@ public class BookDaoImpl implements BookDao {
         Connection conn = null;
         List<Book> books = new ArrayList<>();
 
+        // Count first so that only one connection is held at a time
+        long totalElements = countAll();
+
         try {
             conn = connectionPool.getConnection();
 
-            // Get total count
-            long totalElements = countAll();
-
             // Get page data
             PreparedStatement stmt = conn.prepareStatement(sql);
             stmt.setInt(1, pageSize);
@@ -143,12 +200,12 @@ public class BookDaoImpl implements BookDao {
         Connection conn = null;
         List<Book> books = new ArrayList<>();
 
+        // Count first so that only one connection is held at a time
+        long totalElements = countByGenre(genre);
+
         try {
             conn = connectionPool.getConnection();
 
-            // Get total count
-            long totalElements = countByGenre(genre);
-
             // Get page data
             PreparedStatement stmt = conn.prepareStatement(sql);
             stmt.setString(1, genre);
@@ -209,12 +266,12 @@ public class BookDaoImpl implements BookDao {
         Connection conn = null;
         List<Book> books = new ArrayList<>();
 
+        // Count first so that only one connection is held at a time
+        long totalElements = countBySearchTerm(searchTerm);
+
         try {
             conn = connectionPool.getConnection();
 
-            // Get total count
-            long totalElements = countBySearchTerm(searchTerm);
-
             // Get page data
             PreparedStatement stmt = conn.prepareStatement(sql);
             String searchPattern = "%" + searchTerm + "%";
@@ -316,26 +373,49 @@ public class BookDaoImpl implements BookDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        Set<String> result = new HashSet<>();
+        if (isbns.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT isbn FROM books WHERE isbn IN (" +
+                String.join(", ", Collections.nCopies(isbns.size(), "?")) + ")";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            int index = 1;
+            for (String isbn : isbns) {
+                stmt.setString(index++, isbn);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                result.add(rs.getString("isbn"));
+            }
+            return result;
+        } catch (SQLException e) {
+            logger.error("Error finding existing ISBNs among {} values", isbns.size(), e);
+            throw new DatabaseException("Error finding existing ISBNs", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Book save(Book book) {
-        String sql = "INSERT INTO books (title, author, isbn, genre, description, " +
-                "publication_year, total_copies, available_copies) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         Connection conn = null;
 
         try {
             conn = connectionPool.getConnection();
             conn.setAutoCommit(false);
 
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            stmt.setString(1, book.getTitle());
-            stmt.setString(2, book.getAuthor());
-            stmt.setString(3, book.getIsbn());
-            stmt.setString(4, book.getGenre());
-            stmt.setString(5, book.getDescription());
-            stmt.setObject(6, book.getPublicationYear());
-            stmt.setInt(7, book.getTotalCopies());
-            stmt.setInt(8, book.getAvailableCopies());
+            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            bindInsert(stmt, book);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -368,12 +448,64 @@ public class BookDaoImpl implements BookDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Book> saveAll(List<Book> books) {
+        Connection conn = null;
+        int committed = 0;
+
+        try {
+            conn = connectionPool.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < books.size(); start += batchSize) {
+                    List<Book> batch = books.subList(start, Math.min(start + batchSize, books.size()));
+                    for (Book book : batch) {
+                        bindInsert(stmt, book);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (Book book : batch) {
+                            if (!generatedKeys.next()) {
+                                throw new DatabaseException("Creating books failed, not all IDs obtained.");
+                            }
+                            book.setId(generatedKeys.getLong(1));
+                        }
+                    }
+
+                    conn.commit();
+                    committed += batch.size();
+                }
+            }
+            logger.info("Saved {} books in batches of {}", committed, batchSize);
+            return books;
+        } catch (SQLException e) {
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                logger.error("Error rolling back 'book batch save' transaction", ex);
+            }
+            logger.error("Error saving books; {} of {} committed", committed, books.size(), e);
+            throw new DatabaseException("Error saving books after " + committed + " were committed", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Book update(Book book) {
-        String sql = "UPDATE books SET title = ?, author = ?, isbn = ?, genre = ?, " +
-                "description = ?, publication_year = ?, total_copies = ?, available_copies = ?, " +
-                "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+        List<String> columns = UPDATABLE_COLUMNS.stream().filter(book::isDirty).toList();
+        if (columns.isEmpty()) {
+            logger.debug("Book {} has no changes to write", book.getId());
+            return book;
+        }
+        String sql = BasicDao.buildUpdateSql("books", columns, book.getVersion() != null);
         Connection conn = null;
 
         try {
@@ -381,23 +513,29 @@ public class BookDaoImpl implements BookDao {
             conn.setAutoCommit(false);
 
             PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, book.getTitle());
-            stmt.setString(2, book.getAuthor());
-            stmt.setString(3, book.getIsbn());
-            stmt.setString(4, book.getGenre());
-            stmt.setString(5, book.getDescription());
-            stmt.setObject(6, book.getPublicationYear());
-            stmt.setInt(7, book.getTotalCopies());
-            stmt.setInt(8, book.getAvailableCopies());
-            stmt.setLong(9, book.getId());
+            int index = 1;
+            for (String column : columns) {
+                bindColumn(stmt, index++, book, column);
+            }
+            stmt.setLong(index++, book.getId());
+            if (book.getVersion() != null) {
+                stmt.setLong(index, book.getVersion());
+            }
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
+                if (book.getVersion() != null) {
+                    throw new OptimisticLockException("Book " + book.getId() + " was changed by another user");
+                }
                 throw new DatabaseException("Updating book failed, no rows affected.");
             }
 
             conn.commit();
-            logger.info("Book updated successfully: {}", book.getTitle());
+            if (book.getVersion() != null) {
+                book.setVersion(book.getVersion() + 1);
+            }
+            book.markClean();
+            logger.info("Book updated successfully: {} {}", book.getTitle(), columns);
             return book;
         } catch (SQLException e) {
             try {
@@ -448,7 +586,7 @@ public class BookDaoImpl implements BookDao {
             stmt.setInt(1, delta);
             stmt.setLong(2, bookId);
 
-            int affectedRows = stmt.executeUpdate();
+            int affectedRows = retryPolicy.execute(stmt::executeUpdate);
             if (affectedRows == 0) {
                 throw new DatabaseException("Updating available copies failed, no rows affected.");
             }
@@ -462,6 +600,47 @@ public class BookDaoImpl implements BookDao {
         }
     }
 
+    /**
+     * Binds the columns of {@link #INSERT_SQL}.
+     *
+     * @param stmt insert statement
+     * @param book book to insert
+     * @throws SQLException if a parameter cannot be set
+     */
+    private void bindInsert(PreparedStatement stmt, Book book) throws SQLException {
+        stmt.setString(1, book.getTitle());
+        stmt.setString(2, book.getAuthor());
+        stmt.setString(3, book.getIsbn());
+        stmt.setString(4, book.getGenre());
+        stmt.setString(5, book.getDescription());
+        stmt.setObject(6, book.getPublicationYear());
+        stmt.setInt(7, book.getTotalCopies());
+        stmt.setInt(8, book.getAvailableCopies());
+    }
+
+    /**
+     * Binds the value of one updatable column.
+     *
+     * @param stmt   the update statement
+     * @param index  parameter index
+     * @param book   the book holding the value
+     * @param column one of {@link #UPDATABLE_COLUMNS}
+     * @throws SQLException if binding fails
+     */
+    private void bindColumn(PreparedStatement stmt, int index, Book book, String column) throws SQLException {
+        switch (column) {
+            case "title" -> stmt.setString(index, book.getTitle());
+            case "author" -> stmt.setString(index, book.getAuthor());
+            case "isbn" -> stmt.setString(index, book.getIsbn());
+            case "genre" -> stmt.setString(index, book.getGenre());
+            case "description" -> stmt.setString(index, book.getDescription());
+            case "publication_year" -> stmt.setObject(index, book.getPublicationYear());
+            case "total_copies" -> stmt.setInt(index, book.getTotalCopies());
+            case "available_copies" -> stmt.setInt(index, book.getAvailableCopies());
+            default -> throw new IllegalArgumentException("Not an updatable column: " + column);
+        }
+    }
+
     /**
      * Maps a {@link ResultSet} row to a {@link Book} object.
      *
@@ -482,6 +661,8 @@ public class BookDaoImpl implements BookDao {
         book.setAvailableCopies(rs.getInt("available_copies"));
         book.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
         book.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        book.setVersion(rs.getLong("version"));
+        book.markClean();
         return book;
     }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.danyarov.library.dao.impl;
+
+import com.danyarov.library.dao.BookHoldDao;
+import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.BookHold;
+import com.danyarov.library.model.HoldStatus;
+import com.danyarov.library.model.OrderType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC-based implementation of the {@link BookHoldDao} interface.
+ * <p>
+ * Every query is keyed by book and served by the {@code (book_id, status, id)} index, so a
+ * book's queue is read without touching the holds of other books: the head of the queue is
+ * the first entry of the index range, and a queue position is a count over that range.
+ */
+public class BookHoldDaoImpl implements BookHoldDao {
+    private static final Logger logger = LoggerFactory.getLogger(BookHoldDaoImpl.class);
+
+    /** Waiting hold with the number of waiting holds placed before it on the same book */
+    private static final String WAITING_WITH_POSITION_SQL =
+            "SELECT h.*, b.title AS book_title, " +
+            "(SELECT COUNT(*) FROM book_holds w WHERE w.book_id = h.book_id AND w.status = h.status " +
+            "AND w.id < h.id) + 1 AS queue_position " +
+            "FROM book_holds h JOIN books b ON h.book_id = b.id " +
+            "WHERE h.user_id = ? AND h.status = ?";
+
+    private final ConnectionPool connectionPool;
+
+    public BookHoldDaoImpl() {
+        this.connectionPool = ConnectionPool.getInstance();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BookHold save(BookHold hold) {
+        String sql = "INSERT INTO book_holds (user_id, book_id, order_type, status) VALUES (?, ?, ?, ?)";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            stmt.setLong(1, hold.getUserId());
+            stmt.setLong(2, hold.getBookId());
+            stmt.setString(3, hold.getOrderType().getValue());
+            stmt.setString(4, hold.getStatus().getValue());
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new DatabaseException("Creating hold failed, no rows affected.");
+            }
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    hold.setId(generatedKeys.getLong(1));
+                } else {
+                    throw new DatabaseException("Creating hold failed, no ID obtained.");
+                }
+            }
+            logger.info("Hold saved successfully: {}", hold.getId());
+            return hold;
+        } catch (SQLException e) {
+            logger.error("Error saving hold", e);
+            throw new DatabaseException("Error saving hold", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<BookHold> lockNextWaiting(Long bookId) {
+        String sql = "SELECT * FROM book_holds WHERE book_id = ? AND status = ? " +
+                "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, bookId);
+            stmt.setString(2, HoldStatus.WAITING.getValue());
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapResultSetToHold(rs));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            logger.error("Error locking next hold of book: {}", bookId, e);
+            throw new DatabaseException("Error locking next hold of book", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void markFulfilled(Long holdId, Long orderId) {
+        String sql = "UPDATE book_holds SET status = ?, order_id = ?, fulfilled_at = CURRENT_TIMESTAMP WHERE id = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, HoldStatus.FULFILLED.getValue());
+            stmt.setLong(2, orderId);
+            stmt.setLong(3, holdId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error fulfilling hold: {}", holdId, e);
+            throw new DatabaseException("Error fulfilling hold", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean cancel(Long holdId, Long userId) {
+        String sql = "UPDATE book_holds SET status = ? WHERE id = ? AND user_id = ? AND status = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, HoldStatus.CANCELLED.getValue());
+            stmt.setLong(2, holdId);
+            stmt.setLong(3, userId);
+            stmt.setString(4, HoldStatus.WAITING.getValue());
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            logger.error("Error cancelling hold: {}", holdId, e);
+            throw new DatabaseException("Error cancelling hold", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<BookHold> findWaiting(Long userId, Long bookId) {
+        String sql = WAITING_WITH_POSITION_SQL + " AND h.book_id = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, userId);
+            stmt.setString(2, HoldStatus.WAITING.getValue());
+            stmt.setLong(3, bookId);
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapResultSetToHoldWithPosition(rs));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            logger.error("Error finding hold of user {} on book {}", userId, bookId, e);
+            throw new DatabaseException("Error finding hold", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<BookHold> findWaitingByUser(Long userId) {
+        String sql = WAITING_WITH_POSITION_SQL + " ORDER BY h.id";
+        Connection conn = null;
+        List<BookHold> holds = new ArrayList<>();
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, userId);
+            stmt.setString(2, HoldStatus.WAITING.getValue());
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                holds.add(mapResultSetToHoldWithPosition(rs));
+            }
+            return holds;
+        } catch (SQLException e) {
+            logger.error("Error finding holds of user: {}", userId, e);
+            throw new DatabaseException("Error finding holds of user", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Maps a result set row to a {@link BookHold}.
+     *
+     * @param rs result set positioned at a {@code book_holds} row
+     * @return the hold
+     * @throws SQLException if result set parsing fails
+     */
+    private BookHold mapResultSetToHold(ResultSet rs) throws SQLException {
+        BookHold hold = new BookHold();
+        hold.setId(rs.getLong("id"));
+        hold.setUserId(rs.getLong("user_id"));
+        hold.setBookId(rs.getLong("book_id"));
+        hold.setOrderType(OrderType.fromString(rs.getString("order_type")));
+        hold.setStatus(HoldStatus.fromString(rs.getString("status")));
+        hold.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        hold.setOrderId(rs.getObject("order_id", Long.class));
+
+        Timestamp fulfilledAt = rs.getTimestamp("fulfilled_at");
+        if (fulfilledAt != null) hold.setFulfilledAt(fulfilledAt.toLocalDateTime());
+
+        return hold;
+    }
+
+    private BookHold mapResultSetToHoldWithPosition(ResultSet rs) throws SQLException {
+        BookHold hold = mapResultSetToHold(rs);
+        hold.setBookTitle(rs.getString("book_title"));
+        hold.setQueuePosition(rs.getInt("queue_position"));
+        return hold;
+    }
+}
@@ -0,0 +1,69 @@
+package com.danyarov.library.dao.impl;
+
+import com.danyarov.library.dao.CatalogVersionDao;
+import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.exception.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC-based implementation of the {@link CatalogVersionDao} interface.
+ *
+ * The version lives in the single row of {@code catalog_version}. Incrementing creates the
+ * row if it is missing, and {@code LAST_INSERT_ID(expr)} returns the new value from the
+ * same statement, so concurrent increments never observe each other's result.
+ */
+public class CatalogVersionDaoImpl implements CatalogVersionDao {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersionDaoImpl.class);
+    private final ConnectionPool connectionPool;
+
+    public CatalogVersionDaoImpl() {
+        this.connectionPool = ConnectionPool.getInstance();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long read() {
+        String sql = "SELECT version FROM catalog_version WHERE id = 1";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong("version") : 0;
+        } catch (SQLException e) {
+            logger.error("Error reading catalog version", e);
+            throw new DatabaseException("Error reading catalog version", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long increment() {
+        String sql = "INSERT INTO catalog_version (id, version) VALUES (1, LAST_INSERT_ID(1)) " +
+                "ON DUPLICATE KEY UPDATE version = LAST_INSERT_ID(version + 1)";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.executeUpdate();
+
+            ResultSet rs = conn.prepareStatement("SELECT LAST_INSERT_ID()").executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            logger.error("Error incrementing catalog version", e);
+            throw new DatabaseException("Error incrementing catalog version", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+}
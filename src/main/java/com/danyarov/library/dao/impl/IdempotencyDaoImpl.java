@@ -0,0 +1,158 @@
+package com.danyarov.library.dao.impl;
+
+import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.dao.IdempotencyDao;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.IdempotencyRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * JDBC-based implementation of the {@link IdempotencyDao} interface.
+ *
+ * The key is the primary key of {@code idempotency_keys}, so of several nodes
+ * claiming the same key at once exactly one insert succeeds.
+ */
+public class IdempotencyDaoImpl implements IdempotencyDao {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyDaoImpl.class);
+    private final ConnectionPool connectionPool;
+
+    public IdempotencyDaoImpl() {
+        this.connectionPool = ConnectionPool.getInstance();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean claim(String key, String scope, long createdAt) {
+        String sql = "INSERT IGNORE INTO idempotency_keys (idem_key, scope, created_at) VALUES (?, ?, ?)";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, key);
+            stmt.setString(2, scope);
+            stmt.setLong(3, createdAt);
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            logger.error("Error claiming idempotency key: {}", key, e);
+            throw new DatabaseException("Error claiming idempotency key", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean takeOver(String key, long claimedAt, long claimedBefore) {
+        String sql = "UPDATE idempotency_keys SET created_at = ? WHERE idem_key = ? AND result IS NULL AND created_at < ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, claimedAt);
+            stmt.setString(2, key);
+            stmt.setLong(3, claimedBefore);
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            logger.error("Error taking over idempotency key: {}", key, e);
+            throw new DatabaseException("Error taking over idempotency key", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        String sql = "SELECT * FROM idempotency_keys WHERE idem_key = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, key);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return Optional.of(new IdempotencyRecord(rs.getString("idem_key"), rs.getString("scope"),
+                        rs.getString("result"), rs.getLong("created_at")));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            logger.error("Error finding idempotency key: {}", key, e);
+            throw new DatabaseException("Error finding idempotency key", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void complete(String key, String result) {
+        String sql = "UPDATE idempotency_keys SET result = ? WHERE idem_key = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, result);
+            stmt.setString(2, key);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error completing idempotency key: {}", key, e);
+            throw new DatabaseException("Error completing idempotency key", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void release(String key, long claimedAt) {
+        String sql = "DELETE FROM idempotency_keys WHERE idem_key = ? AND created_at = ? AND result IS NULL";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, key);
+            stmt.setLong(2, claimedAt);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error releasing idempotency key: {}", key, e);
+            throw new DatabaseException("Error releasing idempotency key", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int deleteOlderThan(long before) {
+        String sql = "DELETE FROM idempotency_keys WHERE created_at < ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, before);
+
+            int affectedRows = stmt.executeUpdate();
+            logger.debug("Expired idempotency keys deleted: {}", affectedRows);
+            return affectedRows;
+        } catch (SQLException e) {
+            logger.error("Error deleting expired idempotency keys", e);
+            throw new DatabaseException("Error deleting expired idempotency keys", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+}
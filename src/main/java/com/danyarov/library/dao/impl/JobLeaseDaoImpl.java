@@ -0,0 +1,113 @@
+package com.danyarov.library.dao.impl;
+
+import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.dao.JobLeaseDao;
+import com.danyarov.library.exception.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC-based implementation of the {@link JobLeaseDao} interface.
+ *
+ * Expiry times are computed with the database clock, so leases compare correctly
+ * between nodes whose clocks differ. Taking a lease is a single conditional update
+ * of the job's row, so of several nodes racing for it exactly one succeeds, and
+ * every change of hands increments the lease token.
+ */
+public class JobLeaseDaoImpl implements JobLeaseDao {
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseDaoImpl.class);
+    private final ConnectionPool connectionPool;
+
+    public JobLeaseDaoImpl() {
+        this.connectionPool = ConnectionPool.getInstance();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long acquire(String jobName, String owner, long leaseMillis) {
+        String insertSql = "INSERT IGNORE INTO job_leases (job_name, owner, token, expires_at) VALUES (?, NULL, 0, NOW(3))";
+        String takeSql = "UPDATE job_leases SET owner = ?, token = token + 1, " +
+                "expires_at = NOW(3) + INTERVAL ? MICROSECOND " +
+                "WHERE job_name = ? AND (owner IS NULL OR expires_at < NOW(3))";
+        String tokenSql = "SELECT token FROM job_leases WHERE job_name = ? AND owner = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+
+            PreparedStatement insertStmt = conn.prepareStatement(insertSql);
+            insertStmt.setString(1, jobName);
+            insertStmt.executeUpdate();
+
+            PreparedStatement takeStmt = conn.prepareStatement(takeSql);
+            takeStmt.setString(1, owner);
+            takeStmt.setLong(2, leaseMillis * 1000);
+            takeStmt.setString(3, jobName);
+            if (takeStmt.executeUpdate() == 0) {
+                return 0;
+            }
+
+            PreparedStatement tokenStmt = conn.prepareStatement(tokenSql);
+            tokenStmt.setString(1, jobName);
+            tokenStmt.setString(2, owner);
+            ResultSet rs = tokenStmt.executeQuery();
+            // Empty only if the lease already expired and passed on again
+            return rs.next() ? rs.getLong("token") : 0;
+        } catch (SQLException e) {
+            logger.error("Error acquiring lease of job: {}", jobName, e);
+            throw new DatabaseException("Error acquiring job lease", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean renew(String jobName, String owner, long token, long leaseMillis) {
+        String sql = "UPDATE job_leases SET expires_at = NOW(3) + INTERVAL ? MICROSECOND " +
+                "WHERE job_name = ? AND owner = ? AND token = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, leaseMillis * 1000);
+            stmt.setString(2, jobName);
+            stmt.setString(3, owner);
+            stmt.setLong(4, token);
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            logger.error("Error renewing lease of job: {}", jobName, e);
+            throw new DatabaseException("Error renewing job lease", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void release(String jobName, String owner, long token) {
+        String sql = "UPDATE job_leases SET owner = NULL, expires_at = NOW(3) " +
+                "WHERE job_name = ? AND owner = ? AND token = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, jobName);
+            stmt.setString(2, owner);
+            stmt.setLong(3, token);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error releasing lease of job: {}", jobName, e);
+            throw new DatabaseException("Error releasing job lease", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+}
@@ -2,15 +2,16 @@ package com.danyarov.library.dao.impl;
 
 import com.danyarov.library.dao.ConnectionPool;
 import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.dao.RetryPolicy;
 import com.danyarov.library.exception.DatabaseException;
 import com.danyarov.library.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * JDBC-based implementation of the {@link OrderDao} interface.
@@ -20,13 +21,74 @@ import java.util.Optional;
  */
 public class OrderDaoImpl implements OrderDao {
     private static final Logger logger = LoggerFactory.getLogger(OrderDaoImpl.class);
+    private static final String ALL_WITH_DETAILS_SQL = "SELECT o.*, u.email, u.first_name, u.last_name, " +
+            "b.title, b.author, b.genre, " +
+            "l.email as librarian_email, l.first_name as librarian_fname, " +
+            "l.last_name as librarian_lname " +
+            "FROM book_orders o " +
+            "JOIN users u ON o.user_id = u.id " +
+            "JOIN books b ON o.book_id = b.id " +
+            "LEFT JOIN users l ON o.librarian_id = l.id " +
+            "ORDER BY o.order_date DESC";
+    private static final String OVERDUE_WITH_DETAILS_SQL = "SELECT o.*, u.email, u.first_name, u.last_name, " +
+            "b.title, b.author, b.genre, " +
+            "l.email as librarian_email, l.first_name as librarian_fname, " +
+            "l.last_name as librarian_lname " +
+            "FROM book_orders o " +
+            "JOIN users u ON o.user_id = u.id " +
+            "JOIN books b ON o.book_id = b.id " +
+            "LEFT JOIN users l ON o.librarian_id = l.id " +
+            "WHERE o.status = ? AND o.due_date < ? " +
+            "ORDER BY o.due_date, o.id LIMIT ? OFFSET ?";
+    private static final String CLAIMED_WITH_DETAILS_SQL = "SELECT o.*, u.email, u.first_name, u.last_name, " +
+            "b.title, b.author, b.genre, " +
+            "l.email as librarian_email, l.first_name as librarian_fname, " +
+            "l.last_name as librarian_lname " +
+            "FROM book_orders o " +
+            "JOIN users u ON o.user_id = u.id " +
+            "JOIN books b ON o.book_id = b.id " +
+            "LEFT JOIN users l ON o.librarian_id = l.id " +
+            "WHERE o.claimed_by = ? AND o.status = ? AND o.claim_expires_at >= ? " +
+            "ORDER BY o.order_date, o.id";
+    /** Pending orders without an unexpired claim; a range of the (status, order_date) index */
+    private static final String CLAIMABLE_WHERE = "WHERE status = ? AND (claimed_by IS NULL OR claim_expires_at < ?) ";
+    /** Orders handed over from the waitlist; for books without copy records they hold a counter unit */
+    private static final String FROM_HOLD = "EXISTS (SELECT 1 FROM book_holds h WHERE h.order_id = book_orders.id)";
+    private static final String INSERT_SQL = "INSERT INTO book_orders (user_id, book_id, book_copy_id, order_type, " +
+            "status, order_date, issue_date, due_date, return_date, librarian_id, notes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final ConnectionPool connectionPool;
+    private final int batchSize;
+    private final RetryPolicy retryPolicy;
 
     /**
      * Constructs a new instance of {@code OrderDaoImpl} using the singleton connection pool.
      */
     public OrderDaoImpl() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new instance of {@code OrderDaoImpl} with a custom bulk insert batch size.
+     *
+     * @param batchSize rows per batch and transaction in {@link #saveAll(List)}
+     */
+    public OrderDaoImpl(int batchSize) {
+        this(batchSize, RetryPolicy.NONE);
+    }
+
+    /**
+     * Constructs a new instance of {@code OrderDaoImpl} with a custom bulk insert batch size
+     * and a policy for retrying updates that fail on lock conflicts.
+     *
+     * @param batchSize   rows per batch and transaction in {@link #saveAll(List)}
+     * @param retryPolicy retry policy for deadlocks and lock wait timeouts
+     */
+    public OrderDaoImpl(int batchSize, RetryPolicy retryPolicy) {
         this.connectionPool = ConnectionPool.getInstance();
+        this.batchSize = batchSize;
+        this.retryPolicy = retryPolicy;
     }
 
     /** {@inheritDoc} */
@@ -127,6 +189,33 @@ public class OrderDaoImpl implements OrderDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Map<OrderStatus, Long> countByStatus() {
+        String sql = "SELECT status, COUNT(*) AS order_count FROM book_orders GROUP BY status";
+        Connection conn = null;
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                counts.put(OrderStatus.fromString(rs.getString("status")), rs.getLong("order_count"));
+            }
+            return counts;
+        } catch (SQLException e) {
+            logger.error("Error counting orders by status", e);
+            throw new DatabaseException("Error counting orders by status", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Optional<Order> findActiveOrderByUserAndBook(Long userId, Long bookId) {
@@ -153,33 +242,468 @@ public class OrderDaoImpl implements OrderDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> findBookIdsWithActiveOrder(Long userId, Collection<Long> bookIds) {
+        Set<Long> result = new HashSet<>();
+        if (bookIds.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT DISTINCT book_id FROM book_orders WHERE user_id = ? " +
+                "AND status IN ('PENDING', 'ISSUED') AND book_id IN (" +
+                String.join(", ", Collections.nCopies(bookIds.size(), "?")) + ")";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, userId);
+            int index = 2;
+            for (Long bookId : bookIds) {
+                stmt.setLong(index++, bookId);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                result.add(rs.getLong("book_id"));
+            }
+            return result;
+        } catch (SQLException e) {
+            logger.error("Error finding active orders for user {} and books {}", userId, bookIds, e);
+            throw new DatabaseException("Error finding active orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> findUserIdsWithActiveOrder(Long bookId, Collection<Long> userIds) {
+        Set<Long> result = new HashSet<>();
+        if (userIds.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT DISTINCT user_id FROM book_orders WHERE book_id = ? " +
+                "AND status IN ('PENDING', 'ISSUED') AND user_id IN (" +
+                String.join(", ", Collections.nCopies(userIds.size(), "?")) + ")";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, bookId);
+            int index = 2;
+            for (Long userId : userIds) {
+                stmt.setLong(index++, userId);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                result.add(rs.getLong("user_id"));
+            }
+            return result;
+        } catch (SQLException e) {
+            logger.error("Error finding active orders for book {} and {} users", bookId, userIds.size(), e);
+            throw new DatabaseException("Error finding active orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEach(Consumer<Order> action) {
+        String sql = "SELECT * FROM book_orders ORDER BY order_date DESC";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(STREAMING_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapResultSetToOrder(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming orders", e);
+            throw new DatabaseException("Error streaming orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEachWithDetails(Consumer<Order> action) {
+        String sql = ALL_WITH_DETAILS_SQL;
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(STREAMING_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapResultSetToOrderWithDetails(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming orders with details", e);
+            throw new DatabaseException("Error streaming orders with details", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEachPendingSince(LocalDateTime since, Consumer<Order> action) {
+        String sql = "SELECT * FROM book_orders WHERE status = ?" + (since != null ? " AND order_date >= ?" : "");
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(STREAMING_FETCH_SIZE);
+                stmt.setString(1, OrderStatus.PENDING.getValue());
+                if (since != null) {
+                    stmt.setTimestamp(2, Timestamp.valueOf(since));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapResultSetToOrder(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming pending orders since {}", since, e);
+            throw new DatabaseException("Error streaming pending orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int expirePending(OrderType orderType, LocalDateTime orderedBefore, Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE book_orders SET status = ? WHERE status = ? AND order_type = ? " +
+                "AND order_date <= ? AND book_copy_id IS NULL AND NOT " + FROM_HOLD + " " +
+                "AND id IN (" + String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ")";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, OrderStatus.EXPIRED.getValue());
+            stmt.setString(2, OrderStatus.PENDING.getValue());
+            stmt.setString(3, orderType.getValue());
+            stmt.setTimestamp(4, Timestamp.valueOf(orderedBefore));
+            int index = 5;
+            for (Long orderId : orderIds) {
+                stmt.setLong(index++, orderId);
+            }
+
+            int affectedRows = retryPolicy.execute(stmt::executeUpdate);
+            logger.info("Expired {} of {} pending {} orders", affectedRows, orderIds.size(), orderType);
+            return affectedRows;
+        } catch (SQLException e) {
+            logger.error("Error expiring {} pending orders", orderIds.size(), e);
+            throw new DatabaseException("Error expiring pending orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Order> lockReservedPending(OrderType orderType, LocalDateTime orderedBefore, Collection<Long> orderIds) {
+        List<Order> orders = new ArrayList<>();
+        if (orderIds.isEmpty()) {
+            return orders;
+        }
+        String sql = "SELECT * FROM book_orders WHERE status = ? AND order_type = ? AND order_date <= ? " +
+                "AND (book_copy_id IS NOT NULL OR " + FROM_HOLD + ") " +
+                "AND id IN (" + String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ") " +
+                "FOR UPDATE SKIP LOCKED";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, OrderStatus.PENDING.getValue());
+            stmt.setString(2, orderType.getValue());
+            stmt.setTimestamp(3, Timestamp.valueOf(orderedBefore));
+            int index = 4;
+            for (Long orderId : orderIds) {
+                stmt.setLong(index++, orderId);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                orders.add(mapResultSetToOrder(rs));
+            }
+            return orders;
+        } catch (SQLException e) {
+            logger.error("Error locking {} reserved pending orders", orderIds.size(), e);
+            throw new DatabaseException("Error locking reserved pending orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Page<Order> findOverdue(LocalDateTime now, int pageNumber, int pageSize) {
+        String countSql = "SELECT COUNT(*) FROM book_orders WHERE status = ? AND due_date < ?";
+        Connection conn = null;
+        List<Order> orders = new ArrayList<>();
+
+        try {
+            conn = connectionPool.getConnection();
+
+            // Both queries are range scans of the (status, due_date) index
+            PreparedStatement countStmt = conn.prepareStatement(countSql);
+            countStmt.setString(1, OrderStatus.ISSUED.getValue());
+            countStmt.setTimestamp(2, Timestamp.valueOf(now));
+            ResultSet countRs = countStmt.executeQuery();
+            long totalElements = countRs.next() ? countRs.getLong(1) : 0;
+
+            PreparedStatement stmt = conn.prepareStatement(OVERDUE_WITH_DETAILS_SQL);
+            stmt.setString(1, OrderStatus.ISSUED.getValue());
+            stmt.setTimestamp(2, Timestamp.valueOf(now));
+            stmt.setInt(3, pageSize);
+            stmt.setInt(4, pageNumber * pageSize);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(mapResultSetToOrderWithDetails(rs));
+            }
+            return new Page<>(orders, pageNumber, pageSize, totalElements);
+        } catch (SQLException e) {
+            logger.error("Error finding overdue orders", e);
+            throw new DatabaseException("Error finding overdue orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Order> findUnmarkedOverdue(LocalDateTime now, LocalDateTime afterDueDate, long afterId, int limit) {
+        String sql = "SELECT * FROM book_orders WHERE status = ? AND due_date < ? " +
+                (afterDueDate != null ? "AND (due_date > ? OR (due_date = ? AND id > ?)) " : "") +
+                "AND overdue_at IS NULL ORDER BY due_date, id LIMIT ?";
+        Connection conn = null;
+        List<Order> orders = new ArrayList<>();
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, OrderStatus.ISSUED.getValue());
+            stmt.setTimestamp(2, Timestamp.valueOf(now));
+            int index = 3;
+            if (afterDueDate != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(afterDueDate));
+                stmt.setTimestamp(index++, Timestamp.valueOf(afterDueDate));
+                stmt.setLong(index++, afterId);
+            }
+            stmt.setInt(index, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(mapResultSetToOrder(rs));
+            }
+            return orders;
+        } catch (SQLException e) {
+            logger.error("Error finding unmarked overdue orders", e);
+            throw new DatabaseException("Error finding unmarked overdue orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int markOverdue(Collection<Long> orderIds, LocalDateTime overdueAt) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE book_orders SET overdue_at = ? WHERE status = ? AND overdue_at IS NULL AND id IN (" +
+                String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ")";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setTimestamp(1, Timestamp.valueOf(overdueAt));
+            stmt.setString(2, OrderStatus.ISSUED.getValue());
+            int index = 3;
+            for (Long orderId : orderIds) {
+                stmt.setLong(index++, orderId);
+            }
+
+            int affectedRows = retryPolicy.execute(stmt::executeUpdate);
+            logger.info("Marked {} of {} orders overdue", affectedRows, orderIds.size());
+            return affectedRows;
+        } catch (SQLException e) {
+            logger.error("Error marking {} orders overdue", orderIds.size(), e);
+            throw new DatabaseException("Error marking orders overdue", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Long> lockClaimable(LocalDateTime now, int limit) {
+        // Orders another desk is claiming right now are skipped, not waited for
+        String sql = "SELECT id FROM book_orders " + CLAIMABLE_WHERE +
+                "ORDER BY order_date, id LIMIT ? FOR UPDATE SKIP LOCKED";
+        Connection conn = null;
+        List<Long> orderIds = new ArrayList<>();
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, OrderStatus.PENDING.getValue());
+            stmt.setTimestamp(2, Timestamp.valueOf(now));
+            stmt.setInt(3, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                orderIds.add(rs.getLong("id"));
+            }
+            return orderIds;
+        } catch (SQLException e) {
+            logger.error("Error locking claimable orders", e);
+            throw new DatabaseException("Error locking claimable orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int claim(Collection<Long> orderIds, Long librarianId, LocalDateTime claimExpiresAt) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE book_orders SET claimed_by = ?, claim_expires_at = ? WHERE status = ? AND id IN (" +
+                String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ")";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, librarianId);
+            stmt.setTimestamp(2, Timestamp.valueOf(claimExpiresAt));
+            stmt.setString(3, OrderStatus.PENDING.getValue());
+            int index = 4;
+            for (Long orderId : orderIds) {
+                stmt.setLong(index++, orderId);
+            }
+
+            int affectedRows = retryPolicy.execute(stmt::executeUpdate);
+            logger.info("Librarian {} claimed {} orders", librarianId, affectedRows);
+            return affectedRows;
+        } catch (SQLException e) {
+            logger.error("Error claiming {} orders for librarian {}", orderIds.size(), librarianId, e);
+            throw new DatabaseException("Error claiming orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Order> findClaimedWithDetails(Long librarianId, LocalDateTime now) {
+        Connection conn = null;
+        List<Order> orders = new ArrayList<>();
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(CLAIMED_WITH_DETAILS_SQL);
+            stmt.setLong(1, librarianId);
+            stmt.setString(2, OrderStatus.PENDING.getValue());
+            stmt.setTimestamp(3, Timestamp.valueOf(now));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(mapResultSetToOrderWithDetails(rs));
+            }
+            return orders;
+        } catch (SQLException e) {
+            logger.error("Error finding orders claimed by librarian {}", librarianId, e);
+            throw new DatabaseException("Error finding claimed orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long countClaimable(LocalDateTime now) {
+        String sql = "SELECT COUNT(*) FROM book_orders " + CLAIMABLE_WHERE;
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setString(1, OrderStatus.PENDING.getValue());
+            stmt.setTimestamp(2, Timestamp.valueOf(now));
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            logger.error("Error counting claimable orders", e);
+            throw new DatabaseException("Error counting claimable orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int releaseClaims(Long librarianId) {
+        String sql = "UPDATE book_orders SET claimed_by = NULL, claim_expires_at = NULL WHERE claimed_by = ? AND status = ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, librarianId);
+            stmt.setString(2, OrderStatus.PENDING.getValue());
+
+            int affectedRows = retryPolicy.execute(stmt::executeUpdate);
+            logger.info("Librarian {} released {} claimed orders", librarianId, affectedRows);
+            return affectedRows;
+        } catch (SQLException e) {
+            logger.error("Error releasing orders claimed by librarian {}", librarianId, e);
+            throw new DatabaseException("Error releasing claimed orders", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Order save(Order order) {
-        String sql = "INSERT INTO book_orders (user_id, book_id, book_copy_id, order_type, " +
-                "status, order_date, issue_date, due_date, return_date, librarian_id, notes) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         Connection conn = null;
 
         try {
             conn = connectionPool.getConnection();
             conn.setAutoCommit(false);
 
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            stmt.setLong(1, order.getUserId());
-            stmt.setLong(2, order.getBookId());
-            stmt.setObject(3, order.getBookCopyId());
-            stmt.setString(4, order.getOrderType().getValue());
-            stmt.setString(5, order.getStatus().getValue());
-            stmt.setTimestamp(6, Timestamp.valueOf(order.getOrderDate()));
-            stmt.setTimestamp(7, order.getIssueDate() != null ?
-                    Timestamp.valueOf(order.getIssueDate()) : null);
-            stmt.setTimestamp(8, order.getDueDate() != null ?
-                    Timestamp.valueOf(order.getDueDate()) : null);
-            stmt.setTimestamp(9, order.getReturnDate() != null ?
-                    Timestamp.valueOf(order.getReturnDate()) : null);
-            stmt.setObject(10, order.getLibrarianId());
-            stmt.setString(11, order.getNotes());
+            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            bindInsert(stmt, order);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -210,12 +734,97 @@ public class OrderDaoImpl implements OrderDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Order> saveAll(List<Order> orders) {
+        Connection conn = null;
+        int committed = 0;
+
+        try {
+            conn = connectionPool.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < orders.size(); start += batchSize) {
+                    List<Order> batch = orders.subList(start, Math.min(start + batchSize, orders.size()));
+                    for (Order order : batch) {
+                        bindInsert(stmt, order);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (Order order : batch) {
+                            if (!generatedKeys.next()) {
+                                throw new SQLException("Creating orders failed, not all IDs obtained.");
+                            }
+                            order.setId(generatedKeys.getLong(1));
+                        }
+                    }
+
+                    conn.commit();
+                    committed += batch.size();
+                }
+            }
+            logger.info("Saved {} orders in batches of {}", committed, batchSize);
+            return orders;
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                logger.error("Error rolling back transaction", ex);
+            }
+            logger.error("Error saving orders; {} of {} committed", committed, orders.size(), e);
+            throw new DatabaseException("Error saving orders after " + committed + " were committed", e);
+        } finally {
+            // IDs are left only on orders whose batch was committed
+            orders.subList(committed, orders.size()).forEach(order -> order.setId(null));
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Order update(Order order) {
+        if (updateWhere(order, "") == 0) {
+            throw new DatabaseException("Updating order failed, no rows affected.");
+        }
+        return order;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean updateIfStatus(Order order, OrderStatus expected) {
+        if (updateWhere(order, " AND status = ?", expected.getValue()) == 0) {
+            logger.warn("Order {} is no longer {}; not updated", order.getId(), expected);
+            return false;
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean updateIfPendingFor(Order order, Long librarianId, LocalDateTime now) {
+        if (updateWhere(order, " AND status = ? AND (claimed_by IS NULL OR claimed_by = ? OR claim_expires_at < ?)",
+                OrderStatus.PENDING.getValue(), librarianId, Timestamp.valueOf(now)) == 0) {
+            logger.warn("Order {} is no longer pending or is claimed by another desk; not updated", order.getId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes all mutable fields of an order.
+     *
+     * @param order     the order
+     * @param condition extra condition appended to {@code WHERE id = ?}
+     * @param params    values for the placeholders in the condition
+     * @return number of rows updated
+     */
+    private int updateWhere(Order order, String condition, Object... params) {
         String sql = "UPDATE book_orders SET user_id = ?, book_id = ?, book_copy_id = ?, " +
                 "order_type = ?, status = ?, issue_date = ?, due_date = ?, return_date = ?, " +
-                "librarian_id = ?, notes = ? WHERE id = ?";
+                "librarian_id = ?, notes = ? WHERE id = ?" + condition;
         Connection conn = null;
 
         try {
@@ -237,15 +846,16 @@ public class OrderDaoImpl implements OrderDao {
             stmt.setObject(9, order.getLibrarianId());
             stmt.setString(10, order.getNotes());
             stmt.setLong(11, order.getId());
-
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DatabaseException("Updating order failed, no rows affected.");
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(12 + i, params[i]);
             }
 
+            int affectedRows = retryPolicy.execute(stmt::executeUpdate);
             conn.commit();
-            logger.info("Order updated successfully: {}", order.getId());
-            return order;
+            if (affectedRows > 0) {
+                logger.info("Order updated successfully: {}", order.getId());
+            }
+            return affectedRows;
         } catch (SQLException e) {
             try {
                 if (conn != null) conn.rollback();
@@ -284,15 +894,7 @@ public class OrderDaoImpl implements OrderDao {
     /** {@inheritDoc} */
     @Override
     public List<Order> findAllWithDetails() {
-        String sql = "SELECT o.*, u.email, u.first_name, u.last_name, " +
-                "b.title, b.author, b.genre, " +
-                "l.email as librarian_email, l.first_name as librarian_fname, " +
-                "l.last_name as librarian_lname " +
-                "FROM book_orders o " +
-                "JOIN users u ON o.user_id = u.id " +
-                "JOIN books b ON o.book_id = b.id " +
-                "LEFT JOIN users l ON o.librarian_id = l.id " +
-                "ORDER BY o.order_date DESC";
+        String sql = ALL_WITH_DETAILS_SQL;
 
         Connection conn = null;
         List<Order> orders = new ArrayList<>();
@@ -349,6 +951,30 @@ public class OrderDaoImpl implements OrderDao {
         }
     }
 
+    /**
+     * Binds the columns of {@link #INSERT_SQL}.
+     *
+     * @param stmt  insert statement
+     * @param order order to insert
+     * @throws SQLException if a parameter cannot be set
+     */
+    private void bindInsert(PreparedStatement stmt, Order order) throws SQLException {
+        stmt.setLong(1, order.getUserId());
+        stmt.setLong(2, order.getBookId());
+        stmt.setObject(3, order.getBookCopyId());
+        stmt.setString(4, order.getOrderType().getValue());
+        stmt.setString(5, order.getStatus().getValue());
+        stmt.setTimestamp(6, Timestamp.valueOf(order.getOrderDate()));
+        stmt.setTimestamp(7, order.getIssueDate() != null ?
+                Timestamp.valueOf(order.getIssueDate()) : null);
+        stmt.setTimestamp(8, order.getDueDate() != null ?
+                Timestamp.valueOf(order.getDueDate()) : null);
+        stmt.setTimestamp(9, order.getReturnDate() != null ?
+                Timestamp.valueOf(order.getReturnDate()) : null);
+        stmt.setObject(10, order.getLibrarianId());
+        stmt.setString(11, order.getNotes());
+    }
+
     /**
      * Maps a result set row to a basic {@link Order} entity.
      *
@@ -378,6 +1004,13 @@ public class OrderDaoImpl implements OrderDao {
         order.setLibrarianId(rs.getObject("librarian_id", Long.class));
         order.setNotes(rs.getString("notes"));
 
+        Timestamp overdueAt = rs.getTimestamp("overdue_at");
+        if (overdueAt != null) order.setOverdueAt(overdueAt.toLocalDateTime());
+
+        order.setClaimedBy(rs.getObject("claimed_by", Long.class));
+        Timestamp claimExpiresAt = rs.getTimestamp("claim_expires_at");
+        if (claimExpiresAt != null) order.setClaimExpiresAt(claimExpiresAt.toLocalDateTime());
+
         return order;
     }
 
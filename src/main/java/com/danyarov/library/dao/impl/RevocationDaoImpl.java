@@ -0,0 +1,98 @@
+package com.danyarov.library.dao.impl;
+
+import com.danyarov.library.dao.ConnectionPool;
+import com.danyarov.library.dao.RevocationDao;
+import com.danyarov.library.exception.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JDBC-based implementation of the {@link RevocationDao} interface.
+ *
+ * Keeps one row per user in {@code user_revocations}; nodes poll the table
+ * for rows newer than their last check.
+ */
+public class RevocationDaoImpl implements RevocationDao {
+    private static final Logger logger = LoggerFactory.getLogger(RevocationDaoImpl.class);
+    private final ConnectionPool connectionPool;
+
+    public RevocationDaoImpl() {
+        this.connectionPool = ConnectionPool.getInstance();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(long userId, long revokedAt) {
+        String sql = "INSERT INTO user_revocations (user_id, revoked_at) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE revoked_at = GREATEST(revoked_at, VALUES(revoked_at))";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, userId);
+            stmt.setLong(2, revokedAt);
+            stmt.executeUpdate();
+            logger.info("Revocation saved for user: {}", userId);
+        } catch (SQLException e) {
+            logger.error("Error saving revocation for user: {}", userId, e);
+            throw new DatabaseException("Error saving revocation", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<Long, Long> findRevokedSince(long since) {
+        String sql = "SELECT user_id, revoked_at FROM user_revocations WHERE revoked_at >= ?";
+        Connection conn = null;
+        Map<Long, Long> revocations = new HashMap<>();
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, since);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                revocations.put(rs.getLong("user_id"), rs.getLong("revoked_at"));
+            }
+            return revocations;
+        } catch (SQLException e) {
+            logger.error("Error finding revocations since: {}", since, e);
+            throw new DatabaseException("Error finding revocations", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int deleteOlderThan(long before) {
+        String sql = "DELETE FROM user_revocations WHERE revoked_at < ?";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, before);
+
+            int affectedRows = stmt.executeUpdate();
+            logger.debug("Expired revocations deleted: {}", affectedRows);
+            return affectedRows;
+        } catch (SQLException e) {
+            logger.error("Error deleting expired revocations", e);
+            throw new DatabaseException("Error deleting expired revocations", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+}
@@ -1,17 +1,18 @@
 package com.danyarov.library.dao.impl;
 
+import com.danyarov.library.dao.BasicDao;
 import com.danyarov.library.dao.ConnectionPool;
 import com.danyarov.library.dao.UserDao;
 import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.exception.OptimisticLockException;
 import com.danyarov.library.model.User;
 import com.danyarov.library.model.UserRole;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * JDBC-based implementation of the {@link UserDao} interface.
@@ -21,10 +22,27 @@ import java.util.Optional;
  */
 public class UserDaoImpl implements UserDao {
     private static final Logger logger = LoggerFactory.getLogger(UserDaoImpl.class);
+    private static final String INSERT_SQL = "INSERT INTO users (email, password, first_name, last_name, " +
+            "user_role, is_active) VALUES (?, ?, ?, ?, ?, ?)";
+    /** Columns {@link #update(User)} may write, in the order they appear in the statement */
+    private static final List<String> UPDATABLE_COLUMNS = List.of("email", "password", "first_name",
+            "last_name", "user_role", "is_active");
+
     private final ConnectionPool connectionPool;
+    private final int batchSize;
 
     public UserDaoImpl() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new instance of {@code UserDaoImpl} with a custom bulk insert batch size.
+     *
+     * @param batchSize rows per batch and transaction in {@link #saveAll(List)}
+     */
+    public UserDaoImpl(int batchSize) {
         this.connectionPool = ConnectionPool.getInstance();
+        this.batchSize = batchSize;
     }
 
     /** {@inheritDoc} */
@@ -99,22 +117,40 @@ public class UserDaoImpl implements UserDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void forEach(Consumer<User> action) {
+        String sql = "SELECT * FROM users ORDER BY id";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(STREAMING_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapResultSetToUser(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming users", e);
+            throw new DatabaseException("Error streaming users", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public User save(User user) {
-        String sql = "INSERT INTO users (email, password, first_name, last_name, user_role, is_active) " +
-                "VALUES (?, ?, ?, ?, ?, ?)";
         Connection conn = null;
 
         try {
             conn = connectionPool.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            stmt.setString(1, user.getEmail());
-            stmt.setString(2, user.getPassword());
-            stmt.setString(3, user.getFirstName());
-            stmt.setString(4, user.getLastName());
-            stmt.setString(5, user.getRole().getValue());
-            stmt.setBoolean(6, user.isActive());
+            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            bindInsert(stmt, user);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -139,29 +175,123 @@ public class UserDaoImpl implements UserDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        Set<String> result = new HashSet<>();
+        if (emails.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT email FROM users WHERE email IN (" +
+                String.join(", ", Collections.nCopies(emails.size(), "?")) + ")";
+        Connection conn = null;
+
+        try {
+            conn = connectionPool.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            int index = 1;
+            for (String email : emails) {
+                stmt.setString(index++, email);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                result.add(rs.getString("email"));
+            }
+            return result;
+        } catch (SQLException e) {
+            logger.error("Error finding existing emails among {} values", emails.size(), e);
+            throw new DatabaseException("Error finding existing emails", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<User> saveAll(List<User> users) {
+        Connection conn = null;
+        int committed = 0;
+
+        try {
+            conn = connectionPool.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < users.size(); start += batchSize) {
+                    List<User> batch = users.subList(start, Math.min(start + batchSize, users.size()));
+                    for (User user : batch) {
+                        bindInsert(stmt, user);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (User user : batch) {
+                            if (!generatedKeys.next()) {
+                                throw new DatabaseException("Creating users failed, not all IDs obtained.");
+                            }
+                            user.setId(generatedKeys.getLong(1));
+                        }
+                    }
+
+                    conn.commit();
+                    committed += batch.size();
+                }
+            }
+            logger.info("Saved {} users in batches of {}", committed, batchSize);
+            return users;
+        } catch (SQLException e) {
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                logger.error("Error rolling back 'user batch save' transaction", ex);
+            }
+            logger.error("Error saving users; {} of {} committed", committed, users.size(), e);
+            throw new DatabaseException("Error saving users after " + committed + " were committed", e);
+        } finally {
+            connectionPool.releaseConnection(conn);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public User update(User user) {
-        String sql = "UPDATE users SET email = ?, first_name = ?, last_name = ?, " +
-                "user_role = ?, is_active = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+        List<String> columns = UPDATABLE_COLUMNS.stream().filter(user::isDirty).toList();
+        if (columns.isEmpty()) {
+            logger.debug("User {} has no changes to write", user.getId());
+            return user;
+        }
+        String sql = BasicDao.buildUpdateSql("users", columns, user.getVersion() != null);
         Connection conn = null;
 
         try {
             conn = connectionPool.getConnection();
             PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, user.getEmail());
-            stmt.setString(2, user.getFirstName());
-            stmt.setString(3, user.getLastName());
-            stmt.setString(4, user.getRole().getValue());
-            stmt.setBoolean(5, user.isActive());
-            stmt.setLong(6, user.getId());
+            int index = 1;
+            for (String column : columns) {
+                bindColumn(stmt, index++, user, column);
+            }
+            stmt.setLong(index++, user.getId());
+            if (user.getVersion() != null) {
+                stmt.setLong(index, user.getVersion());
+            }
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
+                if (user.getVersion() != null) {
+                    throw new OptimisticLockException("User " + user.getId() + " was changed by another user");
+                }
                 throw new DatabaseException("Updating user failed, no rows affected.");
             }
 
-            logger.info("User updated successfully: {}", user.getEmail());
+            if (user.getVersion() != null) {
+                user.setVersion(user.getVersion() + 1);
+            }
+            user.markClean();
+            logger.info("User updated successfully: {} {}", user.getEmail(), columns);
             return user;
         } catch (SQLException e) {
             logger.error("Error updating user", e);
@@ -193,6 +323,43 @@ public class UserDaoImpl implements UserDao {
         }
     }
 
+    /**
+     * Binds the columns of {@link #INSERT_SQL}.
+     *
+     * @param stmt insert statement
+     * @param user user to insert
+     * @throws SQLException if a parameter cannot be set
+     */
+    private void bindInsert(PreparedStatement stmt, User user) throws SQLException {
+        stmt.setString(1, user.getEmail());
+        stmt.setString(2, user.getPassword());
+        stmt.setString(3, user.getFirstName());
+        stmt.setString(4, user.getLastName());
+        stmt.setString(5, user.getRole().getValue());
+        stmt.setBoolean(6, user.isActive());
+    }
+
+    /**
+     * Binds the value of one updatable column.
+     *
+     * @param stmt   the update statement
+     * @param index  parameter index
+     * @param user   the user holding the value
+     * @param column one of {@link #UPDATABLE_COLUMNS}
+     * @throws SQLException if binding fails
+     */
+    private void bindColumn(PreparedStatement stmt, int index, User user, String column) throws SQLException {
+        switch (column) {
+            case "email" -> stmt.setString(index, user.getEmail());
+            case "password" -> stmt.setString(index, user.getPassword());
+            case "first_name" -> stmt.setString(index, user.getFirstName());
+            case "last_name" -> stmt.setString(index, user.getLastName());
+            case "user_role" -> stmt.setString(index, user.getRole().getValue());
+            case "is_active" -> stmt.setBoolean(index, user.isActive());
+            default -> throw new IllegalArgumentException("Not an updatable column: " + column);
+        }
+    }
+
     /**
      * Maps a {@link ResultSet} row to a {@link User} object.
      *
@@ -211,6 +378,8 @@ public class UserDaoImpl implements UserDao {
         user.setActive(rs.getBoolean("is_active"));
         user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
         user.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        user.setVersion(rs.getLong("version"));
+        user.markClean();
         return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.danyarov.library.exception;
+
+/**
+ * Thrown when an update expected a row version that another writer has already changed.
+ */
+public class OptimisticLockException extends DatabaseException {
+
+    public OptimisticLockException(String message) {
+        super(message);
+    }
+}
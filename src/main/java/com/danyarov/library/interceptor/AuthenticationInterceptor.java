@@ -2,9 +2,9 @@ package com.danyarov.library.interceptor;
 
 import com.danyarov.library.model.UserRole;
 import com.danyarov.library.model.User;
+import com.danyarov.library.util.SessionUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
@@ -29,8 +29,7 @@ public class AuthenticationInterceptor implements HandlerInterceptor {
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
                              Object handler) throws Exception {
-        HttpSession session = request.getSession();
-        User user = (User) session.getAttribute("user");
+        User user = SessionUtil.getCurrentUser(request);
 
         // Check if user is logged in
         if (user == null) {
@@ -85,10 +84,9 @@ public class AuthenticationInterceptor implements HandlerInterceptor {
     public void postHandle(HttpServletRequest request, HttpServletResponse response,
                            Object handler, ModelAndView modelAndView) throws Exception {
         if (modelAndView != null) {
-            HttpSession session = request.getSession();
-            User user = (User) session.getAttribute("user");
+            User user = SessionUtil.getCurrentUser(request);
             if (user != null) {
-                modelAndView.addObject("currentUser", user);
+                modelAndView.addObject(SessionUtil.CURRENT_USER_ATTRIBUTE, user);
             }
         }
     }
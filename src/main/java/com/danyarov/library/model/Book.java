@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
  * Represents a book in the library system.
  * Contains metadata and inventory information such as title, author, and availability.
  */
-public class Book {
+public class Book extends TrackedEntity {
     /** Unique identifier of the book */
     private Long id;
     /** Title of the book */
@@ -70,28 +70,28 @@ public class Book {
     public void setId(Long id) { this.id = id; }
 
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public void setTitle(String title) { this.title = track("title", this.title, title); }
 
     public String getAuthor() { return author; }
-    public void setAuthor(String author) { this.author = author; }
+    public void setAuthor(String author) { this.author = track("author", this.author, author); }
 
     public String getIsbn() { return isbn; }
-    public void setIsbn(String isbn) { this.isbn = isbn; }
+    public void setIsbn(String isbn) { this.isbn = track("isbn", this.isbn, isbn); }
 
     public String getGenre() { return genre; }
-    public void setGenre(String genre) { this.genre = genre; }
+    public void setGenre(String genre) { this.genre = track("genre", this.genre, genre); }
 
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) { this.description = track("description", this.description, description); }
 
     public Integer getPublicationYear() { return publicationYear; }
-    public void setPublicationYear(Integer publicationYear) { this.publicationYear = publicationYear; }
+    public void setPublicationYear(Integer publicationYear) { this.publicationYear = track("publication_year", this.publicationYear, publicationYear); }
 
     public Integer getTotalCopies() { return totalCopies; }
-    public void setTotalCopies(Integer totalCopies) { this.totalCopies = totalCopies; }
+    public void setTotalCopies(Integer totalCopies) { this.totalCopies = track("total_copies", this.totalCopies, totalCopies); }
 
     public Integer getAvailableCopies() { return availableCopies; }
-    public void setAvailableCopies(Integer availableCopies) { this.availableCopies = availableCopies; }
+    public void setAvailableCopies(Integer availableCopies) { this.availableCopies = track("available_copies", this.availableCopies, availableCopies); }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
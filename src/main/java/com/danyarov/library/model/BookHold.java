@@ -0,0 +1,67 @@
+package com.danyarov.library.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a reader's place in the waitlist of a book that has no copies available.
+ * Holds of a book are served in the order they were placed.
+ */
+public class BookHold {
+    /** Unique identifier of the hold; also its place in the book's queue */
+    private Long id;
+    /** Identifier of the waiting reader */
+    private Long userId;
+    /** Identifier of the book waited for */
+    private Long bookId;
+    /** Lending type of the order created when the hold is fulfilled */
+    private OrderType orderType;
+    private HoldStatus status;
+    private LocalDateTime createdAt;
+    /** Order created for the reader when a copy was handed over */
+    private Long orderId;
+    private LocalDateTime fulfilledAt;
+
+    // Additional fields for display
+    private String bookTitle;
+    /** One-based position among the book's waiting holds */
+    private int queuePosition;
+
+    public BookHold() {}
+
+    public BookHold(Long userId, Long bookId, OrderType orderType) {
+        this.userId = userId;
+        this.bookId = bookId;
+        this.orderType = orderType;
+        this.status = HoldStatus.WAITING;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+
+    public OrderType getOrderType() { return orderType; }
+    public void setOrderType(OrderType orderType) { this.orderType = orderType; }
+
+    public HoldStatus getStatus() { return status; }
+    public void setStatus(HoldStatus status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public LocalDateTime getFulfilledAt() { return fulfilledAt; }
+    public void setFulfilledAt(LocalDateTime fulfilledAt) { this.fulfilledAt = fulfilledAt; }
+
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+
+    public int getQueuePosition() { return queuePosition; }
+    public void setQueuePosition(int queuePosition) { this.queuePosition = queuePosition; }
+}
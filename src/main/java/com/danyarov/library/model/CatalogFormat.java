@@ -0,0 +1,42 @@
+package com.danyarov.library.model;
+
+/**
+ * File formats accepted by the catalog import.
+ */
+public enum CatalogFormat {
+    /** Comma-separated values with a header row naming the book columns */
+    CSV("CSV"),
+    /** MARC mnemonic text: one {@code =TAG  ind$a...} field per line, records separated by blank lines */
+    MARC("MARC");
+
+    private final String value;
+
+    CatalogFormat(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the string representation of the enum value.
+     *
+     * @return a string such as "CSV" or "MARC"
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Parses a string into a CatalogFormat enum constant.
+     *
+     * @param text the input string (case-insensitive)
+     * @return the matching CatalogFormat
+     * @throws IllegalArgumentException if no match is found
+     */
+    public static CatalogFormat fromString(String text) {
+        for (CatalogFormat f : CatalogFormat.values()) {
+            if (f.value.equalsIgnoreCase(text)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("No constant with text " + text + " found");
+    }
+}
@@ -0,0 +1,38 @@
+package com.danyarov.library.model;
+
+/**
+ * Represents the status of a reader's place in a book's waitlist.
+ */
+public enum HoldStatus {
+    /** Reader is waiting for a copy to be returned */
+    WAITING("WAITING"),
+    /** A returned copy was reserved for the reader and an order created */
+    FULFILLED("FULFILLED"),
+    /** Reader left the waitlist */
+    CANCELLED("CANCELLED");
+
+    private final String value;
+
+    HoldStatus(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the HoldStatus from string input (case-insensitive).
+     * @param text the input string (case-insensitive)
+     * @return matching HoldStatus
+     * @throws IllegalArgumentException if the input does not match any known status
+     */
+    public static HoldStatus fromString(String text) {
+        for (HoldStatus s : HoldStatus.values()) {
+            if (s.value.equalsIgnoreCase(text)) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("No constant with text " + text + " found");
+    }
+}
@@ -0,0 +1,40 @@
+package com.danyarov.library.model;
+
+/**
+ * Stored idempotency key: the request it was first used for and, once that
+ * request has completed, its result.
+ */
+public class IdempotencyRecord {
+    private String key;
+    private String scope;
+    private String result;
+    private long createdAt;
+
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String key, String scope, String result, long createdAt) {
+        this.key = key;
+        this.scope = scope;
+        this.result = result;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * @return true if the request has completed and its result is stored
+     */
+    public boolean isCompleted() {
+        return result != null;
+    }
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,168 @@
+package com.danyarov.library.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress and outcome of one catalog import.
+ * <p>
+ * The counters are written by the import only and may be read from other threads
+ * while it runs. At most {@link #MAX_ERRORS} rejected rows are kept with their reason.
+ */
+public class ImportReport {
+    /** Number of row errors kept for display */
+    public static final int MAX_ERRORS = 100;
+
+    /** State of an import */
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final CatalogFormat format;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile long rowsRead;
+    private volatile long imported;
+    private volatile long duplicates;
+    private volatile long rejected;
+    private volatile String failure;
+    private volatile LocalDateTime finishedAt;
+
+    /**
+     * Creates a report for an import that is about to start.
+     *
+     * @param fileName name of the imported file, for display
+     * @param format   format of the file
+     */
+    public ImportReport(String fileName, CatalogFormat format) {
+        this.fileName = fileName;
+        this.format = format;
+    }
+
+    /** Counts a row read from the file. */
+    public void rowRead() {
+        rowsRead++;
+    }
+
+    /**
+     * Counts rows written to the catalog.
+     *
+     * @param count number of rows
+     */
+    public void imported(int count) {
+        imported += count;
+    }
+
+    /** Counts a row skipped because its ISBN is already in the catalog or earlier in the file. */
+    public void duplicate() {
+        duplicates++;
+    }
+
+    /**
+     * Counts a row that failed validation.
+     *
+     * @param line   line in the file where the row starts
+     * @param reason validation message
+     */
+    public void reject(long line, String reason) {
+        rejected++;
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("Line " + line + ": " + reason);
+            }
+        }
+    }
+
+    /** Marks the import as finished. */
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    /**
+     * Marks the import as aborted. Rows counted as imported stay in the catalog.
+     *
+     * @param message reason the import stopped
+     */
+    public void fail(String message) {
+        failure = message;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public CatalogFormat getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Returns the first {@link #MAX_ERRORS} row errors.
+     *
+     * @return copy of the recorded errors
+     */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "id='" + id + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", status=" + status +
+                ", rowsRead=" + rowsRead +
+                ", imported=" + imported +
+                ", duplicates=" + duplicates +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
@@ -31,6 +31,12 @@ public class Order {
     private Long librarianId;
     /** Additional comments or remarks */
     private String notes;
+    /** When the overdue job first found the order past its due date, or null */
+    private LocalDateTime overdueAt;
+    /** ID of the librarian whose desk has claimed the pending order, or null */
+    private Long claimedBy;
+    /** When the desk's claim runs out and the order returns to the queue */
+    private LocalDateTime claimExpiresAt;
 
     /** User who placed the order */
     private User user;
@@ -171,6 +177,25 @@ public class Order {
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
 
+    public LocalDateTime getOverdueAt() { return overdueAt; }
+    public void setOverdueAt(LocalDateTime overdueAt) { this.overdueAt = overdueAt; }
+
+    public Long getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(Long claimedBy) { this.claimedBy = claimedBy; }
+
+    public LocalDateTime getClaimExpiresAt() { return claimExpiresAt; }
+    public void setClaimExpiresAt(LocalDateTime claimExpiresAt) { this.claimExpiresAt = claimExpiresAt; }
+
+    /**
+     * @param librarianId ID of the librarian asking
+     * @param now         the current time
+     * @return true if another librarian's desk holds an unexpired claim on the order
+     */
+    public boolean isClaimedByOther(Long librarianId, LocalDateTime now) {
+        return claimedBy != null && !claimedBy.equals(librarianId)
+                && claimExpiresAt != null && claimExpiresAt.isAfter(now);
+    }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
@@ -0,0 +1,33 @@
+package com.danyarov.library.model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A reader's request for a book waiting to be admitted as an order.
+ * <p>
+ * The result completes with the created order, or exceptionally with the reason the
+ * request was refused. A request whose result is already done, for example because the
+ * caller gave up waiting and cancelled it, is skipped.
+ */
+public class OrderRequest {
+    private final Long userId;
+    private final Long bookId;
+    private final OrderType orderType;
+    private final CompletableFuture<Order> result = new CompletableFuture<>();
+
+    /**
+     * @param userId    ID of the requesting user
+     * @param bookId    ID of the requested book
+     * @param orderType where the book is to be read
+     */
+    public OrderRequest(Long userId, Long bookId, OrderType orderType) {
+        this.userId = userId;
+        this.bookId = bookId;
+        this.orderType = orderType;
+    }
+
+    public Long getUserId() { return userId; }
+    public Long getBookId() { return bookId; }
+    public OrderType getOrderType() { return orderType; }
+    public CompletableFuture<Order> getResult() { return result; }
+}
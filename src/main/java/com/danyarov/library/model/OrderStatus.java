@@ -11,7 +11,9 @@ public enum OrderStatus {
     /** Book copy has been returned by the user */
     RETURNED("RETURNED"),
     /** Order was cancelled by the user or system */
-    CANCELLED("CANCELLED");
+    CANCELLED("CANCELLED"),
+    /** Order was not picked up before its pending period ran out */
+    EXPIRED("EXPIRED");
 
     private final String value;
 
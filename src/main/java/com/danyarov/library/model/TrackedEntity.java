@@ -0,0 +1,67 @@
+package com.danyarov.library.model;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Base class for entities that remember which columns were changed.
+ * <p>
+ * Setters report assignments through {@link #track}. Until the entity is marked clean every
+ * assignment counts, so an object bound from a form records exactly the fields it was given.
+ * Once a DAO has loaded or written the row and called {@link #markClean()}, only assignments
+ * that change a value are recorded, and updates write just those columns.
+ * <p>
+ * The version is the row version read from the database. When it is set, an update only
+ * succeeds if the row still has that version, which detects concurrent edits without locks.
+ */
+public abstract class TrackedEntity {
+    /** Columns assigned since the entity was last marked clean */
+    private final Set<String> dirtyColumns = new LinkedHashSet<>();
+    /** Whether the entity reflects a stored row */
+    private boolean clean;
+    /** Row version used for optimistic locking, or null to update unconditionally */
+    private Long version;
+
+    /**
+     * Records an assignment to a column.
+     *
+     * @param column  the database column the field maps to
+     * @param current the current field value
+     * @param value   the value being assigned
+     * @param <T>     field type
+     * @return the value being assigned
+     */
+    protected <T> T track(String column, T current, T value) {
+        if (!clean || (current == null ? value != null : !current.equals(value))) {
+            dirtyColumns.add(column);
+        }
+        return value;
+    }
+
+    /**
+     * @param column database column name
+     * @return true if the column was assigned since the entity was last marked clean
+     */
+    public boolean isDirty(String column) {
+        return dirtyColumns.contains(column);
+    }
+
+    /**
+     * @return columns assigned since the entity was last marked clean, in assignment order
+     */
+    public Set<String> getDirtyColumns() {
+        return Collections.unmodifiableSet(dirtyColumns);
+    }
+
+    /**
+     * Forgets recorded assignments; called once the entity matches its stored row.
+     */
+    public void markClean() {
+        dirtyColumns.clear();
+        clean = true;
+    }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
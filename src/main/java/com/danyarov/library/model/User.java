@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
  * Represents a user of the library system.
  * Includes personal details, role, account status, and audit timestamps.
  */
-public class User {
+public class User extends TrackedEntity {
     /** Unique identifier of the user */
     private Long id;
     /** Email address of the user (used for login) */
@@ -59,22 +59,22 @@ public class User {
     public void setId(Long id) { this.id = id; }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { this.email = track("email", this.email, email); }
 
     public String getPassword() { return password; }
-    public void setPassword(String password) { this.password = password; }
+    public void setPassword(String password) { this.password = track("password", this.password, password); }
 
     public String getFirstName() { return firstName; }
-    public void setFirstName(String firstName) { this.firstName = firstName; }
+    public void setFirstName(String firstName) { this.firstName = track("first_name", this.firstName, firstName); }
 
     public String getLastName() { return lastName; }
-    public void setLastName(String lastName) { this.lastName = lastName; }
+    public void setLastName(String lastName) { this.lastName = track("last_name", this.lastName, lastName); }
 
     public UserRole getRole() { return role; }
-    public void setRole(UserRole userRole) { this.role = userRole; }
+    public void setRole(UserRole userRole) { this.role = track("user_role", this.role, userRole); }
 
     public boolean isActive() { return isActive; }
-    public void setActive(boolean active) { isActive = active; }
+    public void setActive(boolean active) { this.isActive = track("is_active", this.isActive, active); }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
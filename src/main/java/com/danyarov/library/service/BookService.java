@@ -3,8 +3,11 @@ package com.danyarov.library.service;
 import com.danyarov.library.model.Book;
 import com.danyarov.library.model.Page;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Service interface for book-related operations.
@@ -26,6 +29,12 @@ public interface BookService {
      */
     List<Book> findAll();
 
+    /**
+     * Pass every book to an action without loading them all into memory
+     * @param action action called for each book
+     */
+    void forEach(Consumer<Book> action);
+
     /**
      * Retrieves all books with pagination.
      *
@@ -62,6 +71,13 @@ public interface BookService {
      */
     Page<Book> findByGenrePaginated(String genre, int pageNumber, int pageSize);
 
+    /**
+     * Find which of the given ISBNs are already in the catalog
+     * @param isbns ISBNs to look up
+     * @return the subset that already exists
+     */
+    Set<String> findExistingIsbns(Collection<String> isbns);
+
     /**
      * Save book
      * @param book book to save
@@ -70,9 +86,19 @@ public interface BookService {
     Book save(Book book);
 
     /**
-     * Update book
+     * Save new books in bulk
+     * @param books books to save
+     * @return saved books with IDs set
+     */
+    List<Book> saveAll(List<Book> books);
+
+    /**
+     * Update book. Only the fields assigned on {@code book} are applied to the stored book,
+     * and only those that differ are written. If {@code book} carries a version, the update
+     * fails when the book has been changed since that version was read.
      * @param book book to update
      * @return updated book
+     * @throws com.danyarov.library.exception.OptimisticLockException if the book was changed meanwhile
      */
     Book update(Book book);
 
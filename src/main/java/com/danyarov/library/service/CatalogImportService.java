@@ -0,0 +1,43 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.model.CatalogFormat;
+import com.danyarov.library.model.ImportReport;
+
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Service interface for bulk catalog imports.
+ *
+ * Files are read as a stream, rows are validated in parallel, duplicates by ISBN are
+ * skipped and new books are written in batches, so file size is not limited by memory.
+ */
+public interface CatalogImportService {
+
+    /**
+     * Import a catalog file on the calling thread
+     * @param in file content
+     * @param fileName file name, for the report
+     * @param format file format
+     * @return the finished report
+     */
+    ImportReport importCatalog(Reader in, String fileName, CatalogFormat format);
+
+    /**
+     * Start importing a UTF-8 file in the background. The file is deleted once the import ends.
+     * @param file file to import
+     * @param fileName original file name, for the report
+     * @param format file format
+     * @return the report, updated as the import progresses
+     * @throws com.danyarov.library.exception.ServiceException if another import is running
+     */
+    ImportReport submit(Path file, String fileName, CatalogFormat format);
+
+    /**
+     * Find the report of a recent import
+     * @param id report ID
+     * @return report or empty if unknown
+     */
+    Optional<ImportReport> findReport(String id);
+}
@@ -0,0 +1,93 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.dao.TransactionManager;
+import com.danyarov.library.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hands pending orders out to librarians' desks.
+ * <p>
+ * A desk claims the next batch of oldest unclaimed pending orders. The orders are locked with
+ * {@code FOR UPDATE SKIP LOCKED}, so desks claiming at the same time get disjoint batches
+ * without waiting on each other, and the claim is stamped with an expiry. A desk then works
+ * only through its own claims; orders it neither issues nor releases go back to the queue
+ * when the claim runs out, so an abandoned desk holds nothing for long.
+ * <p>
+ * Every query touches only pending orders or one desk's claims through an index, so the cost
+ * of a desk does not grow with the order history.
+ */
+@Component
+public class DeskQueue {
+    private static final Logger logger = LoggerFactory.getLogger(DeskQueue.class);
+
+    private final OrderDao orderDao;
+    private final TransactionManager transactionManager;
+    private final long leaseMinutes;
+    private final int batchSize;
+
+    @Autowired
+    public DeskQueue(OrderDao orderDao, TransactionManager transactionManager,
+                     @Value("${orders.claim.lease-minutes:15}") long leaseMinutes,
+                     @Value("${orders.claim.batch-size:10}") int batchSize) {
+        this.orderDao = orderDao;
+        this.transactionManager = transactionManager;
+        this.leaseMinutes = leaseMinutes;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Claims the next batch of pending orders for a librarian's desk.
+     *
+     * @param librarianId ID of the claiming librarian
+     * @return number of orders claimed; 0 when the queue is empty
+     */
+    public int claimNext(Long librarianId) {
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = transactionManager.inTransaction(() -> {
+            List<Long> orderIds = orderDao.lockClaimable(now, batchSize);
+            return orderDao.claim(orderIds, librarianId, now.plusMinutes(leaseMinutes));
+        });
+        logger.info("Librarian {} claimed {} pending orders", librarianId, claimed);
+        return claimed;
+    }
+
+    /**
+     * @param librarianId librarian ID
+     * @return pending orders the librarian's desk holds an unexpired claim on, oldest first
+     */
+    public List<Order> findClaimed(Long librarianId) {
+        return orderDao.findClaimedWithDetails(librarianId, LocalDateTime.now());
+    }
+
+    /**
+     * @return number of pending orders no desk has claimed
+     */
+    public long depth() {
+        return orderDao.countClaimable(LocalDateTime.now());
+    }
+
+    /**
+     * Returns a librarian's unissued claims to the queue.
+     *
+     * @param librarianId librarian ID
+     * @return number of orders released
+     */
+    public int release(Long librarianId) {
+        return orderDao.releaseClaims(librarianId);
+    }
+
+    /**
+     * @return number of orders claimed at a time
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
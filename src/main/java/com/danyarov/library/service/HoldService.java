@@ -0,0 +1,45 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.model.BookHold;
+import com.danyarov.library.model.OrderType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Book waitlist service interface.
+ * Readers wait for books with no copies available; returned copies are handed
+ * to them by {@link OrderService}.
+ */
+public interface HoldService {
+    /**
+     * Put a reader at the end of a book's waitlist
+     * @param userId user ID
+     * @param bookId book ID
+     * @param orderType lending type of the order created when a copy is handed over
+     * @return saved hold
+     */
+    BookHold placeHold(Long userId, Long bookId, OrderType orderType);
+
+    /**
+     * Take a reader off a waitlist
+     * @param holdId hold ID
+     * @param userId user ID (for verification)
+     */
+    void cancelHold(Long holdId, Long userId);
+
+    /**
+     * Find a reader's place in a book's waitlist
+     * @param userId user ID
+     * @param bookId book ID
+     * @return the waiting hold with its queue position, if any
+     */
+    Optional<BookHold> findWaiting(Long userId, Long bookId);
+
+    /**
+     * Find every waitlist a reader is on
+     * @param userId user ID
+     * @return waiting holds with book titles and queue positions
+     */
+    List<BookHold> findWaitingByUser(Long userId);
+}
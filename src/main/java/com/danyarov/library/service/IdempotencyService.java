@@ -0,0 +1,29 @@
+package com.danyarov.library.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Idempotency key service interface.
+ * Runs a form submission once per key and replays its result for repeats.
+ */
+public interface IdempotencyService {
+    /**
+     * Run an action once per idempotency key.
+     * A repeat with the same key returns the first result without running the action;
+     * a repeat arriving while the first is still running waits for it. Failed actions
+     * are not remembered, so the key can be retried. Without a valid key the action
+     * simply runs.
+     * @param key idempotency key sent with the form, may be null
+     * @param scope the request the key is used for, e.g. action, user and target ID
+     * @param action the action, returning its result
+     * @return the action's result
+     * @throws com.danyarov.library.exception.ServiceException if the key was used for
+     *         another request or the first request is still running on another node
+     */
+    String execute(String key, String scope, Supplier<String> action);
+
+    /**
+     * Forget keys older than the retention period
+     */
+    void cleanup();
+}
@@ -0,0 +1,165 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.JobLeaseDao;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets each background job run on one node of the cluster at a time.
+ * <p>
+ * A job runs only while this node holds its lease in {@code job_leases}. The first
+ * {@link #hold} of a job tries to take the lease; from then on a heartbeat renews the leases
+ * this node holds and tries to take those it does not, so when the holder dies another node
+ * takes over within one lease period plus one heartbeat.
+ * <p>
+ * Every change of hands increments the lease's token, and renewals only succeed under the
+ * token the lease was taken with, so a node that stalled past its lease cannot extend a
+ * lease another node has since taken. A node also treats its lease as lost once a full lease
+ * period has passed since the last successful take or renewal was sent, before the database
+ * would let another node have it. Long jobs check {@link #isHeld} between steps and stop
+ * when the lease is gone.
+ * <p>
+ * The token guards the lease row only; it is not a fencing token for the jobs' own writes.
+ * A node that stalls in the middle of a statement can still run it after another node has
+ * taken over, so two nodes may briefly overlap. The guarded jobs are written to allow that:
+ * each write is a conditional update or delete that only touches rows still in the state
+ * being changed, so running it twice has the same effect as running it once.
+ */
+@Component
+public class JobLeases {
+    private static final Logger logger = LoggerFactory.getLogger(JobLeases.class);
+
+    private final JobLeaseDao jobLeaseDao;
+    private final long leaseMillis;
+    private final String owner;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JobLeases(JobLeaseDao jobLeaseDao,
+                     @Value("${jobs.lease-ms:10000}") long leaseMillis) {
+        this.jobLeaseDao = jobLeaseDao;
+        this.leaseMillis = leaseMillis;
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        logger.info("Background jobs run under lease owner {}", owner);
+    }
+
+    /**
+     * Checks whether this node may run a job, taking the lease on the first call for the job.
+     *
+     * @param jobName job name
+     * @return true if this node holds the job's lease
+     */
+    public boolean hold(String jobName) {
+        Lease lease = leases.get(jobName);
+        if (lease == null) {
+            Lease created = new Lease(jobName);
+            lease = leases.putIfAbsent(jobName, created);
+            if (lease == null) {
+                lease = created;
+                refresh(lease);
+            }
+        }
+        return lease.isValid();
+    }
+
+    /**
+     * @param jobName job name
+     * @return true if this node holds the job's lease, without contacting the database
+     */
+    public boolean isHeld(String jobName) {
+        Lease lease = leases.get(jobName);
+        return lease != null && lease.isValid();
+    }
+
+    /**
+     * Renews the leases this node holds and tries to take the others.
+     */
+    @Scheduled(fixedDelayString = "${jobs.heartbeat-ms:2000}")
+    public void heartbeat() {
+        leases.values().forEach(this::refresh);
+    }
+
+    /**
+     * Releases held leases so other nodes take over without waiting for them to expire.
+     */
+    @PreDestroy
+    public void releaseAll() {
+        for (Lease lease : leases.values()) {
+            synchronized (lease) {
+                if (lease.token != 0) {
+                    try {
+                        jobLeaseDao.release(lease.jobName, owner, lease.token);
+                    } catch (RuntimeException e) {
+                        logger.warn("Could not release lease of job {}", lease.jobName, e);
+                    }
+                    lease.token = 0;
+                }
+            }
+        }
+    }
+
+    private void refresh(Lease lease) {
+        synchronized (lease) {
+            // Measured before the request, so the local deadline never outlasts the database's
+            long sentAt = System.nanoTime();
+            try {
+                if (lease.token != 0 && jobLeaseDao.renew(lease.jobName, owner, lease.token, leaseMillis)) {
+                    lease.validUntil = sentAt + leaseMillis * 1_000_000;
+                    return;
+                }
+                if (lease.token != 0) {
+                    logger.warn("Lost lease of job {} to another node", lease.jobName);
+                    lease.token = 0;
+                }
+
+                long token = jobLeaseDao.acquire(lease.jobName, owner, leaseMillis);
+                if (token != 0) {
+                    lease.token = token;
+                    lease.validUntil = sentAt + leaseMillis * 1_000_000;
+                    logger.info("Took lease of job {} with token {}", lease.jobName, token);
+                }
+            } catch (RuntimeException e) {
+                // The lease runs out locally unless a later heartbeat gets through
+                logger.error("Error refreshing lease of job {}", lease.jobName, e);
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+
+    /**
+     * This node's view of one job's lease.
+     */
+    private static final class Lease {
+        private final String jobName;
+        /** Token of the held lease, or 0 if not held */
+        private volatile long token;
+        /** {@link System#nanoTime} after which the lease counts as lost */
+        private volatile long validUntil;
+
+        Lease(String jobName) {
+            this.jobName = jobName;
+        }
+
+        boolean isValid() {
+            return token != 0 && System.nanoTime() - validUntil < 0;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderType;
+import com.danyarov.library.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Expires pending orders that nobody picked up in time.
+ * <p>
+ * The deadline of every pending order is kept in a {@link TimingWheel}, so finding the
+ * orders that are due costs nothing per order that is not. The first poll loads all pending
+ * orders; later polls read only orders placed since the previous poll, which also picks up
+ * orders created on other nodes. Due orders are expired per order type in batched updates
+ * that only touch orders still pending, so orders issued or cancelled in the meantime are
+ * left alone and no table scan is ever needed. Orders holding a copy reserved from the
+ * waitlist are expired through {@link OrderService#expireReserved}, which passes the copy on.
+ * <p>
+ * Every node keeps its wheel filled and advances it, but only the node holding the job's
+ * lease expires orders; the other nodes drop what falls due, so their wheels hold no more
+ * than the lease holder's. A node that dropped orders reloads all pending orders when it
+ * takes over, so whatever fell due in the meantime and is still pending is expired on its
+ * first tick.
+ * <p>
+ * The pending period is set per order type; {@code 0} disables expiry for that type.
+ */
+@Component
+public class OrderExpiry {
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiry.class);
+
+    /** Re-read window covering clock differences between nodes and late commits */
+    private static final long CLOCK_SKEW_MS = 30_000;
+    /** Delay before expiring a batch again after a failed update */
+    private static final long FAILURE_DELAY_MS = 30_000;
+    /** Name of the job's lease */
+    static final String JOB_NAME = "orders-expiry";
+
+    private final OrderDao orderDao;
+    private final OrderService orderService;
+    private final JobLeases jobLeases;
+    private final Map<OrderType, Long> ttlMillis = new EnumMap<>(OrderType.class);
+    private final int batchSize;
+    private final ReentrantLock expiring = new ReentrantLock();
+    private final TimingWheel<Pending> wheel;
+    /** IDs of orders in the wheel, so overlapping polls do not add an order twice */
+    private final Set<Long> scheduled = new HashSet<>();
+    private volatile long lastRefresh;
+    /** Whether due orders were dropped while another node held the lease */
+    private boolean dropped;
+
+    @Autowired
+    public OrderExpiry(OrderDao orderDao, OrderService orderService, JobLeases jobLeases,
+                       @Value("${orders.expiry.reading-room-minutes:240}") long readingRoomMinutes,
+                       @Value("${orders.expiry.home-minutes:4320}") long homeMinutes,
+                       @Value("${orders.expiry.tick-ms:1000}") long tickMillis,
+                       @Value("${orders.expiry.batch-size:500}") int batchSize) {
+        this.orderDao = orderDao;
+        this.orderService = orderService;
+        this.jobLeases = jobLeases;
+        this.ttlMillis.put(OrderType.READING_ROOM, readingRoomMinutes * 60_000);
+        this.ttlMillis.put(OrderType.HOME, homeMinutes * 60_000);
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel<>(tickMillis, 64, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds pending orders placed since the last poll to the wheel; the first poll adds all of them.
+     */
+    @Scheduled(fixedDelayString = "${orders.expiry.poll-ms:60000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        LocalDateTime since = lastRefresh == 0 ? null : toLocalDateTime(lastRefresh - CLOCK_SKEW_MS);
+
+        try {
+            int[] added = {0};
+            orderDao.forEachPendingSince(since, order -> {
+                synchronized (wheel) {
+                    if (schedule(order)) {
+                        added[0]++;
+                    }
+                }
+            });
+            if (added[0] > 0 || since == null) {
+                logger.info("Scheduled expiry of {} pending orders; {} awaiting expiry", added[0], size());
+            }
+            lastRefresh = now;
+        } catch (RuntimeException e) {
+            // The next poll reads the missed window again
+            logger.error("Error loading pending orders for expiry", e);
+        }
+    }
+
+    /**
+     * Expires the orders whose pending period has run out, if this node runs the job.
+     * A tick that starts while another is still going returns at once.
+     */
+    @Scheduled(fixedDelayString = "${orders.expiry.tick-ms:1000}")
+    public void expireDue() {
+        // Not a monitor: a virtual thread blocked on JDBC while holding it would pin its carrier
+        if (!expiring.tryLock()) {
+            return;
+        }
+        try {
+            expire();
+        } finally {
+            expiring.unlock();
+        }
+    }
+
+    private void expire() {
+        boolean held = jobLeases.hold(JOB_NAME);
+        if (held && dropped) {
+            // Orders dropped while another node ran the job may still be pending if it died
+            lastRefresh = 0;
+            refresh();
+            dropped = false;
+        }
+
+        long now = System.currentTimeMillis();
+        Map<OrderType, List<Long>> due = new EnumMap<>(OrderType.class);
+        synchronized (wheel) {
+            wheel.advance(now, pending -> {
+                scheduled.remove(pending.orderId());
+                due.computeIfAbsent(pending.orderType(), type -> new ArrayList<>()).add(pending.orderId());
+            });
+        }
+        if (!held) {
+            // The lease holder expires these
+            dropped |= !due.isEmpty();
+            return;
+        }
+
+        due.forEach((orderType, orderIds) -> {
+            LocalDateTime orderedBefore = toLocalDateTime(now - ttlMillis.get(orderType));
+            for (int from = 0; from < orderIds.size(); from += batchSize) {
+                List<Long> batch = orderIds.subList(from, Math.min(from + batchSize, orderIds.size()));
+                try {
+                    orderDao.expirePending(orderType, orderedBefore, batch);
+                    orderService.expireReserved(orderType, orderedBefore, batch);
+                } catch (RuntimeException e) {
+                    logger.error("Error expiring {} pending {} orders; retrying later", batch.size(), orderType, e);
+                    reschedule(orderType, batch, now + FAILURE_DELAY_MS);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return number of orders awaiting expiry
+     */
+    public int size() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Adds an order to the wheel unless it is already there or its type does not expire.
+     */
+    private boolean schedule(Order order) {
+        long ttl = ttlMillis.get(order.getOrderType());
+        if (ttl <= 0 || !scheduled.add(order.getId())) {
+            return false;
+        }
+        long orderedAt = order.getOrderDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        wheel.add(new Pending(order.getId(), order.getOrderType()), orderedAt + ttl);
+        return true;
+    }
+
+    private void reschedule(OrderType orderType, List<Long> orderIds, long deadline) {
+        synchronized (wheel) {
+            for (Long orderId : orderIds) {
+                if (scheduled.add(orderId)) {
+                    wheel.add(new Pending(orderId, orderType), deadline);
+                }
+            }
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Order awaiting expiry, as held in the wheel.
+     */
+    private record Pending(Long orderId, OrderType orderType) {
+    }
+}
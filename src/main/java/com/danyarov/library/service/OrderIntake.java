@@ -0,0 +1,181 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.exception.ServiceException;
+import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderRequest;
+import com.danyarov.library.model.OrderType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Entry point for readers' book requests.
+ * <p>
+ * By default each request creates its order directly. With {@code orders.intake.partitions}
+ * set, requests are queued instead to one of that many partitions, chosen by book ID. Each
+ * partition has a single writer thread that takes whatever requests have queued up and admits
+ * them per book with {@link OrderService#createOrders}: the book and the users' active orders
+ * are read once and the new orders are inserted in one batch. A title that everyone requests
+ * at once is then handled by one writer in large batches, rather than by many requests
+ * contending for the same rows.
+ * <p>
+ * Callers wait for their own request for up to {@code orders.intake.timeout-ms}. When a
+ * partition's queue is full the request is refused at once.
+ */
+@Component
+public class OrderIntake {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntake.class);
+
+    private final OrderService orderService;
+    private final int batchSize;
+    private final long timeoutMillis;
+    private final Partition[] partitions;
+
+    @Autowired
+    public OrderIntake(OrderService orderService,
+                       @Value("${orders.intake.partitions:0}") int partitionCount,
+                       @Value("${orders.intake.batch-size:256}") int batchSize,
+                       @Value("${orders.intake.queue-capacity:10000}") int queueCapacity,
+                       @Value("${orders.intake.timeout-ms:5000}") long timeoutMillis) {
+        this.orderService = orderService;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, queueCapacity);
+        }
+        if (partitionCount > 0) {
+            logger.info("Order intake uses {} partitions with batches of up to {}", partitionCount, batchSize);
+        }
+    }
+
+    /**
+     * Creates an order for a reader.
+     *
+     * @param userId    user ID
+     * @param bookId    book ID
+     * @param orderType order type
+     * @return created order
+     * @throws ServiceException if the request is refused, the intake is full, or the wait times out
+     */
+    public Order createOrder(Long userId, Long bookId, OrderType orderType) {
+        if (partitions.length == 0) {
+            return orderService.createOrder(userId, bookId, orderType);
+        }
+
+        CompletableFuture<Order> result = submit(new OrderRequest(userId, bookId, orderType));
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ServiceException("Order request failed", e.getCause());
+        } catch (TimeoutException e) {
+            // Skipped if still queued; if it is already being written the order may still appear
+            result.cancel(false);
+            logger.warn("Order request of user {} for book {} timed out", userId, bookId);
+            throw new ServiceException("The library is busy, please try again", e);
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Interrupted while waiting for the order", e);
+        }
+    }
+
+    /**
+     * Queues a request to the partition of its book.
+     *
+     * @param request the request
+     * @return the request's result
+     * @throws ServiceException if the partition's queue is full
+     */
+    public CompletableFuture<Order> submit(OrderRequest request) {
+        Partition partition = partitions[Math.floorMod(request.getBookId().hashCode(), partitions.length)];
+        if (!partition.queue.offer(request)) {
+            logger.warn("Order intake partition {} is full", partition.index);
+            throw new ServiceException("The library is busy, please try again");
+        }
+        return request.getResult();
+    }
+
+    /**
+     * Stops the writer threads and refuses requests still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Partition partition : partitions) {
+            partition.writer.interrupt();
+        }
+        for (Partition partition : partitions) {
+            List<OrderRequest> pending = new ArrayList<>();
+            partition.queue.drainTo(pending);
+            ServiceException failure = new ServiceException("Order intake is shutting down");
+            pending.forEach(request -> request.getResult().completeExceptionally(failure));
+        }
+    }
+
+    /**
+     * Queue of requests and the single thread that writes them.
+     */
+    private final class Partition implements Runnable {
+        private final int index;
+        private final BlockingQueue<OrderRequest> queue;
+        private final Thread writer;
+
+        Partition(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.writer = new Thread(this, "order-intake-" + index);
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        @Override
+        public void run() {
+            List<OrderRequest> batch = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            }
+        }
+
+        /**
+         * Admits a batch, one book at a time in order of first arrival.
+         *
+         * @param batch requests taken from the queue
+         */
+        private void write(List<OrderRequest> batch) {
+            Map<Long, List<OrderRequest>> byBook = new LinkedHashMap<>();
+            for (OrderRequest request : batch) {
+                if (!request.getResult().isDone()) {
+                    byBook.computeIfAbsent(request.getBookId(), id -> new ArrayList<>()).add(request);
+                }
+            }
+
+            byBook.forEach((bookId, requests) -> {
+                try {
+                    orderService.createOrders(bookId, requests);
+                } catch (RuntimeException e) {
+                    logger.error("Admitting {} requests for book {} failed", requests.size(), bookId, e);
+                    requests.forEach(request -> request.getResult().completeExceptionally(e));
+                }
+            });
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.danyarov.library.service;
 
 import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderRequest;
 import com.danyarov.library.model.OrderStatus;
 import com.danyarov.library.model.OrderType;
+import com.danyarov.library.model.Page;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Order service interface.
@@ -20,6 +27,16 @@ public interface OrderService {
      */
     Order createOrder(Long userId, Long bookId, OrderType orderType);
 
+    /**
+     * Create orders for one book in bulk, applying the rules of {@link #createOrder} to each
+     * request in turn. The book and the users' active orders are read once, and the admitted
+     * orders are inserted in one batch. Every request's result is completed; if an insert batch
+     * fails, requests whose orders were committed in earlier batches still succeed.
+     * @param bookId book ID shared by all requests
+     * @param requests requests to admit, in arrival order
+     */
+    void createOrders(Long bookId, List<OrderRequest> requests);
+
     /**
      * Issue order
      * @param orderId order ID
@@ -45,6 +62,17 @@ public interface OrderService {
      */
     Order cancelOrder(Long orderId, Long userId);
 
+    /**
+     * Expire those of the given orders that are still pending, were placed no later than the
+     * cutoff and hold a copy reserved from the waitlist, passing each copy to the next waiting
+     * reader or back to the shelf
+     * @param orderType type of the given orders
+     * @param orderedBefore latest order date that has expired
+     * @param orderIds order IDs
+     * @return number of orders expired
+     */
+    int expireReserved(OrderType orderType, LocalDateTime orderedBefore, Collection<Long> orderIds);
+
     /**
      * Find order by ID
      * @param id order ID
@@ -66,12 +94,26 @@ public interface OrderService {
      */
     List<Order> findByStatus(OrderStatus status);
 
+    /**
+     * Find issued orders past their due date, longest overdue first
+     * @param pageNumber zero-based page number
+     * @param pageSize number of orders per page
+     * @return page of overdue orders with details
+     */
+    Page<Order> findOverdue(int pageNumber, int pageSize);
+
     /**
      * Find all orders with details
      * @return list of orders with user and book details
      */
     List<Order> findAllWithDetails();
 
+    /**
+     * Pass every order with details to an action without loading them all into memory
+     * @param action action called for each order, newest first
+     */
+    void forEachWithDetails(Consumer<Order> action);
+
     /**
      * Check if user has active order for book
      * @param userId user ID
@@ -79,4 +121,18 @@ public interface OrderService {
      * @return true if user has active order
      */
     boolean hasActiveOrder(Long userId, Long bookId);
+
+    /**
+     * Find which of the given books the user has an active order for, in one query
+     * @param userId user ID
+     * @param bookIds book IDs to check
+     * @return IDs of books with an active order by the user
+     */
+    Set<Long> findBooksWithActiveOrder(Long userId, Collection<Long> bookIds);
+
+    /**
+     * Count orders per status
+     * @return number of orders for every status
+     */
+    Map<OrderStatus, Long> countByStatus();
 }
@@ -0,0 +1,107 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Marks issued orders that have passed their due date.
+ * <p>
+ * Each run walks the overdue orders in due date order over the {@code (status, due_date)}
+ * index and stamps {@code overdue_at} on those not yet marked, one chunk per statement, so
+ * no transaction holds more than a chunk of rows. The position reached is kept between runs:
+ * the first run covers the whole overdue range once, later runs only the orders that fell
+ * due since. Returned orders keep their stamp as a record that they were late.
+ * <p>
+ * Only the node holding the job's lease runs it, and it stops between chunks if the lease
+ * is lost. A node that takes over starts from the beginning of the overdue range, which
+ * costs one pass over the orders still unmarked.
+ * <p>
+ * A run that starts while another is still going returns at once. The guard is a
+ * {@link ReentrantLock} rather than a monitor, so a virtual thread blocked on JDBC inside a
+ * run does not pin its carrier thread.
+ */
+@Component
+public class OverdueJob {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueJob.class);
+
+    /** Name of the job's lease */
+    static final String JOB_NAME = "orders-overdue";
+
+    private final OrderDao orderDao;
+    private final JobLeases jobLeases;
+    private final int chunkSize;
+    private final ReentrantLock running = new ReentrantLock();
+    /** Due date and ID of the last order handled; the next run continues after it */
+    private LocalDateTime lastDueDate;
+    private long lastId;
+
+    @Autowired
+    public OverdueJob(OrderDao orderDao, JobLeases jobLeases,
+                      @Value("${orders.overdue.chunk-size:500}") int chunkSize) {
+        this.orderDao = orderDao;
+        this.jobLeases = jobLeases;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Marks the orders that fell due since the previous run.
+     *
+     * @return number of orders marked; 0 if another node runs the job or a run is already going
+     */
+    @Scheduled(fixedDelayString = "${orders.overdue.scan-ms:300000}")
+    public int run() {
+        if (!running.tryLock()) {
+            return 0;
+        }
+        try {
+            return markOverdue();
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private int markOverdue() {
+        if (!jobLeases.hold(JOB_NAME)) {
+            // Another node may move past our position, so start over if we take the job again
+            lastDueDate = null;
+            lastId = 0;
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int marked = 0;
+
+        try {
+            List<Order> chunk;
+            do {
+                chunk = orderDao.findUnmarkedOverdue(now, lastDueDate, lastId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                marked += orderDao.markOverdue(chunk.stream().map(Order::getId).toList(), now);
+
+                Order last = chunk.get(chunk.size() - 1);
+                lastDueDate = last.getDueDate();
+                lastId = last.getId();
+            } while (chunk.size() == chunkSize && jobLeases.isHeld(JOB_NAME));
+        } catch (RuntimeException e) {
+            // The next run continues from the last chunk that was written
+            logger.error("Error marking overdue orders after {} were marked", marked, e);
+        }
+
+        if (marked > 0) {
+            logger.info("Marked {} orders overdue", marked);
+        }
+        return marked;
+    }
+}
@@ -0,0 +1,185 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.exception.ServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent reads for one request in parallel.
+ * <p>
+ * Lookups are forked inside a {@link Scope} and joined together, so the caller waits for the
+ * slowest lookup rather than the sum of all of them. If one lookup fails, the others are
+ * cancelled and the failure is rethrown from {@link Scope#join()}. No lookup outlives its scope.
+ * <p>
+ * At most {@code lookups.max-parallel} lookups run on the executor at once across all requests,
+ * which defaults to the connection pool size. When that limit is reached a lookup runs on the
+ * calling thread instead, so forking never waits for a free thread.
+ */
+@Component
+public class ParallelLookups {
+
+    private final Executor executor;
+    private final Semaphore permits;
+
+    @Autowired
+    public ParallelLookups(@Qualifier("applicationTaskExecutor") Executor executor,
+                           @Value("${lookups.max-parallel:${db.pool.max-size:20}}") int maxParallel) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxParallel);
+    }
+
+    /**
+     * Opens a scope for a group of lookups; use with try-with-resources.
+     *
+     * @return a new scope
+     */
+    public Scope open() {
+        return new Scope();
+    }
+
+    /**
+     * Group of lookups that are joined together.
+     */
+    public final class Scope implements AutoCloseable {
+        private final List<Lookup<?>> lookups = new ArrayList<>();
+        private final BlockingQueue<Lookup<?>> completed = new LinkedBlockingQueue<>();
+        private boolean joined;
+
+        private Scope() {
+        }
+
+        /**
+         * Starts a lookup.
+         *
+         * @param task the read to run
+         * @param <T>  result type
+         * @return supplier of the result, usable after {@link #join()}
+         */
+        public <T> Supplier<T> fork(Callable<T> task) {
+            if (joined) {
+                throw new IllegalStateException("Scope already joined");
+            }
+            Lookup<T> lookup = new Lookup<>(task, completed);
+            lookups.add(lookup);
+
+            if (permits.tryAcquire()) {
+                lookup.forked = true;
+                try {
+                    executor.execute(lookup);
+                } catch (RejectedExecutionException e) {
+                    lookup.forked = false;
+                    permits.release();
+                    lookup.run();
+                }
+            } else {
+                lookup.run();
+            }
+            return lookup::result;
+        }
+
+        /**
+         * Waits for all lookups to complete.
+         *
+         * @throws RuntimeException the first failure of any lookup; the others are cancelled
+         */
+        public void join() {
+            try {
+                for (int i = 0; i < lookups.size(); i++) {
+                    Lookup<?> lookup = completed.take();
+                    if (lookup.isFailed()) {
+                        cancelAll();
+                        lookup.result();
+                    }
+                }
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new ServiceException("Interrupted while waiting for lookups", e);
+            }
+            joined = true;
+        }
+
+        /**
+         * Cancels lookups that were not joined.
+         */
+        @Override
+        public void close() {
+            if (!joined) {
+                cancelAll();
+            }
+        }
+
+        private void cancelAll() {
+            for (Lookup<?> lookup : lookups) {
+                lookup.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Lookup task that reports its completion to the owning scope.
+     */
+    private final class Lookup<T> extends FutureTask<T> {
+        private final BlockingQueue<Lookup<?>> completed;
+        private volatile boolean forked;
+        private volatile boolean failed;
+
+        Lookup(Callable<T> task, BlockingQueue<Lookup<?>> completed) {
+            super(task);
+            this.completed = completed;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                if (forked) {
+                    permits.release();
+                }
+            }
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            failed = true;
+            super.setException(t);
+        }
+
+        @Override
+        protected void done() {
+            completed.offer(this);
+        }
+
+        boolean isFailed() {
+            return failed;
+        }
+
+        T result() {
+            if (!isDone()) {
+                throw new IllegalStateException("Lookup read before the scope was joined");
+            }
+            try {
+                return get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new ServiceException("Lookup failed", cause);
+            } catch (CancellationException | InterruptedException e) {
+                throw new ServiceException("Lookup cancelled", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.danyarov.library.service;
+
+/**
+ * Session revocation service interface
+ */
+public interface RevocationService {
+    /**
+     * Revoke all sessions of a user issued up to now
+     * @param userId user ID
+     */
+    void revoke(Long userId);
+
+    /**
+     * Check whether a session was revoked; in-memory lookup only
+     * @param userId user ID
+     * @param issuedAt session issue time in epoch milliseconds
+     * @return true if the session must no longer be accepted
+     */
+    boolean isRevoked(Long userId, long issuedAt);
+
+    /**
+     * Load revocations recorded by other nodes and drop expired ones
+     */
+    void refresh();
+}
@@ -5,6 +5,7 @@ import com.danyarov.library.model.UserRole;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * User service interface
@@ -17,6 +18,15 @@ public interface UserService {
      */
     User register(User user);
 
+    /**
+     * Register many new users at once. Passwords are hashed in parallel and users are
+     * inserted in batches. Users whose email is already registered, or repeats an earlier
+     * entry of the list, are skipped.
+     * @param users users to register, with raw passwords
+     * @return the registered users
+     */
+    List<User> registerAll(List<User> users);
+
     /**
      * Authenticate user
      * @param email user email
@@ -39,9 +49,19 @@ public interface UserService {
     List<User> findAll();
 
     /**
-     * Update user
+     * Pass every user to an action without loading them all into memory
+     * @param action action called for each user
+     */
+    void forEach(Consumer<User> action);
+
+    /**
+     * Update user. Only the fields assigned on {@code user} are applied to the stored user,
+     * and only those that differ are written; an empty password keeps the current one.
+     * If {@code user} carries a version, the update fails when the user has been changed
+     * since that version was read.
      * @param user user to update
      * @return updated user
+     * @throws com.danyarov.library.exception.OptimisticLockException if the user was changed meanwhile
      */
     User update(User user);
 
@@ -5,13 +5,17 @@ import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.model.Book;
 import com.danyarov.library.model.Page;
 import com.danyarov.library.service.BookService;
+import com.danyarov.library.util.CatalogVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Book service implementation that handles business logic
@@ -23,10 +27,12 @@ public class BookServiceImpl implements BookService {
     private static final int DEFAULT_PAGE_SIZE = 12;
 
     private BookDao bookDao;
+    private CatalogVersion catalogVersion;
 
     @Autowired
-    public BookServiceImpl(BookDao bookDao) {
+    public BookServiceImpl(BookDao bookDao, CatalogVersion catalogVersion) {
         this.bookDao = bookDao;
+        this.catalogVersion = catalogVersion;
     }
 
     /** {@inheritDoc} */
@@ -43,6 +49,13 @@ public class BookServiceImpl implements BookService {
         return bookDao.findAll();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void forEach(Consumer<Book> action) {
+        logger.debug("Streaming all books");
+        bookDao.forEach(action);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Page<Book> findAllPaginated(int pageNumber, int pageSize) {
@@ -97,18 +110,39 @@ public class BookServiceImpl implements BookService {
         return bookDao.findByGenrePaginated(genre, pageNumber, pageSize);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        logger.debug("Looking up {} ISBNs", isbns.size());
+        return bookDao.findExistingIsbns(isbns);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Book save(Book book) {
-        if (book.getTotalCopies() == null) {
-            book.setTotalCopies(1);
-        }
-        if (book.getAvailableCopies() == null) {
-            book.setAvailableCopies(book.getTotalCopies());
-        }
+        applyCopyDefaults(book);
 
         logger.info("Saving new book: {}", book.getTitle());
-        return bookDao.save(book);
+        Book saved = bookDao.save(book);
+        catalogVersion.bump();
+        return saved;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Book> saveAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return books;
+        }
+        books.forEach(this::applyCopyDefaults);
+
+        logger.info("Saving {} new books", books.size());
+        try {
+            return bookDao.saveAll(books);
+        } finally {
+            // Earlier batches may be committed even if a later one fails
+            catalogVersion.bump();
+        }
     }
 
     /** {@inheritDoc} */
@@ -120,14 +154,63 @@ public class BookServiceImpl implements BookService {
             throw new ServiceException("Book not found with id: " + book.getId());
         }
 
-        logger.info("Updating book: {}", book.getTitle());
-        return bookDao.update(book);
+        Book stored = existingBook.get();
+        applyChanges(book, stored);
+        if (stored.getDirtyColumns().isEmpty()) {
+            return stored;
+        }
+
+        logger.info("Updating book: {}", stored.getTitle());
+        Book updated = bookDao.update(stored);
+        catalogVersion.bump();
+        return updated;
+    }
+
+    /**
+     * Copies the fields assigned on an edited book onto the stored one. The stored book then
+     * tracks only real changes, so columns the edit did not touch, such as available copies
+     * changed by a concurrent checkout, are not written back.
+     *
+     * @param edited book holding the edit
+     * @param stored book as loaded from the database
+     */
+    private void applyChanges(Book edited, Book stored) {
+        if (edited.isDirty("title")) stored.setTitle(edited.getTitle());
+        if (edited.isDirty("author")) stored.setAuthor(edited.getAuthor());
+        if (edited.isDirty("isbn")) stored.setIsbn(edited.getIsbn());
+        if (edited.isDirty("genre")) stored.setGenre(edited.getGenre());
+        if (edited.isDirty("description")) stored.setDescription(edited.getDescription());
+        if (edited.isDirty("publication_year")) stored.setPublicationYear(edited.getPublicationYear());
+        if (edited.isDirty("total_copies")) stored.setTotalCopies(edited.getTotalCopies());
+        if (edited.isDirty("available_copies")) stored.setAvailableCopies(edited.getAvailableCopies());
+        if (edited.getVersion() != null) {
+            // Check against the version the editor saw, not the one just loaded
+            stored.setVersion(edited.getVersion());
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean delete(Long id) {
         logger.info("Deleting book with id: {}", id);
-        return bookDao.deleteById(id);
+        boolean deleted = bookDao.deleteById(id);
+        if (deleted) {
+            catalogVersion.bump();
+        }
+        return deleted;
+    }
+
+    /**
+     * A new book without copy counts gets one copy, all of them available.
+     *
+     * @param book book about to be saved
+     */
+    private void applyCopyDefaults(Book book) {
+        if (book.getTotalCopies() == null) {
+            book.setTotalCopies(1);
+        }
+        if (book.getAvailableCopies() == null) {
+            book.setAvailableCopies(book.getTotalCopies());
+        }
     }
 }
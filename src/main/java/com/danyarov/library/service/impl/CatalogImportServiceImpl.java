@@ -0,0 +1,465 @@
+package com.danyarov.library.service.impl;
+
+import com.danyarov.library.exception.ServiceException;
+import com.danyarov.library.exception.ValidationException;
+import com.danyarov.library.model.Book;
+import com.danyarov.library.model.CatalogFormat;
+import com.danyarov.library.model.ImportReport;
+import com.danyarov.library.service.BookService;
+import com.danyarov.library.service.CatalogImportService;
+import com.danyarov.library.util.CsvReader;
+import com.danyarov.library.util.ValidationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Catalog import implementation built as a three-stage pipeline.
+ * <p>
+ * The importing thread reads raw records and hands them out in chunks of {@code db.batch-size}.
+ * Chunks are parsed into books and checked with {@link ValidationUtil} on the application
+ * executor, at most {@code catalog-import.parallelism} at a time. Once that many are in flight,
+ * the importing thread writes the oldest chunk before reading further, so memory use is bounded
+ * no matter how large the file is, and chunks are written in file order.
+ * <p>
+ * Imported ISBNs are stored without hyphens or spaces. Writing a chunk looks up its ISBNs,
+ * both normalized and as written in the file, in a single query against the unique column.
+ * Rows whose ISBN already exists, or appears earlier in the same chunk, are skipped and the
+ * rest are saved as one batch. Since chunks are committed in order, an ISBN repeated in a
+ * later chunk is found in the catalog when that chunk is written.
+ */
+@Service
+public class CatalogImportServiceImpl implements CatalogImportService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportServiceImpl.class);
+    private static final int RECENT_REPORTS = 10;
+
+    private final BookService bookService;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Map<String, ImportReport> reports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportReport> eldest) {
+            return size() > RECENT_REPORTS;
+        }
+    };
+    private ImportReport current;
+
+    @Autowired
+    public CatalogImportServiceImpl(BookService bookService,
+                                    @Qualifier("applicationTaskExecutor") Executor executor,
+                                    @Value("${db.batch-size:1000}") int chunkSize,
+                                    @Value("${catalog-import.parallelism:0}") int parallelism) {
+        this.bookService = bookService;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ImportReport importCatalog(Reader in, String fileName, CatalogFormat format) {
+        ImportReport report = new ImportReport(fileName, format);
+        run(in, report);
+        return report;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ImportReport submit(Path file, String fileName, CatalogFormat format) {
+        ImportReport report = new ImportReport(fileName, format);
+        synchronized (reports) {
+            if (current != null && current.isRunning()) {
+                deleteQuietly(file);
+                throw new ServiceException("A catalog import is already running");
+            }
+            current = report;
+            reports.put(report.getId(), report);
+        }
+
+        try {
+            executor.execute(() -> {
+                try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    run(in, report);
+                } catch (IOException e) {
+                    logger.error("Error reading catalog file {}", fileName, e);
+                    report.fail("Error reading file: " + e.getMessage());
+                } finally {
+                    deleteQuietly(file);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            report.fail("Import could not be started");
+            deleteQuietly(file);
+            throw new ServiceException("Import could not be started", e);
+        }
+        logger.info("Catalog import {} started for {}", report.getId(), fileName);
+        return report;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<ImportReport> findReport(String id) {
+        synchronized (reports) {
+            return Optional.ofNullable(reports.get(id));
+        }
+    }
+
+    /**
+     * Runs the pipeline until the input is exhausted or a chunk cannot be written.
+     *
+     * @param in     file content
+     * @param report report to update
+     */
+    private void run(Reader in, ImportReport report) {
+        Deque<Future<List<ParsedRow>>> inFlight = new ArrayDeque<>();
+        BufferedReader reader = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        try {
+            RecordSource source = report.getFormat() == CatalogFormat.CSV
+                    ? new CsvSource(reader) : new MarcSource(reader);
+            List<RawRecord> chunk = new ArrayList<>(chunkSize);
+            RawRecord record;
+            while ((record = source.next()) != null) {
+                report.rowRead();
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    fork(source, chunk, inFlight, report);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                fork(source, chunk, inFlight, report);
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), report);
+            }
+            report.complete();
+            logger.info("Catalog import finished: {}", report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight.forEach(future -> future.cancel(true));
+            report.fail("Import interrupted");
+        } catch (RuntimeException e) {
+            inFlight.forEach(future -> future.cancel(true));
+            logger.error("Catalog import failed: {}", report, e);
+            report.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Starts parsing a chunk, first writing the oldest chunk if the pipeline is full.
+     */
+    private void fork(RecordSource source, List<RawRecord> chunk, Deque<Future<List<ParsedRow>>> inFlight,
+                      ImportReport report) throws InterruptedException {
+        if (inFlight.size() >= parallelism) {
+            write(inFlight.poll(), report);
+        }
+        FutureTask<List<ParsedRow>> task = new FutureTask<>(() -> parse(source, chunk));
+        inFlight.add(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Parses and validates one chunk. Runs on the executor.
+     */
+    private static List<ParsedRow> parse(RecordSource source, List<RawRecord> chunk) {
+        List<ParsedRow> rows = new ArrayList<>(chunk.size());
+        for (RawRecord record : chunk) {
+            try {
+                Book book = source.toBook(record);
+                validate(book);
+                String writtenIsbn = book.getIsbn();
+                book.setIsbn(ValidationUtil.normalizeIsbn(writtenIsbn));
+                rows.add(new ParsedRow(record.line(), book, writtenIsbn, null));
+            } catch (ValidationException e) {
+                rows.add(new ParsedRow(record.line(), null, null, e.getMessage()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Applies the rules of the add book form plus the column limits of the books table,
+     * so a bad row is rejected on its own instead of failing its whole batch.
+     */
+    private static void validate(Book book) {
+        ValidationUtil.validateRequired(book.getTitle(), "Title");
+        ValidationUtil.validateRequired(book.getAuthor(), "Author");
+        ValidationUtil.validateMaxLength(book.getTitle(), 255, "Title");
+        ValidationUtil.validateMaxLength(book.getAuthor(), 255, "Author");
+        ValidationUtil.validateMaxLength(book.getIsbn(), 20, "ISBN");
+        ValidationUtil.validateMaxLength(book.getGenre(), 100, "Genre");
+        ValidationUtil.validateIsbn(book.getIsbn());
+        if (book.getTotalCopies() != null) {
+            ValidationUtil.validatePositive(book.getTotalCopies(), "Total copies");
+        }
+    }
+
+    /**
+     * Waits for a parsed chunk, drops duplicates and saves the remaining books as one batch.
+     */
+    private void write(Future<List<ParsedRow>> future, ImportReport report) throws InterruptedException {
+        List<ParsedRow> rows;
+        try {
+            rows = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new ServiceException("Import failed", cause);
+        }
+
+        Set<String> isbns = new HashSet<>();
+        for (ParsedRow row : rows) {
+            if (row.book() != null && row.book().getIsbn() != null) {
+                isbns.add(row.book().getIsbn());
+                isbns.add(row.writtenIsbn());
+            }
+        }
+        Set<String> existing = bookService.findExistingIsbns(isbns);
+
+        Set<String> seen = new HashSet<>();
+        List<Book> books = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            if (row.error() != null) {
+                report.reject(row.line(), row.error());
+            } else if (row.book().getIsbn() != null && (!seen.add(row.book().getIsbn())
+                    || existing.contains(row.book().getIsbn()) || existing.contains(row.writtenIsbn()))) {
+                report.duplicate();
+            } else {
+                books.add(row.book());
+            }
+        }
+
+        if (!books.isEmpty()) {
+            bookService.saveAll(books);
+            report.imported(books.size());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete import file {}", file, e);
+        }
+    }
+
+    /**
+     * Record as read from the file, not yet interpreted.
+     *
+     * @param line   line the record starts on
+     * @param values CSV fields or MARC field lines
+     */
+    private record RawRecord(long line, List<String> values) {
+    }
+
+    /**
+     * Outcome of parsing one record: either a valid book, whose ISBN has been normalized,
+     * or an error. The ISBN as written in the file is kept for the duplicate lookup.
+     */
+    private record ParsedRow(long line, Book book, String writtenIsbn, String error) {
+    }
+
+    /**
+     * Reads records sequentially and turns them into books; {@link #toBook} must be thread-safe.
+     */
+    private interface RecordSource {
+        RawRecord next();
+
+        Book toBook(RawRecord record);
+    }
+
+    /**
+     * CSV with a header row. Columns are matched by name, so a file exported from the
+     * admin page can be imported as is; unknown columns such as {@code id} are ignored.
+     */
+    private static final class CsvSource implements RecordSource {
+        private final CsvReader csv;
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        CsvSource(Reader in) {
+            this.csv = new CsvReader(in);
+            List<String> header = csv.readRow();
+            if (header == null) {
+                throw new ValidationException("file", "File is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_'), i);
+            }
+            for (String required : List.of("title", "author")) {
+                if (!columns.containsKey(required)) {
+                    throw new ValidationException("file", "Missing column: " + required);
+                }
+            }
+        }
+
+        @Override
+        public RawRecord next() {
+            List<String> row;
+            do {
+                row = csv.readRow();
+            } while (row != null && row.size() == 1 && row.get(0).isEmpty());
+            return row == null ? null : new RawRecord(csv.getRowLine(), row);
+        }
+
+        @Override
+        public Book toBook(RawRecord record) {
+            List<String> values = record.values();
+            Book book = new Book();
+            book.setTitle(value(values, "title"));
+            book.setAuthor(value(values, "author"));
+            book.setIsbn(value(values, "isbn"));
+            book.setGenre(value(values, "genre"));
+            book.setDescription(value(values, "description"));
+            book.setPublicationYear(number(values, "publication_year", "Publication year"));
+            book.setTotalCopies(number(values, "total_copies", "Total copies"));
+            return book;
+        }
+
+        private String value(List<String> values, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+                return null;
+            }
+            return values.get(index);
+        }
+
+        private Integer number(List<String> values, String column, String fieldName) {
+            String text = value(values, column);
+            if (text == null) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(text.trim());
+            } catch (NumberFormatException e) {
+                throw new ValidationException(fieldName, fieldName + " must be a number");
+            }
+        }
+    }
+
+    /**
+     * MARC mnemonic text as written by MarcEdit and similar tools, for example
+     * {@code =245  10$aNineteen eighty-four /$cGeorge Orwell.} Records are separated by
+     * blank lines. The catalog fields are taken from 020 (ISBN), 100/110/700 (author),
+     * 245 (title), 650/655 (genre), 520 (description) and 264/260 (year).
+     */
+    private static final class MarcSource implements RecordSource {
+        private final BufferedReader in;
+        private long line;
+
+        MarcSource(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public RawRecord next() {
+            try {
+                List<String> fields = new ArrayList<>();
+                long start = 0;
+                String text;
+                while ((text = in.readLine()) != null) {
+                    line++;
+                    if (text.isBlank()) {
+                        if (!fields.isEmpty()) {
+                            break;
+                        }
+                    } else if (text.startsWith("=")) {
+                        if (fields.isEmpty()) {
+                            start = line;
+                        }
+                        fields.add(text);
+                    }
+                }
+                return fields.isEmpty() ? null : new RawRecord(start, fields);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Book toBook(RawRecord record) {
+            Map<String, String> subfields = new HashMap<>();
+            for (String field : record.values()) {
+                if (field.length() < 8) {
+                    continue;
+                }
+                String tag = field.substring(1, 4);
+                // Data starts after the tag, two spaces and two indicators
+                for (String subfield : field.substring(8).split("\\$")) {
+                    if (subfield.length() > 1) {
+                        subfields.putIfAbsent(tag + subfield.charAt(0),
+                                subfield.substring(1).replace("{dollar}", "$").trim());
+                    }
+                }
+            }
+
+            Book book = new Book();
+            String isbn = subfields.get("020a");
+            if (isbn != null && !isbn.isEmpty()) {
+                book.setIsbn(isbn.split("\\s+")[0]);
+            }
+            String title = subfields.get("245a");
+            if (title != null && subfields.containsKey("245b")) {
+                title = trimPunctuation(title) + " " + subfields.get("245b");
+            }
+            book.setTitle(trimPunctuation(title));
+            book.setAuthor(trimPunctuation(first(subfields, "100a", "110a", "700a")));
+            book.setGenre(trimPunctuation(first(subfields, "650a", "655a")));
+            book.setDescription(subfields.get("520a"));
+            book.setPublicationYear(year(first(subfields, "264c", "260c")));
+            return book;
+        }
+
+        private static String first(Map<String, String> subfields, String... keys) {
+            for (String key : keys) {
+                if (subfields.containsKey(key)) {
+                    return subfields.get(key);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Removes the trailing ISBD punctuation MARC puts before the next subfield.
+         */
+        private static String trimPunctuation(String value) {
+            if (value == null) {
+                return null;
+            }
+            int end = value.length();
+            while (end > 0 && " /:;,.".indexOf(value.charAt(end - 1)) >= 0) {
+                end--;
+            }
+            return end == 0 ? null : value.substring(0, end);
+        }
+
+        private static Integer year(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (int i = 0; i + 4 <= value.length(); i++) {
+                String digits = value.substring(i, i + 4);
+                if (digits.chars().allMatch(Character::isDigit)) {
+                    return Integer.valueOf(digits);
+                }
+            }
+            return null;
+        }
+    }
+}
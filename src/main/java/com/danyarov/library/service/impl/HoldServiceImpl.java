@@ -0,0 +1,90 @@
+package com.danyarov.library.service.impl;
+
+import com.danyarov.library.dao.BookDao;
+import com.danyarov.library.dao.BookHoldDao;
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.exception.ServiceException;
+import com.danyarov.library.model.Book;
+import com.danyarov.library.model.BookHold;
+import com.danyarov.library.model.OrderType;
+import com.danyarov.library.service.HoldService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service layer implementation of {@link HoldService}.
+ * <p>
+ * A reader can wait only for a book with no copies available and only once per book.
+ * The queue is served by {@link OrderServiceImpl} whenever a copy comes back, so readers
+ * find the reserved copy among their orders instead of watching the book page.
+ */
+@Service
+public class HoldServiceImpl implements HoldService {
+    private static final Logger logger = LoggerFactory.getLogger(HoldServiceImpl.class);
+
+    private BookHoldDao bookHoldDao;
+    private BookDao bookDao;
+    private OrderDao orderDao;
+
+    @Autowired
+    public HoldServiceImpl(BookHoldDao bookHoldDao, BookDao bookDao, OrderDao orderDao) {
+        this.bookHoldDao = bookHoldDao;
+        this.bookDao = bookDao;
+        this.orderDao = orderDao;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BookHold placeHold(Long userId, Long bookId, OrderType orderType) {
+        Optional<Book> book = bookDao.findById(bookId);
+        if (book.isEmpty()) {
+            logger.warn("Book not found with id: {}", bookId);
+            throw new ServiceException("Book not found with id: " + bookId);
+        }
+
+        if (book.get().getAvailableCopies() > 0) {
+            logger.warn("User {} tried to wait for available book {}", userId, bookId);
+            throw new ServiceException("Copies of this book are available; request it instead");
+        }
+
+        if (orderDao.findActiveOrderByUserAndBook(userId, bookId).isPresent()) {
+            logger.warn("User {} already has an active order for book {}", userId, bookId);
+            throw new ServiceException("User already has an active order for this book");
+        }
+
+        if (bookHoldDao.findWaiting(userId, bookId).isPresent()) {
+            logger.warn("User {} is already waiting for book {}", userId, bookId);
+            throw new ServiceException("You are already on the waitlist for this book");
+        }
+
+        logger.info("User {} joins the waitlist of book {}", userId, bookId);
+        return bookHoldDao.save(new BookHold(userId, bookId, orderType));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void cancelHold(Long holdId, Long userId) {
+        if (!bookHoldDao.cancel(holdId, userId)) {
+            logger.warn("User {} cannot cancel hold {}", userId, holdId);
+            throw new ServiceException("Hold not found or no longer waiting");
+        }
+        logger.info("User {} left the waitlist with hold {}", userId, holdId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<BookHold> findWaiting(Long userId, Long bookId) {
+        return bookHoldDao.findWaiting(userId, bookId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<BookHold> findWaitingByUser(Long userId) {
+        return bookHoldDao.findWaitingByUser(userId);
+    }
+}
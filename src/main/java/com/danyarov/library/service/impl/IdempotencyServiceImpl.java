@@ -0,0 +1,189 @@
+package com.danyarov.library.service.impl;
+
+import com.danyarov.library.dao.IdempotencyDao;
+import com.danyarov.library.exception.ServiceException;
+import com.danyarov.library.model.IdempotencyRecord;
+import com.danyarov.library.service.IdempotencyService;
+import com.danyarov.library.service.JobLeases;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Service layer implementation of {@link IdempotencyService}.
+ * <p>
+ * Recent keys are held in a bounded in-memory map, so double-clicks and retries that reach
+ * the same node are answered without a database round trip; a repeat that arrives while the
+ * first submission is running waits for its result instead of running again. Each key is
+ * also claimed in {@code idempotency_keys}, whose primary key lets only one node run the
+ * action, and the result is stored there for repeats that land on another node or arrive
+ * after the key left memory. Keys are kept for the retention period; expired keys are
+ * deleted from the table by whichever node holds the cleanup job's lease.
+ * <p>
+ * A claim is released when its action fails. A node that stops while running an action
+ * leaves a claim without a result; once it is older than the claim timeout, a repeat takes
+ * it over with a conditional update and runs the action. The timeout must exceed the
+ * longest action, or a slow first run and the repeat would both go through.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    /** Keys are UUIDs or random alphanumeric strings generated by the page */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    /** Name of the cleanup job's lease */
+    private static final String CLEANUP_JOB = "idempotency-cleanup";
+
+    private final IdempotencyDao idempotencyDao;
+    private final JobLeases jobLeases;
+    private final long retentionMillis;
+    private final long claimTimeoutMillis;
+    private final Map<String, Entry> recent;
+
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyDao idempotencyDao, JobLeases jobLeases,
+                                  @Value("${idempotency.max-entries:10000}") int maxEntries,
+                                  @Value("${idempotency.retention-minutes:1440}") long retentionMinutes,
+                                  @Value("${idempotency.claim-timeout-seconds:60}") long claimTimeoutSeconds) {
+        this.idempotencyDao = idempotencyDao;
+        this.jobLeases = jobLeases;
+        this.retentionMillis = retentionMinutes * 60_000;
+        this.claimTimeoutMillis = claimTimeoutSeconds * 1000;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                // Keys still in flight stay, so their repeats keep waiting instead of running again
+                return size() > maxEntries && eldest.getValue().result.isDone();
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String execute(String key, String scope, Supplier<String> action) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            return action.get();
+        }
+
+        Entry own = new Entry(scope, System.currentTimeMillis());
+        Entry existing;
+        synchronized (recent) {
+            existing = recent.putIfAbsent(key, own);
+        }
+        if (existing != null) {
+            checkScope(existing.scope, scope);
+            logger.info("Repeated request with idempotency key {} for {}", key, scope);
+            return await(existing.result);
+        }
+
+        try {
+            String result = claimAndRun(key, own, action);
+            own.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            synchronized (recent) {
+                recent.remove(key, own);
+            }
+            own.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-ms:600000}")
+    public void cleanup() {
+        long expired = System.currentTimeMillis() - retentionMillis;
+        synchronized (recent) {
+            recent.values().removeIf(entry -> entry.createdAt < expired && entry.result.isDone());
+        }
+        if (!jobLeases.hold(CLEANUP_JOB)) {
+            return;
+        }
+        try {
+            idempotencyDao.deleteOlderThan(expired);
+        } catch (RuntimeException e) {
+            logger.error("Error deleting expired idempotency keys", e);
+        }
+    }
+
+    /**
+     * Claims the key in the database and runs the action, or returns the result
+     * stored by whoever claimed the key first.
+     */
+    private String claimAndRun(String key, Entry own, Supplier<String> action) {
+        if (!idempotencyDao.claim(key, own.scope, own.createdAt)) {
+            IdempotencyRecord stored = idempotencyDao.find(key)
+                    .orElseThrow(() -> new ServiceException("This request is already being processed"));
+            checkScope(stored.getScope(), own.scope);
+            if (stored.isCompleted()) {
+                logger.info("Replaying stored result of idempotency key {} for {}", key, own.scope);
+                return stored.getResult();
+            }
+            long staleBefore = own.createdAt - claimTimeoutMillis;
+            if (stored.getCreatedAt() >= staleBefore || !idempotencyDao.takeOver(key, own.createdAt, staleBefore)) {
+                throw new ServiceException("This request is already being processed");
+            }
+            logger.warn("Took over idempotency key {} for {}, claimed at {} without a result",
+                    key, own.scope, stored.getCreatedAt());
+        }
+
+        String result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            idempotencyDao.release(key, own.createdAt);
+            throw e;
+        }
+
+        try {
+            idempotencyDao.complete(key, result);
+        } catch (RuntimeException e) {
+            // The action is done; repeats on this node are still answered from memory
+            logger.error("Error storing result of idempotency key {}", key, e);
+        }
+        return result;
+    }
+
+    private static void checkScope(String stored, String scope) {
+        if (!stored.equals(scope)) {
+            throw new ServiceException("Idempotency key was already used for another request");
+        }
+    }
+
+    private static String await(CompletableFuture<String> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ServiceException("Request failed", e.getCause());
+        }
+    }
+
+    /**
+     * Key in memory: the request it was first used for and its result once finished.
+     */
+    private static final class Entry {
+        private final String scope;
+        private final long createdAt;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Entry(String scope, long createdAt) {
+            this.scope = scope;
+            this.createdAt = createdAt;
+        }
+    }
+}
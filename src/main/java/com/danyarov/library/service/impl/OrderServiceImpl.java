@@ -1,24 +1,50 @@
 package com.danyarov.library.service.impl;
 
+import com.danyarov.library.dao.BookCopyDao;
 import com.danyarov.library.dao.BookDao;
+import com.danyarov.library.dao.BookHoldDao;
 import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.dao.TransactionManager;
 import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.model.Book;
+import com.danyarov.library.model.BookCopy;
+import com.danyarov.library.model.BookCopyStatus;
+import com.danyarov.library.model.BookHold;
 import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderRequest;
 import com.danyarov.library.model.OrderStatus;
 import com.danyarov.library.model.OrderType;
+import com.danyarov.library.model.Page;
 import com.danyarov.library.service.OrderService;
+import com.danyarov.library.util.CatalogVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Order service implementation for managing order operations.
+ * <p>
+ * Issuing an order allocates a specific copy of the book. The copy status, the order and the
+ * book's available copies counter change in one transaction, so they never disagree.
+ * <p>
+ * A copy that comes back, by a return or by a reserved order that is cancelled or expires,
+ * goes to the first reader in the book's waitlist in the same transaction: the copy is
+ * reserved and a pending order holding it is created for the reader. Only when nobody waits
+ * does it go back on the shelf. Books without copy records have no copy to reserve, so the
+ * reader's order holds the returned unit of the available copies counter instead: it is not
+ * counted as available again, issuing the order does not take another unit, and cancelling
+ * or expiring it passes the unit on in turn.
  */
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -26,11 +52,20 @@ public class OrderServiceImpl implements OrderService {
 
     private OrderDao orderDao;
     private BookDao bookDao;
+    private BookCopyDao bookCopyDao;
+    private BookHoldDao bookHoldDao;
+    private TransactionManager transactionManager;
+    private CatalogVersion catalogVersion;
 
     @Autowired
-    public OrderServiceImpl(OrderDao orderDao, BookDao bookDao) {
+    public OrderServiceImpl(OrderDao orderDao, BookDao bookDao, BookCopyDao bookCopyDao, BookHoldDao bookHoldDao,
+                            TransactionManager transactionManager, CatalogVersion catalogVersion) {
         this.orderDao = orderDao;
         this.bookDao = bookDao;
+        this.bookCopyDao = bookCopyDao;
+        this.bookHoldDao = bookHoldDao;
+        this.transactionManager = transactionManager;
+        this.catalogVersion = catalogVersion;
     }
 
     /** {@inheritDoc} */
@@ -64,6 +99,64 @@ public class OrderServiceImpl implements OrderService {
         return orderDao.save(order);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void createOrders(Long bookId, List<OrderRequest> requests) {
+        Optional<Book> book = bookDao.findById(bookId);
+        if (book.isEmpty()) {
+            logger.warn("Book not found with id: {}", bookId);
+            failAll(requests, new ServiceException("Book not found with id: " + bookId));
+            return;
+        }
+        if (book.get().getAvailableCopies() <= 0) {
+            logger.warn("No available copies for book: {}", book.get().getTitle());
+            failAll(requests, new ServiceException("No copies available for book: " + book.get().getTitle()));
+            return;
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        requests.forEach(request -> userIds.add(request.getUserId()));
+        Set<Long> usersWithOrder = new HashSet<>(orderDao.findUserIdsWithActiveOrder(bookId, userIds));
+
+        List<OrderRequest> admitted = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (OrderRequest request : requests) {
+            // Earlier requests in the batch count as active orders too
+            if (!usersWithOrder.add(request.getUserId())) {
+                request.getResult().completeExceptionally(
+                        new ServiceException("User already has an active order for this book"));
+                continue;
+            }
+            admitted.add(request);
+            orders.add(new Order.Builder()
+                    .userId(request.getUserId())
+                    .bookId(bookId)
+                    .orderType(request.getOrderType())
+                    .status(OrderStatus.PENDING)
+                    .build());
+        }
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        logger.info("Creating {} orders for book {} from {} requests", orders.size(), bookId, requests.size());
+        RuntimeException failure = null;
+        try {
+            orderDao.saveAll(orders);
+        } catch (RuntimeException e) {
+            // Batches committed before the failure stay saved; their orders keep their IDs
+            failure = e;
+        }
+        for (int i = 0; i < admitted.size(); i++) {
+            Order order = orders.get(i);
+            if (failure == null || order.getId() != null) {
+                admitted.get(i).getResult().complete(order);
+            } else {
+                admitted.get(i).getResult().completeExceptionally(failure);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Order issueOrder(Long orderId, Long librarianId, int lendingDays) {
@@ -79,6 +172,10 @@ public class OrderServiceImpl implements OrderService {
             logger.warn("Cannot issue order {} because it is not in PENDING status", orderId);
             throw new ServiceException("Order is not in PENDING status");
         }
+        if (order.isClaimedByOther(librarianId, LocalDateTime.now())) {
+            logger.warn("Cannot issue order {} because another desk has claimed it", orderId);
+            throw new ServiceException("Order is being handled at another desk");
+        }
 
         // Update order
         order.setStatus(OrderStatus.ISSUED);
@@ -86,11 +183,38 @@ public class OrderServiceImpl implements OrderService {
         order.setIssueDate(LocalDateTime.now());
         order.setDueDate(LocalDateTime.now().plusDays(lendingDays));
 
-        // Update available copies
-        bookDao.updateAvailableCopies(order.getBookId(), -1);
+        // The work runs again after a deadlock, so every attempt starts from the copy read above
+        Long reservedCopyId = order.getBookCopyId();
+        Order issued = transactionManager.inTransaction(() -> {
+            order.setBookCopyId(reservedCopyId);
+            if (reservedCopyId != null) {
+                // The copy was reserved for this reader when it came back and never rejoined the counter
+                lockReserved(order);
+                bookCopyDao.updateStatus(reservedCopyId, BookCopyStatus.ISSUED);
+                logger.info("Issuing order {} by librarian {} with reserved copy {}", orderId, librarianId, order.getBookCopyId());
+                return issue(order, librarianId);
+            }
 
-        logger.info("Issuing order {} by librarian {}", orderId, librarianId);
-        return orderDao.update(order);
+            // Copies being issued by other librarians are skipped, not waited for
+            Optional<BookCopy> copy = bookCopyDao.lockAvailableCopy(order.getBookId());
+            if (copy.isPresent()) {
+                bookCopyDao.updateStatus(copy.get().getId(), BookCopyStatus.ISSUED);
+                order.setBookCopyId(copy.get().getId());
+            } else if (bookCopyDao.existsByBookId(order.getBookId())) {
+                logger.warn("No free copy to issue order {}", orderId);
+                throw new ServiceException("No copies available for this book");
+            } else if (isHeld(order)) {
+                // Books without copy records: the order already holds the unit it was handed from the waitlist
+                logger.info("Issuing order {} by librarian {} with its held copy", orderId, librarianId);
+                return issue(order, librarianId);
+            }
+
+            bookDao.updateAvailableCopies(order.getBookId(), -1);
+            logger.info("Issuing order {} by librarian {} with copy {}", orderId, librarianId, order.getBookCopyId());
+            return issue(order, librarianId);
+        });
+        catalogVersion.bump();
+        return issued;
     }
 
     /** {@inheritDoc} */
@@ -114,11 +238,14 @@ public class OrderServiceImpl implements OrderService {
         order.setReturnDate(LocalDateTime.now());
         order.setLibrarianId(librarianId);
 
-        // Update available copies
-        bookDao.updateAvailableCopies(order.getBookId(), 1);
-
-        logger.info("Returning order {} by librarian {}", orderId, librarianId);
-        return orderDao.update(order);
+        Order returned = transactionManager.inTransaction(() -> {
+            logger.info("Returning order {} by librarian {}", orderId, librarianId);
+            Order updated = transition(order, OrderStatus.ISSUED);
+            passOn(order.getBookId(), order.getBookCopyId());
+            return updated;
+        });
+        catalogVersion.bump();
+        return returned;
     }
 
     /** {@inheritDoc} */
@@ -148,7 +275,40 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(OrderStatus.CANCELLED);
 
         logger.info("Cancelling order {} by user {}", orderId, userId);
-        return orderDao.update(order);
+        // The held check locks the order, so it cannot be issued or expire before the cancel is written
+        boolean passedOn = transactionManager.inTransaction(() -> {
+            boolean held = isHeld(order);
+            transition(order, OrderStatus.PENDING);
+            if (held) {
+                // A reserved copy, or the unit held from the waitlist, goes on to the next waiting reader
+                passOn(order.getBookId(), order.getBookCopyId());
+            }
+            return held;
+        });
+        if (passedOn) {
+            catalogVersion.bump();
+        }
+        return order;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int expireReserved(OrderType orderType, LocalDateTime orderedBefore, Collection<Long> orderIds) {
+        int expired = transactionManager.inTransaction(() -> {
+            // Orders being issued or cancelled right now are skipped; they are no longer pending
+            List<Order> orders = orderDao.lockReservedPending(orderType, orderedBefore, orderIds);
+            for (Order order : orders) {
+                order.setStatus(OrderStatus.EXPIRED);
+                orderDao.update(order);
+                passOn(order.getBookId(), order.getBookCopyId());
+            }
+            return orders.size();
+        });
+        if (expired > 0) {
+            logger.info("Expired {} pending {} orders holding reserved copies", expired, orderType);
+            catalogVersion.bump();
+        }
+        return expired;
     }
 
     /** {@inheritDoc} */
@@ -172,6 +332,13 @@ public class OrderServiceImpl implements OrderService {
         return orderDao.findByStatus(status);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Page<Order> findOverdue(int pageNumber, int pageSize) {
+        logger.debug("Finding overdue orders, page {}", pageNumber);
+        return orderDao.findOverdue(LocalDateTime.now(), pageNumber, pageSize);
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<Order> findAllWithDetails() {
@@ -179,6 +346,13 @@ public class OrderServiceImpl implements OrderService {
         return orderDao.findAllWithDetails();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void forEachWithDetails(Consumer<Order> action) {
+        logger.debug("Streaming all orders with details");
+        orderDao.forEachWithDetails(action);
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean hasActiveOrder(Long userId, Long bookId) {
@@ -186,4 +360,134 @@ public class OrderServiceImpl implements OrderService {
         logger.debug("User {} has active order for book {}: {}", userId, bookId, hasOrder);
         return hasOrder;
     }
-}
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> findBooksWithActiveOrder(Long userId, Collection<Long> bookIds) {
+        Set<Long> bookIdsWithOrder = orderDao.findBookIdsWithActiveOrder(userId, bookIds);
+        logger.debug("User {} has active orders for {} of {} books", userId, bookIdsWithOrder.size(), bookIds.size());
+        return bookIdsWithOrder;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<OrderStatus, Long> countByStatus() {
+        logger.debug("Counting orders by status");
+        return orderDao.countByStatus();
+    }
+
+    /**
+     * Locks a pending order that holds a reserved copy or held unit, so it cannot expire or be cancelled
+     * while it is being changed.
+     *
+     * @param order the order, as read before the transaction
+     * @throws ServiceException if the order is no longer pending
+     */
+    private void lockReserved(Order order) {
+        if (orderDao.lockReservedPending(order.getOrderType(), LocalDateTime.now(), List.of(order.getId())).isEmpty()) {
+            logger.warn("Order {} is no longer pending", order.getId());
+            throw new ServiceException("Order is not in PENDING status");
+        }
+    }
+
+    /**
+     * Checks whether a pending order was handed over from the waitlist and so holds a reserved
+     * copy or counter unit, and locks it. Must be called inside a transaction.
+     *
+     * @param order the order
+     * @return true if the order holds what a returned copy left behind
+     */
+    private boolean isHeld(Order order) {
+        return !orderDao.lockReservedPending(order.getOrderType(), LocalDateTime.now(), List.of(order.getId())).isEmpty();
+    }
+
+    /**
+     * Writes an order's new state, provided it still has the status it was checked for.
+     * Two desks issuing or returning the same order, or a cancel racing an issue, would
+     * otherwise both pass the check made before the transaction; the loser throws here
+     * and its transaction, counter changes included, is rolled back.
+     *
+     * @param order the order with its new state
+     * @param from  status the order was read with
+     * @return the order
+     * @throws ServiceException if the order's status has changed in the meantime
+     */
+    private Order transition(Order order, OrderStatus from) {
+        if (!orderDao.updateIfStatus(order, from)) {
+            logger.warn("Order {} is no longer in {} status", order.getId(), from);
+            throw new ServiceException("Order is not in " + from + " status");
+        }
+        return order;
+    }
+
+    /**
+     * Writes the issued state of an order, provided it is still pending and no other desk has
+     * claimed it since it was checked.
+     *
+     * @param order       the order with its issued state
+     * @param librarianId librarian issuing the order
+     * @return the order
+     * @throws ServiceException if the order was issued, cancelled or claimed elsewhere in the meantime
+     */
+    private Order issue(Order order, Long librarianId) {
+        if (!orderDao.updateIfPendingFor(order, librarianId, LocalDateTime.now())) {
+            logger.warn("Order {} is no longer pending or is being handled at another desk", order.getId());
+            throw new ServiceException("Order is not in PENDING status or is being handled at another desk");
+        }
+        return order;
+    }
+
+    /**
+     * Hands a copy that came back to the first reader waiting for the book, or puts it back
+     * on the shelf when nobody waits. Runs inside the caller's transaction.
+     *
+     * @param bookId book ID
+     * @param copyId the copy, or null for books tracked by the counter alone
+     */
+    private void passOn(Long bookId, Long copyId) {
+        Optional<BookHold> next;
+        while ((next = bookHoldDao.lockNextWaiting(bookId)).isPresent()) {
+            BookHold hold = next.get();
+            Optional<Order> active = orderDao.findActiveOrderByUserAndBook(hold.getUserId(), bookId);
+            if (active.isPresent()) {
+                // The reader got the book another way while waiting
+                bookHoldDao.markFulfilled(hold.getId(), active.get().getId());
+                continue;
+            }
+
+            Order order = orderDao.save(new Order.Builder()
+                    .userId(hold.getUserId())
+                    .bookId(bookId)
+                    .bookCopyId(copyId)
+                    .orderType(hold.getOrderType())
+                    .status(OrderStatus.PENDING)
+                    .build());
+            bookHoldDao.markFulfilled(hold.getId(), order.getId());
+            logger.info("Handed copy {} of book {} to user {} from hold {} as order {}",
+                    copyId, bookId, hold.getUserId(), hold.getId(), order.getId());
+
+            if (copyId != null) {
+                bookCopyDao.updateStatus(copyId, BookCopyStatus.RESERVED);
+            }
+            // Without copy records the order holds the unit, which stays off the counter
+            return;
+        }
+
+        if (copyId != null) {
+            bookCopyDao.updateStatus(copyId, BookCopyStatus.AVAILABLE);
+        }
+        bookDao.updateAvailableCopies(bookId, 1);
+    }
+
+    /**
+     * Completes every request with the same failure.
+     *
+     * @param requests requests to refuse
+     * @param failure  reason given to each caller
+     */
+    private static void failAll(List<OrderRequest> requests, RuntimeException failure) {
+        for (OrderRequest request : requests) {
+            request.getResult().completeExceptionally(failure);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.danyarov.library.service.impl;
+
+import com.danyarov.library.dao.RevocationDao;
+import com.danyarov.library.service.RevocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service layer implementation of {@link RevocationService}.
+ * <p>
+ * Revocations are held in memory so the per-request check never touches the database.
+ * They are also written to {@code user_revocations}, which every node polls, so a
+ * revocation made on one node takes effect everywhere within one poll interval.
+ * Entries older than the retention period are dropped, since no session lives that long.
+ */
+@Service
+public class RevocationServiceImpl implements RevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(RevocationServiceImpl.class);
+
+    /** Re-read window covering clock differences between nodes */
+    private static final long CLOCK_SKEW_MS = 30_000;
+
+    private final RevocationDao revocationDao;
+    private final long retentionMillis;
+    private final Map<Long, Long> revokedAt = new ConcurrentHashMap<>();
+    private volatile long lastRefresh;
+
+    @Autowired
+    public RevocationServiceImpl(RevocationDao revocationDao,
+                                 @Value("${session.revocation.retention-minutes:1440}") long retentionMinutes) {
+        this.revocationDao = revocationDao;
+        this.retentionMillis = retentionMinutes * 60_000;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void revoke(Long userId) {
+        long now = System.currentTimeMillis();
+        revokedAt.merge(userId, now, Math::max);
+        revocationDao.save(userId, now);
+        logger.info("Sessions revoked for user: {}", userId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isRevoked(Long userId, long issuedAt) {
+        Long revoked = revokedAt.get(userId);
+        return revoked != null && issuedAt <= revoked;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Scheduled(fixedDelayString = "${session.revocation.poll-ms:5000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        long since = lastRefresh == 0 ? now - retentionMillis : lastRefresh - CLOCK_SKEW_MS;
+        long expired = now - retentionMillis;
+
+        try {
+            revocationDao.findRevokedSince(since).forEach((userId, at) -> revokedAt.merge(userId, at, Math::max));
+            revokedAt.values().removeIf(at -> at < expired);
+            revocationDao.deleteOlderThan(expired);
+            lastRefresh = now;
+        } catch (RuntimeException e) {
+            // Keep serving from memory; the next poll re-reads the missed window
+            logger.error("Error refreshing session revocations", e);
+        }
+    }
+}
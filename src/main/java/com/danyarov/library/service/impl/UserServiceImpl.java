@@ -6,29 +6,41 @@ import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.model.User;
 import com.danyarov.library.model.UserRole;
 import com.danyarov.library.service.PasswordEncoder;
+import com.danyarov.library.service.RevocationService;
 import com.danyarov.library.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 /**
  * Service layer implementation for managing {@link User} operations.
  * Handles business logic related to user registration, authentication,
  * updates, deletion, and account activation.
+ * <p>
+ * Bulk registration hashes passwords on a bounded executor in slices of
+ * {@value #HASH_SLICE_SIZE} users, so all cores are used without one task per user.
  */
 @Service
 public class UserServiceImpl implements UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+    private static final int HASH_SLICE_SIZE = 16;
 
     private final UserDao userDao;
+    private final RevocationService revocationService;
+    private final Executor hashExecutor;
 
     @Autowired
-    public UserServiceImpl(UserDao userDao) {
+    public UserServiceImpl(UserDao userDao, RevocationService revocationService,
+                           @Qualifier("passwordHashExecutor") Executor hashExecutor) {
         this.userDao = userDao;
+        this.revocationService = revocationService;
+        this.hashExecutor = hashExecutor;
     }
 
     /** {@inheritDoc} */
@@ -50,6 +62,39 @@ public class UserServiceImpl implements UserService {
         return userDao.save(user);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<User> registerAll(List<User> users) {
+        List<String> emails = users.stream().map(User::getEmail).toList();
+        Set<String> seen = new HashSet<>();
+        for (String email : userDao.findExistingEmails(emails)) {
+            seen.add(email.toLowerCase(Locale.ROOT));
+        }
+
+        List<User> newUsers = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (seen.add(user.getEmail().toLowerCase(Locale.ROOT))) {
+                newUsers.add(user);
+            } else {
+                logger.debug("Skipping existing user: {}", user.getEmail());
+            }
+        }
+        if (newUsers.isEmpty()) {
+            return newUsers;
+        }
+
+        hashPasswords(newUsers);
+        for (User user : newUsers) {
+            if (user.getRole() == null) {
+                user.setRole(UserRole.READER);
+            }
+            user.setActive(true);
+        }
+
+        logger.info("Registering {} new users, {} skipped", newUsers.size(), users.size() - newUsers.size());
+        return userDao.saveAll(newUsers);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Optional<User> authenticate(String email, String password) {
@@ -87,6 +132,13 @@ public class UserServiceImpl implements UserService {
         return userDao.findAll();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void forEach(Consumer<User> action) {
+        logger.debug("Streaming all users");
+        userDao.forEach(action);
+    }
+
     /** {@inheritDoc} */
     @Override
     public User update(User user) {
@@ -96,22 +148,52 @@ public class UserServiceImpl implements UserService {
             throw new ServiceException("User not found with id: " + user.getId());
         }
 
-        // Don't update password if not provided
-        if (user.getPassword() == null || user.getPassword().isEmpty()) {
-            user.setPassword(existingUser.get().getPassword());
-        } else {
-            user.setPassword(PasswordEncoder.encode(user.getPassword()));
+        User stored = existingUser.get();
+        UserRole previousRole = stored.getRole();
+        boolean wasActive = stored.isActive();
+        applyChanges(user, stored);
+
+        logger.info("Updating user: {}", stored.getEmail());
+        User updated = userDao.update(stored);
+
+        // Sessions carry the role and active flag, so changing either ends them
+        if (previousRole != stored.getRole() || (wasActive && !stored.isActive())) {
+            revocationService.revoke(stored.getId());
         }
+        return updated;
+    }
 
-        logger.info("Updating user: {}", user.getEmail());
-        return userDao.update(user);
+    /**
+     * Copies the fields assigned on an edited user onto the stored one, encoding a new
+     * password. The stored user then tracks only real changes.
+     *
+     * @param edited user holding the edit
+     * @param stored user as loaded from the database
+     */
+    private void applyChanges(User edited, User stored) {
+        if (edited.isDirty("email")) stored.setEmail(edited.getEmail());
+        // Don't update password if not provided
+        if (edited.getPassword() != null && !edited.getPassword().isEmpty()) {
+            stored.setPassword(PasswordEncoder.encode(edited.getPassword()));
+        }
+        if (edited.isDirty("first_name")) stored.setFirstName(edited.getFirstName());
+        if (edited.isDirty("last_name")) stored.setLastName(edited.getLastName());
+        if (edited.isDirty("user_role")) stored.setRole(edited.getRole());
+        if (edited.isDirty("is_active")) stored.setActive(edited.isActive());
+        if (edited.getVersion() != null) {
+            stored.setVersion(edited.getVersion());
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean delete(Long id) {
         logger.info("Deleting user with id: {}", id);
-        return userDao.deleteById(id);
+        boolean deleted = userDao.deleteById(id);
+        if (deleted) {
+            revocationService.revoke(id);
+        }
+        return deleted;
     }
 
     /** {@inheritDoc} */
@@ -127,6 +209,43 @@ public class UserServiceImpl implements UserService {
         user.setActive(!user.isActive());
 
         logger.info("Toggling active status for user: {}", user.getEmail());
-        return userDao.update(user);
+        User updated = userDao.update(user);
+        if (!updated.isActive()) {
+            revocationService.revoke(id);
+        }
+        return updated;
+    }
+
+    /**
+     * Replaces the raw passwords with BCrypt hashes, one slice of users per task.
+     *
+     * @param users users whose passwords to hash
+     */
+    private void hashPasswords(List<User> users) {
+        List<FutureTask<Void>> tasks = new ArrayList<>();
+        for (int start = 0; start < users.size(); start += HASH_SLICE_SIZE) {
+            List<User> slice = users.subList(start, Math.min(start + HASH_SLICE_SIZE, users.size()));
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                for (User user : slice) {
+                    user.setPassword(PasswordEncoder.encode(user.getPassword()));
+                }
+                return null;
+            });
+            tasks.add(task);
+            hashExecutor.execute(task);
+        }
+
+        try {
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw new ServiceException("Error hashing passwords", e.getCause());
+        }
     }
 }
@@ -0,0 +1,89 @@
+package com.danyarov.library.util;
+
+import com.danyarov.library.dao.CatalogVersionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Version counter for publicly visible catalog data.
+ * <p>
+ * Services bump it whenever a book or its availability changes; caches and validators built
+ * from catalog pages compare versions instead of tracking individual books. The counter is
+ * kept in the database, so a change made on any node moves the version on every node. Each
+ * node re-reads it at most once per poll interval, so a change made elsewhere shows up within
+ * that interval while reads stay off the database; a bump is visible locally at once. When
+ * the interval runs out, one caller re-reads the version while the others keep answering
+ * with the cached one.
+ */
+public class CatalogVersion {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersion.class);
+
+    private final CatalogVersionDao catalogVersionDao;
+    private final long pollNanos;
+    private volatile long version;
+    private volatile long readAt;
+    private volatile boolean loaded;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Creates the counter.
+     *
+     * @param catalogVersionDao shared storage of the version
+     * @param pollMillis        how long a read version is reused before reading it again
+     */
+    public CatalogVersion(CatalogVersionDao catalogVersionDao, long pollMillis) {
+        this.catalogVersionDao = catalogVersionDao;
+        this.pollNanos = pollMillis * 1_000_000;
+    }
+
+    /**
+     * @return the current catalog version
+     */
+    public long get() {
+        long now = System.nanoTime();
+        if (!loaded) {
+            // Nothing cached to answer with yet, so every caller reads
+            refresh(now);
+        } else if (now - readAt >= pollNanos && refreshing.compareAndSet(false, true)) {
+            try {
+                refresh(now);
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return version;
+    }
+
+    private void refresh(long now) {
+        try {
+            update(catalogVersionDao.read(), now);
+        } catch (RuntimeException e) {
+            // Keep answering with the last known version; the next call retries
+            logger.warn("Could not read catalog version: {}", e.getMessage());
+            readAt = now;
+        }
+    }
+
+    /**
+     * Marks the catalog as changed.
+     */
+    public void bump() {
+        try {
+            update(catalogVersionDao.increment(), System.nanoTime());
+        } catch (RuntimeException e) {
+            // The change itself is committed; never fail the caller over a stale validator
+            logger.error("Could not bump catalog version", e);
+        }
+    }
+
+    private synchronized void update(long value, long now) {
+        // Reads racing a bump must not move the version back
+        if (!loaded || value > version) {
+            version = value;
+        }
+        readAt = now;
+        loaded = true;
+    }
+}
@@ -0,0 +1,127 @@
+package com.danyarov.library.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV reader, the counterpart of {@link CsvWriter}.
+ * <p>
+ * Rows are read one at a time from the underlying reader, so files of any size can be
+ * processed. Quoted fields may contain commas, quotes and line breaks. A leading byte
+ * order mark is skipped, and the quote {@link CsvWriter} puts in front of formula-like
+ * text is removed again.
+ */
+public class CsvReader {
+
+    private final Reader in;
+    private int peeked = -2;
+    private long line = 1;
+    private long rowLine;
+
+    /**
+     * Creates a reader on top of an existing character stream. Wrap it in a
+     * {@link java.io.BufferedReader} for efficient reads.
+     *
+     * @param in source
+     */
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return field values, or null at the end of the input
+     * @throws UncheckedIOException if reading fails
+     */
+    public List<String> readRow() {
+        if (peeked == -2 && peek() == '\uFEFF') {
+            next();
+        }
+        if (peek() == -1) {
+            return null;
+        }
+        rowLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            int c = next();
+            if (quoted) {
+                if (c == -1) {
+                    break;
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        field.append((char) next());
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(unescape(field.toString(), wasQuoted));
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    next();
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        fields.add(unescape(field.toString(), wasQuoted));
+        return fields;
+    }
+
+    /**
+     * Returns the line the last row returned by {@link #readRow()} started on.
+     *
+     * @return 1-based line number
+     */
+    public long getRowLine() {
+        return rowLine;
+    }
+
+    private static String unescape(String text, boolean quoted) {
+        if (text.length() > 1 && text.charAt(0) == '\'' && "=+-@\t\r".indexOf(text.charAt(1)) >= 0) {
+            return text.substring(1);
+        }
+        return quoted ? text : text.trim();
+    }
+
+    private int peek() {
+        if (peeked == -2) {
+            peeked = read();
+        }
+        return peeked;
+    }
+
+    private int next() {
+        int c = peek();
+        peeked = read();
+        if (c == '\n' || (c == '\r' && peeked != '\n')) {
+            line++;
+        }
+        return c;
+    }
+
+    private int read() {
+        try {
+            return in.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.danyarov.library.util;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Minimal RFC 4180 CSV writer.
+ * <p>
+ * Rows are written straight to the underlying writer, so an export never holds more than
+ * one row in memory. Text that a spreadsheet would run as a formula is prefixed with a
+ * quote. Write errors are rethrown unchecked so rows can be written from DAO callbacks.
+ */
+public class CsvWriter {
+
+    private final Writer out;
+
+    /**
+     * Creates a writer on top of an existing character stream.
+     *
+     * @param out destination
+     */
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Prepares a response for a CSV download and returns a writer for its body.
+     * A byte order mark is written first so spreadsheets detect UTF-8.
+     *
+     * @param response the HTTP response
+     * @param filename suggested download file name
+     * @return writer for the response body
+     * @throws IOException if the response body cannot be opened
+     */
+    public static CsvWriter forResponse(HttpServletResponse response, String filename) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+        response.setHeader("Cache-Control", "no-store");
+        CsvWriter csv = new CsvWriter(response.getWriter());
+        csv.write("\uFEFF");
+        return csv;
+    }
+
+    /**
+     * Writes one row. Null values become empty fields.
+     *
+     * @param values field values, converted with {@code toString()}
+     * @throws UncheckedIOException if writing fails, e.g. the client went away
+     */
+    public void writeRow(Object... values) {
+        StringBuilder row = new StringBuilder(128);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            appendField(row, values[i]);
+        }
+        row.append("\r\n");
+        write(row.toString());
+    }
+
+    /**
+     * Flushes buffered output.
+     */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendField(StringBuilder row, Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            row.append('"').append(text.replace("\"", "\"\"")).append('"');
+        } else {
+            row.append(text);
+        }
+    }
+}
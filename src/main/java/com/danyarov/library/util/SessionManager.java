@@ -0,0 +1,211 @@
+package com.danyarov.library.util;
+
+import com.danyarov.library.model.User;
+import com.danyarov.library.service.RevocationService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the authenticated user between requests.
+ * <p>
+ * In {@link Mode#SERVER} mode the full {@link User} is stored in the {@link HttpSession}.
+ * In {@link Mode#SIGNED} mode nothing is stored on the server: the user ID, role, first name
+ * and expiry travel in an HMAC-signed cookie, so any node holding the shared secret can serve
+ * the request. The resolved user carries only those fields.
+ * <p>
+ * In both modes a session issued before the user's latest revocation is rejected, which is
+ * how deactivation, deletion and role changes take effect without reloading the user.
+ */
+public class SessionManager {
+    private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
+    private static final String AUTHENTICATED_AT_ATTRIBUTE = "authenticatedAt";
+
+    /**
+     * Session storage mode.
+     */
+    public enum Mode {
+        /** Full user object kept in the servlet container's session */
+        SERVER,
+        /** Compact signed token kept in a cookie; no server-side session */
+        SIGNED;
+
+        /**
+         * Parses a mode from configuration (case-insensitive).
+         *
+         * @param text configured value
+         * @return matching mode
+         * @throws IllegalArgumentException if no match is found
+         */
+        public static Mode fromString(String text) {
+            for (Mode m : Mode.values()) {
+                if (m.name().equalsIgnoreCase(text)) {
+                    return m;
+                }
+            }
+            throw new IllegalArgumentException("No session mode " + text + " found");
+        }
+    }
+
+    private final Mode mode;
+    private final SignedSessionCodec codec;
+    private final String cookieName;
+    private final long ttlSeconds;
+    private final boolean secureCookie;
+    private final RevocationService revocationService;
+
+    /**
+     * Creates a session manager.
+     *
+     * @param mode         storage mode
+     * @param codec        token codec, used in {@link Mode#SIGNED} mode
+     * @param cookieName   name of the session cookie
+     * @param ttlSeconds   lifetime of a signed token
+     * @param secureCookie whether the cookie is restricted to HTTPS
+     * @param revocationService source of revoked sessions
+     */
+    public SessionManager(Mode mode, SignedSessionCodec codec, String cookieName,
+                          long ttlSeconds, boolean secureCookie, RevocationService revocationService) {
+        this.mode = mode;
+        this.codec = codec;
+        this.cookieName = cookieName;
+        this.ttlSeconds = ttlSeconds;
+        this.secureCookie = secureCookie;
+        this.revocationService = revocationService;
+    }
+
+    /**
+     * @return the configured storage mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Resolves the user making the request.
+     * <p>
+     * Never creates a session. In signed mode a token past half of its lifetime is re-issued
+     * with its original sign-in time. A revoked session is discarded and the request is treated
+     * as anonymous. For a signed-in user the request also gets the sign-in's session key.
+     *
+     * @param request  the HTTP request
+     * @param response the HTTP response
+     * @return the current user, or null for anonymous requests
+     */
+    public User resolveCurrentUser(HttpServletRequest request, HttpServletResponse response) {
+        if (mode == Mode.SERVER) {
+            HttpSession session = request.getSession(false);
+            User user = session != null ? SessionUtil.getCurrentUser(session) : null;
+            if (user != null && revocationService.isRevoked(user.getId(), authenticatedAt(session))) {
+                logger.info("Rejected revoked session of user {}", user.getId());
+                session.invalidate();
+                return null;
+            }
+            if (user != null) {
+                SessionUtil.setSessionKey(request, session.getId() + ":" + authenticatedAt(session));
+            }
+            return user;
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+        SignedSessionCodec.Session session = codec.verify(readCookie(request), now).orElse(null);
+        if (session == null) {
+            return null;
+        }
+        if (revocationService.isRevoked(session.userId(), session.issuedAt())) {
+            logger.info("Rejected revoked session of user {}", session.userId());
+            writeCookie(request, response, "", 0);
+            return null;
+        }
+
+        User user = new User();
+        user.setId(session.userId());
+        user.setRole(session.role());
+        user.setFirstName(session.firstName());
+        user.setActive(true);
+        SessionUtil.setSessionKey(request, String.valueOf(session.issuedAt()));
+
+        if (session.expiresAt() - now < ttlSeconds / 2) {
+            writeCookie(request, response,
+                    codec.encode(user.getId(), user.getRole(), user.getFirstName(),
+                            session.issuedAt(), now + ttlSeconds), (int) ttlSeconds);
+        }
+        return user;
+    }
+
+    /**
+     * Starts an authenticated session for the user.
+     *
+     * @param request  the HTTP request
+     * @param response the HTTP response
+     * @param user     the authenticated user
+     */
+    public void signIn(HttpServletRequest request, HttpServletResponse response, User user) {
+        if (mode == Mode.SERVER) {
+            HttpSession session = request.getSession();
+            SessionUtil.setCurrentUser(session, user);
+            session.setAttribute(AUTHENTICATED_AT_ATTRIBUTE, System.currentTimeMillis());
+            return;
+        }
+
+        long issuedAt = System.currentTimeMillis();
+        long expiresAt = issuedAt / 1000 + ttlSeconds;
+        writeCookie(request, response, codec.encode(user.getId(), user.getRole(), user.getFirstName(), issuedAt, expiresAt), (int) ttlSeconds);
+        logger.debug("Issued signed session for user {}", user.getId());
+    }
+
+    /**
+     * Ends the current session, if any.
+     * <p>
+     * A signed token stays valid until it expires even after the cookie is cleared, so in
+     * signed mode the user's sessions are revoked as well. This signs the user out on every
+     * device, as there is no server-side record of individual tokens.
+     *
+     * @param request  the HTTP request
+     * @param response the HTTP response
+     */
+    public void signOut(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            SessionUtil.removeCurrentUser(session);
+            session.invalidate();
+        }
+        if (mode == Mode.SIGNED) {
+            codec.verify(readCookie(request), System.currentTimeMillis() / 1000)
+                    .ifPresent(signed -> revocationService.revoke(signed.userId()));
+            writeCookie(request, response, "", 0);
+        }
+    }
+
+    private static long authenticatedAt(HttpSession session) {
+        Object at = session.getAttribute(AUTHENTICATED_AT_ATTRIBUTE);
+        return at instanceof Long ? (Long) at : session.getCreationTime();
+    }
+
+    private String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookieName.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, int maxAge) {
+        Cookie cookie = new Cookie(cookieName, value);
+        String path = request.getContextPath();
+        cookie.setPath(path.isEmpty() ? "/" : path);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(secureCookie);
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+    }
+}
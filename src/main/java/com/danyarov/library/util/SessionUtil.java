@@ -1,6 +1,7 @@
 package com.danyarov.library.util;
 
 import com.danyarov.library.model.User;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
 /**
@@ -9,6 +10,8 @@ import jakarta.servlet.http.HttpSession;
 public class SessionUtil {
 
     public static final String USER_ATTRIBUTE = "user";
+    public static final String CURRENT_USER_ATTRIBUTE = "currentUser";
+    public static final String SESSION_KEY_ATTRIBUTE = "sessionKey";
 
     /**
      * Get current user from session
@@ -19,6 +22,21 @@ public class SessionUtil {
         return (User) session.getAttribute(USER_ATTRIBUTE);
     }
 
+    /**
+     * Get current user resolved for this request.
+     * Works in both server-side and signed-cookie session modes and never creates a session.
+     * @param request HTTP request
+     * @return current user or null
+     */
+    public static User getCurrentUser(HttpServletRequest request) {
+        User user = (User) request.getAttribute(CURRENT_USER_ATTRIBUTE);
+        if (user != null) {
+            return user;
+        }
+        HttpSession session = request.getSession(false);
+        return session != null ? getCurrentUser(session) : null;
+    }
+
     /**
      * Set current user in session
      * @param session HTTP session
@@ -35,4 +53,24 @@ public class SessionUtil {
     public static void removeCurrentUser(HttpSession session) {
         session.removeAttribute(USER_ATTRIBUTE);
     }
+
+    /**
+     * Get the key identifying the current sign-in, which changes on every login.
+     * Set together with the current user; values that depend on the sign-in,
+     * such as CSRF tokens, are derived from it.
+     * @param request HTTP request
+     * @return sign-in key or null for anonymous requests
+     */
+    public static String getSessionKey(HttpServletRequest request) {
+        return (String) request.getAttribute(SESSION_KEY_ATTRIBUTE);
+    }
+
+    /**
+     * Set the key identifying the current sign-in for this request
+     * @param request HTTP request
+     * @param sessionKey sign-in key
+     */
+    public static void setSessionKey(HttpServletRequest request, String sessionKey) {
+        request.setAttribute(SESSION_KEY_ATTRIBUTE, sessionKey);
+    }
 }
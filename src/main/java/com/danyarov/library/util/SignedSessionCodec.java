@@ -0,0 +1,250 @@
+package com.danyarov.library.util;
+
+import com.danyarov.library.model.UserRole;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Encodes and verifies compact signed session tokens.
+ * <p>
+ * A token carries the user ID, role, sign-in time (epoch milliseconds), expiry (epoch
+ * seconds) and the user's first name for display, followed by an HMAC-SHA256 signature,
+ * all Base64url encoded without padding. The name is cut to {@value #MAX_NAME_BYTES} UTF-8
+ * bytes. Spare bits in the last character must be zero, so each token has a single
+ * encoding and no character can change without invalidating it.
+ * <p>
+ * Verification runs on every request, so it allocates nothing: each thread keeps an
+ * initialized {@link Mac} and scratch buffers, the token is decoded by hand into them, and
+ * the signature is computed into a preallocated array and compared in constant time. The
+ * decoded session of the thread's last valid token is kept as well, so a repeat of that
+ * token only needs a string comparison and an expiry check.
+ */
+public class SignedSessionCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    /** Fixed fields: user ID, role, sign-in time, expiry and name length */
+    private static final int HEADER_LENGTH = 26;
+    private static final int MAX_NAME_BYTES = 48;
+    private static final int MIN_TOKEN_LENGTH = HEADER_LENGTH + MAC_LENGTH;
+    private static final int MAX_TOKEN_LENGTH = MIN_TOKEN_LENGTH + MAX_NAME_BYTES;
+    private static final UserRole[] ROLES = UserRole.values();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    /** Base64url alphabet value of each ASCII character, or -1 */
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Decoded contents of a verified token.
+     *
+     * @param userId    user ID
+     * @param role      user role
+     * @param firstName first name for display, possibly shortened, or null if none was given
+     * @param issuedAt  sign-in time as epoch milliseconds; kept when the token is re-issued
+     * @param expiresAt expiry as epoch seconds
+     */
+    public record Session(long userId, UserRole role, String firstName, long issuedAt, long expiresAt) {
+    }
+
+    /**
+     * Creates a codec signing tokens with the given secret.
+     *
+     * @param secret shared HMAC secret; every node must use the same value
+     */
+    public SignedSessionCodec(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        newMac();
+    }
+
+    /**
+     * Creates a signed token.
+     *
+     * @param userId    user ID
+     * @param role      user role
+     * @param firstName first name for display, may be null
+     * @param issuedAt  sign-in time as epoch milliseconds
+     * @param expiresAt expiry as epoch seconds
+     * @return encoded token
+     */
+    public String encode(long userId, UserRole role, String firstName, long issuedAt, long expiresAt) {
+        byte[] name = firstName != null ? firstName.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+        // Never cut a multi-byte character in half
+        while (nameLength < name.length && (name[nameLength] & 0xc0) == 0x80) {
+            nameLength--;
+        }
+
+        int payloadLength = HEADER_LENGTH + nameLength;
+        byte[] token = new byte[payloadLength + MAC_LENGTH];
+        writeLong(token, 0, userId);
+        token[8] = (byte) role.ordinal();
+        writeLong(token, 9, issuedAt);
+        writeLong(token, 17, expiresAt);
+        token[25] = (byte) nameLength;
+        System.arraycopy(name, 0, token, HEADER_LENGTH, nameLength);
+        sign(scratch.get().mac, token, payloadLength, token, payloadLength);
+        return ENCODER.encodeToString(token);
+    }
+
+    /**
+     * Verifies a token's encoding, signature and expiry.
+     *
+     * @param token encoded token, may be null
+     * @param now   current time as epoch seconds
+     * @return the decoded session, or empty if the token is malformed, forged or expired
+     */
+    public Optional<Session> verify(String token, long now) {
+        if (token == null || token.length() < encodedLength(MIN_TOKEN_LENGTH)
+                || token.length() > encodedLength(MAX_TOKEN_LENGTH) || token.length() % 4 == 1) {
+            return Optional.empty();
+        }
+
+        Scratch s = scratch.get();
+        if (!token.equals(s.lastToken)) {
+            byte[] data = s.data;
+            int length = decode(token, data);
+            int payloadLength = length - MAC_LENGTH;
+            if (length < 0 || data[25] != payloadLength - HEADER_LENGTH) {
+                return Optional.empty();
+            }
+            sign(s.mac, data, payloadLength, s.signature, 0);
+            int diff = 0;
+            for (int i = 0; i < MAC_LENGTH; i++) {
+                diff |= s.signature[i] ^ data[payloadLength + i];
+            }
+            int role = data[8] & 0xff;
+            if (diff != 0 || role >= ROLES.length) {
+                return Optional.empty();
+            }
+            String firstName = payloadLength > HEADER_LENGTH
+                    ? new String(data, HEADER_LENGTH, payloadLength - HEADER_LENGTH, StandardCharsets.UTF_8) : null;
+            s.lastToken = token;
+            s.lastSession = Optional.of(new Session(readLong(data, 0), ROLES[role], firstName,
+                    readLong(data, 9), readLong(data, 17)));
+        }
+        return s.lastSession.get().expiresAt() > now ? s.lastSession : Optional.empty();
+    }
+
+    /**
+     * Computes HMAC-SHA256 over the payload at the start of the token into the given array.
+     */
+    private static void sign(Mac mac, byte[] token, int payloadLength, byte[] out, int offset) {
+        mac.update(token, 0, payloadLength);
+        try {
+            mac.doFinal(out, offset);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return number of characters encoding the given number of bytes without padding
+     */
+    private static int encodedLength(int bytes) {
+        return (bytes * 4 + 2) / 3;
+    }
+
+    /**
+     * Decodes an unpadded Base64url token into the buffer.
+     *
+     * @return number of bytes decoded, or -1 if the token contains a character outside the
+     *         alphabet or non-zero spare bits
+     */
+    private static int decode(String token, byte[] out) {
+        int o = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? DECODE_TABLE[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                out[o++] = (byte) (bits >> 16);
+                out[o++] = (byte) (bits >> 8);
+                out[o++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 2) {
+            if ((bits & 0xf) != 0) {
+                return -1;
+            }
+            out[o++] = (byte) (bits >> 4);
+        } else if (count == 3) {
+            if ((bits & 0x3) != 0) {
+                return -1;
+            }
+            out[o++] = (byte) (bits >> 10);
+            out[o++] = (byte) (bits >> 2);
+        }
+        return o;
+    }
+
+    private static void writeLong(byte[] b, int off, long value) {
+        for (int i = 7; i >= 0; i--) {
+            b[off + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] b, int off) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (b[off + i] & 0xff);
+        }
+        return value;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Convenience for turning a configured secret string into key bytes.
+     *
+     * @param secret secret string
+     * @return UTF-8 bytes of the secret
+     */
+    public static byte[] keyBytes(String secret) {
+        return secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Per-thread MAC and buffers used by verification.
+     */
+    private final class Scratch {
+        private final Mac mac = newMac();
+        private final byte[] data = new byte[MAX_TOKEN_LENGTH];
+        private final byte[] signature = new byte[MAC_LENGTH];
+        /** Last token that verified on this thread, and its session */
+        private String lastToken;
+        private Optional<Session> lastSession;
+    }
+}
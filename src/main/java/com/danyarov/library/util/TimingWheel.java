@@ -0,0 +1,162 @@
+package com.danyarov.library.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for a large number of deadlines.
+ * <p>
+ * Level 0 has {@code wheelSize} buckets of one tick each. Every further level has buckets
+ * as wide as the whole level below it and is added only when a deadline lies beyond the
+ * existing levels. Adding an item and firing a bucket are O(1) regardless of how many items
+ * are held; items move down one level when the clock reaches their bucket on a coarser wheel.
+ * <p>
+ * Items fire on the first {@link #advance} at or after their deadline, at most one tick late
+ * and never early. Not thread-safe; callers synchronize.
+ *
+ * @param <T> item type
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+    /** Items added with a deadline that had already passed */
+    private final List<T> due = new ArrayList<>();
+    private int size;
+
+    /**
+     * Creates a wheel whose clock starts at the given time.
+     *
+     * @param tickMillis  width of a level 0 bucket
+     * @param wheelSize   buckets per level
+     * @param startMillis current time in epoch milliseconds
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Tick must be positive and the wheel must have at least 2 buckets");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        levels.add(new Level<>(tickMillis, wheelSize, startMillis - Math.floorMod(startMillis, tickMillis)));
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param item           the item
+     * @param deadlineMillis when the item is due, in epoch milliseconds
+     */
+    public void add(T item, long deadlineMillis) {
+        place(new Timer<>(item, deadlineMillis));
+        size++;
+    }
+
+    /**
+     * Moves the clock forward and passes every item that has become due to the consumer.
+     *
+     * @param nowMillis current time in epoch milliseconds
+     * @param expired   receives due items
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        size -= due.size();
+        due.forEach(expired);
+        due.clear();
+
+        Level<T> base = levels.get(0);
+        while (base.current + tickMillis <= nowMillis) {
+            if (size == 0) {
+                // Nothing to fire on the way, so jump straight to the current tick
+                long now = nowMillis - Math.floorMod(nowMillis, tickMillis);
+                levels.forEach(level -> level.current = now - Math.floorMod(now, level.tick));
+                return;
+            }
+
+            List<Timer<T>> fired = base.take(base.current);
+            size -= fired.size();
+            fired.forEach(timer -> expired.accept(timer.item));
+            base.current += tickMillis;
+
+            // Bring the coarser clocks up to date before cascading their current buckets
+            for (int i = 1; i < levels.size(); i++) {
+                Level<T> level = levels.get(i);
+                if (Math.floorMod(base.current, level.tick) == 0) {
+                    level.current = base.current;
+                }
+            }
+            for (int i = levels.size() - 1; i >= 1; i--) {
+                Level<T> level = levels.get(i);
+                if (level.current == base.current) {
+                    level.take(level.current).forEach(this::place);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of items not yet fired
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Puts a timer into the finest level whose span covers its deadline.
+     */
+    private void place(Timer<T> timer) {
+        Level<T> base = levels.get(0);
+        if (timer.deadline < base.current) {
+            due.add(timer.item);
+            return;
+        }
+
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<T> below = levels.get(i - 1);
+                long tick = below.tick * wheelSize;
+                levels.add(new Level<>(tick, wheelSize, base.current - Math.floorMod(base.current, tick)));
+            }
+            Level<T> level = levels.get(i);
+            if (timer.deadline < level.current + level.tick * wheelSize) {
+                level.bucket(timer.deadline).add(timer);
+                return;
+            }
+        }
+    }
+
+    private record Timer<T>(T item, long deadline) {
+    }
+
+    /**
+     * One wheel: {@code wheelSize} buckets of {@code tick} milliseconds each,
+     * starting at {@code current}.
+     */
+    private static final class Level<T> {
+        private final long tick;
+        private final List<Timer<T>>[] buckets;
+        private long current;
+
+        @SuppressWarnings("unchecked")
+        Level(long tick, int wheelSize, long current) {
+            this.tick = tick;
+            this.buckets = new List[wheelSize];
+            this.current = current;
+        }
+
+        List<Timer<T>> bucket(long time) {
+            int index = (int) Math.floorMod(Math.floorDiv(time, tick), (long) buckets.length);
+            if (buckets[index] == null) {
+                buckets[index] = new ArrayList<>();
+            }
+            return buckets[index];
+        }
+
+        List<Timer<T>> take(long time) {
+            int index = (int) Math.floorMod(Math.floorDiv(time, tick), (long) buckets.length);
+            List<Timer<T>> taken = buckets[index];
+            buckets[index] = null;
+            return taken != null ? taken : List.of();
+        }
+    }
+}
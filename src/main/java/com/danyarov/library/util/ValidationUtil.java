@@ -12,6 +12,8 @@ public class ValidationUtil {
             "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"
     );
 
+    private static final Pattern ISBN_PATTERN = Pattern.compile("^(\\d{9}[\\dX]|\\d{13})$");
+
     /**
      * Validate email format
      * @param email email to validate
@@ -63,4 +65,67 @@ public class ValidationUtil {
             throw new ValidationException(fieldName, fieldName + " must be positive");
         }
     }
+
+    /**
+     * Validate maximum length of an optional field
+     * @param value field value, may be null
+     * @param maxLength maximum number of characters
+     * @param fieldName field name
+     * @throws ValidationException if the value is too long
+     */
+    public static void validateMaxLength(String value, int maxLength, String fieldName) {
+        if (value != null && value.length() > maxLength) {
+            throw new ValidationException(fieldName, fieldName + " must be at most " + maxLength + " characters");
+        }
+    }
+
+    /**
+     * Validate an optional ISBN-10 or ISBN-13 including its check digit.
+     * Hyphens and spaces are ignored.
+     * @param isbn ISBN to validate, may be empty
+     * @throws ValidationException if the ISBN is malformed
+     */
+    public static void validateIsbn(String isbn) {
+        String digits = normalizeIsbn(isbn);
+        if (digits == null) {
+            return;
+        }
+        if (!ISBN_PATTERN.matcher(digits).matches() || !hasValidCheckDigit(digits)) {
+            throw new ValidationException("isbn", "Invalid ISBN: " + isbn);
+        }
+    }
+
+    /**
+     * Strip hyphens and spaces from an ISBN so different spellings compare equal
+     * @param isbn ISBN as entered, may be null
+     * @return digits (and a trailing X) in upper case, or null if nothing is left
+     */
+    public static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && c != ' ') {
+                digits.append(Character.toUpperCase(c));
+            }
+        }
+        return digits.length() == 0 ? null : digits.toString();
+    }
+
+    private static boolean hasValidCheckDigit(String digits) {
+        int sum = 0;
+        if (digits.length() == 10) {
+            for (int i = 0; i < 10; i++) {
+                int value = digits.charAt(i) == 'X' ? 10 : digits.charAt(i) - '0';
+                sum += value * (10 - i);
+            }
+            return sum % 11 == 0;
+        }
+        for (int i = 0; i < 13; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return sum % 10 == 0;
+    }
 }
@@ -1,6 +1,11 @@
 -- Database schema for Library Management System
 
 -- Drop tables if they exist (in reverse order of dependencies)
+DROP TABLE IF EXISTS catalog_version;
+DROP TABLE IF EXISTS job_leases;
+DROP TABLE IF EXISTS idempotency_keys;
+DROP TABLE IF EXISTS book_holds;
+DROP TABLE IF EXISTS user_revocations;
 DROP TABLE IF EXISTS book_orders;
 DROP TABLE IF EXISTS book_copies;
 DROP TABLE IF EXISTS books;
@@ -15,6 +20,7 @@ CREATE TABLE users (
                        last_name VARCHAR(100) NOT NULL,
                        user_role VARCHAR(50) NOT NULL,
                        is_active BOOLEAN DEFAULT TRUE,
+                       version BIGINT NOT NULL DEFAULT 0,
                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                        INDEX idx_email (email),
@@ -32,6 +38,7 @@ CREATE TABLE books (
                        publication_year INT,
                        total_copies INT DEFAULT 1,
                        available_copies INT DEFAULT 1,
+                       version BIGINT NOT NULL DEFAULT 0,
                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                        INDEX idx_title (title),
@@ -65,12 +72,65 @@ CREATE TABLE book_orders (
                              return_date TIMESTAMP NULL,
                              librarian_id BIGINT,
                              notes TEXT,
+                             overdue_at TIMESTAMP NULL, -- set by the overdue job when first found past due_date
+                             claimed_by BIGINT NULL, -- librarian whose desk claimed the pending order
+                             claim_expires_at TIMESTAMP NULL, -- claim returns to the queue after this
                              FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
                              FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,
                              FOREIGN KEY (book_copy_id) REFERENCES book_copies(id) ON DELETE SET NULL,
                              FOREIGN KEY (librarian_id) REFERENCES users(id) ON DELETE SET NULL,
+                             FOREIGN KEY (claimed_by) REFERENCES users(id) ON DELETE SET NULL,
                              INDEX idx_user_id (user_id),
                              INDEX idx_book_id (book_id),
-                             INDEX idx_status (status),
+                             INDEX idx_status_order_date (status, order_date), -- pending orders by age, for expiry
+                             INDEX idx_status_due_date (status, due_date), -- issued orders by due date, for overdue
+                             INDEX idx_claimed_by_status (claimed_by, status), -- a desk's own claims
                              INDEX idx_order_date (order_date)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
\ No newline at end of file
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create book_holds table (per-book waitlist, served in id order when copies are returned)
+CREATE TABLE book_holds (
+                            id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                            user_id BIGINT NOT NULL,
+                            book_id BIGINT NOT NULL,
+                            order_type VARCHAR(50) NOT NULL, -- lending type of the order created for the reader
+                            status VARCHAR(50) NOT NULL DEFAULT 'WAITING', -- 'WAITING', 'FULFILLED' or 'CANCELLED'
+                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            order_id BIGINT NULL, -- order created when a copy was handed over
+                            fulfilled_at TIMESTAMP NULL,
+                            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+                            FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,
+                            FOREIGN KEY (order_id) REFERENCES book_orders(id) ON DELETE SET NULL,
+                            INDEX idx_book_status_id (book_id, status, id), -- a book's queue in order
+                            INDEX idx_user_status (user_id, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create user_revocations table (sessions issued before revoked_at are rejected)
+CREATE TABLE user_revocations (
+                                  user_id BIGINT PRIMARY KEY,
+                                  revoked_at BIGINT NOT NULL, -- epoch milliseconds
+                                  INDEX idx_revoked_at (revoked_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create idempotency_keys table (results of recent form submissions, replayed on repeats)
+CREATE TABLE idempotency_keys (
+                                  idem_key VARCHAR(64) PRIMARY KEY,
+                                  scope VARCHAR(255) NOT NULL,
+                                  result VARCHAR(1000) NULL, -- NULL while the request is in progress
+                                  created_at BIGINT NOT NULL, -- epoch milliseconds
+                                  INDEX idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create job_leases table (which node runs each background job)
+CREATE TABLE job_leases (
+                            job_name VARCHAR(100) PRIMARY KEY,
+                            owner VARCHAR(255) NULL, -- NULL when released
+                            token BIGINT NOT NULL, -- incremented whenever the lease changes hands; renewals must match it
+                            expires_at DATETIME(3) NOT NULL -- database time, so node clocks do not matter
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create catalog_version table (one row; moves whenever publicly visible catalog data changes)
+CREATE TABLE catalog_version (
+                                 id TINYINT PRIMARY KEY,
+                                 version BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -11,6 +11,11 @@ document.addEventListener('DOMContentLoaded', function() {
         });
     });
 
+    // Give every form a fresh idempotency key, also when the page came from the browser cache
+    document.querySelectorAll('input[name="idempotencyKey"]').forEach(input => {
+        input.value = newIdempotencyKey();
+    });
+
     // Password confirmation validation
     const password = document.getElementById('password');
     const confirmPassword = document.getElementById('confirmPassword');
@@ -45,6 +50,16 @@ document.addEventListener('DOMContentLoaded', function() {
     });
 });
 
+// Random key identifying one form submission, so repeats of it are recognised
+function newIdempotencyKey() {
+    if (window.crypto && crypto.randomUUID) {
+        return crypto.randomUUID();
+    }
+    const bytes = new Uint8Array(16);
+    crypto.getRandomValues(bytes);
+    return Array.from(bytes, b => b.toString(16).padStart(2, '0')).join('');
+}
+
 // Confirmation dialog for delete actions
 function confirmDelete(message) {
     return confirm(message || 'Are you sure you want to delete this item?');
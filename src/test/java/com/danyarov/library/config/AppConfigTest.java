@@ -0,0 +1,56 @@
+package com.danyarov.library.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AppConfigTest {
+
+    private final AppConfig appConfig = new AppConfig();
+
+    @Test
+    void applicationTaskExecutor_UsesPoolSizedLikeConnectionPool_ByDefault() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(appConfig, "maxPoolSize", 3);
+
+        // When
+        AsyncTaskExecutor executor = appConfig.applicationTaskExecutor();
+
+        // Then
+        ThreadPoolTaskExecutor pool = assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+        try {
+            assertEquals(3, pool.getCorePoolSize());
+            assertEquals(3, pool.getMaxPoolSize());
+            assertTrue(executor.submit(() -> Thread.currentThread().getName()).get().startsWith("app-"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void applicationTaskExecutor_FailsStartup_WhenVirtualThreadsRequestedBeforeJava21() {
+        // Given
+        assumeTrue(Runtime.version().feature() < 21);
+        ReflectionTestUtils.setField(appConfig, "virtualThreads", true);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, appConfig::applicationTaskExecutor);
+    }
+
+    @Test
+    void applicationTaskExecutor_RunsTasksOnVirtualThreads_OnJava21() throws Exception {
+        // Given
+        assumeTrue(Runtime.version().feature() >= 21);
+        ReflectionTestUtils.setField(appConfig, "virtualThreads", true);
+
+        // When
+        AsyncTaskExecutor executor = appConfig.applicationTaskExecutor();
+
+        // Then
+        assertTrue(executor.submit(() -> Thread.currentThread().getName()).get().startsWith("app-vt-"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.danyarov.library.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFilterTest {
+
+    private static final String PAGE = "<html>" + "x".repeat(2000) + "</html>";
+
+    private final CompressionFilter filter = new CompressionFilter(256, 6, 2);
+
+    @Test
+    void doFilter_SuffixesEtagOfCompressedBody() throws Exception {
+        // Given
+        MockHttpServletRequest request = request(null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request, response, new MockFilterChain(page("\"books-7-en\"")));
+
+        // Then
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("\"books-7-en-gzip\"", response.getHeader("ETag"));
+        assertEquals(PAGE, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    void doFilter_MatchesSuffixedEtagAndAnswersWithIt() throws Exception {
+        // Given
+        MockHttpServletRequest request = request("\"books-7-en-gzip\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request, response, new MockFilterChain(page("\"books-7-en\"")));
+
+        // Then
+        assertEquals(304, response.getStatus());
+        assertEquals("\"books-7-en-gzip\"", response.getHeader("ETag"));
+        assertEquals(0, response.getContentLength());
+    }
+
+    @Test
+    void doFilter_ResetDiscardsBufferedOutput() throws Exception {
+        // Given
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("text/html");
+                resp.getWriter().write("<p>partial");
+                resp.getWriter().flush();
+                resp.setContentLength(100);
+                resp.reset();
+                resp.setContentType("text/html");
+                resp.getWriter().write("error");
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request(null), response, new MockFilterChain(servlet));
+
+        // Then
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("error", response.getContentAsString());
+        assertEquals(5, response.getContentLength());
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+    }
+
+    private static MockHttpServletRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+
+    /**
+     * Servlet rendering {@link #PAGE} with the given ETag, or 304 if the request already has it.
+     */
+    private static HttpServlet page(String etag) {
+        return new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setHeader("ETag", etag);
+                if (etag.equals(req.getHeader("If-None-Match"))) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+                resp.setContentType("text/html;charset=UTF-8");
+                resp.getWriter().write(PAGE);
+            }
+        };
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes());
+        }
+    }
+}
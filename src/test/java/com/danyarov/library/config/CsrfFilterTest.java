@@ -0,0 +1,64 @@
+package com.danyarov.library.config;
+
+import com.danyarov.library.model.User;
+import com.danyarov.library.util.SessionUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsrfFilterTest {
+
+    private final CsrfFilter filter = new CsrfFilter("secret".getBytes());
+
+    @Test
+    void doFilter_AcceptsTokenRenderedForTheSameSignIn() throws Exception {
+        // Given
+        String token = renderToken("1700000000000");
+        MockHttpServletRequest post = signedInRequest("POST", "1700000000000");
+        post.setParameter("_csrf", token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(post, response, chain);
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertSame(post, chain.getRequest());
+    }
+
+    @Test
+    void doFilter_RejectsTokenOfAnEarlierSignIn() throws Exception {
+        // Given: same user, signed in again
+        String token = renderToken("1700000000000");
+        MockHttpServletRequest post = signedInRequest("POST", "1700000999000");
+        post.setParameter("_csrf", token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(post, response, chain);
+
+        // Then
+        assertEquals(403, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    private String renderToken(String sessionKey) throws Exception {
+        MockHttpServletRequest get = signedInRequest("GET", sessionKey);
+        filter.doFilter(get, new MockHttpServletResponse(), new MockFilterChain());
+        return get.getAttribute("csrfToken").toString();
+    }
+
+    private static MockHttpServletRequest signedInRequest(String method, String sessionKey) {
+        User user = new User();
+        user.setId(7L);
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/orders");
+        request.setAttribute(SessionUtil.CURRENT_USER_ATTRIBUTE, user);
+        SessionUtil.setSessionKey(request, sessionKey);
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.danyarov.library.config;
+
+import com.danyarov.library.dao.RetryPolicy;
+import com.danyarov.library.model.User;
+import com.danyarov.library.util.SessionManager;
+import com.danyarov.library.util.SessionUtil;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserFilterTest {
+
+    @Mock
+    private SessionManager sessionManager;
+
+    @Test
+    void doFilter_ExposesResolvedUserToTheChain() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        User user = new User();
+        user.setId(7L);
+        when(sessionManager.resolveCurrentUser(request, response)).thenReturn(user);
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        new CurrentUserFilter(sessionManager).doFilter(request, response, chain);
+
+        // Then
+        assertSame(user, request.getAttribute(SessionUtil.CURRENT_USER_ATTRIBUTE));
+        assertSame(request, chain.getRequest());
+    }
+
+    @Test
+    void doFilter_RunsChainUnderOneRetryBudget() throws Exception {
+        // Given: the chain makes two operations that keep deadlocking
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0);
+        AtomicInteger calls = new AtomicInteger();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                for (int i = 0; i < 2; i++) {
+                    assertThrows(SQLException.class, () -> retryPolicy.execute(() -> {
+                        calls.incrementAndGet();
+                        throw new SQLTransactionRollbackException("Deadlock", "40001", 1213);
+                    }));
+                }
+            }
+        };
+
+        // When
+        new CurrentUserFilter(sessionManager).doFilter(request, response, new MockFilterChain(servlet));
+
+        // Then: two retries for the whole request, not two per operation
+        assertEquals(4, calls.get());
+        assertEquals(2, retryPolicy.getRetries());
+    }
+
+    @Test
+    void doFilter_LeavesAnonymousRequestsWithoutUserOrSession() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(sessionManager.resolveCurrentUser(request, response)).thenReturn(null);
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        new CurrentUserFilter(sessionManager).doFilter(request, response, chain);
+
+        // Then
+        assertNull(request.getAttribute(SessionUtil.CURRENT_USER_ATTRIBUTE));
+        assertNull(request.getSession(false));
+        assertSame(request, chain.getRequest());
+    }
+}
@@ -0,0 +1,133 @@
+package com.danyarov.library.config;
+
+import com.danyarov.library.util.CatalogVersion;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.i18n.FixedLocaleResolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PageCacheFilterTest {
+
+    private static final String PAGE = "<html>" + "x".repeat(2000) + "</html>";
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    private final CompressionFilter compressionFilter = new CompressionFilter(256, 6, 2);
+    private final AtomicInteger renders = new AtomicInteger();
+    private PageCacheFilter pageCacheFilter;
+
+    @BeforeEach
+    void setUp() {
+        when(catalogVersion.get()).thenReturn(1L);
+        pageCacheFilter = new PageCacheFilter(new FixedLocaleResolver(Locale.ENGLISH), catalogVersion, 10, 60);
+    }
+
+    @Test
+    void doFilter_MissVariesOnAcceptEncoding() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        pageCacheFilter.doFilter(request(), response, new MockFilterChain(page()));
+
+        // Then
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertEquals(PAGE, response.getContentAsString());
+    }
+
+    @Test
+    void doFilter_HitBehindCompressionFilterIsGzippedOnce() throws Exception {
+        // Given: filters in the order WebAppInitializer registers them
+        MockHttpServletResponse miss = new MockHttpServletResponse();
+        new MockFilterChain(page(), compressionFilter, pageCacheFilter).doFilter(request(), miss);
+        MockHttpServletResponse hit = new MockHttpServletResponse();
+
+        // When
+        new MockFilterChain(page(), compressionFilter, pageCacheFilter).doFilter(request(), hit);
+
+        // Then
+        assertEquals(1, renders.get());
+        assertEquals(PAGE, gunzip(miss.getContentAsByteArray()));
+        assertEquals("gzip", hit.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", hit.getHeader("Vary"));
+        assertEquals(PAGE, gunzip(hit.getContentAsByteArray()));
+    }
+
+    @Test
+    void doFilter_EvictsLeastRecentlyServedPage_WhenFull() throws Exception {
+        // Given: two pages cached, and the first served again since
+        pageCacheFilter = new PageCacheFilter(new FixedLocaleResolver(Locale.ENGLISH), catalogVersion, 2, 60);
+        get("/books/1");
+        get("/books/2");
+        get("/books/1");
+
+        // When
+        get("/books/3");
+        renders.set(0);
+        get("/books/1");
+        get("/books/2");
+
+        // Then: only the page not served since it was stored is rendered again
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void doFilter_RendersAgain_WhenCatalogChanged() throws Exception {
+        // Given
+        get("/books");
+        when(catalogVersion.get()).thenReturn(2L);
+
+        // When
+        get("/books");
+
+        // Then
+        assertEquals(2, renders.get());
+    }
+
+    private void get(String uri) throws Exception {
+        pageCacheFilter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(),
+                new MockFilterChain(page()));
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+        request.addHeader("Accept-Encoding", "gzip");
+        return request;
+    }
+
+    private HttpServlet page() {
+        return new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                renders.incrementAndGet();
+                resp.setContentType("text/html;charset=UTF-8");
+                resp.getWriter().write(PAGE);
+            }
+        };
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes());
+        }
+    }
+}
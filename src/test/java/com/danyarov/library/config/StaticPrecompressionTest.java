@@ -0,0 +1,78 @@
+package com.danyarov.library.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the output of the {@code precompress-static} build step, whose directory surefire
+ * passes in as {@code static.precompressed.dir}.
+ */
+class StaticPrecompressionTest {
+
+    private static final Path SOURCES = Path.of("src/main/webapp/static");
+
+    private Path output;
+    private List<Path> assets;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String dir = System.getProperty("static.precompressed.dir");
+        assumeTrue(dir != null, "only runs under the Maven build");
+        output = Path.of(dir);
+        try (Stream<Path> files = Files.walk(SOURCES)) {
+            assets = files.filter(p -> p.toString().endsWith(".css") || p.toString().endsWith(".js"))
+                    .map(SOURCES::relativize)
+                    .toList();
+        }
+        assertFalse(assets.isEmpty());
+    }
+
+    @Test
+    void gzipVariant_DecompressesToSource_ForEveryAsset() throws IOException {
+        // Given
+        assumeTrue(onPath("gzip"), "gzip not installed");
+
+        for (Path asset : assets) {
+            // When
+            Path gz = output.resolve(asset + ".gz");
+
+            // Then
+            assertTrue(Files.isRegularFile(gz), "missing " + gz);
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(gz))) {
+                assertArrayEquals(Files.readAllBytes(SOURCES.resolve(asset)), in.readAllBytes(), asset.toString());
+            }
+        }
+    }
+
+    @Test
+    void brotliVariant_ExistsForEveryAsset() throws IOException {
+        // Given
+        assumeTrue(onPath("brotli"), "brotli not installed");
+
+        for (Path asset : assets) {
+            // When
+            Path br = output.resolve(asset + ".br");
+
+            // Then: the JDK has no brotli decoder, so only check the file was written
+            assertTrue(Files.isRegularFile(br), "missing " + br);
+            assertTrue(Files.size(br) > 0, br.toString());
+        }
+    }
+
+    private static boolean onPath(String command) {
+        return Stream.of(System.getenv("PATH").split(File.pathSeparator))
+                .anyMatch(dir -> Files.isExecutable(Path.of(dir, command)));
+    }
+}
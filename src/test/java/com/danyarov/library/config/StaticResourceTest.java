@@ -0,0 +1,192 @@
+package com.danyarov.library.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.ResourceUrlProviderExposingInterceptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticResourceTest {
+
+    private static final String CSS = "body { color: #333; }\n";
+
+    @TempDir
+    Path webapp;
+
+    private SimpleUrlHandlerMapping mapping;
+    private String fingerprinted;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path css = Files.createDirectories(webapp.resolve("static/css"));
+        Files.writeString(css.resolve("style.css"), CSS);
+        Files.write(css.resolve("style.css.gz"), gzip(CSS));
+        fingerprinted = "style-" + DigestUtils.md5DigestAsHex(CSS.getBytes(StandardCharsets.UTF_8)) + ".css";
+
+        MockServletContext servletContext = new MockServletContext("file:" + webapp, new FileSystemResourceLoader());
+        GenericWebApplicationContext applicationContext = new GenericWebApplicationContext(servletContext);
+        applicationContext.refresh();
+        ResourceHandlerRegistry registry = new ResourceHandlerRegistry(applicationContext, servletContext);
+        new WebConfig(null).addResourceHandlers(registry);
+        mapping = (SimpleUrlHandlerMapping) ReflectionTestUtils.invokeMethod(registry, "getHandlerMapping");
+        WebConfig.resourceConverterPostProcessor().postProcessAfterInitialization(mapping, "resourceHandlerMapping");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resourceConverterPostProcessor_SwapsConverterOfEveryHandler() {
+        // Then
+        assertEquals(2, mapping.getUrlMap().size());
+        for (Object handler : mapping.getUrlMap().values()) {
+            assertInstanceOf(FileChannelResourceHttpMessageConverter.class,
+                    ((ResourceHttpRequestHandler) handler).getResourceHttpMessageConverter());
+        }
+    }
+
+    @Test
+    void resourceUrlEncodingFilter_RewritesLinkToFingerprintedUrl() throws Exception {
+        // Given
+        ResourceUrlProvider urlProvider = new ResourceUrlProvider();
+        Map<String, ResourceHttpRequestHandler> handlers = new LinkedHashMap<>();
+        mapping.getUrlMap().forEach((pattern, handler) -> handlers.put(pattern, (ResourceHttpRequestHandler) handler));
+        urlProvider.setHandlerMap(handlers);
+        String[] encoded = new String[1];
+        HttpServlet page = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                // As ResourceUrlProviderExposingInterceptor does inside the dispatcher
+                req.setAttribute(ResourceUrlProviderExposingInterceptor.RESOURCE_URL_PROVIDER_ATTR, urlProvider);
+                encoded[0] = resp.encodeURL("/css/style.css");
+            }
+        };
+
+        // When
+        new ResourceUrlEncodingFilter().doFilter(new MockHttpServletRequest("GET", "/books"),
+                new MockHttpServletResponse(), new MockFilterChain(page));
+
+        // Then
+        assertEquals("/css/" + fingerprinted, encoded[0]);
+    }
+
+    @Test
+    void handleRequest_ServesFingerprintedUrlAsImmutable() throws Exception {
+        // When
+        MockHttpServletResponse response = get(fingerprinted, null);
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(CSS, response.getContentAsString());
+        assertEquals("max-age=31536000, public, immutable", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void handleRequest_RevalidatesPlainUrl() throws Exception {
+        // When
+        MockHttpServletResponse response = get("style.css", null);
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(CSS, response.getContentAsString());
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void handleRequest_ServesPrecompressedVariant_WhenClientAcceptsGzip() throws Exception {
+        // When
+        MockHttpServletResponse response = get(fingerprinted, "gzip, deflate");
+
+        // Then
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertArrayEquals(Files.readAllBytes(webapp.resolve("static/css/style.css.gz")), response.getContentAsByteArray());
+        assertEquals("max-age=31536000, public, immutable", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void writeContent_StreamsFileThroughChannel_WithoutSendfile() throws IOException {
+        // Given
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        // When
+        new FileChannelResourceHttpMessageConverter().write(
+                new FileSystemResource(webapp.resolve("static/css/style.css")), MediaType.valueOf("text/css"), output);
+
+        // Then
+        assertEquals(CSS, output.getBodyAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeContent_HandsFileToConnector_WhenSendfileSupported() throws IOException {
+        // Given
+        Path file = webapp.resolve("static/css/style.css");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        // When
+        new FileChannelResourceHttpMessageConverter().write(
+                new FileSystemResource(file), MediaType.valueOf("text/css"), output);
+
+        // Then
+        assertEquals(0, output.getBodyAsBytes().length);
+        assertEquals(file.toFile().getCanonicalPath(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals((long) CSS.length(), request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    private MockHttpServletResponse get(String path, String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/css/" + path);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, path);
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ((ResourceHttpRequestHandler) mapping.getUrlMap().get("/css/**")).handleRequest(request, response);
+        return response;
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
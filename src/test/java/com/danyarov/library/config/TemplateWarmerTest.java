@@ -0,0 +1,75 @@
+package com.danyarov.library.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateWarmerTest {
+
+    private static final String PREFIX = "/WEB-INF/views/";
+    private static final String SUFFIX = ".html";
+
+    private final MockServletContext servletContext = new MockServletContext("src/main/webapp", new FileSystemResourceLoader());
+    private final SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+
+    @BeforeEach
+    void setUp() {
+        GenericWebApplicationContext applicationContext = new GenericWebApplicationContext(servletContext);
+        applicationContext.refresh();
+        SpringResourceTemplateResolver resolver = new SpringResourceTemplateResolver();
+        resolver.setApplicationContext(applicationContext);
+        resolver.setPrefix(PREFIX);
+        resolver.setSuffix(SUFFIX);
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        templateEngine.setTemplateResolver(resolver);
+    }
+
+    @Test
+    void onApplicationEvent_CachesEveryTemplate() {
+        // Given
+        TemplateWarmer warmer = new TemplateWarmer(templateEngine, servletContext, PREFIX, SUFFIX, true);
+
+        // When
+        warmer.onApplicationEvent(null);
+
+        // Then
+        Set<String> cached = cachedTemplates();
+        assertTrue(cached.containsAll(Set.of("books/list", "books/detail", "fragments/header", "login", "error")),
+                "cached: " + cached);
+    }
+
+    @Test
+    void onApplicationEvent_DoesNothing_WhenCachingDisabled() {
+        // Given
+        TemplateWarmer warmer = new TemplateWarmer(templateEngine, servletContext, PREFIX, SUFFIX, false);
+
+        // When
+        warmer.onApplicationEvent(null);
+
+        // Then
+        assertTrue(cachedTemplates().isEmpty());
+    }
+
+    private Set<String> cachedTemplates() {
+        ICache<TemplateCacheKey, TemplateModel> cache = templateEngine.getConfiguration().getCacheManager().getTemplateCache();
+        return cache.keySet().stream()
+                .filter(key -> key.getOwnerTemplate() == null)
+                .map(TemplateCacheKey::getTemplate)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,144 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.dao.impl.BookCopyDaoImpl;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.BookCopy;
+import com.danyarov.library.model.BookCopyStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCopyDaoImplTest {
+
+    @Mock
+    private ConnectionPool connectionPool;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    private BookCopyDaoImpl bookCopyDao;
+    private MockedStatic<ConnectionPool> mockedConnectionPool;
+
+    @BeforeEach
+    void setUp() {
+        mockedConnectionPool = mockStatic(ConnectionPool.class);
+        mockedConnectionPool.when(ConnectionPool::getInstance).thenReturn(connectionPool);
+        bookCopyDao = new BookCopyDaoImpl();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (mockedConnectionPool != null) {
+            mockedConnectionPool.close();
+        }
+    }
+
+    @Test
+    void lockAvailableCopy_SkipsCopiesLockedByOtherTransactions() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        mockBookCopyResultSet(5L);
+
+        // When
+        Optional<BookCopy> result = bookCopyDao.lockAvailableCopy(1L);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(5L, result.get().getId());
+        assertEquals(BookCopyStatus.AVAILABLE, result.get().getStatus());
+        verify(connection).prepareStatement("SELECT * FROM book_copies WHERE book_id = ? AND status = ? " +
+                "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED");
+        verify(preparedStatement).setLong(1, 1L);
+        verify(preparedStatement).setString(2, "AVAILABLE");
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void lockAvailableCopy_ReturnsEmpty_WhenNoCopyIsFree() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        // When
+        Optional<BookCopy> result = bookCopyDao.lockAvailableCopy(1L);
+
+        // Then
+        assertTrue(result.isEmpty());
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findByBookId_ReturnsCopies() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        mockBookCopyResultSet(5L);
+
+        // When
+        List<BookCopy> result = bookCopyDao.findByBookId(1L);
+
+        // Then
+        assertEquals(2, result.size());
+        verify(preparedStatement).setLong(1, 1L);
+    }
+
+    @Test
+    void updateStatus_SetsStatus() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        bookCopyDao.updateStatus(5L, BookCopyStatus.ISSUED);
+
+        // Then
+        verify(preparedStatement).setString(1, "ISSUED");
+        verify(preparedStatement).setLong(2, 5L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void updateStatus_ThrowsDatabaseException_WhenCopyMissing() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        // When & Then
+        assertThrows(DatabaseException.class, () -> bookCopyDao.updateStatus(999L, BookCopyStatus.ISSUED));
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    private void mockBookCopyResultSet(Long copyId) throws SQLException {
+        when(resultSet.getLong("id")).thenReturn(copyId);
+        when(resultSet.getLong("book_id")).thenReturn(1L);
+        when(resultSet.getString("inventory_number")).thenReturn("INV-001-001");
+        when(resultSet.getString("status")).thenReturn("AVAILABLE");
+        when(resultSet.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
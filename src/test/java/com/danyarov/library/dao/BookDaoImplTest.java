@@ -3,6 +3,7 @@ package com.danyarov.library.dao;
 import com.danyarov.library.dao.ConnectionPool;
 import com.danyarov.library.dao.impl.BookDaoImpl;
 import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.exception.OptimisticLockException;
 import com.danyarov.library.model.Book;
 import com.danyarov.library.model.Page;
 import org.junit.jupiter.api.AfterEach;
@@ -15,8 +16,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -317,6 +320,74 @@ class BookDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void update_WritesOnlyChangedColumns_AndChecksVersion() throws SQLException {
+        // Given
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Old Title");
+        book.setAuthor("Author");
+        book.setAvailableCopies(3);
+        book.setVersion(4L);
+        book.markClean();
+        book.setTitle("New Title");
+        book.setAuthor("Author");
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        Book updatedBook = bookDao.update(book);
+
+        // Then
+        verify(connection).prepareStatement("UPDATE books SET title = ?, version = version + 1, " +
+                "updated_at = CURRENT_TIMESTAMP WHERE id = ? AND version = ?");
+        verify(preparedStatement).setString(1, "New Title");
+        verify(preparedStatement).setLong(2, 1L);
+        verify(preparedStatement).setLong(3, 4L);
+        verify(preparedStatement, never()).setInt(anyInt(), anyInt());
+        assertEquals(5L, updatedBook.getVersion());
+        assertTrue(updatedBook.getDirtyColumns().isEmpty());
+    }
+
+    @Test
+    void update_ThrowsOptimisticLockException_WhenVersionChanged() throws SQLException {
+        // Given
+        Book book = new Book();
+        book.setId(1L);
+        book.setVersion(4L);
+        book.markClean();
+        book.setGenre("Classic");
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        // When & Then
+        assertThrows(OptimisticLockException.class, () -> bookDao.update(book));
+        assertEquals(4L, book.getVersion());
+        verify(connection, never()).commit();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void update_SkipsWrite_WhenNothingChanged() {
+        // Given
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Title");
+        book.markClean();
+        book.setTitle("Title");
+
+        // When
+        Book result = bookDao.update(book);
+
+        // Then
+        assertSame(book, result);
+        verifyNoInteractions(connectionPool);
+    }
+
     @Test
     void updateAvailableCopies_UpdatesCopiesCount() throws SQLException {
         // Given
@@ -336,6 +407,24 @@ class BookDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void updateAvailableCopies_RetriesAfterDeadlock() throws SQLException {
+        // Given
+        bookDao = new BookDaoImpl(100, new RetryPolicy(3, 0, 0));
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate())
+                .thenThrow(new SQLTransactionRollbackException("Deadlock found", "40001", 1213))
+                .thenReturn(1);
+
+        // When
+        bookDao.updateAvailableCopies(1L, -1);
+
+        // Then
+        verify(preparedStatement, times(2)).executeUpdate();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
     @Test
     void updateAvailableCopies_ThrowsDatabaseException_WhenNoRowsAffected() throws SQLException {
         // Given
@@ -447,6 +536,59 @@ class BookDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void saveAll_InsertsInBatches_AndAssignsGeneratedIds() throws SQLException {
+        // Given
+        BookDaoImpl batchingDao = new BookDaoImpl(2);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setTotalCopies(1);
+            book.setAvailableCopies(1);
+            books.add(book);
+        }
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(preparedStatement);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, true);
+        when(resultSet.getLong(1)).thenReturn(10L, 11L, 12L);
+
+        // When
+        List<Book> result = batchingDao.saveAll(books);
+
+        // Then
+        assertEquals(List.of(10L, 11L, 12L), result.stream().map(Book::getId).toList());
+        verify(preparedStatement, times(3)).addBatch();
+        verify(preparedStatement, times(2)).executeBatch();
+        verify(connection, times(2)).commit();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void forEach_StreamsEveryBook() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false); // 2 books
+
+        mockBookResultSet(1L);
+        List<Book> streamed = new ArrayList<>();
+
+        // When
+        bookDao.forEach(streamed::add);
+
+        // Then
+        assertEquals(2, streamed.size());
+        verify(preparedStatement).setFetchSize(Integer.MIN_VALUE);
+        verify(resultSet).close();
+        verify(preparedStatement).close();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
     @Test
     void findByGenre_ReturnsBooksInGenre() throws SQLException {
         // Given
@@ -467,6 +609,35 @@ class BookDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void findExistingIsbns_ReturnsIsbnsAlreadyInCatalog() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(contains("isbn IN (?, ?)"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("isbn")).thenReturn("9780452284234");
+
+        // When
+        Set<String> result = bookDao.findExistingIsbns(List.of("9780452284234", "9780061120084"));
+
+        // Then
+        assertEquals(Set.of("9780452284234"), result);
+        verify(preparedStatement).setString(1, "9780452284234");
+        verify(preparedStatement).setString(2, "9780061120084");
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findExistingIsbns_SkipsQuery_WhenNoIsbns() {
+        // When
+        Set<String> result = bookDao.findExistingIsbns(List.of());
+
+        // Then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(connectionPool);
+    }
+
     private void mockBookResultSet(Long bookId) throws SQLException {
         when(resultSet.getLong("id")).thenReturn(bookId);
         when(resultSet.getString("title")).thenReturn("Test Book");
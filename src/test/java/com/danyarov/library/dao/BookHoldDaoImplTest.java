@@ -0,0 +1,116 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.dao.impl.BookHoldDaoImpl;
+import com.danyarov.library.model.BookHold;
+import com.danyarov.library.model.HoldStatus;
+import com.danyarov.library.model.OrderType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookHoldDaoImplTest {
+
+    @Mock
+    private ConnectionPool connectionPool;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    private BookHoldDaoImpl bookHoldDao;
+
+    @BeforeEach
+    void setUp() {
+        try (MockedStatic<ConnectionPool> mockedStatic = mockStatic(ConnectionPool.class)) {
+            mockedStatic.when(ConnectionPool::getInstance).thenReturn(connectionPool);
+            bookHoldDao = new BookHoldDaoImpl();
+        }
+    }
+
+    @Test
+    void lockNextWaiting_LocksOldestWaitingHold_SkippingLockedOnes() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        mockHoldRow();
+
+        // When
+        Optional<BookHold> hold = bookHoldDao.lockNextWaiting(1L);
+
+        // Then
+        assertTrue(hold.isPresent());
+        assertEquals(30L, hold.get().getId());
+        assertEquals(OrderType.READING_ROOM, hold.get().getOrderType());
+        verify(connection).prepareStatement("SELECT * FROM book_holds WHERE book_id = ? AND status = ? " +
+                "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED");
+        verify(preparedStatement).setLong(1, 1L);
+        verify(preparedStatement).setString(2, "WAITING");
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findWaitingByUser_ReturnsHoldsWithQueuePositions() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        mockHoldRow();
+        when(resultSet.getString("book_title")).thenReturn("Dune");
+        when(resultSet.getInt("queue_position")).thenReturn(3);
+
+        // When
+        List<BookHold> holds = bookHoldDao.findWaitingByUser(7L);
+
+        // Then
+        assertEquals(1, holds.size());
+        assertEquals("Dune", holds.get(0).getBookTitle());
+        assertEquals(3, holds.get(0).getQueuePosition());
+        verify(connection).prepareStatement(contains("w.id < h.id) + 1 AS queue_position"));
+    }
+
+    @Test
+    void cancel_OnlyWithdrawsWaitingHoldOfUser() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        // When
+        boolean cancelled = bookHoldDao.cancel(30L, 7L);
+
+        // Then
+        assertFalse(cancelled);
+        verify(preparedStatement).setString(1, "CANCELLED");
+        verify(preparedStatement).setLong(3, 7L);
+        verify(preparedStatement).setString(4, "WAITING");
+    }
+
+    private void mockHoldRow() throws SQLException {
+        when(resultSet.getLong("id")).thenReturn(30L);
+        when(resultSet.getLong("user_id")).thenReturn(7L);
+        when(resultSet.getLong("book_id")).thenReturn(1L);
+        when(resultSet.getString("order_type")).thenReturn("READING_ROOM");
+        when(resultSet.getString("status")).thenReturn(HoldStatus.WAITING.getValue());
+        when(resultSet.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+        when(resultSet.getObject("order_id", Long.class)).thenReturn(null);
+        when(resultSet.getTimestamp("fulfilled_at")).thenReturn(null);
+    }
+}
@@ -0,0 +1,86 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.dao.impl.CatalogVersionDaoImpl;
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogVersionDaoImplTest {
+
+    @Mock
+    private ConnectionPool connectionPool;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    private CatalogVersionDaoImpl catalogVersionDao;
+
+    @BeforeEach
+    void setUp() {
+        try (MockedStatic<ConnectionPool> mockedStatic = mockStatic(ConnectionPool.class)) {
+            mockedStatic.when(ConnectionPool::getInstance).thenReturn(connectionPool);
+            catalogVersionDao = new CatalogVersionDaoImpl();
+        }
+    }
+
+    @Test
+    void read_ReturnsZero_WhenCatalogNeverChanged() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        // When
+        long version = catalogVersionDao.read();
+
+        // Then
+        assertEquals(0L, version);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void increment_ReturnsValueWrittenByTheSameStatement() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(8L);
+
+        // When
+        long version = catalogVersionDao.increment();
+
+        // Then
+        assertEquals(8L, version);
+        verify(connection).prepareStatement(contains("ON DUPLICATE KEY UPDATE version = LAST_INSERT_ID(version + 1)"));
+        verify(connection).prepareStatement("SELECT LAST_INSERT_ID()");
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void increment_ThrowsDatabaseException_WhenUpdateFails() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenThrow(new SQLException("down"));
+
+        // When & Then
+        assertThrows(DatabaseException.class, () -> catalogVersionDao.increment());
+        verify(connectionPool).releaseConnection(connection);
+    }
+}
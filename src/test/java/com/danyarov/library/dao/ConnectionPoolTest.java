@@ -0,0 +1,109 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionPoolTest {
+
+    @Mock
+    private Connection connection;
+
+    private MockedStatic<DriverManager> mockedDriverManager;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // The single connection is created up front on this thread, where DriverManager is mocked
+        mockedDriverManager = mockStatic(DriverManager.class);
+        mockedDriverManager.when(() -> DriverManager.getConnection(anyString(), any(Properties.class)))
+                .thenReturn(connection);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        pool = ConnectionPool.getInstance("jdbc:mysql://localhost/test", "user", "password", 1, 1, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+        ReflectionTestUtils.setField(ConnectionPool.class, "instance", null);
+        mockedDriverManager.close();
+    }
+
+    @Test
+    void getConnection_WaitsForReleasedConnection_WhenPoolIsExhausted() throws Exception {
+        // Given
+        when(connection.getAutoCommit()).thenReturn(true);
+        Connection first = pool.getConnection();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Connection> waiting = executor.submit(pool::getConnection);
+
+            // When
+            pool.releaseConnection(first);
+
+            // Then
+            assertSame(connection, waiting.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getConnection_Throws_WhenNoConnectionIsReleasedInTime() {
+        // Given
+        pool.getConnection();
+        ReflectionTestUtils.setField(pool, "acquireTimeoutMillis", 50L);
+
+        // When & Then
+        DatabaseException thrown = assertThrows(DatabaseException.class, pool::getConnection);
+        assertEquals("Connection pool exhausted", thrown.getMessage());
+    }
+
+    @Test
+    void inTransaction_SharesOneConnection_AndCommitsOnce() throws SQLException {
+        // Given
+        when(connection.getAutoCommit()).thenReturn(false, true);
+
+        // When
+        Connection[] seen = pool.inTransaction(() -> {
+            Connection a = pool.getConnection();
+            Connection b = pool.getConnection();
+            try {
+                // DAOs closing or committing their connection must not end the transaction
+                a.commit();
+                a.close();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            pool.releaseConnection(a);
+            return new Connection[]{a, b};
+        });
+
+        // Then
+        assertSame(seen[0], seen[1]);
+        verify(connection).setAutoCommit(false);
+        verify(connection, times(1)).commit();
+        verify(connection, never()).close();
+        // The connection went back to the pool, so the next caller gets it without waiting
+        assertSame(connection, pool.getConnection());
+    }
+}
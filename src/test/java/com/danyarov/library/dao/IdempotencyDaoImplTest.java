@@ -0,0 +1,138 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.dao.impl.IdempotencyDaoImpl;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.*;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyDaoImplTest {
+
+    @Mock
+    private ConnectionPool connectionPool;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    private IdempotencyDaoImpl idempotencyDao;
+
+    @BeforeEach
+    void setUp() {
+        try (MockedStatic<ConnectionPool> mockedStatic = mockStatic(ConnectionPool.class)) {
+            mockedStatic.when(ConnectionPool::getInstance).thenReturn(connectionPool);
+            idempotencyDao = new IdempotencyDaoImpl();
+        }
+    }
+
+    @Test
+    void claim_ReturnsTrue_WhenKeyIsInserted() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        boolean claimed = idempotencyDao.claim("key-1", "issue-order:1", 1000L);
+
+        // Then
+        assertTrue(claimed);
+        verify(connection).prepareStatement(contains("INSERT IGNORE"));
+        verify(preparedStatement).setString(1, "key-1");
+        verify(preparedStatement).setString(2, "issue-order:1");
+        verify(preparedStatement).setLong(3, 1000L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void claim_ReturnsFalse_WhenKeyAlreadyExists() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        // When & Then
+        assertFalse(idempotencyDao.claim("key-1", "issue-order:1", 1000L));
+    }
+
+    @Test
+    void find_ReturnsStoredResult() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString("idem_key")).thenReturn("key-1");
+        when(resultSet.getString("scope")).thenReturn("issue-order:1");
+        when(resultSet.getString("result")).thenReturn("msg.order_issued");
+        when(resultSet.getLong("created_at")).thenReturn(1000L);
+
+        // When
+        Optional<IdempotencyRecord> record = idempotencyDao.find("key-1");
+
+        // Then
+        assertTrue(record.isPresent());
+        assertTrue(record.get().isCompleted());
+        assertEquals("msg.order_issued", record.get().getResult());
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void release_DeletesOnlyUncompletedKey() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        // When
+        idempotencyDao.release("key-1", 1000L);
+
+        // Then
+        verify(connection).prepareStatement(contains("result IS NULL"));
+        verify(preparedStatement).setString(1, "key-1");
+        verify(preparedStatement).setLong(2, 1000L);
+    }
+
+    @Test
+    void takeOver_UpdatesOnlyStaleUncompletedClaim() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        boolean taken = idempotencyDao.takeOver("key-1", 90_000L, 30_000L);
+
+        // Then
+        assertTrue(taken);
+        verify(connection).prepareStatement(contains("result IS NULL AND created_at < ?"));
+        verify(preparedStatement).setLong(1, 90_000L);
+        verify(preparedStatement).setString(2, "key-1");
+        verify(preparedStatement).setLong(3, 30_000L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void complete_ThrowsDatabaseException_WhenSQLExceptionOccurs() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenThrow(new SQLException("Connection error"));
+
+        // When & Then
+        assertThrows(DatabaseException.class, () -> idempotencyDao.complete("key-1", "msg.order_issued"));
+        verify(connectionPool).releaseConnection(connection);
+    }
+}
@@ -0,0 +1,105 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.dao.impl.JobLeaseDaoImpl;
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobLeaseDaoImplTest {
+
+    @Mock
+    private ConnectionPool connectionPool;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    private JobLeaseDaoImpl jobLeaseDao;
+
+    @BeforeEach
+    void setUp() {
+        try (MockedStatic<ConnectionPool> mockedStatic = mockStatic(ConnectionPool.class)) {
+            mockedStatic.when(ConnectionPool::getInstance).thenReturn(connectionPool);
+            jobLeaseDao = new JobLeaseDaoImpl();
+        }
+    }
+
+    @Test
+    void acquire_ReturnsNewToken_WhenLeaseIsFree() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1, 1);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong("token")).thenReturn(4L);
+
+        // When
+        long token = jobLeaseDao.acquire("orders-overdue", "node-1", 10_000);
+
+        // Then
+        assertEquals(4L, token);
+        verify(connection).prepareStatement(contains("INSERT IGNORE INTO job_leases"));
+        verify(connection).prepareStatement(contains("token = token + 1"));
+        verify(connection).prepareStatement(contains("(owner IS NULL OR expires_at < NOW(3))"));
+        verify(preparedStatement).setLong(2, 10_000_000L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void acquire_ReturnsZero_WhenAnotherNodeHoldsLease() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0, 0);
+
+        // When
+        long token = jobLeaseDao.acquire("orders-overdue", "node-1", 10_000);
+
+        // Then
+        assertEquals(0L, token);
+        verify(preparedStatement, never()).executeQuery();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void renew_RequiresOwnerAndToken() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        // When
+        boolean renewed = jobLeaseDao.renew("orders-overdue", "node-1", 4L, 10_000);
+
+        // Then
+        assertFalse(renewed);
+        verify(connection).prepareStatement(contains("WHERE job_name = ? AND owner = ? AND token = ?"));
+        verify(preparedStatement).setString(3, "node-1");
+        verify(preparedStatement).setLong(4, 4L);
+    }
+
+    @Test
+    void release_ThrowsDatabaseException_OnSqlError() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenThrow(new SQLException("Connection lost"));
+
+        // When & Then
+        assertThrows(DatabaseException.class, () -> jobLeaseDao.release("orders-overdue", "node-1", 4L));
+        verify(connectionPool).releaseConnection(connection);
+    }
+}
@@ -14,7 +14,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -226,6 +229,262 @@ class OrderDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void updateIfStatus_ReturnsFalse_WhenStatusChangedMeanwhile() throws SQLException {
+        // Given
+        Order order = new Order.Builder()
+                .id(1L)
+                .userId(1L)
+                .bookId(1L)
+                .orderType(OrderType.HOME)
+                .status(OrderStatus.RETURNED)
+                .build();
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        // When
+        boolean updated = orderDao.updateIfStatus(order, OrderStatus.ISSUED);
+
+        // Then
+        assertFalse(updated);
+        verify(connection).prepareStatement(contains("WHERE id = ? AND status = ?"));
+        verify(preparedStatement).setLong(11, 1L);
+        verify(preparedStatement).setObject(12, "ISSUED");
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void updateIfPendingFor_ChecksStatusAndClaim() throws SQLException {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Order order = new Order.Builder()
+                .id(1L)
+                .userId(1L)
+                .bookId(1L)
+                .orderType(OrderType.HOME)
+                .status(OrderStatus.ISSUED)
+                .build();
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        boolean updated = orderDao.updateIfPendingFor(order, 2L, now);
+
+        // Then
+        assertTrue(updated);
+        verify(connection).prepareStatement(contains("AND status = ? AND (claimed_by IS NULL OR claimed_by = ? OR claim_expires_at < ?)"));
+        verify(preparedStatement).setObject(12, "PENDING");
+        verify(preparedStatement).setObject(13, 2L);
+        verify(preparedStatement).setObject(14, Timestamp.valueOf(now));
+    }
+
+    @Test
+    void update_RetriesLockWaitTimeout_ThenFailsWithDatabaseException() throws SQLException {
+        // Given
+        orderDao = new OrderDaoImpl(100, new RetryPolicy(2, 0, 0));
+        Order order = new Order.Builder()
+                .id(1L)
+                .userId(1L)
+                .bookId(1L)
+                .orderType(OrderType.HOME)
+                .status(OrderStatus.RETURNED)
+                .build();
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenThrow(new SQLException("Lock wait timeout exceeded", "HY000", 1205));
+
+        // When & Then
+        assertThrows(DatabaseException.class, () -> orderDao.update(order));
+        verify(preparedStatement, times(2)).executeUpdate();
+        verify(connection).rollback();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void expirePending_UpdatesOnlyStillPendingUnreservedOrdersOfType() throws SQLException {
+        // Given
+        LocalDateTime cutoff = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        int expired = orderDao.expirePending(OrderType.HOME, cutoff, List.of(7L, 8L));
+
+        // Then
+        assertEquals(1, expired);
+        verify(connection).prepareStatement(contains("WHERE status = ? AND order_type = ? AND order_date <= ? AND book_copy_id IS NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM book_holds h WHERE h.order_id = book_orders.id) AND id IN (?, ?)"));
+        verify(preparedStatement).setString(1, "EXPIRED");
+        verify(preparedStatement).setString(2, "PENDING");
+        verify(preparedStatement).setString(3, "HOME");
+        verify(preparedStatement).setTimestamp(4, Timestamp.valueOf(cutoff));
+        verify(preparedStatement).setLong(5, 7L);
+        verify(preparedStatement).setLong(6, 8L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findUnmarkedOverdue_ContinuesAfterLastSeenOrder() throws SQLException {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2025, 3, 10, 9, 0);
+        LocalDateTime lastDue = LocalDateTime.of(2025, 3, 1, 12, 0);
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        // When
+        List<Order> orders = orderDao.findUnmarkedOverdue(now, lastDue, 42L, 500);
+
+        // Then
+        assertTrue(orders.isEmpty());
+        verify(connection).prepareStatement("SELECT * FROM book_orders WHERE status = ? AND due_date < ? " +
+                "AND (due_date > ? OR (due_date = ? AND id > ?)) AND overdue_at IS NULL ORDER BY due_date, id LIMIT ?");
+        verify(preparedStatement).setString(1, "ISSUED");
+        verify(preparedStatement).setTimestamp(2, Timestamp.valueOf(now));
+        verify(preparedStatement).setTimestamp(3, Timestamp.valueOf(lastDue));
+        verify(preparedStatement).setTimestamp(4, Timestamp.valueOf(lastDue));
+        verify(preparedStatement).setLong(5, 42L);
+        verify(preparedStatement).setInt(6, 500);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findOverdue_ReturnsPageOfOverdueOrders() throws SQLException {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2025, 3, 10, 9, 0);
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getLong(1)).thenReturn(45L);
+
+        // When
+        Page<Order> page = orderDao.findOverdue(now, 2, 20);
+
+        // Then
+        assertEquals(45, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        verify(connection).prepareStatement(contains("WHERE o.status = ? AND o.due_date < ? ORDER BY o.due_date, o.id"));
+        verify(preparedStatement).setInt(3, 20);
+        verify(preparedStatement).setInt(4, 40);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void markOverdue_StampsOnlyIssuedUnmarkedOrders() throws SQLException {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2025, 3, 10, 9, 0);
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(2);
+
+        // When
+        int marked = orderDao.markOverdue(List.of(1L, 2L), now);
+
+        // Then
+        assertEquals(2, marked);
+        verify(connection).prepareStatement(contains("WHERE status = ? AND overdue_at IS NULL AND id IN (?, ?)"));
+        verify(preparedStatement).setTimestamp(1, Timestamp.valueOf(now));
+        verify(preparedStatement).setString(2, "ISSUED");
+    }
+
+    @Test
+    void lockClaimable_SkipsOrdersLockedByOtherDesks() throws SQLException {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2025, 3, 10, 9, 0);
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong("id")).thenReturn(4L, 7L);
+
+        // When
+        List<Long> orderIds = orderDao.lockClaimable(now, 10);
+
+        // Then
+        assertEquals(List.of(4L, 7L), orderIds);
+        verify(connection).prepareStatement(contains(
+                "WHERE status = ? AND (claimed_by IS NULL OR claim_expires_at < ?) ORDER BY order_date, id LIMIT ? FOR UPDATE SKIP LOCKED"));
+        verify(preparedStatement).setString(1, "PENDING");
+        verify(preparedStatement).setTimestamp(2, Timestamp.valueOf(now));
+        verify(preparedStatement).setInt(3, 10);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void claim_StampsLibrarianAndExpiryOnPendingOrders() throws SQLException {
+        // Given
+        LocalDateTime expiresAt = LocalDateTime.of(2025, 3, 10, 9, 15);
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(2);
+
+        // When
+        int claimed = orderDao.claim(List.of(4L, 7L), 3L, expiresAt);
+
+        // Then
+        assertEquals(2, claimed);
+        verify(connection).prepareStatement(contains("SET claimed_by = ?, claim_expires_at = ? WHERE status = ? AND id IN (?, ?)"));
+        verify(preparedStatement).setLong(1, 3L);
+        verify(preparedStatement).setTimestamp(2, Timestamp.valueOf(expiresAt));
+        verify(preparedStatement).setLong(4, 4L);
+        verify(preparedStatement).setLong(5, 7L);
+    }
+
+    @Test
+    void claim_DoesNothing_WhenNoOrdersLocked() throws SQLException {
+        // When
+        int claimed = orderDao.claim(List.of(), 3L, LocalDateTime.now());
+
+        // Then
+        assertEquals(0, claimed);
+        verify(connectionPool, never()).getConnection();
+    }
+
+    @Test
+    void countClaimable_CountsPendingOrdersWithoutLiveClaim() throws SQLException {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2025, 3, 10, 9, 0);
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(12L);
+
+        // When
+        long depth = orderDao.countClaimable(now);
+
+        // Then
+        assertEquals(12L, depth);
+        verify(connection).prepareStatement(contains("SELECT COUNT(*) FROM book_orders WHERE status = ? AND (claimed_by IS NULL OR claim_expires_at < ?)"));
+        verify(preparedStatement).setTimestamp(2, Timestamp.valueOf(now));
+    }
+
+    @Test
+    void releaseClaims_ClearsOnlyPendingClaimsOfLibrarian() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(3);
+
+        // When
+        int released = orderDao.releaseClaims(3L);
+
+        // Then
+        assertEquals(3, released);
+        verify(connection).prepareStatement(contains("SET claimed_by = NULL, claim_expires_at = NULL WHERE claimed_by = ? AND status = ?"));
+        verify(preparedStatement).setLong(1, 3L);
+        verify(preparedStatement).setString(2, "PENDING");
+        verify(connectionPool).releaseConnection(connection);
+    }
+
     @Test
     void findAllWithDetails_ReturnsOrdersWithUserAndBookInfo() throws SQLException {
         // Given
@@ -305,6 +564,30 @@ class OrderDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void forEachWithDetails_StreamsOrdersWithDetails() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+
+        mockOrderResultSet(1L);
+        mockOrderWithDetailsResultSet(false);
+        List<Order> streamed = new ArrayList<>();
+
+        // When
+        orderDao.forEachWithDetails(streamed::add);
+
+        // Then
+        assertEquals(1, streamed.size());
+        assertEquals("test@example.com", streamed.get(0).getUser().getEmail());
+        assertEquals("Test Book", streamed.get(0).getBook().getTitle());
+        verify(preparedStatement).setFetchSize(Integer.MIN_VALUE);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
     @Test
     void deleteById_ReturnsTrue_WhenOrderDeleted() throws SQLException {
         // Given
@@ -357,6 +640,33 @@ class OrderDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void saveAll_RollsBackFailedBatch_AndKeepsEarlierOnes() throws SQLException {
+        // Given
+        OrderDaoImpl batchingDao = new OrderDaoImpl(1);
+        List<Order> orders = List.of(
+                new Order.Builder().userId(1L).bookId(1L).orderType(OrderType.HOME).build(),
+                new Order.Builder().userId(1L).bookId(2L).orderType(OrderType.HOME).build());
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(preparedStatement);
+        when(preparedStatement.executeBatch())
+                .thenReturn(new int[]{1})
+                .thenThrow(new BatchUpdateException("Duplicate entry", new int[0]));
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(7L);
+
+        // When & Then
+        DatabaseException exception = assertThrows(DatabaseException.class, () -> batchingDao.saveAll(orders));
+        assertTrue(exception.getMessage().contains("after 1 were committed"));
+        assertEquals(7L, orders.get(0).getId());
+        assertNull(orders.get(1).getId());
+        verify(connection).commit();
+        verify(connection).rollback();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
     @Test
     void update_ThrowsDatabaseException_WhenNoRowsAffected() throws SQLException {
         // Given
@@ -380,6 +690,78 @@ class OrderDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void countByStatus_ReturnsCountForEveryStatus() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString("status")).thenReturn("PENDING", "ISSUED");
+        when(resultSet.getLong("order_count")).thenReturn(3L, 5L);
+
+        // When
+        Map<OrderStatus, Long> result = orderDao.countByStatus();
+
+        // Then
+        assertEquals(OrderStatus.values().length, result.size());
+        assertEquals(3L, result.get(OrderStatus.PENDING));
+        assertEquals(5L, result.get(OrderStatus.ISSUED));
+        assertEquals(0L, result.get(OrderStatus.RETURNED));
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findBookIdsWithActiveOrder_ReturnsMatchingBookIds() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(contains("book_id IN (?, ?, ?)"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getLong("book_id")).thenReturn(20L);
+
+        // When
+        Set<Long> result = orderDao.findBookIdsWithActiveOrder(1L, List.of(10L, 20L, 30L));
+
+        // Then
+        assertEquals(Set.of(20L), result);
+        verify(preparedStatement).setLong(1, 1L);
+        verify(preparedStatement).setLong(2, 10L);
+        verify(preparedStatement).setLong(3, 20L);
+        verify(preparedStatement).setLong(4, 30L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findBookIdsWithActiveOrder_SkipsQuery_WhenNoBookIds() {
+        // When
+        Set<Long> result = orderDao.findBookIdsWithActiveOrder(1L, List.of());
+
+        // Then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(connectionPool);
+    }
+
+    @Test
+    void findUserIdsWithActiveOrder_ReturnsMatchingUserIds() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(contains("user_id IN (?, ?)"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getLong("user_id")).thenReturn(4L);
+
+        // When
+        Set<Long> result = orderDao.findUserIdsWithActiveOrder(7L, List.of(3L, 4L));
+
+        // Then
+        assertEquals(Set.of(4L), result);
+        verify(preparedStatement).setLong(1, 7L);
+        verify(preparedStatement).setLong(2, 3L);
+        verify(preparedStatement).setLong(3, 4L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
     private void mockOrderResultSet(Long orderId) throws SQLException {
         when(resultSet.getLong("id")).thenReturn(orderId);
         when(resultSet.getLong("user_id")).thenReturn(1L);
@@ -393,6 +775,9 @@ class OrderDaoImplTest {
         when(resultSet.getTimestamp("return_date")).thenReturn(null);
         when(resultSet.getObject("librarian_id", Long.class)).thenReturn(null);
         when(resultSet.getString("notes")).thenReturn(null);
+        when(resultSet.getTimestamp("overdue_at")).thenReturn(null);
+        when(resultSet.getObject("claimed_by", Long.class)).thenReturn(null);
+        when(resultSet.getTimestamp("claim_expires_at")).thenReturn(null);
     }
 
     private void mockOrderWithDetailsResultSet(boolean withLibrarian) throws SQLException {
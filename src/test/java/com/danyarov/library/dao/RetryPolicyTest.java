@@ -0,0 +1,158 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private static final SQLException DEADLOCK =
+            new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213);
+    private static final SQLException LOCK_WAIT_TIMEOUT =
+            new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0);
+
+    @Test
+    void execute_RetriesDeadlock_UntilCallSucceeds() throws SQLException {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        int result = retryPolicy.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw DEADLOCK;
+            }
+            return 1;
+        });
+
+        // Then
+        assertEquals(1, result);
+        assertEquals(3, calls.get());
+        assertEquals(2, retryPolicy.getRetries());
+        assertEquals(1, retryPolicy.getRecovered());
+        assertEquals(0, retryPolicy.getExhausted());
+    }
+
+    @Test
+    void execute_RethrowsLastFailure_WhenAttemptsAreExhausted() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When & Then
+        SQLException thrown = assertThrows(SQLException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw LOCK_WAIT_TIMEOUT;
+        }));
+        assertSame(LOCK_WAIT_TIMEOUT, thrown);
+        assertEquals(3, calls.get());
+        assertEquals(1, retryPolicy.getExhausted());
+    }
+
+    @Test
+    void execute_DoesNotRetryOtherFailures() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When & Then
+        assertThrows(SQLException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw new SQLException("Duplicate entry", "23000", 1062);
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(0, retryPolicy.getRetries());
+    }
+
+    @Test
+    void retry_RerunsWork_WhenWrappedFailureIsTransient_ButNotNestedCalls() {
+        // Given
+        AtomicInteger outer = new AtomicInteger();
+        AtomicInteger inner = new AtomicInteger();
+
+        // When
+        String result = retryPolicy.retry(() -> {
+            outer.incrementAndGet();
+            try {
+                // Nested work fails straight through to the outer operation
+                return retryPolicy.execute(() -> {
+                    if (inner.incrementAndGet() == 1) {
+                        throw DEADLOCK;
+                    }
+                    return "done";
+                });
+            } catch (SQLException e) {
+                throw new DatabaseException("Error updating order", e);
+            }
+        });
+
+        // Then
+        assertEquals("done", result);
+        assertEquals(2, outer.get());
+        assertEquals(2, inner.get());
+        assertEquals(1, retryPolicy.getRetries());
+    }
+
+    @Test
+    void execute_SharesRetryBudget_AcrossOperationsOfRequest() throws SQLException {
+        // Given: the first operation uses one of the request's two retries
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        RetryPolicy.beginRequest();
+        try {
+            retryPolicy.execute(() -> {
+                if (first.incrementAndGet() == 1) {
+                    throw DEADLOCK;
+                }
+                return 1;
+            });
+
+            // When & Then
+            assertThrows(SQLException.class, () -> retryPolicy.execute(() -> {
+                second.incrementAndGet();
+                throw DEADLOCK;
+            }));
+        } finally {
+            RetryPolicy.endRequest();
+        }
+        assertEquals(2, first.get());
+        assertEquals(2, second.get());
+        assertEquals(2, retryPolicy.getRetries());
+        assertEquals(1, retryPolicy.getExhausted());
+    }
+
+    @Test
+    void execute_GivesEachOperationFullBudget_AfterRequestEnds() throws SQLException {
+        // Given: a request that used up its budget
+        RetryPolicy.beginRequest();
+        assertThrows(SQLException.class, () -> retryPolicy.execute(() -> {
+            throw DEADLOCK;
+        }));
+        RetryPolicy.endRequest();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        int result = retryPolicy.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw DEADLOCK;
+            }
+            return 1;
+        });
+
+        // Then
+        assertEquals(1, result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void isTransient_RecognisesDeadlockAndLockWaitTimeout() {
+        assertTrue(RetryPolicy.isTransient(DEADLOCK));
+        assertTrue(RetryPolicy.isTransient(new DatabaseException("Error", LOCK_WAIT_TIMEOUT)));
+        assertFalse(RetryPolicy.isTransient(new SQLException("Syntax error", "42000", 1064)));
+        assertFalse(RetryPolicy.isTransient(new DatabaseException("Connection pool exhausted")));
+    }
+}
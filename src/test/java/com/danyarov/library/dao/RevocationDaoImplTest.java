@@ -0,0 +1,103 @@
+package com.danyarov.library.dao;
+
+import com.danyarov.library.dao.impl.RevocationDaoImpl;
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.*;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevocationDaoImplTest {
+
+    @Mock
+    private ConnectionPool connectionPool;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    private RevocationDaoImpl revocationDao;
+
+    @BeforeEach
+    void setUp() {
+        try (MockedStatic<ConnectionPool> mockedStatic = mockStatic(ConnectionPool.class)) {
+            mockedStatic.when(ConnectionPool::getInstance).thenReturn(connectionPool);
+            revocationDao = new RevocationDaoImpl();
+        }
+    }
+
+    @Test
+    void save_UpsertsRevocation() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        revocationDao.save(1L, 1000L);
+
+        // Then
+        verify(connection).prepareStatement(contains("ON DUPLICATE KEY UPDATE"));
+        verify(preparedStatement).setLong(1, 1L);
+        verify(preparedStatement).setLong(2, 1000L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findRevokedSince_ReturnsRevocationsByUser() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong("user_id")).thenReturn(1L, 2L);
+        when(resultSet.getLong("revoked_at")).thenReturn(1000L, 2000L);
+
+        // When
+        Map<Long, Long> result = revocationDao.findRevokedSince(500L);
+
+        // Then
+        assertEquals(Map.of(1L, 1000L, 2L, 2000L), result);
+        verify(preparedStatement).setLong(1, 500L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void findRevokedSince_ThrowsDatabaseException_WhenSQLExceptionOccurs() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenThrow(new SQLException("DB Error"));
+
+        // When & Then
+        assertThrows(DatabaseException.class, () -> revocationDao.findRevokedSince(0L));
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void deleteOlderThan_ReturnsDeletedCount() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(3);
+
+        // When
+        int deleted = revocationDao.deleteOlderThan(1000L);
+
+        // Then
+        assertEquals(3, deleted);
+        verify(preparedStatement).setLong(1, 1000L);
+        verify(connectionPool).releaseConnection(connection);
+    }
+}
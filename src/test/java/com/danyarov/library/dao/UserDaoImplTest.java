@@ -14,8 +14,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -171,6 +173,31 @@ class UserDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void forEach_ReleasesConnection_WhenActionFails() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString(anyString())).thenReturn("READER");
+        when(resultSet.getTimestamp(anyString())).thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+        List<User> streamed = new ArrayList<>();
+
+        // When
+        assertThrows(IllegalStateException.class, () -> userDao.forEach(user -> {
+            streamed.add(user);
+            throw new IllegalStateException("Client went away");
+        }));
+
+        // Then
+        assertEquals(1, streamed.size());
+        verify(preparedStatement).setFetchSize(Integer.MIN_VALUE);
+        verify(resultSet).close();
+        verify(connectionPool).releaseConnection(connection);
+    }
+
     @Test
     void save_CreatesNewUser_AndReturnsWithId() throws SQLException {
         // Given
@@ -260,6 +287,33 @@ class UserDaoImplTest {
         verify(connectionPool).releaseConnection(connection);
     }
 
+    @Test
+    void update_WritesOnlyChangedColumns_OfLoadedUser() throws SQLException {
+        // Given
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("test@example.com");
+        user.setRole(UserRole.READER);
+        user.setActive(true);
+        user.setVersion(2L);
+        user.markClean();
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When
+        user.setActive(false);
+        userDao.update(user);
+
+        // Then
+        verify(connection).prepareStatement("UPDATE users SET is_active = ?, version = version + 1, " +
+                "updated_at = CURRENT_TIMESTAMP WHERE id = ? AND version = ?");
+        verify(preparedStatement).setBoolean(1, false);
+        verify(preparedStatement).setLong(3, 2L);
+        assertEquals(3L, user.getVersion());
+    }
+
     @Test
     void deleteById_ReturnsTrue_WhenUserDeleted() throws SQLException {
         // Given
@@ -292,4 +346,56 @@ class UserDaoImplTest {
         assertFalse(result);
         verify(connectionPool).releaseConnection(connection);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findExistingEmails_ReturnsRegisteredEmails() throws SQLException {
+        // Given
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(contains("email IN (?, ?)"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("email")).thenReturn("Reader1@example.com");
+
+        // When
+        Set<String> result = userDao.findExistingEmails(List.of("reader1@example.com", "new@example.com"));
+
+        // Then
+        assertEquals(Set.of("Reader1@example.com"), result);
+        verify(preparedStatement).setString(1, "reader1@example.com");
+        verify(preparedStatement).setString(2, "new@example.com");
+        verify(connectionPool).releaseConnection(connection);
+    }
+
+    @Test
+    void saveAll_InsertsInBatches_AndAssignsGeneratedIds() throws SQLException {
+        // Given
+        UserDaoImpl batchingDao;
+        try (MockedStatic<ConnectionPool> mockedStatic = mockStatic(ConnectionPool.class)) {
+            mockedStatic.when(ConnectionPool::getInstance).thenReturn(connectionPool);
+            batchingDao = new UserDaoImpl(2);
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setEmail("student" + i + "@example.com");
+            user.setRole(UserRole.READER);
+            users.add(user);
+        }
+
+        when(connectionPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(preparedStatement);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, true);
+        when(resultSet.getLong(1)).thenReturn(10L, 11L, 12L);
+
+        // When
+        List<User> result = batchingDao.saveAll(users);
+
+        // Then
+        assertEquals(List.of(10L, 11L, 12L), result.stream().map(User::getId).toList());
+        verify(preparedStatement, times(3)).addBatch();
+        verify(preparedStatement, times(2)).executeBatch();
+        verify(connection, times(2)).commit();
+        verify(connectionPool).releaseConnection(connection);
+    }
+}
@@ -5,6 +5,7 @@ import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.model.Book;
 import com.danyarov.library.model.Page;
 import com.danyarov.library.service.impl.BookServiceImpl;
+import com.danyarov.library.util.CatalogVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,7 +15,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,12 +28,14 @@ class BookServiceImplTest {
 
     @Mock
     private BookDao bookDao;
+    @Mock
+    private CatalogVersion catalogVersion;
 
     private BookServiceImpl bookService;
 
     @BeforeEach
     void setUp() {
-        bookService = new BookServiceImpl(bookDao);
+        bookService = new BookServiceImpl(bookDao, catalogVersion);
     }
 
     @Test
@@ -227,6 +232,25 @@ class BookServiceImplTest {
                 book.getTotalCopies() == 1 && book.getAvailableCopies() == 1));
     }
 
+    @Test
+    void saveAll_AppliesDefaults_AndBumpsCatalogVersionOnce() {
+        // Given
+        Book first = new Book();
+        Book second = new Book();
+        second.setTotalCopies(4);
+        List<Book> books = Arrays.asList(first, second);
+        when(bookDao.saveAll(books)).thenReturn(books);
+
+        // When
+        List<Book> result = bookService.saveAll(books);
+
+        // Then
+        assertSame(books, result);
+        assertEquals(1, first.getAvailableCopies());
+        assertEquals(4, second.getAvailableCopies());
+        verify(catalogVersion).bump();
+    }
+
     @Test
     void save_CreatesNewBook_WithProvidedValues() {
         // Given
@@ -262,7 +286,7 @@ class BookServiceImplTest {
         updateBook.setTitle("New Title");
 
         when(bookDao.findById(1L)).thenReturn(Optional.of(existingBook));
-        when(bookDao.update(updateBook)).thenReturn(updateBook);
+        when(bookDao.update(existingBook)).thenReturn(existingBook);
 
         // When
         Book result = bookService.update(updateBook);
@@ -270,7 +294,59 @@ class BookServiceImplTest {
         // Then
         assertEquals("New Title", result.getTitle());
         verify(bookDao).findById(1L);
-        verify(bookDao).update(updateBook);
+        verify(bookDao).update(existingBook);
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void update_AppliesOnlyEditedFields_AndChecksEditedVersion() {
+        // Given
+        Book storedBook = new Book();
+        storedBook.setId(1L);
+        storedBook.setTitle("Dune");
+        storedBook.setTotalCopies(5);
+        storedBook.setAvailableCopies(2);
+        storedBook.setVersion(7L);
+        storedBook.markClean();
+
+        Book editedBook = new Book();
+        editedBook.setId(1L);
+        editedBook.setTitle("Dune");
+        editedBook.setTotalCopies(6);
+        editedBook.setVersion(6L);
+
+        when(bookDao.findById(1L)).thenReturn(Optional.of(storedBook));
+        when(bookDao.update(storedBook)).thenReturn(storedBook);
+
+        // When
+        bookService.update(editedBook);
+
+        // Then
+        verify(bookDao).update(argThat(book -> book.getDirtyColumns().equals(Set.of("total_copies"))
+                && book.getAvailableCopies() == 2
+                && book.getVersion() == 6L));
+    }
+
+    @Test
+    void update_SkipsWrite_WhenNothingChanged() {
+        // Given
+        Book storedBook = new Book();
+        storedBook.setId(1L);
+        storedBook.setTitle("Dune");
+        storedBook.markClean();
+
+        Book editedBook = new Book();
+        editedBook.setId(1L);
+        editedBook.setTitle("Dune");
+
+        when(bookDao.findById(1L)).thenReturn(Optional.of(storedBook));
+
+        // When
+        bookService.update(editedBook);
+
+        // Then
+        verify(bookDao, never()).update(any());
+        verify(catalogVersion, never()).bump();
     }
 
     @Test
@@ -287,6 +363,7 @@ class BookServiceImplTest {
 
         assertTrue(exception.getMessage().contains("Book not found"));
         verify(bookDao, never()).update(any());
+        verify(catalogVersion, never()).bump();
     }
 
     @Test
@@ -301,6 +378,7 @@ class BookServiceImplTest {
         // Then
         assertTrue(result);
         verify(bookDao).deleteById(bookId);
+        verify(catalogVersion).bump();
     }
 
     @Test
@@ -315,5 +393,18 @@ class BookServiceImplTest {
         // Then
         assertFalse(result);
         verify(bookDao).deleteById(bookId);
+        verify(catalogVersion, never()).bump();
+    }
+
+    @Test
+    void forEach_PassesActionToDao() {
+        // Given
+        Consumer<Book> action = book -> { };
+
+        // When
+        bookService.forEach(action);
+
+        // Then
+        verify(bookDao).forEach(action);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.Book;
+import com.danyarov.library.model.CatalogFormat;
+import com.danyarov.library.model.ImportReport;
+import com.danyarov.library.service.impl.CatalogImportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogImportServiceImplTest {
+
+    @Mock
+    private BookService bookService;
+
+    @Captor
+    private ArgumentCaptor<List<Book>> saved;
+
+    private ExecutorService executor;
+    private CatalogImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        // Two rows per chunk and two chunks in flight, so small files exercise the pipeline
+        importService = new CatalogImportServiceImpl(bookService, executor, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void importCatalog_SavesValidCsvRowsInFileOrder_AndReportsRejectedRows() {
+        // Given
+        String csv = "id,title,author,isbn,genre,publication_year,total_copies\r\n" +
+                "7,1984,George Orwell,978-0452284234,Dystopian Fiction,1949,3\r\n" +
+                "8,\"War and Peace, Vol. 1\",Leo Tolstoy,,Classic,1869,\r\n" +
+                "9,Untitled,,,,,\r\n" +
+                "10,Dune,Frank Herbert,978-0441013593,Science Fiction,1965,2\r\n" +
+                "11,Emma,Jane Austen,,Classic,not a year,1\r\n";
+        when(bookService.findExistingIsbns(any())).thenReturn(Set.of());
+
+        // When
+        ImportReport report = importService.importCatalog(new StringReader(csv), "books.csv", CatalogFormat.CSV);
+
+        // Then
+        assertEquals(ImportReport.Status.COMPLETED, report.getStatus());
+        assertEquals(5, report.getRowsRead());
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(List.of("Line 4: Author is required", "Line 6: Publication year must be a number"),
+                report.getErrors());
+
+        verify(bookService, times(2)).saveAll(saved.capture());
+        List<String> titles = saved.getAllValues().stream().flatMap(List::stream).map(Book::getTitle).toList();
+        assertEquals(List.of("1984", "War and Peace, Vol. 1", "Dune"), titles);
+        Book first = saved.getAllValues().get(0).get(0);
+        assertNull(first.getId());
+        assertEquals("9780452284234", first.getIsbn());
+        assertEquals(1949, first.getPublicationYear());
+        assertEquals(3, first.getTotalCopies());
+    }
+
+    @Test
+    void importCatalog_SkipsIsbnsAlreadyInCatalogOrRepeatedInFile() {
+        // Given
+        String csv = "title,author,isbn\n" +
+                "Dune,Frank Herbert,978-0-441-01359-3\n" +
+                "Dune,Frank Herbert,9780441013593\n" +
+                "1984,George Orwell,978-0452284234\n";
+        when(bookService.findExistingIsbns(any())).thenReturn(Set.of())
+                .thenReturn(Set.of("978-0452284234"));
+
+        // When
+        ImportReport report = importService.importCatalog(new StringReader(csv), "books.csv", CatalogFormat.CSV);
+
+        // Then
+        assertEquals(2, report.getDuplicates());
+        assertEquals(1, report.getImported());
+        verify(bookService).findExistingIsbns(Set.of("978-0-441-01359-3", "9780441013593"));
+        verify(bookService).findExistingIsbns(Set.of("978-0452284234", "9780452284234"));
+        verify(bookService).saveAll(argThat(books -> books.size() == 1
+                && "9780441013593".equals(books.get(0).getIsbn())));
+    }
+
+    @Test
+    void importCatalog_ParsesMarcRecords() {
+        // Given
+        String marc = "=LDR  00000nam  2200000 a 4500\n" +
+                "=020  \\\\$a0061120081 (pbk.)\n" +
+                "=100  1\\$aLee, Harper.\n" +
+                "=245  10$aTo kill a mockingbird /$cHarper Lee.\n" +
+                "=264  \\1$aNew York :$bHarper,$c[1960]\n" +
+                "=520  \\\\$aA story of racial injustice.\n" +
+                "=650  \\0$aLegal stories.\n" +
+                "\n" +
+                "=LDR  00000nam  2200000 a 4500\n" +
+                "=020  \\\\$a1234567890\n" +
+                "=100  1\\$aNobody.\n" +
+                "=245  10$aBad checksum.\n";
+        when(bookService.findExistingIsbns(any())).thenReturn(Set.of());
+
+        // When
+        ImportReport report = importService.importCatalog(new StringReader(marc), "books.mrk", CatalogFormat.MARC);
+
+        // Then
+        assertEquals(2, report.getRowsRead());
+        assertEquals(1, report.getImported());
+        assertEquals(List.of("Line 9: Invalid ISBN: 1234567890"), report.getErrors());
+        verify(bookService).saveAll(saved.capture());
+        Book book = saved.getValue().get(0);
+        assertEquals("To kill a mockingbird", book.getTitle());
+        assertEquals("Lee, Harper", book.getAuthor());
+        assertEquals("0061120081", book.getIsbn());
+        assertEquals("Legal stories", book.getGenre());
+        assertEquals("A story of racial injustice.", book.getDescription());
+        assertEquals(1960, book.getPublicationYear());
+    }
+
+    @Test
+    void importCatalog_StopsAndReportsFailure_WhenBatchCannotBeWritten() {
+        // Given
+        String csv = "title,author\nA,One\nB,Two\nC,Three\nD,Four\nE,Five\n";
+        when(bookService.saveAll(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DatabaseException("Error saving books after 0 were committed"));
+
+        // When
+        ImportReport report = importService.importCatalog(new StringReader(csv), "books.csv", CatalogFormat.CSV);
+
+        // Then
+        assertEquals(ImportReport.Status.FAILED, report.getStatus());
+        assertEquals("Error saving books after 0 were committed", report.getFailure());
+        assertEquals(2, report.getImported());
+        verify(bookService, times(2)).saveAll(any());
+    }
+
+    @Test
+    void importCatalog_Fails_WhenCsvHasNoTitleColumn() {
+        // When
+        ImportReport report = importService.importCatalog(new StringReader("name,author\nA,B\n"),
+                "books.csv", CatalogFormat.CSV);
+
+        // Then
+        assertEquals(ImportReport.Status.FAILED, report.getStatus());
+        assertEquals("Missing column: title", report.getFailure());
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void submit_ImportsFileInBackground_AndDeletesIt(@TempDir Path dir) throws Exception {
+        // Given
+        Path file = Files.writeString(dir.resolve("upload.tmp"), "title,author\n1984,George Orwell\n");
+        importService = new CatalogImportServiceImpl(bookService, Runnable::run, 2, 2);
+
+        // When
+        ImportReport report = importService.submit(file, "books.csv", CatalogFormat.CSV);
+
+        // Then
+        assertEquals(ImportReport.Status.COMPLETED, report.getStatus());
+        assertEquals(1, report.getImported());
+        assertFalse(Files.exists(file));
+        assertSame(report, importService.findReport(report.getId()).orElseThrow());
+    }
+}
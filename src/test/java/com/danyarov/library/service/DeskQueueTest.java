@@ -0,0 +1,89 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.dao.TransactionManager;
+import com.danyarov.library.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeskQueueTest {
+
+    /** Runs the work directly; transactions are exercised against a real database only */
+    private static final TransactionManager DIRECT = new TransactionManager() {
+        @Override
+        public <T> T inTransaction(Supplier<T> work) {
+            return work.get();
+        }
+    };
+
+    @Mock
+    private OrderDao orderDao;
+
+    private DeskQueue deskQueue;
+
+    @BeforeEach
+    void setUp() {
+        deskQueue = new DeskQueue(orderDao, DIRECT, 15, 10);
+    }
+
+    @Test
+    void claimNext_ClaimsLockedBatchUntilLeaseRunsOut() {
+        // Given
+        when(orderDao.lockClaimable(any(), eq(10))).thenReturn(List.of(4L, 7L));
+        when(orderDao.claim(eq(List.of(4L, 7L)), eq(3L), any())).thenReturn(2);
+
+        // When
+        LocalDateTime before = LocalDateTime.now();
+        int claimed = deskQueue.claimNext(3L);
+
+        // Then
+        assertEquals(2, claimed);
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(orderDao).lockClaimable(now.capture(), eq(10));
+        verify(orderDao).claim(any(), eq(3L), expiresAt.capture());
+        assertFalse(now.getValue().isBefore(before));
+        assertEquals(now.getValue().plusMinutes(15), expiresAt.getValue());
+    }
+
+    @Test
+    void claimNext_ReturnsZero_WhenQueueIsEmpty() {
+        // Given
+        when(orderDao.lockClaimable(any(), eq(10))).thenReturn(List.of());
+        when(orderDao.claim(eq(List.of()), eq(3L), any())).thenReturn(0);
+
+        // When
+        int claimed = deskQueue.claimNext(3L);
+
+        // Then
+        assertEquals(0, claimed);
+    }
+
+    @Test
+    void findClaimed_ReadsOnlyTheDesksOwnClaims() {
+        // Given
+        Order order = new Order();
+        order.setId(4L);
+        when(orderDao.findClaimedWithDetails(eq(3L), any())).thenReturn(List.of(order));
+
+        // When
+        List<Order> claimed = deskQueue.findClaimed(3L);
+
+        // Then
+        assertEquals(List.of(order), claimed);
+        verify(orderDao, never()).findAllWithDetails();
+    }
+}
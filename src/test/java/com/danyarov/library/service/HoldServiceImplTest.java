@@ -0,0 +1,111 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.BookDao;
+import com.danyarov.library.dao.BookHoldDao;
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.exception.ServiceException;
+import com.danyarov.library.model.Book;
+import com.danyarov.library.model.BookHold;
+import com.danyarov.library.model.HoldStatus;
+import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderType;
+import com.danyarov.library.service.impl.HoldServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceImplTest {
+
+    @Mock
+    private BookHoldDao bookHoldDao;
+    @Mock
+    private BookDao bookDao;
+    @Mock
+    private OrderDao orderDao;
+
+    private HoldServiceImpl holdService;
+
+    @BeforeEach
+    void setUp() {
+        holdService = new HoldServiceImpl(bookHoldDao, bookDao, orderDao);
+    }
+
+    @Test
+    void placeHold_AddsReaderToWaitlist_WhenNoCopiesAvailable() {
+        // Given
+        when(bookDao.findById(1L)).thenReturn(Optional.of(book(0)));
+        when(orderDao.findActiveOrderByUserAndBook(7L, 1L)).thenReturn(Optional.empty());
+        when(bookHoldDao.findWaiting(7L, 1L)).thenReturn(Optional.empty());
+        when(bookHoldDao.save(any(BookHold.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        BookHold hold = holdService.placeHold(7L, 1L, OrderType.HOME);
+
+        // Then
+        assertEquals(HoldStatus.WAITING, hold.getStatus());
+        assertEquals(7L, hold.getUserId());
+        assertEquals(OrderType.HOME, hold.getOrderType());
+    }
+
+    @Test
+    void placeHold_ThrowsException_WhenCopiesAreAvailable() {
+        // Given
+        when(bookDao.findById(1L)).thenReturn(Optional.of(book(2)));
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> holdService.placeHold(7L, 1L, OrderType.HOME));
+        assertTrue(exception.getMessage().contains("request it instead"));
+        verify(bookHoldDao, never()).save(any());
+    }
+
+    @Test
+    void placeHold_ThrowsException_WhenReaderHasActiveOrder() {
+        // Given
+        when(bookDao.findById(1L)).thenReturn(Optional.of(book(0)));
+        when(orderDao.findActiveOrderByUserAndBook(7L, 1L)).thenReturn(Optional.of(new Order()));
+
+        // When & Then
+        assertThrows(ServiceException.class, () -> holdService.placeHold(7L, 1L, OrderType.HOME));
+        verify(bookHoldDao, never()).save(any());
+    }
+
+    @Test
+    void placeHold_ThrowsException_WhenReaderIsAlreadyWaiting() {
+        // Given
+        when(bookDao.findById(1L)).thenReturn(Optional.of(book(0)));
+        when(orderDao.findActiveOrderByUserAndBook(7L, 1L)).thenReturn(Optional.empty());
+        when(bookHoldDao.findWaiting(7L, 1L)).thenReturn(Optional.of(new BookHold(7L, 1L, OrderType.HOME)));
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> holdService.placeHold(7L, 1L, OrderType.READING_ROOM));
+        assertTrue(exception.getMessage().contains("already on the waitlist"));
+    }
+
+    @Test
+    void cancelHold_ThrowsException_WhenHoldIsNotWaiting() {
+        // Given
+        when(bookHoldDao.cancel(30L, 7L)).thenReturn(false);
+
+        // When & Then
+        assertThrows(ServiceException.class, () -> holdService.cancelHold(30L, 7L));
+    }
+
+    private static Book book(int availableCopies) {
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Dune");
+        book.setAvailableCopies(availableCopies);
+        return book;
+    }
+}
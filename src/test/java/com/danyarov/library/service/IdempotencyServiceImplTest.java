@@ -0,0 +1,213 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.IdempotencyDao;
+import com.danyarov.library.exception.ServiceException;
+import com.danyarov.library.model.IdempotencyRecord;
+import com.danyarov.library.service.impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    private static final String KEY = "3f2b8c1e-5d6a-4f7b-9c0d-1e2f3a4b5c6d";
+
+    @Mock
+    private IdempotencyDao idempotencyDao;
+    @Mock
+    private JobLeases jobLeases;
+
+    private IdempotencyServiceImpl idempotencyService;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyDao, jobLeases, 100, 60, 60);
+    }
+
+    @Test
+    void execute_RunsActionOnce_AndReplaysResultFromMemory() {
+        // Given
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(true);
+
+        // When
+        String first = idempotencyService.execute(KEY, "issue-order:1", this::issue);
+        String repeat = idempotencyService.execute(KEY, "issue-order:1", this::issue);
+
+        // Then
+        assertEquals("msg.order_issued", first);
+        assertEquals("msg.order_issued", repeat);
+        assertEquals(1, runs.get());
+        verify(idempotencyDao).claim(eq(KEY), eq("issue-order:1"), anyLong());
+        verify(idempotencyDao).complete(KEY, "msg.order_issued");
+        verifyNoMoreInteractions(idempotencyDao);
+    }
+
+    @Test
+    void execute_ReturnsStoredResult_WhenKeyWasClaimedElsewhere() {
+        // Given
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(false);
+        when(idempotencyDao.find(KEY)).thenReturn(Optional.of(
+                new IdempotencyRecord(KEY, "issue-order:1", "msg.order_issued", 1000L)));
+
+        // When
+        String result = idempotencyService.execute(KEY, "issue-order:1", this::issue);
+
+        // Then
+        assertEquals("msg.order_issued", result);
+        assertEquals(0, runs.get());
+        verify(idempotencyDao, never()).complete(any(), any());
+    }
+
+    @Test
+    void execute_Rejects_WhenKeyIsStillInProgressElsewhere() {
+        // Given
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(false);
+        when(idempotencyDao.find(KEY)).thenReturn(Optional.of(
+                new IdempotencyRecord(KEY, "issue-order:1", null, System.currentTimeMillis())));
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> idempotencyService.execute(KEY, "issue-order:1", this::issue));
+        assertEquals("This request is already being processed", exception.getMessage());
+        assertEquals(0, runs.get());
+        verify(idempotencyDao, never()).takeOver(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void execute_TakesOverStaleClaim_AndRunsAction() {
+        // Given: a claim without a result, made long before the claim timeout
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(false);
+        when(idempotencyDao.find(KEY)).thenReturn(Optional.of(
+                new IdempotencyRecord(KEY, "issue-order:1", null, 1000L)));
+        when(idempotencyDao.takeOver(eq(KEY), anyLong(), anyLong())).thenReturn(true);
+
+        // When
+        String result = idempotencyService.execute(KEY, "issue-order:1", this::issue);
+
+        // Then
+        assertEquals("msg.order_issued", result);
+        assertEquals(1, runs.get());
+        verify(idempotencyDao).complete(KEY, "msg.order_issued");
+    }
+
+    @Test
+    void execute_Rejects_WhenAnotherNodeTookOverStaleClaimFirst() {
+        // Given
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(false);
+        when(idempotencyDao.find(KEY)).thenReturn(Optional.of(
+                new IdempotencyRecord(KEY, "issue-order:1", null, 1000L)));
+        when(idempotencyDao.takeOver(eq(KEY), anyLong(), anyLong())).thenReturn(false);
+
+        // When & Then
+        assertThrows(ServiceException.class, () -> idempotencyService.execute(KEY, "issue-order:1", this::issue));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void execute_Rejects_WhenKeyWasUsedForAnotherRequest() {
+        // Given
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(true);
+        idempotencyService.execute(KEY, "issue-order:1", this::issue);
+
+        // When & Then
+        assertThrows(ServiceException.class,
+                () -> idempotencyService.execute(KEY, "return-order:1", this::issue));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_ReleasesKey_WhenActionFails_SoRetryRunsAgain() {
+        // Given
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(true);
+
+        // When
+        assertThrows(ServiceException.class, () -> idempotencyService.execute(KEY, "issue-order:1", () -> {
+            throw new ServiceException("Order cannot be issued");
+        }));
+        String retry = idempotencyService.execute(KEY, "issue-order:1", this::issue);
+
+        // Then
+        assertEquals("msg.order_issued", retry);
+        verify(idempotencyDao).release(eq(KEY), anyLong());
+        verify(idempotencyDao, times(2)).claim(eq(KEY), eq("issue-order:1"), anyLong());
+    }
+
+    @Test
+    void execute_RepeatWaitsForRequestInFlight() throws Exception {
+        // Given
+        when(idempotencyDao.claim(eq(KEY), eq("issue-order:1"), anyLong())).thenReturn(true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> first = executor.submit(() -> idempotencyService.execute(KEY, "issue-order:1", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return issue();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // When
+            CompletableFuture<String> repeat = CompletableFuture.supplyAsync(
+                    () -> idempotencyService.execute(KEY, "issue-order:1", this::issue));
+            release.countDown();
+
+            // Then
+            assertEquals("msg.order_issued", first.get(5, TimeUnit.SECONDS));
+            assertEquals("msg.order_issued", repeat.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_RunsDirectly_WithoutValidKey() {
+        // When
+        idempotencyService.execute(null, "issue-order:1", this::issue);
+        idempotencyService.execute("<script>", "issue-order:1", this::issue);
+
+        // Then
+        assertEquals(2, runs.get());
+        verifyNoInteractions(idempotencyDao);
+    }
+
+    private String issue() {
+        runs.incrementAndGet();
+        return "msg.order_issued";
+    }
+
+    @Test
+    void cleanup_DeletesExpiredKeys_OnlyOnNodeHoldingTheLease() {
+        // Given
+        when(jobLeases.hold("idempotency-cleanup")).thenReturn(false, true);
+
+        // When
+        idempotencyService.cleanup();
+        idempotencyService.cleanup();
+
+        // Then
+        verify(idempotencyDao, times(1)).deleteOlderThan(anyLong());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.JobLeaseDao;
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobLeasesTest {
+
+    private static final long LEASE_MS = 60_000;
+
+    @Mock
+    private JobLeaseDao jobLeaseDao;
+
+    private JobLeases jobLeases;
+
+    @BeforeEach
+    void setUp() {
+        jobLeases = new JobLeases(jobLeaseDao, LEASE_MS);
+    }
+
+    @Test
+    void hold_TakesLeaseOnFirstCall_AndAnswersFromMemoryAfterwards() {
+        // Given
+        when(jobLeaseDao.acquire(eq("orders-overdue"), anyString(), eq(LEASE_MS))).thenReturn(7L);
+
+        // When & Then
+        assertTrue(jobLeases.hold("orders-overdue"));
+        assertTrue(jobLeases.hold("orders-overdue"));
+        assertTrue(jobLeases.isHeld("orders-overdue"));
+        verify(jobLeaseDao, times(1)).acquire(any(), any(), anyLong());
+    }
+
+    @Test
+    void heartbeat_RenewsUnderLeaseToken() {
+        // Given
+        when(jobLeaseDao.acquire(eq("orders-overdue"), anyString(), eq(LEASE_MS))).thenReturn(7L);
+        jobLeases.hold("orders-overdue");
+        when(jobLeaseDao.renew(eq("orders-overdue"), anyString(), eq(7L), eq(LEASE_MS))).thenReturn(true);
+
+        // When
+        jobLeases.heartbeat();
+
+        // Then
+        assertTrue(jobLeases.isHeld("orders-overdue"));
+        verify(jobLeaseDao, times(1)).acquire(any(), any(), anyLong());
+    }
+
+    @Test
+    void heartbeat_DropsLease_WhenAnotherNodeTookIt() {
+        // Given
+        when(jobLeaseDao.acquire(eq("orders-overdue"), anyString(), eq(LEASE_MS))).thenReturn(7L, 0L);
+        jobLeases.hold("orders-overdue");
+        when(jobLeaseDao.renew(eq("orders-overdue"), anyString(), eq(7L), eq(LEASE_MS))).thenReturn(false);
+
+        // When
+        jobLeases.heartbeat();
+
+        // Then
+        assertFalse(jobLeases.hold("orders-overdue"));
+    }
+
+    @Test
+    void heartbeat_TakesOverLease_WhenHolderLetItExpire() {
+        // Given
+        when(jobLeaseDao.acquire(eq("orders-overdue"), anyString(), eq(LEASE_MS))).thenReturn(0L, 8L);
+        assertFalse(jobLeases.hold("orders-overdue"));
+
+        // When
+        jobLeases.heartbeat();
+
+        // Then
+        assertTrue(jobLeases.hold("orders-overdue"));
+    }
+
+    @Test
+    void isHeld_ReturnsFalse_OnceLeasePeriodPassesWithoutRenewal() throws InterruptedException {
+        // Given
+        jobLeases = new JobLeases(jobLeaseDao, 20);
+        when(jobLeaseDao.acquire(eq("orders-overdue"), anyString(), eq(20L))).thenReturn(7L);
+        assertTrue(jobLeases.hold("orders-overdue"));
+        when(jobLeaseDao.renew(any(), any(), anyLong(), anyLong())).thenThrow(new DatabaseException("Error renewing job lease"));
+
+        // When
+        Thread.sleep(30);
+        jobLeases.heartbeat();
+
+        // Then
+        assertFalse(jobLeases.isHeld("orders-overdue"));
+    }
+
+    @Test
+    void releaseAll_ReleasesHeldLeases() {
+        // Given
+        when(jobLeaseDao.acquire(eq("orders-overdue"), anyString(), eq(LEASE_MS))).thenReturn(7L);
+        jobLeases.hold("orders-overdue");
+
+        // When
+        jobLeases.releaseAll();
+
+        // Then
+        verify(jobLeaseDao).release(eq("orders-overdue"), anyString(), eq(7L));
+        assertFalse(jobLeases.isHeld("orders-overdue"));
+    }
+}
@@ -0,0 +1,189 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderStatus;
+import com.danyarov.library.model.OrderType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExpiryTest {
+
+    @Mock
+    private OrderDao orderDao;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private JobLeases jobLeases;
+
+    private OrderExpiry orderExpiry;
+
+    @BeforeEach
+    void setUp() {
+        // Reading room orders expire after 60 minutes, home orders after 120
+        orderExpiry = new OrderExpiry(orderDao, orderService, jobLeases, 60, 120, 10, 2);
+    }
+
+    @Test
+    void expireDue_ReturnsAtOnce_WhileAnotherTickIsGoing() throws Exception {
+        // Given: a tick blocked while checking the lease
+        CountDownLatch checking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jobLeases.hold(OrderExpiry.JOB_NAME)).thenAnswer(invocation -> {
+            checking.countDown();
+            release.await();
+            return true;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = executor.submit(orderExpiry::expireDue);
+            checking.await();
+
+            // When
+            orderExpiry.expireDue();
+
+            // Then
+            release.countDown();
+            first.get();
+            verify(jobLeases, times(1)).hold(OrderExpiry.JOB_NAME);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void expireDue_ExpiresOverdueOrdersInBatchesPerType() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        stubPending(true,
+                pending(1L, OrderType.READING_ROOM, now.minusMinutes(61)),
+                pending(2L, OrderType.READING_ROOM, now.minusMinutes(90)),
+                pending(3L, OrderType.READING_ROOM, now.minusMinutes(100)),
+                pending(4L, OrderType.HOME, now.minusMinutes(90)),
+                pending(5L, OrderType.HOME, now.minusMinutes(121)));
+        orderExpiry.refresh();
+        when(jobLeases.hold(OrderExpiry.JOB_NAME)).thenReturn(true);
+
+        // When
+        orderExpiry.expireDue();
+
+        // Then
+        verify(orderDao).expirePending(eq(OrderType.READING_ROOM), any(), eq(List.of(1L, 2L)));
+        verify(orderDao).expirePending(eq(OrderType.READING_ROOM), any(), eq(List.of(3L)));
+        verify(orderDao).expirePending(eq(OrderType.HOME), any(), eq(List.of(5L)));
+        verifyNoMoreInteractions(orderDao);
+        assertEquals(1, orderExpiry.size());
+    }
+
+    @Test
+    void refresh_ReadsOnlyNewOrders_AndSkipsOrdersAlreadyScheduled() {
+        // Given
+        Order order = pending(1L, OrderType.HOME, LocalDateTime.now());
+        stubPending(true, order);
+        orderExpiry.refresh();
+        stubPending(false, order, pending(2L, OrderType.HOME, LocalDateTime.now()));
+
+        // When
+        orderExpiry.refresh();
+
+        // Then
+        verify(orderDao).forEachPendingSince(isNull(), any());
+        verify(orderDao).forEachPendingSince(notNull(), any());
+        assertEquals(2, orderExpiry.size());
+    }
+
+    @Test
+    void expireDue_KeepsOrdersForLater_WhenUpdateFails() {
+        // Given
+        stubPending(true, pending(1L, OrderType.READING_ROOM, LocalDateTime.now().minusHours(2)));
+        orderExpiry.refresh();
+        when(jobLeases.hold(OrderExpiry.JOB_NAME)).thenReturn(true);
+        when(orderDao.expirePending(any(), any(), any())).thenThrow(new DatabaseException("Error expiring pending orders"));
+
+        // When
+        orderExpiry.expireDue();
+
+        // Then
+        assertEquals(1, orderExpiry.size());
+    }
+
+    @Test
+    void expireDue_DropsDueOrders_WhileAnotherNodeRunsTheJob_AndReloadsOnTakeover() {
+        // Given
+        stubPending(true,
+                pending(1L, OrderType.READING_ROOM, LocalDateTime.now().minusHours(2)),
+                pending(2L, OrderType.HOME, LocalDateTime.now()));
+        orderExpiry.refresh();
+        when(jobLeases.hold(OrderExpiry.JOB_NAME)).thenReturn(false, true);
+
+        // When
+        orderExpiry.expireDue();
+
+        // Then: only the order not yet due is kept
+        verify(orderDao, never()).expirePending(any(), any(), any());
+        assertEquals(1, orderExpiry.size());
+
+        // When this node takes over
+        orderExpiry.expireDue();
+
+        // Then: the dropped order is loaded again and expired
+        verify(orderDao, times(2)).forEachPendingSince(isNull(), any());
+        verify(orderDao).expirePending(eq(OrderType.READING_ROOM), any(), eq(List.of(1L)));
+        assertEquals(1, orderExpiry.size());
+    }
+
+    @Test
+    void expireDue_DoesNotReload_WhenNothingWasDropped() {
+        // Given
+        stubPending(true, pending(1L, OrderType.HOME, LocalDateTime.now()));
+        orderExpiry.refresh();
+        when(jobLeases.hold(OrderExpiry.JOB_NAME)).thenReturn(false, true);
+
+        // When
+        orderExpiry.expireDue();
+        orderExpiry.expireDue();
+
+        // Then
+        verify(orderDao).forEachPendingSince(isNull(), any());
+        verify(orderDao, never()).expirePending(any(), any(), any());
+        assertEquals(1, orderExpiry.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubPending(boolean initial, Order... orders) {
+        doAnswer(invocation -> {
+            Consumer<Order> action = invocation.getArgument(1);
+            for (Order order : orders) {
+                action.accept(order);
+            }
+            return null;
+        }).when(orderDao).forEachPendingSince(initial ? isNull() : notNull(), any(Consumer.class));
+    }
+
+    private static Order pending(Long id, OrderType orderType, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderType(orderType);
+        order.setStatus(OrderStatus.PENDING);
+        order.setOrderDate(orderDate);
+        return order;
+    }
+}
@@ -0,0 +1,126 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.exception.ServiceException;
+import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderRequest;
+import com.danyarov.library.model.OrderType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIntakeTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private OrderIntake intake;
+
+    @AfterEach
+    void tearDown() {
+        if (intake != null) {
+            intake.shutdown();
+        }
+    }
+
+    @Test
+    void createOrder_CreatesDirectly_WhenNoPartitions() {
+        // Given
+        intake = new OrderIntake(orderService, 0, 256, 10, 1000);
+        Order order = new Order();
+        when(orderService.createOrder(1L, 2L, OrderType.HOME)).thenReturn(order);
+
+        // When
+        Order result = intake.createOrder(1L, 2L, OrderType.HOME);
+
+        // Then
+        assertSame(order, result);
+        verify(orderService, never()).createOrders(anyLong(), anyList());
+    }
+
+    @Test
+    void submit_AdmitsRequestsQueuedDuringAWrite_InOneBatch() throws Exception {
+        // Given
+        intake = new OrderIntake(orderService, 1, 256, 100, 1000);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<OrderRequest> requests = invocation.getArgument(1);
+            batchSizes.add(requests.size());
+            writing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            requests.forEach(request -> request.getResult().complete(new Order()));
+            return null;
+        }).when(orderService).createOrders(eq(7L), anyList());
+
+        // When
+        CompletableFuture<Order> first = intake.submit(new OrderRequest(1L, 7L, OrderType.HOME));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Order>> queued = new ArrayList<>();
+        for (long user = 2; user <= 4; user++) {
+            queued.add(intake.submit(new OrderRequest(user, 7L, OrderType.HOME)));
+        }
+        release.countDown();
+
+        // Then
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<Order> result : queued) {
+            assertNotNull(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(1, 3), batchSizes);
+    }
+
+    @Test
+    void createOrder_RethrowsRefusal() {
+        // Given
+        intake = new OrderIntake(orderService, 2, 256, 100, 1000);
+        doAnswer(invocation -> {
+            List<OrderRequest> requests = invocation.getArgument(1);
+            requests.forEach(request -> request.getResult().completeExceptionally(
+                    new ServiceException("User already has an active order for this book")));
+            return null;
+        }).when(orderService).createOrders(eq(7L), anyList());
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> intake.createOrder(1L, 7L, OrderType.HOME));
+        assertEquals("User already has an active order for this book", exception.getMessage());
+    }
+
+    @Test
+    void submit_RefusesRequest_WhenPartitionIsFull() throws Exception {
+        // Given
+        intake = new OrderIntake(orderService, 1, 256, 1, 1000);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(orderService).createOrders(eq(7L), anyList());
+
+        intake.submit(new OrderRequest(1L, 7L, OrderType.HOME));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        intake.submit(new OrderRequest(2L, 7L, OrderType.HOME));
+
+        // When & Then
+        try {
+            assertThrows(ServiceException.class, () -> intake.submit(new OrderRequest(3L, 7L, OrderType.HOME)));
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -1,20 +1,32 @@
 package com.danyarov.library.service;
 
+import com.danyarov.library.dao.BookCopyDao;
 import com.danyarov.library.dao.BookDao;
+import com.danyarov.library.dao.BookHoldDao;
 import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.dao.TransactionManager;
+import com.danyarov.library.exception.DatabaseException;
 import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.model.*;
 import com.danyarov.library.service.impl.OrderServiceImpl;
+import com.danyarov.library.util.CatalogVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -23,16 +35,30 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class OrderServiceImplTest {
 
+    /** Runs the work directly; transactions are exercised against a real database only */
+    private static final TransactionManager DIRECT = new TransactionManager() {
+        @Override
+        public <T> T inTransaction(Supplier<T> work) {
+            return work.get();
+        }
+    };
+
     @Mock
     private OrderDao orderDao;
     @Mock
     private BookDao bookDao;
+    @Mock
+    private BookCopyDao bookCopyDao;
+    @Mock
+    private BookHoldDao bookHoldDao;
+    @Mock
+    private CatalogVersion catalogVersion;
 
     private OrderServiceImpl orderService;
 
     @BeforeEach
     void setUp() {
-        orderService = new OrderServiceImpl(orderDao, bookDao);
+        orderService = new OrderServiceImpl(orderDao, bookDao, bookCopyDao, bookHoldDao, DIRECT, catalogVersion);
     }
 
     @Test
@@ -134,6 +160,78 @@ class OrderServiceImplTest {
         verify(orderDao, never()).save(any());
     }
 
+    @Test
+    void createOrders_AdmitsEachUserOnce_AndSavesInOneBatch() {
+        // Given
+        Book book = new Book();
+        book.setId(1L);
+        book.setAvailableCopies(1);
+        OrderRequest first = new OrderRequest(10L, 1L, OrderType.HOME);
+        OrderRequest repeated = new OrderRequest(10L, 1L, OrderType.READING_ROOM);
+        OrderRequest existing = new OrderRequest(11L, 1L, OrderType.HOME);
+        OrderRequest second = new OrderRequest(12L, 1L, OrderType.READING_ROOM);
+
+        when(bookDao.findById(1L)).thenReturn(Optional.of(book));
+        when(orderDao.findUserIdsWithActiveOrder(1L, Set.of(10L, 11L, 12L))).thenReturn(Set.of(11L));
+        when(orderDao.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        orderService.createOrders(1L, List.of(first, repeated, existing, second));
+
+        // Then
+        assertEquals(10L, first.getResult().join().getUserId());
+        assertEquals(OrderType.READING_ROOM, second.getResult().join().getOrderType());
+        assertTrue(repeated.getResult().isCompletedExceptionally());
+        assertTrue(existing.getResult().isCompletedExceptionally());
+        verify(orderDao).saveAll(argThat(orders -> orders.size() == 2));
+    }
+
+    @Test
+    void createOrders_CompletesOrdersOfCommittedBatches_WhenLaterBatchFails() {
+        // Given
+        Book book = new Book();
+        book.setId(1L);
+        book.setAvailableCopies(1);
+        OrderRequest first = new OrderRequest(10L, 1L, OrderType.HOME);
+        OrderRequest second = new OrderRequest(12L, 1L, OrderType.HOME);
+        DatabaseException failure = new DatabaseException("Error saving orders after 1 were committed");
+
+        when(bookDao.findById(1L)).thenReturn(Optional.of(book));
+        when(orderDao.findUserIdsWithActiveOrder(1L, Set.of(10L, 12L))).thenReturn(Set.of());
+        when(orderDao.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            orders.get(0).setId(40L);
+            throw failure;
+        });
+
+        // When
+        orderService.createOrders(1L, List.of(first, second));
+
+        // Then
+        assertEquals(40L, first.getResult().join().getId());
+        CompletionException exception = assertThrows(CompletionException.class, () -> second.getResult().join());
+        assertSame(failure, exception.getCause());
+    }
+
+    @Test
+    void createOrders_RefusesAll_WhenNoCopiesAvailable() {
+        // Given
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Test Book");
+        book.setAvailableCopies(0);
+        OrderRequest request = new OrderRequest(10L, 1L, OrderType.HOME);
+        when(bookDao.findById(1L)).thenReturn(Optional.of(book));
+
+        // When
+        orderService.createOrders(1L, List.of(request));
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, () -> request.getResult().join());
+        assertTrue(exception.getCause().getMessage().contains("No copies available"));
+        verify(orderDao, never()).saveAll(any());
+    }
+
     @Test
     void issueOrder_SuccessfullyIssuesOrder() {
         // Given
@@ -147,8 +245,7 @@ class OrderServiceImplTest {
         order.setStatus(OrderStatus.PENDING);
 
         when(orderDao.findById(orderId)).thenReturn(Optional.of(order));
-        when(orderDao.update(any(Order.class))).thenAnswer(invocation ->
-                invocation.getArgument(0));
+        when(orderDao.updateIfPendingFor(any(Order.class), eq(2L), any())).thenReturn(true);
 
         // When
         Order result = orderService.issueOrder(orderId, librarianId, lendingDays);
@@ -161,7 +258,91 @@ class OrderServiceImplTest {
         assertTrue(result.getDueDate().isAfter(result.getIssueDate()));
 
         verify(bookDao).updateAvailableCopies(order.getBookId(), -1);
-        verify(orderDao).update(any(Order.class));
+        verify(orderDao).updateIfPendingFor(any(Order.class), eq(librarianId), any());
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void issueOrder_AllocatesFreeCopy() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setStatus(OrderStatus.PENDING);
+
+        BookCopy copy = new BookCopy(5L, 1L, "INV-001-002", BookCopyStatus.AVAILABLE, LocalDateTime.now());
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(bookCopyDao.lockAvailableCopy(1L)).thenReturn(Optional.of(copy));
+        when(orderDao.updateIfPendingFor(any(Order.class), eq(2L), any())).thenReturn(true);
+
+        // When
+        Order result = orderService.issueOrder(1L, 2L, 14);
+
+        // Then
+        assertEquals(5L, result.getBookCopyId());
+        verify(bookCopyDao).updateStatus(5L, BookCopyStatus.ISSUED);
+        verify(bookDao).updateAvailableCopies(1L, -1);
+        verify(bookCopyDao, never()).existsByBookId(anyLong());
+    }
+
+    @Test
+    void issueOrder_AllocatesCopyAgain_WhenFirstAttemptDeadlocks() {
+        // Given: a transaction manager that runs the work again after a deadlock, like ConnectionPool
+        TransactionManager retrying = new TransactionManager() {
+            @Override
+            public <T> T inTransaction(Supplier<T> work) {
+                try {
+                    return work.get();
+                } catch (DatabaseException e) {
+                    return work.get();
+                }
+            }
+        };
+        orderService = new OrderServiceImpl(orderDao, bookDao, bookCopyDao, bookHoldDao, retrying, catalogVersion);
+
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setStatus(OrderStatus.PENDING);
+
+        BookCopy copy = new BookCopy(5L, 1L, "INV-001-002", BookCopyStatus.AVAILABLE, LocalDateTime.now());
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(bookCopyDao.lockAvailableCopy(1L)).thenReturn(Optional.of(copy));
+        doThrow(new DatabaseException("Deadlock", new SQLException("Deadlock found", "40001", 1213)))
+                .doNothing()
+                .when(bookDao).updateAvailableCopies(1L, -1);
+        when(orderDao.updateIfPendingFor(eq(order), eq(2L), any())).thenReturn(true);
+
+        // When
+        Order result = orderService.issueOrder(1L, 2L, 14);
+
+        // Then
+        assertEquals(5L, result.getBookCopyId());
+        verify(bookCopyDao, times(2)).lockAvailableCopy(1L);
+        verify(orderDao, never()).lockReservedPending(any(), any(), any());
+        verify(orderDao).updateIfPendingFor(eq(order), eq(2L), any());
+    }
+
+    @Test
+    void issueOrder_ThrowsException_WhenAllCopiesTaken() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(bookCopyDao.lockAvailableCopy(1L)).thenReturn(Optional.empty());
+        when(bookCopyDao.existsByBookId(1L)).thenReturn(true);
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> orderService.issueOrder(1L, 2L, 14));
+
+        assertTrue(exception.getMessage().contains("No copies available"));
+        verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
+        verify(orderDao, never()).updateIfPendingFor(any(), any(), any());
+        verify(catalogVersion, never()).bump();
     }
 
     @Test
@@ -202,6 +383,84 @@ class OrderServiceImplTest {
         verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
     }
 
+    @Test
+    void issueOrder_ThrowsException_WhenClaimedByAnotherDesk() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setStatus(OrderStatus.PENDING);
+        order.setClaimedBy(5L);
+        order.setClaimExpiresAt(LocalDateTime.now().plusMinutes(10));
+
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> orderService.issueOrder(1L, 2L, 14));
+
+        assertTrue(exception.getMessage().contains("another desk"));
+        verify(orderDao, never()).updateIfPendingFor(any(), any(), any());
+    }
+
+    @Test
+    void issueOrder_ThrowsException_WhenIssuedAtAnotherDeskMeanwhile() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfPendingFor(eq(order), eq(2L), any())).thenReturn(false);
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> orderService.issueOrder(1L, 2L, 14));
+
+        assertTrue(exception.getMessage().contains("not in PENDING status"));
+        verify(catalogVersion, never()).bump();
+    }
+
+    @Test
+    void issueOrder_ThrowsException_WhenClaimedByAnotherDeskMeanwhile() {
+        // Given: the claim was made after the order was read
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfPendingFor(eq(order), eq(2L), any())).thenReturn(false);
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> orderService.issueOrder(1L, 2L, 14));
+
+        assertTrue(exception.getMessage().contains("another desk"));
+        verify(catalogVersion, never()).bump();
+    }
+
+    @Test
+    void returnOrder_ThrowsException_WhenReturnedTwice() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setStatus(OrderStatus.ISSUED);
+
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfStatus(order, OrderStatus.ISSUED)).thenReturn(false);
+
+        // When & Then
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> orderService.returnOrder(1L, 2L));
+
+        assertTrue(exception.getMessage().contains("not in ISSUED status"));
+        verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
+        verify(bookCopyDao, never()).updateStatus(anyLong(), any());
+    }
+
     @Test
     void returnOrder_SuccessfullyReturnsOrder() {
         // Given
@@ -214,8 +473,7 @@ class OrderServiceImplTest {
         order.setStatus(OrderStatus.ISSUED);
 
         when(orderDao.findById(orderId)).thenReturn(Optional.of(order));
-        when(orderDao.update(any(Order.class))).thenAnswer(invocation ->
-                invocation.getArgument(0));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.ISSUED))).thenReturn(true);
 
         // When
         Order result = orderService.returnOrder(orderId, librarianId);
@@ -226,7 +484,28 @@ class OrderServiceImplTest {
         assertNotNull(result.getReturnDate());
 
         verify(bookDao).updateAvailableCopies(order.getBookId(), 1);
-        verify(orderDao).update(any(Order.class));
+        verify(orderDao).updateIfStatus(any(Order.class), eq(OrderStatus.ISSUED));
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void returnOrder_ReleasesIssuedCopy() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setStatus(OrderStatus.ISSUED);
+
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.ISSUED))).thenReturn(true);
+
+        // When
+        orderService.returnOrder(1L, 2L);
+
+        // Then
+        verify(bookCopyDao).updateStatus(5L, BookCopyStatus.AVAILABLE);
+        verify(bookDao).updateAvailableCopies(1L, 1);
     }
 
     @Test
@@ -249,6 +528,234 @@ class OrderServiceImplTest {
         verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
     }
 
+    @Test
+    void returnOrder_HandsCopyToFirstWaitingReader() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setStatus(OrderStatus.ISSUED);
+
+        BookHold hold = new BookHold(7L, 1L, OrderType.READING_ROOM);
+        hold.setId(30L);
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.ISSUED))).thenReturn(true);
+        when(bookHoldDao.lockNextWaiting(1L)).thenReturn(Optional.of(hold));
+        when(orderDao.findActiveOrderByUserAndBook(7L, 1L)).thenReturn(Optional.empty());
+        when(orderDao.save(any(Order.class))).thenAnswer(invocation -> {
+            Order created = invocation.getArgument(0);
+            created.setId(40L);
+            return created;
+        });
+
+        // When
+        orderService.returnOrder(1L, 2L);
+
+        // Then
+        verify(orderDao).save(argThat(created -> created.getUserId().equals(7L)
+                && created.getBookCopyId().equals(5L)
+                && created.getOrderType() == OrderType.READING_ROOM
+                && created.getStatus() == OrderStatus.PENDING));
+        verify(bookHoldDao).markFulfilled(30L, 40L);
+        verify(bookCopyDao).updateStatus(5L, BookCopyStatus.RESERVED);
+        verify(bookCopyDao, never()).updateStatus(5L, BookCopyStatus.AVAILABLE);
+        verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
+    }
+
+    @Test
+    void returnOrder_SkipsWaitingReaderWhoAlreadyHasTheBook() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setStatus(OrderStatus.ISSUED);
+
+        BookHold hold = new BookHold(7L, 1L, OrderType.HOME);
+        hold.setId(30L);
+        Order active = new Order();
+        active.setId(41L);
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.ISSUED))).thenReturn(true);
+        when(bookHoldDao.lockNextWaiting(1L)).thenReturn(Optional.of(hold)).thenReturn(Optional.empty());
+        when(orderDao.findActiveOrderByUserAndBook(7L, 1L)).thenReturn(Optional.of(active));
+
+        // When
+        orderService.returnOrder(1L, 2L);
+
+        // Then
+        verify(bookHoldDao).markFulfilled(30L, 41L);
+        verify(orderDao, never()).save(any());
+        verify(bookCopyDao).updateStatus(5L, BookCopyStatus.AVAILABLE);
+        verify(bookDao).updateAvailableCopies(1L, 1);
+    }
+
+    @Test
+    void returnOrder_HandsUnitToWaitingReader_WithoutCountingItAvailable() {
+        // Given: a book without copy records
+        Order order = new Order();
+        order.setId(1L);
+        order.setBookId(1L);
+        order.setStatus(OrderStatus.ISSUED);
+
+        BookHold hold = new BookHold(7L, 1L, OrderType.HOME);
+        hold.setId(30L);
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.ISSUED))).thenReturn(true);
+        when(bookHoldDao.lockNextWaiting(1L)).thenReturn(Optional.of(hold));
+        when(orderDao.findActiveOrderByUserAndBook(7L, 1L)).thenReturn(Optional.empty());
+        when(orderDao.save(any(Order.class))).thenAnswer(invocation -> {
+            Order created = invocation.getArgument(0);
+            created.setId(40L);
+            return created;
+        });
+
+        // When
+        orderService.returnOrder(1L, 2L);
+
+        // Then
+        verify(bookHoldDao).markFulfilled(30L, 40L);
+        verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
+        verify(bookCopyDao, never()).updateStatus(anyLong(), any());
+    }
+
+    @Test
+    void issueOrder_DoesNotTakeAnotherUnit_ForOrderFromWaitlist() {
+        // Given: a book without copy records and an order handed over from the waitlist
+        Order order = new Order();
+        order.setId(40L);
+        order.setBookId(1L);
+        order.setOrderType(OrderType.HOME);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(40L)).thenReturn(Optional.of(order));
+        when(bookCopyDao.lockAvailableCopy(1L)).thenReturn(Optional.empty());
+        when(bookCopyDao.existsByBookId(1L)).thenReturn(false);
+        when(orderDao.lockReservedPending(eq(OrderType.HOME), any(), eq(List.of(40L)))).thenReturn(List.of(order));
+        when(orderDao.updateIfPendingFor(eq(order), eq(2L), any())).thenReturn(true);
+
+        // When
+        Order result = orderService.issueOrder(40L, 2L, 14);
+
+        // Then
+        assertEquals(OrderStatus.ISSUED, result.getStatus());
+        verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
+    }
+
+    @Test
+    void cancelOrder_PassesHeldUnitBackToShelf_WhenNobodyWaits() {
+        // Given: a book without copy records and an order handed over from the waitlist
+        Order order = new Order();
+        order.setId(40L);
+        order.setUserId(7L);
+        order.setBookId(1L);
+        order.setOrderType(OrderType.HOME);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(40L)).thenReturn(Optional.of(order));
+        when(orderDao.lockReservedPending(eq(OrderType.HOME), any(), eq(List.of(40L)))).thenReturn(List.of(order));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.PENDING))).thenReturn(true);
+
+        // When
+        orderService.cancelOrder(40L, 7L);
+
+        // Then
+        verify(bookDao).updateAvailableCopies(1L, 1);
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void issueOrder_IssuesReservedCopy_WithoutTouchingCounter() {
+        // Given
+        Order order = new Order();
+        order.setId(40L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setOrderType(OrderType.HOME);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(40L)).thenReturn(Optional.of(order));
+        when(orderDao.lockReservedPending(eq(OrderType.HOME), any(), eq(List.of(40L)))).thenReturn(List.of(order));
+        when(orderDao.updateIfPendingFor(any(Order.class), eq(2L), any())).thenReturn(true);
+
+        // When
+        Order result = orderService.issueOrder(40L, 2L, 14);
+
+        // Then
+        assertEquals(OrderStatus.ISSUED, result.getStatus());
+        verify(bookCopyDao).updateStatus(5L, BookCopyStatus.ISSUED);
+        verify(bookCopyDao, never()).lockAvailableCopy(anyLong());
+        verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
+    }
+
+    @Test
+    void issueOrder_ThrowsException_WhenReservationExpiredMeanwhile() {
+        // Given
+        Order order = new Order();
+        order.setId(40L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setOrderType(OrderType.HOME);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(40L)).thenReturn(Optional.of(order));
+        when(orderDao.lockReservedPending(eq(OrderType.HOME), any(), eq(List.of(40L)))).thenReturn(List.of());
+
+        // When & Then
+        assertThrows(ServiceException.class, () -> orderService.issueOrder(40L, 2L, 14));
+        verify(bookCopyDao, never()).updateStatus(anyLong(), any());
+        verify(orderDao, never()).updateIfPendingFor(any(), any(), any());
+    }
+
+    @Test
+    void cancelOrder_PassesReservedCopyBackToShelf_WhenNobodyWaits() {
+        // Given
+        Order order = new Order();
+        order.setId(40L);
+        order.setUserId(7L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setOrderType(OrderType.HOME);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(40L)).thenReturn(Optional.of(order));
+        when(orderDao.lockReservedPending(eq(OrderType.HOME), any(), eq(List.of(40L)))).thenReturn(List.of(order));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.PENDING))).thenReturn(true);
+
+        // When
+        Order result = orderService.cancelOrder(40L, 7L);
+
+        // Then
+        assertEquals(OrderStatus.CANCELLED, result.getStatus());
+        verify(bookCopyDao).updateStatus(5L, BookCopyStatus.AVAILABLE);
+        verify(bookDao).updateAvailableCopies(1L, 1);
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void expireReserved_ExpiresLockedOrders_AndPassesCopiesOn() {
+        // Given
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(4);
+        Order order = new Order();
+        order.setId(40L);
+        order.setBookId(1L);
+        order.setBookCopyId(5L);
+        order.setStatus(OrderStatus.PENDING);
+        when(orderDao.lockReservedPending(OrderType.READING_ROOM, cutoff, List.of(40L, 41L))).thenReturn(List.of(order));
+        when(orderDao.update(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        int expired = orderService.expireReserved(OrderType.READING_ROOM, cutoff, List.of(40L, 41L));
+
+        // Then
+        assertEquals(1, expired);
+        assertEquals(OrderStatus.EXPIRED, order.getStatus());
+        verify(bookCopyDao).updateStatus(5L, BookCopyStatus.AVAILABLE);
+        verify(bookDao).updateAvailableCopies(1L, 1);
+        verify(catalogVersion).bump();
+    }
+
     @Test
     void cancelOrder_SuccessfullyCancelsOrder() {
         // Given
@@ -261,15 +768,68 @@ class OrderServiceImplTest {
         order.setStatus(OrderStatus.PENDING);
 
         when(orderDao.findById(orderId)).thenReturn(Optional.of(order));
-        when(orderDao.update(any(Order.class))).thenAnswer(invocation ->
-                invocation.getArgument(0));
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.PENDING))).thenReturn(true);
 
         // When
         Order result = orderService.cancelOrder(orderId, userId);
 
         // Then
         assertEquals(OrderStatus.CANCELLED, result.getStatus());
-        verify(orderDao).update(any(Order.class));
+        verify(orderDao).updateIfStatus(any(Order.class), eq(OrderStatus.PENDING));
+    }
+
+    @Test
+    void cancelOrder_ChecksHoldInsideTransaction() {
+        // Given
+        Order order = new Order();
+        order.setId(40L);
+        order.setUserId(7L);
+        order.setBookId(1L);
+        order.setOrderType(OrderType.HOME);
+        order.setStatus(OrderStatus.PENDING);
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        TransactionManager tracking = new TransactionManager() {
+            @Override
+            public <T> T inTransaction(Supplier<T> work) {
+                inTransaction.set(true);
+                try {
+                    return work.get();
+                } finally {
+                    inTransaction.set(false);
+                }
+            }
+        };
+        orderService = new OrderServiceImpl(orderDao, bookDao, bookCopyDao, bookHoldDao, tracking, catalogVersion);
+
+        when(orderDao.findById(40L)).thenReturn(Optional.of(order));
+        when(orderDao.lockReservedPending(eq(OrderType.HOME), any(), eq(List.of(40L)))).thenAnswer(invocation -> {
+            assertTrue(inTransaction.get());
+            return List.of();
+        });
+        when(orderDao.updateIfStatus(any(Order.class), eq(OrderStatus.PENDING))).thenReturn(true);
+
+        // When
+        orderService.cancelOrder(40L, 7L);
+
+        // Then
+        verify(orderDao).lockReservedPending(eq(OrderType.HOME), any(), eq(List.of(40L)));
+        verify(bookDao, never()).updateAvailableCopies(anyLong(), anyInt());
+        verify(catalogVersion, never()).bump();
+    }
+
+    @Test
+    void cancelOrder_ThrowsException_WhenIssuedMeanwhile() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setUserId(1L);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderDao.findById(1L)).thenReturn(Optional.of(order));
+        when(orderDao.updateIfStatus(order, OrderStatus.PENDING)).thenReturn(false);
+
+        // When & Then
+        assertThrows(ServiceException.class, () -> orderService.cancelOrder(1L, 1L));
     }
 
     @Test
@@ -290,7 +850,7 @@ class OrderServiceImplTest {
                 () -> orderService.cancelOrder(orderId, userId));
 
         assertTrue(exception.getMessage().contains("not authorized"));
-        verify(orderDao, never()).update(any());
+        verify(orderDao, never()).updateIfStatus(any(), any());
     }
 
     @Test
@@ -311,7 +871,7 @@ class OrderServiceImplTest {
                 () -> orderService.cancelOrder(orderId, userId));
 
         assertTrue(exception.getMessage().contains("Only pending orders"));
-        verify(orderDao, never()).update(any());
+        verify(orderDao, never()).updateIfStatus(any(), any());
     }
 
     @Test
@@ -412,4 +972,44 @@ class OrderServiceImplTest {
         assertFalse(result);
         verify(orderDao).findActiveOrderByUserAndBook(userId, bookId);
     }
+
+    @Test
+    void countByStatus_DelegatesToDao() {
+        // Given
+        Map<OrderStatus, Long> counts = Map.of(OrderStatus.PENDING, 2L);
+        when(orderDao.countByStatus()).thenReturn(counts);
+
+        // When
+        Map<OrderStatus, Long> result = orderService.countByStatus();
+
+        // Then
+        assertEquals(counts, result);
+        verify(orderDao).countByStatus();
+    }
+
+    @Test
+    void findBooksWithActiveOrder_ReturnsBookIdsFromDao() {
+        // Given
+        List<Long> bookIds = List.of(1L, 2L, 3L);
+        when(orderDao.findBookIdsWithActiveOrder(1L, bookIds)).thenReturn(Set.of(2L));
+
+        // When
+        Set<Long> result = orderService.findBooksWithActiveOrder(1L, bookIds);
+
+        // Then
+        assertEquals(Set.of(2L), result);
+        verify(orderDao).findBookIdsWithActiveOrder(1L, bookIds);
+    }
+
+    @Test
+    void forEachWithDetails_PassesActionToDao() {
+        // Given
+        Consumer<Order> action = order -> { };
+
+        // When
+        orderService.forEachWithDetails(action);
+
+        // Then
+        verify(orderDao).forEachWithDetails(action);
+    }
 }
@@ -0,0 +1,163 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.OrderDao;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.model.Order;
+import com.danyarov.library.model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueJobTest {
+
+    private static final LocalDateTime DUE = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Mock
+    private OrderDao orderDao;
+    @Mock
+    private JobLeases jobLeases;
+
+    private OverdueJob overdueJob;
+
+    @BeforeEach
+    void setUp() {
+        overdueJob = new OverdueJob(orderDao, jobLeases, 2);
+    }
+
+    @Test
+    void run_ReturnsAtOnce_WhileAnotherRunIsGoing() throws Exception {
+        // Given: a run blocked inside its first query
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jobLeases.hold(OverdueJob.JOB_NAME)).thenReturn(true);
+        when(orderDao.findUnmarkedOverdue(any(), isNull(), eq(0L), eq(2))).thenAnswer(invocation -> {
+            querying.countDown();
+            release.await();
+            return List.of();
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(overdueJob::run);
+            querying.await();
+
+            // When
+            int marked = overdueJob.run();
+
+            // Then
+            assertEquals(0, marked);
+            release.countDown();
+            assertEquals(0, first.get());
+            verify(jobLeases, times(1)).hold(OverdueJob.JOB_NAME);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void run_MarksOverdueOrdersChunkByChunk() {
+        // Given
+        when(jobLeases.hold(OverdueJob.JOB_NAME)).thenReturn(true);
+        when(jobLeases.isHeld(OverdueJob.JOB_NAME)).thenReturn(true);
+        when(orderDao.findUnmarkedOverdue(any(), isNull(), eq(0L), eq(2)))
+                .thenReturn(List.of(issued(1L, DUE), issued(2L, DUE)));
+        when(orderDao.findUnmarkedOverdue(any(), eq(DUE), eq(2L), eq(2)))
+                .thenReturn(List.of(issued(3L, DUE.plusDays(1))));
+        when(orderDao.markOverdue(any(), any())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        // When
+        int marked = overdueJob.run();
+
+        // Then
+        assertEquals(3, marked);
+        verify(orderDao).markOverdue(eq(List.of(1L, 2L)), any());
+        verify(orderDao).markOverdue(eq(List.of(3L)), any());
+    }
+
+    @Test
+    void run_ContinuesAfterLastOrderOfPreviousRun() {
+        // Given
+        when(jobLeases.hold(OverdueJob.JOB_NAME)).thenReturn(true);
+        when(orderDao.findUnmarkedOverdue(any(), isNull(), eq(0L), eq(2))).thenReturn(List.of(issued(5L, DUE)));
+        when(orderDao.markOverdue(any(), any())).thenReturn(1);
+        overdueJob.run();
+        when(orderDao.findUnmarkedOverdue(any(), eq(DUE), eq(5L), eq(2))).thenReturn(List.of());
+
+        // When
+        int marked = overdueJob.run();
+
+        // Then
+        assertEquals(0, marked);
+        verify(orderDao).findUnmarkedOverdue(any(), eq(DUE), eq(5L), eq(2));
+        verify(orderDao, times(1)).markOverdue(any(), any());
+    }
+
+    @Test
+    void run_KeepsPosition_WhenChunkCannotBeMarked() {
+        // Given
+        when(jobLeases.hold(OverdueJob.JOB_NAME)).thenReturn(true);
+        when(orderDao.findUnmarkedOverdue(any(), isNull(), eq(0L), eq(2))).thenReturn(List.of(issued(1L, DUE)));
+        when(orderDao.markOverdue(any(), any())).thenThrow(new DatabaseException("Error marking orders overdue"));
+
+        // When
+        int first = overdueJob.run();
+        int second = overdueJob.run();
+
+        // Then
+        assertEquals(0, first);
+        assertEquals(0, second);
+        verify(orderDao, times(2)).findUnmarkedOverdue(any(), isNull(), eq(0L), eq(2));
+    }
+
+    @Test
+    void run_StopsBetweenChunks_WhenLeaseIsLost() {
+        // Given
+        when(jobLeases.hold(OverdueJob.JOB_NAME)).thenReturn(true);
+        when(jobLeases.isHeld(OverdueJob.JOB_NAME)).thenReturn(false);
+        when(orderDao.findUnmarkedOverdue(any(), isNull(), eq(0L), eq(2)))
+                .thenReturn(List.of(issued(1L, DUE), issued(2L, DUE)));
+        when(orderDao.markOverdue(any(), any())).thenReturn(2);
+
+        // When
+        int marked = overdueJob.run();
+
+        // Then
+        assertEquals(2, marked);
+        verify(orderDao, times(1)).findUnmarkedOverdue(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void run_DoesNothing_WhenAnotherNodeRunsTheJob() {
+        // Given
+        when(jobLeases.hold(OverdueJob.JOB_NAME)).thenReturn(false);
+
+        // When
+        int marked = overdueJob.run();
+
+        // Then
+        assertEquals(0, marked);
+        verifyNoInteractions(orderDao);
+    }
+
+    private static Order issued(Long id, LocalDateTime dueDate) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(OrderStatus.ISSUED);
+        order.setDueDate(dueDate);
+        return order;
+    }
+}
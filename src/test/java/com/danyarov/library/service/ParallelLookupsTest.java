@@ -0,0 +1,109 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelLookupsTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void join_RunsLookupsConcurrently() {
+        // Given
+        ParallelLookups lookups = new ParallelLookups(executor, 4);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // When
+        Supplier<String> first;
+        Supplier<String> second;
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            // Each lookup only finishes once the other one has started
+            first = scope.fork(() -> {
+                bothStarted.countDown();
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+                return "book";
+            });
+            second = scope.fork(() -> {
+                bothStarted.countDown();
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+                return "order";
+            });
+            scope.join();
+        }
+
+        // Then
+        assertEquals("book", first.get());
+        assertEquals("order", second.get());
+    }
+
+    @Test
+    void join_CancelsOtherLookups_WhenOneFails() {
+        // Given
+        ParallelLookups lookups = new ParallelLookups(executor, 4);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch slowFinished = new CountDownLatch(1);
+
+        // When & Then
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            scope.fork(() -> {
+                slowStarted.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                } finally {
+                    slowFinished.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+                throw new DatabaseException("Connection pool exhausted");
+            });
+
+            DatabaseException exception = assertThrows(DatabaseException.class, scope::join);
+            assertEquals("Connection pool exhausted", exception.getMessage());
+        }
+        assertDoesNotThrow(() -> assertTrue(slowFinished.await(5, TimeUnit.SECONDS)));
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void fork_RunsOnCallingThread_WhenLimitReached() {
+        // Given
+        ParallelLookups lookups = new ParallelLookups(executor, 0);
+        Thread caller = Thread.currentThread();
+
+        // When
+        Supplier<Thread> thread;
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            thread = scope.fork(Thread::currentThread);
+            scope.join();
+        }
+
+        // Then
+        assertSame(caller, thread.get());
+    }
+}
@@ -0,0 +1,86 @@
+package com.danyarov.library.service;
+
+import com.danyarov.library.dao.RevocationDao;
+import com.danyarov.library.exception.DatabaseException;
+import com.danyarov.library.service.impl.RevocationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevocationServiceImplTest {
+
+    @Mock
+    private RevocationDao revocationDao;
+
+    private RevocationServiceImpl revocationService;
+
+    @BeforeEach
+    void setUp() {
+        revocationService = new RevocationServiceImpl(revocationDao, 60);
+    }
+
+    @Test
+    void revoke_RejectsSessionsIssuedBefore() {
+        // Given
+        long issuedAt = System.currentTimeMillis() - 1000;
+
+        // When
+        revocationService.revoke(1L);
+
+        // Then
+        assertTrue(revocationService.isRevoked(1L, issuedAt));
+        assertFalse(revocationService.isRevoked(1L, System.currentTimeMillis() + 1000));
+        assertFalse(revocationService.isRevoked(2L, issuedAt));
+        verify(revocationDao).save(eq(1L), anyLong());
+    }
+
+    @Test
+    void refresh_LoadsRevocationsFromOtherNodes() {
+        // Given
+        long revokedAt = System.currentTimeMillis();
+        when(revocationDao.findRevokedSince(anyLong())).thenReturn(Map.of(5L, revokedAt));
+
+        // When
+        revocationService.refresh();
+
+        // Then
+        assertTrue(revocationService.isRevoked(5L, revokedAt - 1));
+        verify(revocationDao).deleteOlderThan(anyLong());
+    }
+
+    @Test
+    void refresh_DropsExpiredRevocations() {
+        // Given
+        long expired = System.currentTimeMillis() - 61 * 60_000;
+        when(revocationDao.findRevokedSince(anyLong())).thenReturn(Map.of(5L, expired));
+
+        // When
+        revocationService.refresh();
+
+        // Then
+        assertFalse(revocationService.isRevoked(5L, expired - 1));
+    }
+
+    @Test
+    void refresh_KeepsMemoryState_WhenDatabaseFails() {
+        // Given
+        revocationService.revoke(1L);
+        when(revocationDao.findRevokedSince(anyLong())).thenThrow(new DatabaseException("DB Error"));
+
+        // When
+        revocationService.refresh();
+
+        // Then
+        assertTrue(revocationService.isRevoked(1L, 0L));
+        verify(revocationDao, never()).deleteOlderThan(anyLong());
+    }
+}
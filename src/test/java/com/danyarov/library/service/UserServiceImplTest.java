@@ -6,6 +6,7 @@ import com.danyarov.library.exception.ServiceException;
 import com.danyarov.library.model.User;
 import com.danyarov.library.model.UserRole;
 import com.danyarov.library.service.PasswordEncoder;
+import com.danyarov.library.service.RevocationService;
 import com.danyarov.library.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,12 +33,14 @@ class UserServiceImplTest {
 
     @Mock
     private UserDao userDao;
+    @Mock
+    private RevocationService revocationService;
 
     private UserServiceImpl userService;
 
     @BeforeEach
     void setUp() {
-        userService = new UserServiceImpl(userDao);
+        userService = new UserServiceImpl(userDao, revocationService, Runnable::run);
     }
 
     @Test
@@ -71,6 +78,52 @@ class UserServiceImplTest {
         }
     }
 
+    @Test
+    void registerAll_HashesPasswordsInParallel_AndSkipsKnownEmails() {
+        // Given
+        ExecutorService hashPool = Executors.newFixedThreadPool(2);
+        userService = new UserServiceImpl(userDao, revocationService, hashPool);
+        List<User> users = List.of(
+                newUser("reader1@example.com", "secret1"),
+                newUser("student1@example.com", "secret2"),
+                newUser("Student1@example.com", "secret3"),
+                newUser("student2@example.com", "secret4"));
+
+        when(userDao.findExistingEmails(anyList())).thenReturn(Set.of("Reader1@Example.com"));
+        when(userDao.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        List<User> registered;
+        try {
+            registered = userService.registerAll(users);
+        } finally {
+            hashPool.shutdownNow();
+        }
+
+        // Then
+        assertEquals(List.of("student1@example.com", "student2@example.com"),
+                registered.stream().map(User::getEmail).toList());
+        assertTrue(PasswordEncoder.matches("secret2", registered.get(0).getPassword()));
+        assertTrue(PasswordEncoder.matches("secret4", registered.get(1).getPassword()));
+        assertTrue(registered.stream().allMatch(user -> user.getRole() == UserRole.READER && user.isActive()));
+        verify(userDao).findExistingEmails(List.of("reader1@example.com", "student1@example.com",
+                "Student1@example.com", "student2@example.com"));
+        verify(userDao, never()).save(any());
+    }
+
+    @Test
+    void registerAll_SkipsInsert_WhenAllEmailsRegistered() {
+        // Given
+        when(userDao.findExistingEmails(anyList())).thenReturn(Set.of("reader1@example.com"));
+
+        // When
+        List<User> registered = userService.registerAll(List.of(newUser("reader1@example.com", "secret1")));
+
+        // Then
+        assertTrue(registered.isEmpty());
+        verify(userDao, never()).saveAll(anyList());
+    }
+
     @Test
     void register_ThrowsException_WhenEmailAlreadyExists() {
         // Given
@@ -244,6 +297,30 @@ class UserServiceImplTest {
         }
     }
 
+    @Test
+    void update_RevokesSessions_WhenRoleChanged() {
+        // Given
+        User existingUser = new User();
+        existingUser.setId(1L);
+        existingUser.setPassword("hashedPassword");
+        existingUser.setRole(UserRole.READER);
+        existingUser.setActive(true);
+
+        User updateUser = new User();
+        updateUser.setId(1L);
+        updateUser.setRole(UserRole.LIBRARIAN);
+        updateUser.setActive(true);
+
+        when(userDao.findById(1L)).thenReturn(Optional.of(existingUser));
+        when(userDao.update(any(User.class))).thenReturn(updateUser);
+
+        // When
+        userService.update(updateUser);
+
+        // Then
+        verify(revocationService).revoke(1L);
+    }
+
     @Test
     void update_KeepsOldPassword_WhenNewPasswordNotProvided() {
         // Given
@@ -295,6 +372,7 @@ class UserServiceImplTest {
         // Then
         assertTrue(result);
         verify(userDao).deleteById(userId);
+        verify(revocationService).revoke(userId);
     }
 
     @Test
@@ -317,6 +395,27 @@ class UserServiceImplTest {
         assertFalse(result.isActive());
         verify(userDao).findById(userId);
         verify(userDao).update(argThat(u -> !u.isActive()));
+        verify(revocationService).revoke(userId);
+    }
+
+    @Test
+    void toggleActiveStatus_DoesNotRevoke_WhenActivating() {
+        // Given
+        Long userId = 1L;
+        User user = new User();
+        user.setId(userId);
+        user.setActive(false);
+
+        when(userDao.findById(userId)).thenReturn(Optional.of(user));
+        when(userDao.update(any(User.class))).thenAnswer(invocation ->
+                invocation.getArgument(0));
+
+        // When
+        User result = userService.toggleActiveStatus(userId);
+
+        // Then
+        assertTrue(result.isActive());
+        verify(revocationService, never()).revoke(any());
     }
 
     @Test
@@ -331,5 +430,27 @@ class UserServiceImplTest {
 
         assertTrue(exception.getMessage().contains("User not found"));
         verify(userDao, never()).update(any());
+        verify(revocationService, never()).revoke(any());
+    }
+
+    @Test
+    void forEach_PassesActionToDao() {
+        // Given
+        Consumer<User> action = user -> { };
+
+        // When
+        userService.forEach(action);
+
+        // Then
+        verify(userDao).forEach(action);
+    }
+
+    private static User newUser(String email, String password) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        return user;
     }
 }
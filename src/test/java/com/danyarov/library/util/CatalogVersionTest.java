@@ -0,0 +1,108 @@
+package com.danyarov.library.util;
+
+import com.danyarov.library.dao.CatalogVersionDao;
+import com.danyarov.library.exception.DatabaseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogVersionTest {
+
+    @Mock
+    private CatalogVersionDao catalogVersionDao;
+
+    @Test
+    void get_ReusesReadVersionWithinPollInterval() {
+        // Given
+        CatalogVersion catalogVersion = new CatalogVersion(catalogVersionDao, 60_000);
+        when(catalogVersionDao.read()).thenReturn(5L);
+
+        // When
+        long first = catalogVersion.get();
+        long second = catalogVersion.get();
+
+        // Then
+        assertEquals(5L, first);
+        assertEquals(5L, second);
+        verify(catalogVersionDao, times(1)).read();
+    }
+
+    @Test
+    void get_PicksUpChangesMadeOnOtherNodes() {
+        // Given
+        CatalogVersion catalogVersion = new CatalogVersion(catalogVersionDao, 0);
+        when(catalogVersionDao.read()).thenReturn(5L).thenReturn(6L);
+
+        // When & Then
+        assertEquals(5L, catalogVersion.get());
+        assertEquals(6L, catalogVersion.get());
+    }
+
+    @Test
+    void bump_IsVisibleLocallyAtOnce() {
+        // Given
+        CatalogVersion catalogVersion = new CatalogVersion(catalogVersionDao, 60_000);
+        when(catalogVersionDao.read()).thenReturn(5L);
+        when(catalogVersionDao.increment()).thenReturn(6L);
+        catalogVersion.get();
+
+        // When
+        catalogVersion.bump();
+
+        // Then
+        assertEquals(6L, catalogVersion.get());
+        verify(catalogVersionDao, times(1)).read();
+    }
+
+    @Test
+    void get_OtherCallersKeepCachedVersion_WhileOneRefreshes() throws Exception {
+        // Given: a refresh that blocks until released
+        CatalogVersion catalogVersion = new CatalogVersion(catalogVersionDao, 0);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(catalogVersionDao.read()).thenReturn(5L).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            return 6L;
+        });
+        catalogVersion.get();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> refresher = executor.submit(catalogVersion::get);
+            reading.await();
+
+            // When
+            long concurrent = catalogVersion.get();
+
+            // Then
+            assertEquals(5L, concurrent);
+            release.countDown();
+            assertEquals(6L, refresher.get());
+            verify(catalogVersionDao, times(2)).read();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_KeepsLastVersion_WhenDatabaseFails() {
+        // Given
+        CatalogVersion catalogVersion = new CatalogVersion(catalogVersionDao, 0);
+        when(catalogVersionDao.read()).thenReturn(5L).thenThrow(new DatabaseException("down"));
+
+        // When & Then
+        assertEquals(5L, catalogVersion.get());
+        assertEquals(5L, catalogVersion.get());
+    }
+}
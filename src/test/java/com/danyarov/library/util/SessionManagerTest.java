@@ -0,0 +1,171 @@
+package com.danyarov.library.util;
+
+import com.danyarov.library.model.User;
+import com.danyarov.library.model.UserRole;
+import com.danyarov.library.service.RevocationService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionManagerTest {
+
+    private static final String COOKIE = "LIBSESSION";
+    private static final long TTL = 3600;
+    private static final long ISSUED = 1_700_000_000_000L;
+
+    @Mock
+    private RevocationService revocationService;
+
+    private final SignedSessionCodec codec = new SignedSessionCodec(SignedSessionCodec.keyBytes("secret"));
+
+    @Test
+    void signedMode_ResolvesUserFromCookieIssuedAtSignIn() {
+        // Given
+        SessionManager manager = signedManager();
+        MockHttpServletResponse signInResponse = new MockHttpServletResponse();
+        manager.signIn(new MockHttpServletRequest(), signInResponse, user(7L, UserRole.LIBRARIAN));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(signInResponse.getCookie(COOKIE));
+        when(revocationService.isRevoked(eq(7L), anyLong())).thenReturn(false);
+
+        // When
+        User user = manager.resolveCurrentUser(request, new MockHttpServletResponse());
+
+        // Then
+        assertNotNull(user);
+        assertEquals(7L, user.getId());
+        assertEquals(UserRole.LIBRARIAN, user.getRole());
+        assertEquals("Anna", user.getFirstName());
+        assertNotNull(SessionUtil.getSessionKey(request));
+        assertNull(request.getSession(false));
+    }
+
+    @Test
+    void signedMode_TreatsTamperedCookieAsAnonymous() {
+        // Given
+        SessionManager manager = signedManager();
+        String token = codec.encode(7L, UserRole.READER, "Anna", now() * 1000, now() + TTL);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(COOKIE, token.substring(1) + "A"));
+
+        // When
+        User user = manager.resolveCurrentUser(request, new MockHttpServletResponse());
+
+        // Then
+        assertNull(user);
+        verifyNoInteractions(revocationService);
+    }
+
+    @Test
+    void signedMode_RejectsRevokedSessionAndClearsCookie() {
+        // Given
+        SessionManager manager = signedManager();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(COOKIE, codec.encode(7L, UserRole.READER, "Anna", now() * 1000, now() + TTL)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(revocationService.isRevoked(eq(7L), anyLong())).thenReturn(true);
+
+        // When
+        User user = manager.resolveCurrentUser(request, response);
+
+        // Then
+        assertNull(user);
+        assertEquals(0, response.getCookie(COOKIE).getMaxAge());
+    }
+
+    @Test
+    void signedMode_ReissuesTokenPastHalfItsLifetime() {
+        // Given
+        SessionManager manager = signedManager();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(COOKIE, codec.encode(7L, UserRole.READER, "Anna", ISSUED, now() + TTL / 4)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(revocationService.isRevoked(7L, ISSUED)).thenReturn(false);
+
+        // When
+        User user = manager.resolveCurrentUser(request, response);
+
+        // Then
+        assertNotNull(user);
+        Cookie reissued = response.getCookie(COOKIE);
+        assertNotNull(reissued);
+        SignedSessionCodec.Session session = codec.verify(reissued.getValue(), now()).orElseThrow();
+        assertTrue(session.expiresAt() > now() + TTL / 2);
+        assertEquals(ISSUED, session.issuedAt());
+        assertEquals("Anna", session.firstName());
+    }
+
+    @Test
+    void signedMode_SignOutRevokesSessionsAndClearsCookie() {
+        // Given
+        SessionManager manager = signedManager();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(COOKIE, codec.encode(7L, UserRole.READER, "Anna", ISSUED, now() + TTL)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        manager.signOut(request, response);
+
+        // Then
+        verify(revocationService).revoke(7L);
+        assertEquals(0, response.getCookie(COOKIE).getMaxAge());
+    }
+
+    @Test
+    void signedMode_SignOutWithoutValidCookieRevokesNothing() {
+        // Given
+        SessionManager manager = signedManager();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        manager.signOut(new MockHttpServletRequest(), response);
+
+        // Then
+        verifyNoInteractions(revocationService);
+        assertEquals(0, response.getCookie(COOKIE).getMaxAge());
+    }
+
+    @Test
+    void serverMode_InvalidatesRevokedSession() {
+        // Given
+        SessionManager manager = new SessionManager(SessionManager.Mode.SERVER, codec, COOKIE, TTL, false, revocationService);
+        MockHttpSession session = new MockHttpSession();
+        SessionUtil.setCurrentUser(session, user(7L, UserRole.READER));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        when(revocationService.isRevoked(eq(7L), anyLong())).thenReturn(true);
+
+        // When
+        User user = manager.resolveCurrentUser(request, new MockHttpServletResponse());
+
+        // Then
+        assertNull(user);
+        assertTrue(session.isInvalid());
+    }
+
+    private SessionManager signedManager() {
+        return new SessionManager(SessionManager.Mode.SIGNED, codec, COOKIE, TTL, false, revocationService);
+    }
+
+    private static User user(Long id, UserRole role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        user.setFirstName("Anna");
+        return user;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,151 @@
+package com.danyarov.library.util;
+
+import com.danyarov.library.model.UserRole;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedSessionCodecTest {
+
+    private static final long NOW = 1_700_000_000L;
+    private static final long ISSUED = NOW * 1000 - 5_000;
+
+    private final SignedSessionCodec codec = new SignedSessionCodec(SignedSessionCodec.keyBytes("secret"));
+
+    @Test
+    void verify_ReturnsEncodedFields() {
+        // Given
+        String token = codec.encode(42L, UserRole.LIBRARIAN, "Anna", ISSUED, NOW + 60);
+
+        // When
+        Optional<SignedSessionCodec.Session> session = codec.verify(token, NOW);
+
+        // Then
+        assertTrue(session.isPresent());
+        assertEquals(new SignedSessionCodec.Session(42L, UserRole.LIBRARIAN, "Anna", ISSUED, NOW + 60), session.get());
+    }
+
+    @Test
+    void verify_RejectsExpiredToken() {
+        // Given
+        String token = codec.encode(42L, UserRole.READER, "Anna", ISSUED, NOW);
+
+        // When & Then
+        assertTrue(codec.verify(token, NOW).isEmpty());
+        assertTrue(codec.verify(token, NOW - 1).isPresent());
+    }
+
+    @Test
+    void verify_RejectsTamperedPayload() {
+        // Given: promote the reader to admin without re-signing
+        byte[] data = Base64.getUrlDecoder().decode(codec.encode(42L, UserRole.READER, "Anna", ISSUED, NOW + 60));
+        data[8] = (byte) UserRole.ADMIN.ordinal();
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+
+        // When & Then
+        assertTrue(codec.verify(tampered, NOW).isEmpty());
+    }
+
+    @Test
+    void verify_RejectsTokenSignedWithAnotherSecret() {
+        // Given
+        String token = new SignedSessionCodec(SignedSessionCodec.keyBytes("other")).encode(42L, UserRole.READER, "Anna", ISSUED, NOW + 60);
+
+        // When & Then
+        assertTrue(codec.verify(token, NOW).isEmpty());
+    }
+
+    @Test
+    void verify_RejectsUnknownRole_EvenWhenSigned() throws Exception {
+        // Given: a role ordinal past the enum, signed with the right secret
+        ByteBuffer token = ByteBuffer.allocate(58);
+        token.putLong(42L).put((byte) UserRole.values().length).putLong(ISSUED).putLong(NOW + 60).put((byte) 0);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SignedSessionCodec.keyBytes("secret"), "HmacSHA256"));
+        mac.update(token.array(), 0, 26);
+        token.put(mac.doFinal());
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+
+        // When & Then
+        assertTrue(codec.verify(forged, NOW).isEmpty());
+    }
+
+    @Test
+    void verify_ReturnsNullName_WhenNoneWasEncoded() {
+        // Given
+        String token = codec.encode(42L, UserRole.READER, null, ISSUED, NOW + 60);
+
+        // When & Then
+        assertNull(codec.verify(token, NOW).orElseThrow().firstName());
+    }
+
+    @Test
+    void encode_ShortensLongNameAtCharacterBoundary() {
+        // Given: 47 ASCII bytes followed by a two-byte character crossing the 48-byte limit
+        String name = "a".repeat(47) + "\u00e9";
+
+        // When
+        String token = codec.encode(42L, UserRole.READER, name, ISSUED, NOW + 60);
+
+        // Then
+        assertEquals("a".repeat(47), codec.verify(token, NOW).orElseThrow().firstName());
+    }
+
+    @Test
+    void verify_RejectsNameLengthNotMatchingToken() throws Exception {
+        // Given: a signed token declaring a longer name than it carries
+        ByteBuffer token = ByteBuffer.allocate(60);
+        token.putLong(42L).put((byte) UserRole.READER.ordinal()).putLong(ISSUED).putLong(NOW + 60)
+                .put((byte) 5).put((byte) 'A').put((byte) 'n');
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SignedSessionCodec.keyBytes("secret"), "HmacSHA256"));
+        mac.update(token.array(), 0, 28);
+        token.put(mac.doFinal());
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+
+        // When & Then
+        assertTrue(codec.verify(forged, NOW).isEmpty());
+    }
+
+    @Test
+    void verify_RejectsAnyChangeToTheLastCharacter() {
+        // Given
+        String token = codec.encode(42L, UserRole.READER, "Anna", ISSUED, NOW + 60);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+        // When & Then
+        for (char c : alphabet.toCharArray()) {
+            String variant = token.substring(0, token.length() - 1) + c;
+            assertEquals(variant.equals(token), codec.verify(variant, NOW).isPresent());
+        }
+    }
+
+    @Test
+    void verify_ReusesDecodedSession_ForRepeatedToken() {
+        // Given
+        String token = codec.encode(42L, UserRole.READER, "Anna", ISSUED, NOW + 60);
+        Optional<SignedSessionCodec.Session> first = codec.verify(token, NOW);
+
+        // When
+        Optional<SignedSessionCodec.Session> second = codec.verify(new String(token), NOW);
+
+        // Then
+        assertSame(first.get(), second.get());
+        assertTrue(codec.verify(token, NOW + 60).isEmpty());
+    }
+
+    @Test
+    void verify_RejectsMalformedInput() {
+        // When & Then
+        assertTrue(codec.verify(null, NOW).isEmpty());
+        assertTrue(codec.verify("", NOW).isEmpty());
+        assertTrue(codec.verify("!".repeat(80), NOW).isEmpty());
+        assertTrue(codec.verify("A".repeat(81), NOW).isEmpty());
+    }
+}
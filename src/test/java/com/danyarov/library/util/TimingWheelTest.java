@@ -0,0 +1,83 @@
+package com.danyarov.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_FiresItemsAtOrAfterTheirDeadline_NeverEarly() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 1000);
+        wheel.add("a", 1015);
+        wheel.add("b", 1030);
+        List<String> fired = new ArrayList<>();
+
+        // When & Then
+        wheel.advance(1019, fired::add);
+        assertEquals(List.of(), fired);
+        wheel.advance(1020, fired::add);
+        assertEquals(List.of("a"), fired);
+        wheel.advance(1040, fired::add);
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_CascadesItemsFromCoarserLevels() {
+        // Given: level 0 spans 40 ms, so these land on levels 1, 2 and 3
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        wheel.add("level1", 95);
+        wheel.add("level2", 333);
+        wheel.add("level3", 2_000);
+        List<String> fired = new ArrayList<>();
+
+        // When & Then
+        wheel.advance(99, fired::add);
+        assertEquals(List.of(), fired);
+        wheel.advance(100, fired::add);
+        assertEquals(List.of("level1"), fired);
+        wheel.advance(339, fired::add);
+        assertEquals(List.of("level1"), fired);
+        wheel.advance(340, fired::add);
+        assertEquals(List.of("level1", "level2"), fired);
+        wheel.advance(2_010, fired::add);
+        assertEquals(List.of("level1", "level2", "level3"), fired);
+    }
+
+    @Test
+    void add_FiresOverdueItemOnNextAdvance() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 1000);
+        wheel.add("late", 500);
+        List<String> fired = new ArrayList<>();
+
+        // When
+        wheel.advance(1000, fired::add);
+
+        // Then
+        assertEquals(List.of("late"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_JumpsAheadWhenEmpty_AndKeepsDeadlinesAfterwards() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.advance(1_000_000, fired::add);
+
+        // When
+        wheel.add("x", 1_000_055);
+        wheel.advance(1_000_059, fired::add);
+        assertEquals(List.of(), fired);
+        wheel.advance(1_000_060, fired::add);
+
+        // Then
+        assertEquals(List.of("x"), fired);
+    }
+}